@@ -159,4 +159,10 @@ CREATE TABLE IF NOT EXISTS mobile_app_settings (
     CONSTRAINT mobile_app_settings_tenant_id_unq_key UNIQUE (tenant_id)
 );
 
--- MOBILE APP SETTINGS TABLE CREATE END
\ No newline at end of file
+-- MOBILE APP SETTINGS TABLE CREATE END
+
+-- EDGE EVENT SEQ ID INDEX CREATE START
+
+CREATE INDEX IF NOT EXISTS idx_edge_event_tenant_id_edge_id_seq_id ON edge_event(tenant_id, edge_id, seq_id);
+
+-- EDGE EVENT SEQ ID INDEX CREATE END
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.actors;
 
+import com.datastax.oss.driver.api.core.uuid.Uuids;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -51,6 +52,7 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
 import org.thingsboard.server.common.msg.TbActorMsg;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgDataType;
 import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
@@ -111,15 +113,18 @@ import org.thingsboard.server.service.profile.TbDeviceProfileCache;
 import org.thingsboard.server.service.rpc.TbCoreDeviceRpcService;
 import org.thingsboard.server.service.rpc.TbRpcService;
 import org.thingsboard.server.service.rpc.TbRuleEngineDeviceRpcService;
+import org.thingsboard.server.service.rule.TbRuleNodeDebugEventService;
 import org.thingsboard.server.service.session.DeviceSessionCacheService;
 import org.thingsboard.server.service.sms.SmsExecutorService;
 import org.thingsboard.server.service.state.DeviceStateService;
+import org.thingsboard.server.service.stats.RuleNodeStatsService;
 import org.thingsboard.server.service.telemetry.AlarmSubscriptionService;
 import org.thingsboard.server.service.telemetry.TelemetrySubscriptionService;
 import org.thingsboard.server.service.transport.TbCoreToTransportService;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
@@ -244,6 +249,10 @@ public class ActorSystemContext {
     @Getter
     private RuleChainService ruleChainService;
 
+    @Autowired
+    @Getter
+    private RuleNodeStatsService ruleNodeStatsService;
+
     @Autowired
     @Getter
     private RuleNodeStateService ruleNodeStateService;
@@ -268,6 +277,10 @@ public class ActorSystemContext {
     @Getter
     private EventService eventService;
 
+    @Autowired
+    @Getter
+    private TbRuleNodeDebugEventService ruleNodeDebugEventService;
+
     @Autowired
     @Getter
     private RelationService relationService;
@@ -479,6 +492,14 @@ public class ActorSystemContext {
     @Getter
     private long ruleChainErrorPersistFrequency;
 
+    @Value("${actors.rule.chain.inline_execution.enabled:false}")
+    @Getter
+    private boolean ruleChainInlineExecutionEnabled;
+
+    @Value("${actors.rule.chain.inline_execution.max_nodes_per_msg:100}")
+    @Getter
+    private int ruleChainInlineExecutionMaxNodes;
+
     @Value("${actors.rule.node.error_persist_frequency:3000}")
     @Getter
     private long ruleNodeErrorPersistFrequency;
@@ -665,7 +686,8 @@ public class ActorSystemContext {
     }
 
     private void persistDebugAsync(TenantId tenantId, EntityId entityId, String type, TbMsg tbMsg, String relationType, Throwable error, String failureMessage) {
-        if (checkLimits(tenantId, tbMsg, error)) {
+        boolean sampling = ruleNodeDebugEventService.isEnabled();
+        if (sampling || checkLimits(tenantId, tbMsg, error)) {
             try {
                 RuleNodeDebugEvent.RuleNodeDebugEventBuilder event = RuleNodeDebugEvent.builder()
                         .tenantId(tenantId)
@@ -675,7 +697,8 @@ public class ActorSystemContext {
                         .eventEntity(tbMsg.getOriginator())
                         .msgId(tbMsg.getId())
                         .msgType(tbMsg.getType())
-                        .dataType(tbMsg.getDataType().name())
+                        // Key-value list is shown as the rendered JSON object
+                        .dataType(tbMsg.getDataType() == TbMsgDataType.KV_LIST ? TbMsgDataType.JSON.name() : tbMsg.getDataType().name())
                         .relationType(relationType)
                         .data(tbMsg.getData())
                         .metadata(JacksonUtil.toString(tbMsg.getMetaData().getData()));
@@ -686,7 +709,19 @@ public class ActorSystemContext {
                     event.error(failureMessage);
                 }
 
-                ListenableFuture<Void> future = eventService.saveAsync(event.build());
+                RuleNodeDebugEvent debugEvent;
+                if (sampling) {
+                    UUID eventId = Uuids.timeBased();
+                    debugEvent = event.id(eventId).ts(Uuids.unixTimestamp(eventId)).build();
+                    // Events that are not sampled are kept in memory and in the archive only
+                    if (!ruleNodeDebugEventService.capture(debugEvent) || !checkLimits(tenantId, tbMsg, error)) {
+                        return;
+                    }
+                } else {
+                    debugEvent = event.build();
+                }
+
+                ListenableFuture<Void> future = eventService.saveAsync(debugEvent);
                 Futures.addCallback(future, RULE_NODE_DEBUG_EVENT_ERROR_CALLBACK, MoreExecutors.directExecutor());
             } catch (IllegalArgumentException ex) {
                 log.warn("Failed to persist rule node debug message", ex);
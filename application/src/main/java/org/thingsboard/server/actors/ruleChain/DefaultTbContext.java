@@ -112,6 +112,7 @@ import org.thingsboard.server.service.executors.PubSubRuleNodeExecutorProvider;
 import org.thingsboard.server.queue.common.SimpleTbQueueCallback;
 import org.thingsboard.server.service.script.RuleNodeJsScriptEngine;
 import org.thingsboard.server.service.script.RuleNodeTbelScriptEngine;
+import org.thingsboard.server.service.stats.RuleNodeStats;
 
 import java.util.Collections;
 import java.util.List;
@@ -133,6 +134,9 @@ class DefaultTbContext implements TbContext {
     private final ActorSystemContext mainCtx;
     private final String ruleChainName;
     private final RuleNodeCtx nodeCtx;
+    private volatile RuleNodeStats processingStats;
+    private String processingQueueName;
+    private long processingStartNanos;
 
     public DefaultTbContext(ActorSystemContext mainCtx, String ruleChainName, RuleNodeCtx nodeCtx) {
         this.mainCtx = mainCtx;
@@ -160,7 +164,12 @@ class DefaultTbContext implements TbContext {
             relationTypes.forEach(relationType -> mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), msg, relationType, th));
         }
         msg.getCallback().onProcessingEnd(nodeCtx.getSelf().getId());
-        nodeCtx.getChainActor().tell(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(), nodeCtx.getSelf().getId(), relationTypes, msg, th != null ? th.getMessage() : null));
+        recordProcessing();
+        tellChainActor(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(), nodeCtx.getSelf().getId(), relationTypes, msg, th != null ? th.getMessage() : null));
+    }
+
+    void tellChainActor(RuleNodeToRuleChainTellNextMsg tellNextMsg) {
+        nodeCtx.getChainActor().tell(tellNextMsg);
     }
 
     @Override
@@ -334,6 +343,7 @@ class DefaultTbContext implements TbContext {
             mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), tbMsg, "ACK", null);
         }
         tbMsg.getCallback().onProcessingEnd(nodeCtx.getSelf().getId());
+        recordProcessing();
         tbMsg.getCallback().onSuccess();
     }
 
@@ -351,12 +361,33 @@ class DefaultTbContext implements TbContext {
         if (nodeCtx.getSelf().isDebugMode()) {
             mainCtx.persistDebugOutput(nodeCtx.getTenantId(), nodeCtx.getSelf().getId(), msg, TbNodeConnectionType.FAILURE, th);
         }
+        recordProcessing();
         String failureMessage = getFailureMessage(th);
-        nodeCtx.getChainActor().tell(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(),
+        tellChainActor(new RuleNodeToRuleChainTellNextMsg(nodeCtx.getSelf().getRuleChainId(),
                 nodeCtx.getSelf().getId(), Collections.singleton(TbNodeConnectionType.FAILURE),
                 msg, failureMessage));
     }
 
+    /**
+     * Starts measuring the processing of the message this context was created for.
+     * The time is recorded when the node reports the outcome of the message, so asynchronous nodes are measured
+     * until their callback instead of the return from onMsg.
+     */
+    void onProcessingStart(RuleNodeStats stats, String queueName, long startNanos) {
+        this.processingQueueName = queueName;
+        this.processingStartNanos = startNanos;
+        this.processingStats = stats;
+    }
+
+    private void recordProcessing() {
+        RuleNodeStats stats = processingStats;
+        if (stats != null) {
+            // only the first outcome is recorded, e.g. when the node sends the message to several relations
+            processingStats = null;
+            stats.recordProcessing(processingQueueName, System.nanoTime() - processingStartNanos);
+        }
+    }
+
     public void updateSelf(RuleNode self) {
         nodeCtx.setSelf(self);
     }
@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.common.data.ApiUsageRecordKey;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleState;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.queue.RuleNodeException;
+import org.thingsboard.server.common.msg.queue.RuleNodeInfo;
+
+import java.util.function.Consumer;
+
+/**
+ * Instance of a stateless rule node that is executed by the rule chain actor itself, in the same actor turn
+ * as the message that was routed to it. Mirrors the processing done by {@link RuleNodeActorMessageProcessor},
+ * but the outcome of the node is handed back to the rule chain instead of being sent through its mailbox.
+ */
+@Slf4j
+class InlineRuleNode {
+
+    private final ActorSystemContext systemContext;
+    private final String ruleChainName;
+    private final RuleNodeCtx nodeCtx;
+    private final DefaultTbContext ctx;
+    private RuleNodeInfo info;
+    private TbNode tbNode;
+    private ComponentLifecycleState state = ComponentLifecycleState.SUSPENDED;
+
+    InlineRuleNode(ActorSystemContext systemContext, String ruleChainName, RuleNodeCtx nodeCtx,
+                   Consumer<RuleNodeToRuleChainTellNextMsg> output) {
+        this.systemContext = systemContext;
+        this.ruleChainName = ruleChainName;
+        this.nodeCtx = nodeCtx;
+        this.ctx = new DefaultTbContext(systemContext, ruleChainName, nodeCtx) {
+            @Override
+            void tellChainActor(RuleNodeToRuleChainTellNextMsg tellNextMsg) {
+                output.accept(tellNextMsg);
+            }
+        };
+        this.info = new RuleNodeInfo(nodeCtx.getSelf().getId(), ruleChainName, nodeCtx.getSelf().getName());
+    }
+
+    /**
+     * The only gate for inline execution. Singleton nodes are processed on the server owning the node partition,
+     * so they are always left to the rule node actor, which forwards the messages there.
+     */
+    static boolean isSupported(RuleNode ruleNode) {
+        if (ruleNode.isSingletonMode()) {
+            return false;
+        }
+        try {
+            org.thingsboard.rule.engine.api.RuleNode annotation = Class.forName(ruleNode.getType())
+                    .getAnnotation(org.thingsboard.rule.engine.api.RuleNode.class);
+            return annotation != null && annotation.stateless();
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    boolean init() {
+        RuleNode ruleNode = nodeCtx.getSelf();
+        try {
+            tbNode = (TbNode) Class.forName(ruleNode.getType()).getDeclaredConstructor().newInstance();
+            tbNode.init(ctx, new TbNodeConfiguration(ruleNode.getConfiguration()));
+            state = ComponentLifecycleState.ACTIVE;
+            return true;
+        } catch (Exception e) {
+            log.warn("[{}][{}] Failed to init rule node for inline execution, falling back to rule node actor", nodeCtx.getTenantId(), ruleNode.getId(), e);
+            tbNode = null;
+            return false;
+        }
+    }
+
+    /**
+     * Picks up the changes of the rule node that do not require the node to be re-created, like its name.
+     */
+    void updateInfo() {
+        RuleNode ruleNode = nodeCtx.getSelf();
+        info = new RuleNodeInfo(ruleNode.getId(), ruleChainName, ruleNode.getName());
+    }
+
+    void onMsg(TbMsg msg, String fromRelationType) {
+        RuleNode ruleNode = nodeCtx.getSelf();
+        msg.getCallback().onProcessingStart(info);
+        if (state != ComponentLifecycleState.ACTIVE) {
+            log.debug("[{}][{}] Rule node is not active. Current state [{}]", nodeCtx.getTenantId(), ruleNode.getId(), state);
+            msg.getCallback().onFailure(new RuleNodeException("Rule Node is not active! Failed to initialize.", ruleChainName, ruleNode));
+            return;
+        }
+        int ruleNodeCount = msg.getAndIncrementRuleNodeCounter();
+        int maxRuleNodeExecutionsPerMessage = systemContext.getTenantProfileCache().get(nodeCtx.getTenantId())
+                .getProfileData().getConfiguration().getMaxRuleNodeExecsPerMessage();
+        if (maxRuleNodeExecutionsPerMessage == 0 || ruleNodeCount < maxRuleNodeExecutionsPerMessage) {
+            systemContext.getApiUsageClient().report(nodeCtx.getTenantId(), msg.getCustomerId(), ApiUsageRecordKey.RE_EXEC_COUNT);
+            if (ruleNode.isDebugMode()) {
+                systemContext.persistDebugInput(nodeCtx.getTenantId(), ruleNode.getId(), msg, fromRelationType);
+            }
+            try {
+                tbNode.onMsg(ctx, msg);
+            } catch (Exception e) {
+                ctx.tellFailure(msg, e);
+            }
+        } else {
+            msg.getCallback().onFailure(new RuleNodeException("Message is processed by more then " + maxRuleNodeExecutionsPerMessage + " rule nodes!", ruleChainName, ruleNode));
+        }
+    }
+
+    void destroy() {
+        if (tbNode != null) {
+            tbNode.destroy();
+            tbNode = null;
+        }
+        state = ComponentLifecycleState.SUSPENDED;
+    }
+
+}
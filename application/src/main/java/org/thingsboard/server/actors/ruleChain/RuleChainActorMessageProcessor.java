@@ -49,9 +49,12 @@ import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
 import org.thingsboard.server.queue.TbQueueCallback;
 import org.thingsboard.server.queue.common.MultipleTbQueueTbMsgCallbackWrapper;
 import org.thingsboard.server.queue.common.TbQueueTbMsgCallbackWrapper;
+import org.thingsboard.server.service.stats.RuleNodeStats;
+import org.thingsboard.server.service.stats.RuleNodeStatsService;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -69,15 +72,21 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     private final TbActorRef parent;
     private final TbActorRef self;
     private final Map<RuleNodeId, RuleNodeCtx> nodeActors;
-    private final Map<RuleNodeId, List<RuleNodeRelation>> nodeRoutes;
+    private final Map<RuleNodeId, InlineRuleNode> inlineNodes;
+    private final Map<RuleNodeId, RuleNodeStats> nodeStats;
+    private final Deque<RuleNodeToRuleChainTellNextMsg> inlineOutput;
     private final RuleChainService service;
     private final TbClusterService clusterService;
     private final TbApiUsageReportClient apiUsageClient;
+    private final RuleNodeStatsService ruleNodeStatsService;
     private String ruleChainName;
 
+    private RuleChainRoutingTable routingTable = RuleChainRoutingTable.EMPTY;
     private RuleNodeId firstId;
     private RuleNodeCtx firstNode;
     private boolean started;
+    private boolean processingInlineOutput;
+    private int inlineExecutions;
 
     RuleChainActorMessageProcessor(TenantId tenantId, RuleChain ruleChain, ActorSystemContext systemContext, TbActorRef parent, TbActorRef self) {
         super(systemContext, tenantId, ruleChain.getId());
@@ -86,9 +95,12 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         this.parent = parent;
         this.self = self;
         this.nodeActors = new HashMap<>();
-        this.nodeRoutes = new HashMap<>();
+        this.inlineNodes = new HashMap<>();
+        this.nodeStats = new HashMap<>();
+        this.inlineOutput = new ArrayDeque<>();
         this.service = systemContext.getRuleChainService();
         this.clusterService = systemContext.getClusterService();
+        this.ruleNodeStatsService = systemContext.getRuleNodeStatsService();
     }
 
     @Override
@@ -107,7 +119,10 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 for (RuleNode ruleNode : ruleNodeList) {
                     log.trace("[{}][{}] Creating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
                     TbActorRef ruleNodeActor = createRuleNodeActor(context, ruleNode);
-                    nodeActors.put(ruleNode.getId(), new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode));
+                    RuleNodeCtx ruleNodeCtx = new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode);
+                    nodeActors.put(ruleNode.getId(), ruleNodeCtx);
+                    initNodeStats(ruleNode);
+                    initInlineNode(ruleNodeCtx);
                 }
                 initRoutes(ruleChain, ruleNodeList);
                 started = true;
@@ -129,11 +144,27 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 if (existing == null) {
                     log.trace("[{}][{}] Creating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
                     TbActorRef ruleNodeActor = createRuleNodeActor(context, ruleNode);
-                    nodeActors.put(ruleNode.getId(), new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode));
+                    RuleNodeCtx ruleNodeCtx = new RuleNodeCtx(tenantId, self, ruleNodeActor, ruleNode);
+                    nodeActors.put(ruleNode.getId(), ruleNodeCtx);
+                    initNodeStats(ruleNode);
+                    initInlineNode(ruleNodeCtx);
                 } else {
                     log.trace("[{}][{}] Updating rule node [{}]: {}", entityId, ruleNode.getId(), ruleNode.getName(), ruleNode);
+                    RuleNode previous = existing.getSelf();
+                    boolean restartRequired = !(previous.getType().equals(ruleNode.getType())
+                            && previous.getConfiguration().equals(ruleNode.getConfiguration())
+                            && previous.isSingletonMode() == ruleNode.isSingletonMode());
                     existing.setSelf(ruleNode);
                     existing.getSelfActor().tellWithHighPriority(new RuleNodeUpdatedMsg(tenantId, existing.getSelf().getId()));
+                    if (restartRequired) {
+                        destroyInlineNode(ruleNode.getId());
+                        initInlineNode(existing);
+                    } else {
+                        InlineRuleNode inlineNode = inlineNodes.get(ruleNode.getId());
+                        if (inlineNode != null) {
+                            inlineNode.updateInfo();
+                        }
+                    }
                 }
             }
 
@@ -142,6 +173,8 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
             removedRules.forEach(ruleNodeId -> {
                 log.trace("[{}][{}] Removing rule node [{}]", tenantId, entityId, ruleNodeId);
                 RuleNodeCtx removed = nodeActors.remove(ruleNodeId);
+                destroyInlineNode(ruleNodeId);
+                ruleNodeStatsService.unregister(nodeStats.remove(ruleNodeId));
                 removed.getSelfActor().tellWithHighPriority(new ComponentLifecycleMsg(tenantId, removed.getSelf().getId(), ComponentLifecycleEvent.DELETED));
             });
 
@@ -154,7 +187,11 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         log.trace("[{}][{}] Stopping rule chain with {} nodes", tenantId, entityId, nodeActors.size());
         nodeActors.values().stream().map(RuleNodeCtx::getSelfActor).map(TbActorRef::getActorId).forEach(ctx::stop);
         nodeActors.clear();
-        nodeRoutes.clear();
+        inlineNodes.values().forEach(InlineRuleNode::destroy);
+        inlineNodes.clear();
+        nodeStats.values().forEach(ruleNodeStatsService::unregister);
+        nodeStats.clear();
+        routingTable = RuleChainRoutingTable.EMPTY;
         started = false;
     }
 
@@ -171,28 +208,50 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                 () -> true);
     }
 
+    private void initNodeStats(RuleNode ruleNode) {
+        RuleNodeStats stats = ruleNodeStatsService.register(tenantId, entityId, ruleNode);
+        if (stats != null) {
+            nodeStats.put(ruleNode.getId(), stats);
+        }
+    }
+
+    private void initInlineNode(RuleNodeCtx ruleNodeCtx) {
+        if (systemContext.isRuleChainInlineExecutionEnabled() && InlineRuleNode.isSupported(ruleNodeCtx.getSelf())) {
+            InlineRuleNode inlineNode = new InlineRuleNode(systemContext, ruleChainName, ruleNodeCtx, inlineOutput::add);
+            if (inlineNode.init()) {
+                log.trace("[{}][{}] Rule node [{}] will be executed inline", tenantId, entityId, ruleNodeCtx.getSelf().getId());
+                inlineNodes.put(ruleNodeCtx.getSelf().getId(), inlineNode);
+            }
+        }
+    }
+
+    private void destroyInlineNode(RuleNodeId ruleNodeId) {
+        InlineRuleNode inlineNode = inlineNodes.remove(ruleNodeId);
+        if (inlineNode != null) {
+            inlineNode.destroy();
+        }
+    }
+
     private void initRoutes(RuleChain ruleChain, List<RuleNode> ruleNodeList) {
-        nodeRoutes.clear();
-        // Populating the routes map;
+        // Building the routing table and replacing the current one only when all relations are resolved;
+        RuleChainRoutingTable.Builder routingTableBuilder = RuleChainRoutingTable.builder();
         for (RuleNode ruleNode : ruleNodeList) {
             List<EntityRelation> relations = service.getRuleNodeRelations(TenantId.SYS_TENANT_ID, ruleNode.getId());
             log.trace("[{}][{}][{}] Processing rule node relations [{}]", tenantId, entityId, ruleNode.getId(), relations.size());
-            if (relations.size() == 0) {
-                nodeRoutes.put(ruleNode.getId(), Collections.emptyList());
-            } else {
-                for (EntityRelation relation : relations) {
-                    log.trace("[{}][{}][{}] Processing rule node relation [{}]", tenantId, entityId, ruleNode.getId(), relation.getTo());
-                    if (relation.getTo().getEntityType() == EntityType.RULE_NODE) {
-                        RuleNodeCtx ruleNodeCtx = nodeActors.get(new RuleNodeId(relation.getTo().getId()));
-                        if (ruleNodeCtx == null) {
-                            throw new IllegalArgumentException("Rule Node [" + relation.getFrom() + "] has invalid relation to Rule node [" + relation.getTo() + "]");
-                        }
+            routingTableBuilder.addNode(ruleNode.getId());
+            for (EntityRelation relation : relations) {
+                log.trace("[{}][{}][{}] Processing rule node relation [{}]", tenantId, entityId, ruleNode.getId(), relation.getTo());
+                RuleNodeCtx ruleNodeCtx = null;
+                if (relation.getTo().getEntityType() == EntityType.RULE_NODE) {
+                    ruleNodeCtx = nodeActors.get(new RuleNodeId(relation.getTo().getId()));
+                    if (ruleNodeCtx == null) {
+                        throw new IllegalArgumentException("Rule Node [" + relation.getFrom() + "] has invalid relation to Rule node [" + relation.getTo() + "]");
                     }
-                    nodeRoutes.computeIfAbsent(ruleNode.getId(), k -> new ArrayList<>())
-                            .add(new RuleNodeRelation(ruleNode.getId(), relation.getTo(), relation.getType()));
                 }
+                routingTableBuilder.addRelation(ruleNode.getId(), relation.getTo(), relation.getType(), ruleNodeCtx);
             }
         }
+        routingTable = routingTableBuilder.build();
 
         firstId = ruleChain.getFirstRuleNodeId();
         firstNode = nodeActors.get(firstId);
@@ -296,16 +355,12 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
             EntityId entityId = msg.getOriginator();
             TopicPartitionInfo tpi = systemContext.resolve(tenantId, entityId, msg);
 
-            List<RuleNodeRelation> ruleNodeRelations = nodeRoutes.get(originatorNodeId);
-            if (ruleNodeRelations == null) { // When unchecked, this will cause NullPointerException when rule node doesn't exist anymore
+            RuleNodeRelation[] relationsByTypes = routingTable.getRelations(originatorNodeId, relationTypes);
+            if (relationsByTypes == null) { // When unchecked, this will cause NullPointerException when rule node doesn't exist anymore
                 log.warn("[{}][{}][{}] No outbound relations (null). Probably rule node does not exist. Probably old message.", tenantId, entityId, msg.getId());
-                ruleNodeRelations = Collections.emptyList();
+                relationsByTypes = RuleChainRoutingTable.NO_RELATIONS;
             }
-
-            List<RuleNodeRelation> relationsByTypes = ruleNodeRelations.stream()
-                    .filter(r -> contains(relationTypes, r.getType()))
-                    .collect(Collectors.toList());
-            int relationsCount = relationsByTypes.size();
+            int relationsCount = relationsByTypes.length;
             if (relationsCount == 0) {
                 log.trace("[{}][{}][{}] No outbound relations to process", tenantId, entityId, msg.getId());
                 if (relationTypes.contains(TbNodeConnectionType.FAILURE)) {
@@ -320,10 +375,9 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                     msg.getCallback().onSuccess();
                 }
             } else if (relationsCount == 1) {
-                for (RuleNodeRelation relation : relationsByTypes) {
-                    log.trace("[{}][{}][{}] Pushing message to single target: [{}]", tenantId, entityId, msg.getId(), relation.getOut());
-                    pushToTarget(tpi, msg, relation.getOut(), relation.getType());
-                }
+                RuleNodeRelation relation = relationsByTypes[0];
+                log.trace("[{}][{}][{}] Pushing message to single target: [{}]", tenantId, entityId, msg.getId(), relation.getOut());
+                pushToTarget(tpi, msg, relation);
             } else {
                 MultipleTbQueueTbMsgCallbackWrapper callbackWrapper = new MultipleTbQueueTbMsgCallbackWrapper(relationsCount, msg.getCallback());
                 log.trace("[{}][{}][{}] Pushing message to multiple targets: [{}]", tenantId, entityId, msg.getId(), relationsByTypes);
@@ -351,11 +405,13 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         }
     }
 
-    private void pushToTarget(TopicPartitionInfo tpi, TbMsg msg, EntityId target, String fromRelationType) {
+    private void pushToTarget(TopicPartitionInfo tpi, TbMsg msg, RuleNodeRelation relation) {
+        EntityId target = relation.getOut();
+        String fromRelationType = relation.getType();
         if (tpi.isMyPartition()) {
             switch (target.getEntityType()) {
                 case RULE_NODE:
-                    pushMsgToNode(nodeActors.get(new RuleNodeId(target.getId())), msg, fromRelationType);
+                    pushMsgToNode(relation.getTargetCtx(), msg, fromRelationType);
                     break;
                 case RULE_CHAIN:
                     parent.tell(new RuleChainToRuleChainMsg(new RuleChainId(target.getId()), entityId, msg, fromRelationType));
@@ -375,27 +431,53 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         clusterService.pushMsgToRuleEngine(tpi, newMsg.getId(), toQueueMsg, callbackWrapper);
     }
 
-    private boolean contains(Set<String> relationTypes, String type) {
-        if (relationTypes == null) {
-            return true;
-        }
-        for (String relationType : relationTypes) {
-            if (relationType.equalsIgnoreCase(type)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private void pushMsgToNode(RuleNodeCtx nodeCtx, TbMsg msg, String fromRelationType) {
         if (nodeCtx != null) {
-            nodeCtx.getSelfActor().tell(new RuleChainToRuleNodeMsg(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), msg, fromRelationType));
+            RuleNodeStats stats = nodeStats.get(nodeCtx.getSelf().getId());
+            InlineRuleNode inlineNode = inlineNodes.get(nodeCtx.getSelf().getId());
+            if (inlineNode != null && inlineExecutions < systemContext.getRuleChainInlineExecutionMaxNodes()) {
+                executeInline(inlineNode, stats, msg, fromRelationType);
+                return;
+            }
+            if (stats != null) {
+                stats.onEnqueue();
+            }
+            nodeCtx.getSelfActor().tell(new RuleChainToRuleNodeMsg(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), msg, fromRelationType, stats));
         } else {
             log.error("[{}][{}] RuleNodeCtx is empty", entityId, ruleChainName);
             msg.getCallback().onFailure(new RuleEngineException("Rule Node CTX is empty"));
         }
     }
 
+    /*
+     * Executes the node in the current actor turn and routes its output right away, as if the corresponding
+     * RuleNodeToRuleChainTellNextMsg was received from the rule node actor. The output is processed iteratively,
+     * so a run of inline nodes never grows the stack, and the number of inline executions per turn is limited
+     * to let the rest of the chain go through the node actors again.
+     */
+    private void executeInline(InlineRuleNode inlineNode, RuleNodeStats stats, TbMsg msg, String fromRelationType) {
+        inlineExecutions++;
+        if (stats != null) {
+            long startNanos = System.nanoTime();
+            inlineNode.onMsg(msg, fromRelationType);
+            stats.recordProcessing(msg.getQueueName(), System.nanoTime() - startNanos);
+        } else {
+            inlineNode.onMsg(msg, fromRelationType);
+        }
+        if (!processingInlineOutput) {
+            processingInlineOutput = true;
+            try {
+                RuleNodeToRuleChainTellNextMsg tellNextMsg;
+                while ((tellNextMsg = inlineOutput.poll()) != null) {
+                    onTellNext(tellNextMsg);
+                }
+            } finally {
+                processingInlineOutput = false;
+                inlineExecutions = 0;
+            }
+        }
+    }
+
     @Override
     protected RuleNodeException getInactiveException() {
         RuleNode firstRuleNode = firstNode != null ? firstNode.getSelf() : null;
@@ -0,0 +1,159 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable outgoing routes of the rule nodes of a rule chain. Relation types are mapped to small ints when the table
+ * is built and each rule node keeps its relations grouped by type id, so routing a message with a single relation type
+ * is a couple of map lookups without filtering or allocation. Relation types are matched ignoring case, as before.
+ */
+final class RuleChainRoutingTable {
+
+    static final RuleNodeRelation[] NO_RELATIONS = new RuleNodeRelation[0];
+    static final RuleChainRoutingTable EMPTY = new Builder().build();
+
+    private final Map<RuleNodeId, NodeRoutes> routes;
+    private final Map<String, Integer> typeIds;
+    private final NavigableMap<String, Integer> typeIdsIgnoreCase;
+
+    private RuleChainRoutingTable(Map<RuleNodeId, NodeRoutes> routes, Map<String, Integer> typeIds, NavigableMap<String, Integer> typeIdsIgnoreCase) {
+        this.routes = routes;
+        this.typeIds = typeIds;
+        this.typeIdsIgnoreCase = typeIdsIgnoreCase;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the relations of the rule node that match any of the relation types (all relations if the types are null),
+     * in the order they were added, or null if the rule node is not part of the table.
+     * The returned array is shared and must not be modified.
+     */
+    RuleNodeRelation[] getRelations(RuleNodeId ruleNodeId, Set<String> relationTypes) {
+        NodeRoutes nodeRoutes = routes.get(ruleNodeId);
+        if (nodeRoutes == null) {
+            return null;
+        }
+        if (relationTypes == null) {
+            return nodeRoutes.all;
+        }
+        int typesCount = relationTypes.size();
+        if (typesCount == 0 || nodeRoutes.all.length == 0) {
+            return NO_RELATIONS;
+        }
+        if (typesCount == 1) {
+            int typeId = getTypeId(relationTypes.iterator().next());
+            return typeId >= 0 ? nodeRoutes.byType[typeId] : NO_RELATIONS;
+        }
+        boolean[] matchingTypes = new boolean[typeIdsIgnoreCase.size()];
+        boolean anyType = false;
+        for (String relationType : relationTypes) {
+            int typeId = getTypeId(relationType);
+            if (typeId >= 0 && nodeRoutes.byType[typeId].length > 0) {
+                matchingTypes[typeId] = true;
+                anyType = true;
+            }
+        }
+        if (!anyType) {
+            return NO_RELATIONS;
+        }
+        List<RuleNodeRelation> result = new ArrayList<>();
+        for (RuleNodeRelation relation : nodeRoutes.all) {
+            if (matchingTypes[relation.getTypeId()]) {
+                result.add(relation);
+            }
+        }
+        return result.toArray(NO_RELATIONS);
+    }
+
+    int getTypeId(String relationType) {
+        if (relationType == null) {
+            return -1;
+        }
+        Integer typeId = typeIds.get(relationType);
+        if (typeId == null) {
+            typeId = typeIdsIgnoreCase.get(relationType);
+        }
+        return typeId != null ? typeId : -1;
+    }
+
+    private static final class NodeRoutes {
+        private final RuleNodeRelation[] all;
+        private final RuleNodeRelation[][] byType;
+
+        private NodeRoutes(RuleNodeRelation[] all, RuleNodeRelation[][] byType) {
+            this.all = all;
+            this.byType = byType;
+        }
+    }
+
+    static final class Builder {
+
+        private final Map<RuleNodeId, List<RuleNodeRelation>> relations = new HashMap<>();
+        private final Map<String, Integer> typeIds = new HashMap<>();
+        private final NavigableMap<String, Integer> typeIdsIgnoreCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        private Builder() {
+        }
+
+        Builder addNode(RuleNodeId ruleNodeId) {
+            relations.computeIfAbsent(ruleNodeId, id -> new ArrayList<>());
+            return this;
+        }
+
+        Builder addRelation(RuleNodeId from, EntityId to, String type, RuleNodeCtx targetCtx) {
+            int typeId = typeIdsIgnoreCase.computeIfAbsent(type, t -> typeIdsIgnoreCase.size());
+            typeIds.putIfAbsent(type, typeId);
+            relations.computeIfAbsent(from, id -> new ArrayList<>()).add(new RuleNodeRelation(from, to, type, typeId, targetCtx));
+            return this;
+        }
+
+        RuleChainRoutingTable build() {
+            int typesCount = typeIdsIgnoreCase.size();
+            Map<RuleNodeId, NodeRoutes> routes = new HashMap<>();
+            relations.forEach((ruleNodeId, nodeRelations) -> {
+                RuleNodeRelation[] all = nodeRelations.toArray(NO_RELATIONS);
+                RuleNodeRelation[][] byType = new RuleNodeRelation[typesCount][];
+                for (int typeId = 0; typeId < typesCount; typeId++) {
+                    List<RuleNodeRelation> typeRelations = new ArrayList<>();
+                    for (RuleNodeRelation relation : all) {
+                        if (relation.getTypeId() == typeId) {
+                            typeRelations.add(relation);
+                        }
+                    }
+                    byType[typeId] = typeRelations.isEmpty() ? NO_RELATIONS : typeRelations.toArray(NO_RELATIONS);
+                }
+                routes.put(ruleNodeId, new NodeRoutes(all, byType));
+            });
+            return new RuleChainRoutingTable(Map.copyOf(routes), Map.copyOf(typeIds), Collections.unmodifiableNavigableMap(typeIdsIgnoreCase));
+        }
+    }
+
+}
@@ -20,7 +20,9 @@ import lombok.Getter;
 import lombok.ToString;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.server.common.msg.MsgType;
+import org.thingsboard.server.common.msg.TbActorStopReason;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.service.stats.RuleNodeStats;
 
 /**
  * Created by ashvayka on 19.03.18.
@@ -31,10 +33,32 @@ final class RuleChainToRuleNodeMsg extends TbToRuleNodeActorMsg {
 
     @Getter
     private final String fromRelationType;
+    @Getter
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final RuleNodeStats stats;
+    @Getter
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final long enqueuedNanos;
 
     public RuleChainToRuleNodeMsg(TbContext ctx, TbMsg tbMsg, String fromRelationType) {
+        this(ctx, tbMsg, fromRelationType, null);
+    }
+
+    public RuleChainToRuleNodeMsg(TbContext ctx, TbMsg tbMsg, String fromRelationType, RuleNodeStats stats) {
         super(ctx, tbMsg);
         this.fromRelationType = fromRelationType;
+        this.stats = stats;
+        this.enqueuedNanos = stats != null ? System.nanoTime() : 0L;
+    }
+
+    @Override
+    public void onTbActorStopped(TbActorStopReason reason) {
+        if (stats != null) {
+            stats.onDrop();
+        }
+        super.onTbActorStopped(reason);
     }
 
     @Override
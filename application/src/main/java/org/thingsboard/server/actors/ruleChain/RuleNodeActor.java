@@ -29,6 +29,7 @@ import org.thingsboard.server.common.msg.TbActorMsg;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.plugin.ComponentLifecycleMsg;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
+import org.thingsboard.server.service.stats.RuleNodeStats;
 
 @Slf4j
 public class RuleNodeActor extends RuleEngineComponentActor<RuleNodeId, RuleNodeActorMessageProcessor> {
@@ -88,6 +89,14 @@ public class RuleNodeActor extends RuleEngineComponentActor<RuleNodeId, RuleNode
 
     private void onRuleChainToRuleNodeMsg(RuleChainToRuleNodeMsg envelope) {
         TbMsg msg = envelope.getMsg();
+        RuleNodeStats stats = envelope.getStats();
+        if (stats != null) {
+            long startNanos = System.nanoTime();
+            stats.onDequeue(msg.getQueueName(), startNanos - envelope.getEnqueuedNanos());
+            if (envelope.getCtx() instanceof DefaultTbContext ctx) {
+                ctx.onProcessingStart(stats, msg.getQueueName(), startNanos);
+            }
+        }
         if (!msg.isValid()) {
             if (log.isTraceEnabled()) {
                 log.trace("Skip processing of message: {} because it is no longer valid!", msg);
@@ -16,6 +16,8 @@
 package org.thingsboard.server.actors.ruleChain;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.thingsboard.server.common.data.id.EntityId;
 
 /**
@@ -28,5 +30,15 @@ final class RuleNodeRelation {
     private final EntityId in;
     private final EntityId out;
     private final String type;
+    /**
+     * Id of the relation type within the {@link RuleChainRoutingTable} the relation belongs to.
+     */
+    private final int typeId;
+    /**
+     * Context of the target rule node, resolved when the routing table is built. Null for rule chain targets.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final RuleNodeCtx targetCtx;
 
 }
@@ -31,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.EventInfo;
 import org.thingsboard.server.common.data.event.EventFilter;
 import org.thingsboard.server.common.data.event.EventType;
@@ -38,14 +39,19 @@ import org.thingsboard.server.common.data.exception.ThingsboardErrorCode;
 import org.thingsboard.server.common.data.exception.ThingsboardException;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.EntityIdFactory;
+import org.thingsboard.server.common.data.id.RuleNodeId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.TimePageLink;
 import org.thingsboard.server.config.annotations.ApiOperation;
 import org.thingsboard.server.dao.event.EventService;
 import org.thingsboard.server.queue.util.TbCoreComponent;
+import org.thingsboard.server.service.rule.TbRuleNodeDebugEventService;
 import org.thingsboard.server.service.security.permission.Operation;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.thingsboard.server.controller.ControllerConstants.ENTITY_ID;
 import static org.thingsboard.server.controller.ControllerConstants.ENTITY_ID_PARAM_DESCRIPTION;
 import static org.thingsboard.server.controller.ControllerConstants.ENTITY_TYPE;
@@ -62,6 +68,7 @@ import static org.thingsboard.server.controller.ControllerConstants.NEW_LINE;
 import static org.thingsboard.server.controller.ControllerConstants.PAGE_DATA_PARAMETERS;
 import static org.thingsboard.server.controller.ControllerConstants.PAGE_NUMBER_DESCRIPTION;
 import static org.thingsboard.server.controller.ControllerConstants.PAGE_SIZE_DESCRIPTION;
+import static org.thingsboard.server.controller.ControllerConstants.RULE_NODE_ID_PARAM_DESCRIPTION;
 import static org.thingsboard.server.controller.ControllerConstants.SORT_ORDER_DESCRIPTION;
 import static org.thingsboard.server.controller.ControllerConstants.SORT_PROPERTY_DESCRIPTION;
 import static org.thingsboard.server.controller.ControllerConstants.TENANT_ID;
@@ -106,6 +113,9 @@ public class EventController extends BaseController {
     @Autowired
     private EventService eventService;
 
+    @Autowired
+    private TbRuleNodeDebugEventService ruleNodeDebugEventService;
+
     @ApiOperation(value = "Get Events by type (getEvents)",
             notes = "Returns a page of events for specified entity by specifying event type. " +
                     PAGE_DATA_PARAMETERS)
@@ -250,6 +260,27 @@ public class EventController extends BaseController {
         eventService.removeEvents(getTenantId(), entityId, eventFilter, startTime, endTime);
     }
 
+    @ApiOperation(value = "Get latest rule node debug events (getLatestRuleNodeDebugEvents)",
+            notes = "Returns the latest debug events of the rule node, the newest first. " +
+                    "The events are read from the in-memory buffer of the server that processes the rule node messages " +
+                    "and include the events that were not persisted because of the debug event sampling. " +
+                    "Returns an empty list if the debug event sampling is disabled.")
+    @PreAuthorize("hasAnyAuthority('SYS_ADMIN', 'TENANT_ADMIN')")
+    @RequestMapping(value = "/events/RULE_NODE/{ruleNodeId}/latest", method = RequestMethod.GET)
+    @ResponseBody
+    public List<EventInfo> getLatestRuleNodeDebugEvents(
+            @Parameter(description = RULE_NODE_ID_PARAM_DESCRIPTION, required = true)
+            @PathVariable("ruleNodeId") String strRuleNodeId,
+            @Parameter(description = "Maximum amount of events to return")
+            @RequestParam(defaultValue = "100") int limit) throws ThingsboardException {
+        checkParameter("ruleNodeId", strRuleNodeId);
+        RuleNodeId ruleNodeId = new RuleNodeId(toUUID(strRuleNodeId));
+        checkEntityId(ruleNodeId, Operation.READ);
+        return ruleNodeDebugEventService.getLatestEvents(ruleNodeId, limit).stream()
+                .map(event -> event.toInfo(EntityType.RULE_NODE))
+                .collect(Collectors.toList());
+    }
+
     private static EventType resolveEventType(String eventType) throws ThingsboardException {
         for (var et : EventType.values()) {
             if (et.name().equalsIgnoreCase(eventType) || et.getOldName().equalsIgnoreCase(eventType)) {
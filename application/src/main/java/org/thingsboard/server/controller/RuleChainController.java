@@ -71,6 +71,8 @@ import org.thingsboard.server.service.script.RuleNodeJsScriptEngine;
 import org.thingsboard.server.service.script.RuleNodeTbelScriptEngine;
 import org.thingsboard.server.service.security.permission.Operation;
 import org.thingsboard.server.service.security.permission.Resource;
+import org.thingsboard.server.service.stats.RuleNodeStatsInfo;
+import org.thingsboard.server.service.stats.RuleNodeStatsService;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -147,6 +149,9 @@ public class RuleChainController extends BaseController {
     @Autowired(required = false)
     private ActorSystemContext actorContext;
 
+    @Autowired
+    private RuleNodeStatsService ruleNodeStatsService;
+
     @Value("${actors.rule.chain.debug_mode_rate_limits_per_tenant.enabled}")
     private boolean debugPerTenantEnabled;
 
@@ -181,6 +186,22 @@ public class RuleChainController extends BaseController {
         return tbRuleChainService.getRuleChainOutputLabels(getTenantId(), ruleChainId);
     }
 
+    @ApiOperation(value = "Get Rule Chain rule node stats (getRuleChainNodeStats)",
+            notes = "Fetch processing time, queue wait time and in-flight message count of the Rule Nodes that belong to the Rule Chain " +
+                    "based on the provided Rule Chain Id. Statistics are collected by the rule engine of the server that handles the request " +
+                    "when 'metrics.rule_nodes.enabled' is set; the same data is exported to the Prometheus endpoint. " + TENANT_AUTHORITY_PARAGRAPH)
+    @PreAuthorize("hasAnyAuthority('TENANT_ADMIN')")
+    @RequestMapping(value = "/ruleChain/{ruleChainId}/ruleNodeStats", method = RequestMethod.GET)
+    @ResponseBody
+    public List<RuleNodeStatsInfo> getRuleChainNodeStats(
+            @Parameter(description = RULE_CHAIN_ID_PARAM_DESCRIPTION)
+            @PathVariable(RULE_CHAIN_ID) String strRuleChainId) throws ThingsboardException {
+        checkParameter(RULE_CHAIN_ID, strRuleChainId);
+        RuleChainId ruleChainId = new RuleChainId(toUUID(strRuleChainId));
+        checkRuleChain(ruleChainId, Operation.READ);
+        return ruleNodeStatsService.getRuleChainStats(ruleChainId);
+    }
+
     @ApiOperation(value = "Get output labels usage (getRuleChainOutputLabelsUsage)",
             notes = "Fetch the list of rule chains and the relation types (labels) they use to process output of the current rule chain based on the provided Rule Chain Id. "
                     + RULE_CHAIN_DESCRIPTION + TENANT_AUTHORITY_PARAGRAPH)
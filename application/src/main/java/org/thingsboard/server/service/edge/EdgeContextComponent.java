@@ -22,6 +22,7 @@ import org.springframework.stereotype.Component;
 import org.thingsboard.server.cache.limits.RateLimitService;
 import org.thingsboard.server.cluster.TbClusterService;
 import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.asset.AssetProfileService;
 import org.thingsboard.server.dao.asset.AssetService;
 import org.thingsboard.server.dao.attributes.AttributesService;
@@ -282,4 +283,7 @@ public class EdgeContextComponent {
 
     @Autowired
     private GrpcCallbackExecutorService grpcCallbackExecutorService;
+
+    @Autowired
+    private StatsFactory statsFactory;
 }
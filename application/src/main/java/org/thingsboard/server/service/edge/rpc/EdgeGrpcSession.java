@@ -21,6 +21,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Timer;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -42,6 +43,7 @@ import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.common.data.page.SortOrder;
 import org.thingsboard.server.common.data.page.TimePageLink;
+import org.thingsboard.server.common.stats.StatsCounter;
 import org.thingsboard.server.gen.edge.v1.AlarmCommentUpdateMsg;
 import org.thingsboard.server.gen.edge.v1.AlarmUpdateMsg;
 import org.thingsboard.server.gen.edge.v1.AssetProfileUpdateMsg;
@@ -140,6 +142,9 @@ public final class EdgeGrpcSession implements Closeable {
 
     private ScheduledExecutorService sendDownlinkExecutorService;
 
+    private StatsCounter syncedEdgeEventsCounter;
+    private Timer edgeEventsPackTimer;
+
     EdgeGrpcSession(EdgeContextComponent ctx, StreamObserver<ResponseMsg> outputStream, BiConsumer<EdgeId, EdgeGrpcSession> sessionOpenListener,
                     BiConsumer<Edge, UUID> sessionCloseListener, ScheduledExecutorService sendDownlinkExecutorService, int maxInboundMessageSize) {
         this.sessionId = UUID.randomUUID();
@@ -367,7 +372,9 @@ public final class EdgeGrpcSession implements Closeable {
                     false,
                     Integer.toUnsignedLong(ctx.getEdgeEventStorageSettings().getMaxReadRecordsCount()),
                     ctx.getEdgeEventService());
-            Futures.addCallback(startProcessingEdgeEvents(fetcher), new FutureCallback<>() {
+            ListenableFuture<Pair<Long, Long>> processingFuture = ctx.getEdgeEventStorageSettings().isKeysetPaginationEnabled() ?
+                    startStreamingEdgeEvents(fetcher) : startProcessingEdgeEvents(fetcher);
+            Futures.addCallback(processingFuture, new FutureCallback<>() {
                 @Override
                 public void onSuccess(@Nullable Pair<Long, Long> newStartTsAndSeqId) {
                     if (newStartTsAndSeqId != null) {
@@ -467,6 +474,105 @@ public final class EdgeGrpcSession implements Closeable {
         }
     }
 
+    private ListenableFuture<Pair<Long, Long>> startStreamingEdgeEvents(GeneralEdgeEventFetcher fetcher) {
+        SettableFuture<Pair<Long, Long>> result = SettableFuture.create();
+        if (syncedEdgeEventsCounter == null) {
+            String edgeIdStr = edge.getId().toString();
+            syncedEdgeEventsCounter = ctx.getStatsFactory().createStatsCounter("edges", "syncedEvents", "edgeId", edgeIdStr);
+            edgeEventsPackTimer = ctx.getStatsFactory().createTimer("edges.eventsPack", "edgeId", edgeIdStr);
+        }
+        int pageSize = ctx.getEdgeEventStorageSettings().getMaxReadRecordsCount();
+        long queueEndTs = System.currentTimeMillis();
+        EdgeEventsStreamState state = new EdgeEventsStreamState(fetcher, pageSize, queueEndTs, System.nanoTime());
+        streamEdgeEvents(state, fetchNextEdgeEvents(state, true), result);
+        return result;
+    }
+
+    private ListenableFuture<List<EdgeEvent>> fetchNextEdgeEvents(EdgeEventsStreamState state, boolean firstPage) {
+        return ctx.getDbCallbackExecutor().executeAsync(() ->
+                state.fetcher.fetchNextEdgeEvents(edge.getTenantId(), edge, state.queueEndTs, state.pageSize, firstPage));
+    }
+
+    private void streamEdgeEvents(EdgeEventsStreamState state, ListenableFuture<List<EdgeEvent>> pageFuture, SettableFuture<Pair<Long, Long>> result) {
+        Futures.addCallback(pageFuture, new FutureCallback<>() {
+            @Override
+            public void onSuccess(List<EdgeEvent> edgeEvents) {
+                if (!isConnected() || edgeEvents.isEmpty()) {
+                    completeEdgeEventsStream(state, result);
+                    return;
+                }
+                log.trace("[{}][{}][{}] event(s) are going to be processed.", tenantId, sessionId, edgeEvents.size());
+                // The next page is read while the current one is delivered. The page after it is not requested
+                // until the edge acknowledges all downlinks of the current page
+                ListenableFuture<List<EdgeEvent>> nextPageFuture = edgeEvents.size() < state.pageSize ?
+                        Futures.immediateFuture(Collections.emptyList()) : fetchNextEdgeEvents(state, false);
+                long packStartTs = System.nanoTime();
+                List<DownlinkMsg> downlinkMsgsPack = convertToDownlinkMsgsPack(edgeEvents);
+                Futures.addCallback(sendDownlinkMsgsPack(downlinkMsgsPack), new FutureCallback<>() {
+                    @Override
+                    public void onSuccess(@Nullable Boolean isInterrupted) {
+                        if (Boolean.TRUE.equals(isInterrupted)) {
+                            log.debug("[{}][{}][{}] Send downlink messages task was interrupted", tenantId, edge.getId(), sessionId);
+                            nextPageFuture.cancel(false);
+                            result.set(null);
+                        } else {
+                            edgeEventsPackTimer.record(System.nanoTime() - packStartTs, TimeUnit.NANOSECONDS);
+                            syncedEdgeEventsCounter.add(edgeEvents.size());
+                            state.eventsCount += edgeEvents.size();
+                            state.lastEdgeEvent = edgeEvents.get(edgeEvents.size() - 1);
+                            streamEdgeEvents(state, nextPageFuture, result);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        log.error("[{}] Failed to send downlink msgs pack", sessionId, t);
+                        result.setException(t);
+                    }
+                }, ctx.getGrpcCallbackExecutorService());
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.error("[{}] Failed to fetch edge events", sessionId, t);
+                result.setException(t);
+            }
+        }, ctx.getGrpcCallbackExecutorService());
+    }
+
+    private void completeEdgeEventsStream(EdgeEventsStreamState state, SettableFuture<Pair<Long, Long>> result) {
+        if (state.eventsCount > 0) {
+            long durationMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - state.startNanos));
+            log.debug("[{}][{}][{}] {} edge event(s) synced in {} ms ({} events/s)", tenantId, edge.getId(), sessionId,
+                    state.eventsCount, durationMs, state.eventsCount * 1000 / durationMs);
+        } else {
+            log.trace("[{}] no event(s) found. Stop processing edge events", sessionId);
+        }
+        UUID idOffset = state.lastEdgeEvent != null ? state.lastEdgeEvent.getUuidId() : null;
+        if (idOffset != null) {
+            result.set(Pair.of(Uuids.unixTimestamp(idOffset), state.lastEdgeEvent.getSeqId()));
+        } else {
+            result.set(null);
+        }
+    }
+
+    private static class EdgeEventsStreamState {
+
+        private final GeneralEdgeEventFetcher fetcher;
+        private final int pageSize;
+        private final long queueEndTs;
+        private final long startNanos;
+        private EdgeEvent lastEdgeEvent;
+        private long eventsCount;
+
+        EdgeEventsStreamState(GeneralEdgeEventFetcher fetcher, int pageSize, long queueEndTs, long startNanos) {
+            this.fetcher = fetcher;
+            this.pageSize = pageSize;
+            this.queueEndTs = queueEndTs;
+            this.startNanos = startNanos;
+        }
+    }
+
     private ListenableFuture<Boolean> sendDownlinkMsgsPack(List<DownlinkMsg> downlinkMsgsPack) {
         interruptPreviousSendDownlinkMsgsTask();
 
@@ -26,6 +26,9 @@ import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.common.data.page.TimePageLink;
 import org.thingsboard.server.dao.edge.EdgeEventService;
 
+import java.util.Collections;
+import java.util.List;
+
 @AllArgsConstructor
 @Slf4j
 public class GeneralEdgeEventFetcher implements EdgeEventFetcher {
@@ -74,4 +77,34 @@ public class GeneralEdgeEventFetcher implements EdgeEventFetcher {
         return new PageData<>();
     }
 
+    /**
+     * Fetches the events that follow the last fetched event using (seqId, createdTime) keyset pagination,
+     * so the read cost of a page doesn't depend on the number of the already processed events.
+     * The detection of the new seqId cycle is performed only for the first page of the iteration.
+     */
+    public List<EdgeEvent> fetchNextEdgeEvents(TenantId tenantId, Edge edge, long queueEndTs, int limit, boolean firstPage) {
+        try {
+            List<EdgeEvent> edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edge.getId(), queueStartTs, queueEndTs, seqIdStart, seqIdEnd, limit);
+            if (edgeEvents.isEmpty() && firstPage) {
+                this.seqIdEnd = Math.max(this.maxReadRecordsCount, seqIdStart - this.maxReadRecordsCount);
+                edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edge.getId(), queueStartTs, queueEndTs, 0L, seqIdEnd, limit);
+                if (edgeEvents.stream().anyMatch(ee -> ee.getSeqId() < seqIdStart)) {
+                    log.info("[{}] seqId column of edge_event table started new cycle [{}]", tenantId, edge.getId());
+                    this.seqIdNewCycleStarted = true;
+                } else {
+                    edgeEvents = Collections.emptyList();
+                    log.warn("[{}] unexpected edge notification message received. " +
+                            "no new events found and seqId column of edge_event table doesn't started new cycle [{}]", tenantId, edge.getId());
+                }
+            }
+            if (!edgeEvents.isEmpty()) {
+                this.seqIdStart = edgeEvents.get(edgeEvents.size() - 1).getSeqId();
+            }
+            return edgeEvents;
+        } catch (Exception e) {
+            log.error("[{}] failed to find edge events [{}]", tenantId, edge.getId(), e);
+        }
+        return Collections.emptyList();
+    }
+
 }
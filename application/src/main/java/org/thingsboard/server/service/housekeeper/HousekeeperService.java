@@ -16,6 +16,7 @@
 package org.thingsboard.server.service.housekeeper;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.thingsboard.common.util.JacksonUtil;
@@ -36,6 +37,8 @@ import org.thingsboard.server.service.housekeeper.processor.HousekeeperTaskProce
 import org.thingsboard.server.service.housekeeper.stats.HousekeeperStatsService;
 
 import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -90,6 +93,16 @@ public class HousekeeperService {
     }
 
     private void processMsgs(List<TbProtoQueueMsg<ToHousekeeperServiceMsg>> msgs, TbQueueConsumer<TbProtoQueueMsg<ToHousekeeperServiceMsg>> consumer) {
+        if (config.getTaskBatchSize() > 1) {
+            List<TbProtoQueueMsg<ToHousekeeperServiceMsg>> batch = collectBatch(msgs, consumer);
+            try {
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                return;
+            }
+            consumer.commit();
+            return;
+        }
         for (TbProtoQueueMsg<ToHousekeeperServiceMsg> msg : msgs) {
             log.trace("Processing task: {}", msg);
             try {
@@ -104,6 +117,90 @@ public class HousekeeperService {
         consumer.commit();
     }
 
+    private List<TbProtoQueueMsg<ToHousekeeperServiceMsg>> collectBatch(List<TbProtoQueueMsg<ToHousekeeperServiceMsg>> msgs,
+                                                                     TbQueueConsumer<TbProtoQueueMsg<ToHousekeeperServiceMsg>> consumer) {
+        List<TbProtoQueueMsg<ToHousekeeperServiceMsg>> batch = new ArrayList<>(msgs);
+        long deadline = System.currentTimeMillis() + config.getTaskBatchWindow();
+        long remaining = config.getTaskBatchWindow();
+        while (batch.size() < config.getTaskBatchSize() && remaining > 0 && !consumer.isStopped()) {
+            batch.addAll(consumer.poll(remaining));
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return batch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void processBatch(List<TbProtoQueueMsg<ToHousekeeperServiceMsg>> msgs) throws InterruptedException {
+        Map<Pair<HousekeeperTaskType, Object>, List<Pair<ToHousekeeperServiceMsg, HousekeeperTask>>> batches = new LinkedHashMap<>();
+        List<ToHousekeeperServiceMsg> singleTasks = new ArrayList<>();
+        for (TbProtoQueueMsg<ToHousekeeperServiceMsg> msg : msgs) {
+            try {
+                HousekeeperTask task = JacksonUtil.fromString(msg.getValue().getTask().getValue(), HousekeeperTask.class);
+                HousekeeperTaskProcessor<HousekeeperTask> taskProcessor = (HousekeeperTaskProcessor<HousekeeperTask>) taskProcessors.get(task.getTaskType());
+                if (taskProcessor != null && taskProcessor.isBatchingSupported() && !config.getDisabledTaskTypes().contains(task.getTaskType())) {
+                    batches.computeIfAbsent(Pair.of(task.getTaskType(), taskProcessor.getBatchKey(task)), key -> new ArrayList<>())
+                            .add(Pair.of(msg.getValue(), task));
+                } else {
+                    singleTasks.add(msg.getValue());
+                }
+            } catch (Throwable e) {
+                log.error("Unexpected error during message processing [{}]", msg, e);
+                reprocessingService.submitForReprocessing(msg.getValue(), e);
+            }
+        }
+        for (Map.Entry<Pair<HousekeeperTaskType, Object>, List<Pair<ToHousekeeperServiceMsg, HousekeeperTask>>> entry : batches.entrySet()) {
+            List<Pair<ToHousekeeperServiceMsg, HousekeeperTask>> batch = entry.getValue();
+            if (batch.size() == 1) {
+                singleTasks.add(batch.get(0).getKey());
+            } else {
+                processTasksBatch(entry.getKey().getKey(), batch);
+            }
+        }
+        for (ToHousekeeperServiceMsg msg : singleTasks) {
+            processTaskSafely(msg);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void processTasksBatch(HousekeeperTaskType taskType, List<Pair<ToHousekeeperServiceMsg, HousekeeperTask>> batch) throws InterruptedException {
+        HousekeeperTaskProcessor<HousekeeperTask> taskProcessor = (HousekeeperTaskProcessor<HousekeeperTask>) taskProcessors.get(taskType);
+        List<HousekeeperTask> tasks = batch.stream().map(Pair::getValue).toList();
+        long startTs = System.currentTimeMillis();
+        Future<Object> future = taskExecutor.submit(() -> {
+            taskProcessor.processBatch(tasks);
+            return null;
+        });
+        try {
+            // a batch replaces one processing per task, so the timeout is scaled accordingly
+            future.get((long) config.getTaskProcessingTimeout() * tasks.size(), TimeUnit.MILLISECONDS);
+
+            long timing = System.currentTimeMillis() - startTs;
+            log.debug("[{}] Processed batch of {} {} tasks in {} ms", tasks.get(0).getTenantId(), tasks.size(), taskType, timing);
+            statsService.ifPresent(statsService -> batch.forEach(pair -> statsService.reportProcessed(taskType, pair.getKey(), timing / batch.size())));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (Throwable e) {
+            future.cancel(true);
+            // processing the tasks one by one, so that failures are submitted for reprocessing individually
+            log.warn("[{}] Failed to process batch of {} {} tasks, processing them one by one", tasks.get(0).getTenantId(), tasks.size(), taskType, e);
+            for (Pair<ToHousekeeperServiceMsg, HousekeeperTask> pair : batch) {
+                processTaskSafely(pair.getKey());
+            }
+        }
+    }
+
+    private void processTaskSafely(ToHousekeeperServiceMsg msg) throws InterruptedException {
+        try {
+            processTask(msg);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Throwable e) {
+            log.error("Unexpected error during message processing [{}]", msg, e);
+            reprocessingService.submitForReprocessing(msg, e);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     protected <T extends HousekeeperTask> void processTask(ToHousekeeperServiceMsg msg) throws Exception {
         HousekeeperTask task = JacksonUtil.fromString(msg.getTask().getValue(), HousekeeperTask.class);
@@ -21,6 +21,9 @@ import org.springframework.stereotype.Component;
 import org.thingsboard.server.dao.attributes.AttributesService;
 import org.thingsboard.server.common.data.housekeeper.HousekeeperTask;
 import org.thingsboard.server.common.data.housekeeper.HousekeeperTaskType;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -35,6 +38,18 @@ public class AttributesDeletionTaskProcessor extends HousekeeperTaskProcessor<Ho
         log.debug("[{}][{}][{}] Deleted {} attributes", task.getTenantId(), task.getEntityId().getEntityType(), task.getEntityId(), deletedCount);
     }
 
+    @Override
+    public void processBatch(List<HousekeeperTask> tasks) throws Exception {
+        TenantId tenantId = tasks.get(0).getTenantId();
+        int deletedCount = attributesService.removeAllByEntityIds(tenantId, tasks.stream().map(HousekeeperTask::getEntityId).toList());
+        log.debug("[{}] Deleted {} attributes of {} entities", tenantId, deletedCount, tasks.size());
+    }
+
+    @Override
+    public boolean isBatchingSupported() {
+        return true;
+    }
+
     @Override
     public HousekeeperTaskType getTaskType() {
         return HousekeeperTaskType.DELETE_ATTRIBUTES;
@@ -21,6 +21,8 @@ import org.thingsboard.server.dao.event.EventService;
 import org.thingsboard.server.common.data.housekeeper.HousekeeperTask;
 import org.thingsboard.server.common.data.housekeeper.HousekeeperTaskType;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class EventsDeletionTaskProcessor extends HousekeeperTaskProcessor<HousekeeperTask> {
@@ -32,6 +34,16 @@ public class EventsDeletionTaskProcessor extends HousekeeperTaskProcessor<Housek
         eventService.removeEvents(task.getTenantId(), task.getEntityId(), null, 0L, System.currentTimeMillis());
     }
 
+    @Override
+    public void processBatch(List<HousekeeperTask> tasks) throws Exception {
+        eventService.removeEvents(tasks.get(0).getTenantId(), tasks.stream().map(HousekeeperTask::getEntityId).toList(), 0L, System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isBatchingSupported() {
+        return true;
+    }
+
     @Override
     public HousekeeperTaskType getTaskType() {
         return HousekeeperTaskType.DELETE_EVENTS;
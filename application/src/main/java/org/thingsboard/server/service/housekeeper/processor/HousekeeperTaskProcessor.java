@@ -20,6 +20,8 @@ import org.thingsboard.server.common.data.housekeeper.HousekeeperTask;
 import org.thingsboard.server.common.data.housekeeper.HousekeeperTaskType;
 import org.thingsboard.server.common.msg.housekeeper.HousekeeperClient;
 
+import java.util.List;
+
 public abstract class HousekeeperTaskProcessor<T extends HousekeeperTask> {
 
     @Autowired
@@ -29,4 +31,22 @@ public abstract class HousekeeperTaskProcessor<T extends HousekeeperTask> {
 
     public abstract HousekeeperTaskType getTaskType();
 
+    /*
+     * Processors that support batching are given tasks with equal batch keys
+     * to be processed with a single set-based statement
+     * */
+    public boolean isBatchingSupported() {
+        return false;
+    }
+
+    public Object getBatchKey(T task) {
+        return task.getTenantId();
+    }
+
+    public void processBatch(List<T> tasks) throws Exception {
+        for (T task : tasks) {
+            process(task);
+        }
+    }
+
 }
@@ -17,7 +17,9 @@ package org.thingsboard.server.service.housekeeper.processor;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.housekeeper.HousekeeperTask;
 import org.thingsboard.server.common.data.housekeeper.HousekeeperTaskType;
 import org.thingsboard.server.common.data.housekeeper.TsHistoryDeletionHousekeeperTask;
 import org.thingsboard.server.common.data.kv.BaseDeleteTsKvQuery;
@@ -40,6 +42,24 @@ public class TsHistoryDeletionTaskProcessor extends HousekeeperTaskProcessor<TsH
         log.debug("[{}][{}][{}] Deleted timeseries history for key '{}'", task.getTenantId(), task.getEntityId().getEntityType(), task.getEntityId(), task.getKey());
     }
 
+    @Override
+    public void processBatch(List<TsHistoryDeletionHousekeeperTask> tasks) throws Exception {
+        TsHistoryDeletionHousekeeperTask first = tasks.get(0);
+        DeleteTsKvQuery deleteQuery = new BaseDeleteTsKvQuery(first.getKey(), 0, System.currentTimeMillis(), false, false);
+        timeseriesService.remove(first.getTenantId(), tasks.stream().map(HousekeeperTask::getEntityId).toList(), deleteQuery).get();
+        log.debug("[{}] Deleted timeseries history for key '{}' of {} entities", first.getTenantId(), first.getKey(), tasks.size());
+    }
+
+    @Override
+    public boolean isBatchingSupported() {
+        return true;
+    }
+
+    @Override
+    public Object getBatchKey(TsHistoryDeletionHousekeeperTask task) {
+        return Pair.of(task.getTenantId(), task.getKey());
+    }
+
     @Override
     public HousekeeperTaskType getTaskType() {
         return HousekeeperTaskType.DELETE_TS_HISTORY;
@@ -16,10 +16,20 @@
 package org.thingsboard.server.service.notification;
 
 import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.rule.engine.api.NotificationCenter;
 import org.thingsboard.server.cache.limits.RateLimitService;
 import org.thingsboard.server.common.data.EntityType;
@@ -56,6 +66,7 @@ import org.thingsboard.server.common.data.page.PageDataIterable;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.msg.tools.TbRateLimits;
 import org.thingsboard.server.common.msg.tools.TbRateLimitsException;
 import org.thingsboard.server.dao.notification.NotificationRequestService;
 import org.thingsboard.server.dao.notification.NotificationService;
@@ -73,12 +84,17 @@ import org.thingsboard.server.service.telemetry.AbstractSubscriptionService;
 import org.thingsboard.server.service.ws.notification.sub.NotificationRequestUpdate;
 import org.thingsboard.server.service.ws.notification.sub.NotificationUpdate;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static org.thingsboard.server.common.data.notification.NotificationDeliveryMethod.WEB;
@@ -99,7 +115,46 @@ public class DefaultNotificationCenter extends AbstractSubscriptionService imple
     private final TbQueueProducerProvider producerProvider;
     private final RateLimitService rateLimitService;
 
+    @Value("${notification_system.bulk_delivery.enabled:false}")
+    private boolean bulkDeliveryEnabled;
+    @Value("${notification_system.bulk_delivery.batch_size:1000}")
+    private int bulkDeliveryBatchSize;
+    @Value("${notification_system.bulk_delivery.thread_pool_size:10}")
+    private int bulkDeliveryThreadPoolSize;
+    @Value("${notification_system.bulk_delivery.rate_limits:}")
+    private String bulkDeliveryRateLimitsConfig;
+    @Value("${notification_system.bulk_delivery.max_updates_msg_size:524288}")
+    private int bulkDeliveryMaxUpdatesMsgSize;
+
     private Map<NotificationDeliveryMethod, NotificationChannel> channels;
+    private ListeningExecutorService bulkDeliveryExecutor;
+    private final Map<NotificationDeliveryMethod, TbRateLimits> bulkDeliveryRateLimits = new EnumMap<>(NotificationDeliveryMethod.class);
+    private final Map<NotificationDeliveryMethod, ListeningExecutorService> rateLimitedDeliveryExecutors = new EnumMap<>(NotificationDeliveryMethod.class);
+
+    @PostConstruct
+    private void init() {
+        if (bulkDeliveryEnabled) {
+            bulkDeliveryExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(bulkDeliveryThreadPoolSize, ThingsBoardThreadFactory.forName("notification-delivery")));
+            if (StringUtils.isNotBlank(bulkDeliveryRateLimitsConfig)) {
+                for (String entry : bulkDeliveryRateLimitsConfig.split(";")) {
+                    String[] deliveryMethodAndLimits = entry.trim().split("=");
+                    NotificationDeliveryMethod deliveryMethod = NotificationDeliveryMethod.valueOf(deliveryMethodAndLimits[0].trim());
+                    bulkDeliveryRateLimits.put(deliveryMethod, new TbRateLimits(deliveryMethodAndLimits[1].trim()));
+                    // waiting for the rate limit blocks the thread, so that a rate-limited delivery method does not hold the shared pool
+                    rateLimitedDeliveryExecutors.put(deliveryMethod, MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(bulkDeliveryThreadPoolSize,
+                            ThingsBoardThreadFactory.forName("notification-delivery-" + deliveryMethod.name().toLowerCase()))));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (bulkDeliveryExecutor != null) {
+            bulkDeliveryExecutor.shutdownNow();
+        }
+        rateLimitedDeliveryExecutors.values().forEach(ExecutorService::shutdownNow);
+    }
 
     @Override
     public NotificationRequest processNotificationRequest(TenantId tenantId, NotificationRequest request, FutureCallback<NotificationRequestStats> callback) {
@@ -279,6 +334,21 @@ public class DefaultNotificationCenter extends AbstractSubscriptionService imple
             return;
         }
 
+        if (bulkDeliveryEnabled) {
+            List<NotificationRecipient> batch = new ArrayList<>(bulkDeliveryBatchSize);
+            for (NotificationRecipient recipient : recipients) {
+                batch.add(recipient);
+                if (batch.size() >= bulkDeliveryBatchSize) {
+                    processForRecipients(deliveryMethods, batch, ctx);
+                    batch = new ArrayList<>(bulkDeliveryBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                processForRecipients(deliveryMethods, batch, ctx);
+            }
+            return;
+        }
+
         for (NotificationRecipient recipient : recipients) {
             for (NotificationDeliveryMethod deliveryMethod : deliveryMethods) {
                 try {
@@ -292,6 +362,16 @@ public class DefaultNotificationCenter extends AbstractSubscriptionService imple
     }
 
     private void processForRecipient(NotificationDeliveryMethod deliveryMethod, NotificationRecipient recipient, NotificationProcessingContext ctx) throws Exception {
+        checkRecipient(deliveryMethod, recipient, ctx);
+
+        NotificationChannel notificationChannel = channels.get(deliveryMethod);
+        DeliveryMethodNotificationTemplate processedTemplate = ctx.getProcessedTemplate(deliveryMethod, recipient);
+
+        log.trace("[{}] Sending {} notification for recipient {}", ctx.getRequest().getId(), deliveryMethod, recipient);
+        notificationChannel.sendNotification(recipient, processedTemplate, ctx);
+    }
+
+    private void checkRecipient(NotificationDeliveryMethod deliveryMethod, NotificationRecipient recipient, NotificationProcessingContext ctx) throws Exception {
         if (ctx.getStats().contains(deliveryMethod, recipient.getId())) {
             throw new AlreadySentException();
         } else {
@@ -304,18 +384,110 @@ public class DefaultNotificationCenter extends AbstractSubscriptionService imple
                 throw new RuntimeException("User disabled " + deliveryMethod.getName() + " notifications of this type");
             }
         }
+    }
 
-        NotificationChannel notificationChannel = channels.get(deliveryMethod);
-        DeliveryMethodNotificationTemplate processedTemplate = ctx.getProcessedTemplate(deliveryMethod, recipient);
+    /*
+     * Web notifications for the batch are inserted with a single statement and their updates are pushed
+     * to each core service with one message, while other delivery methods are sent in parallel
+     * */
+    private void processForRecipients(Set<NotificationDeliveryMethod> deliveryMethods, List<NotificationRecipient> recipients, NotificationProcessingContext ctx) {
+        List<ListenableFuture<?>> futures = new ArrayList<>();
+        List<Pair<User, WebDeliveryMethodNotificationTemplate>> webNotifications = new ArrayList<>();
+        for (NotificationDeliveryMethod deliveryMethod : deliveryMethods) {
+            NotificationChannel notificationChannel = channels.get(deliveryMethod);
+            TbRateLimits rateLimits = bulkDeliveryRateLimits.get(deliveryMethod);
+            ListeningExecutorService executor = rateLimitedDeliveryExecutors.getOrDefault(deliveryMethod, bulkDeliveryExecutor);
+            Map<Map<String, String>, DeliveryMethodNotificationTemplate> processedTemplates = new HashMap<>();
+            for (NotificationRecipient recipient : recipients) {
+                DeliveryMethodNotificationTemplate processedTemplate;
+                try {
+                    checkRecipient(deliveryMethod, recipient, ctx);
+                    processedTemplate = ctx.getProcessedTemplate(deliveryMethod, recipient, processedTemplates);
+                } catch (Exception error) {
+                    ctx.getStats().reportError(deliveryMethod, error, recipient);
+                    continue;
+                }
+                if (deliveryMethod == WEB) {
+                    webNotifications.add(Pair.of((User) recipient, (WebDeliveryMethodNotificationTemplate) processedTemplate));
+                    continue;
+                }
+                futures.add(executor.submit(() -> {
+                    try {
+                        if (rateLimits != null) {
+                            rateLimits.consume();
+                        }
+                        log.trace("[{}] Sending {} notification for recipient {}", ctx.getRequest().getId(), deliveryMethod, recipient);
+                        notificationChannel.sendNotification(recipient, processedTemplate, ctx);
+                        ctx.getStats().reportSent(deliveryMethod, recipient);
+                    } catch (Exception error) {
+                        ctx.getStats().reportError(deliveryMethod, error, recipient);
+                    }
+                }));
+            }
+        }
+        if (!webNotifications.isEmpty()) {
+            sendWebNotifications(webNotifications, ctx);
+        }
+        Futures.getUnchecked(Futures.allAsList(futures));
+    }
 
-        log.trace("[{}] Sending {} notification for recipient {}", ctx.getRequest().getId(), deliveryMethod, recipient);
-        notificationChannel.sendNotification(recipient, processedTemplate, ctx);
+    private void sendWebNotifications(List<Pair<User, WebDeliveryMethodNotificationTemplate>> webNotifications, NotificationProcessingContext ctx) {
+        List<Notification> notifications = new ArrayList<>(webNotifications.size());
+        for (Pair<User, WebDeliveryMethodNotificationTemplate> webNotification : webNotifications) {
+            notifications.add(toWebNotification(webNotification.getFirst(), webNotification.getSecond(), ctx));
+        }
+        try {
+            notifications = notificationService.saveNotifications(ctx.getTenantId(), notifications);
+        } catch (Exception e) {
+            log.error("[{}] Failed to create {} notifications", ctx.getRequest().getId(), notifications.size(), e);
+            webNotifications.forEach(webNotification -> ctx.getStats().reportError(WEB, e, webNotification.getFirst()));
+            return;
+        }
+
+        Map<TopicPartitionInfo, List<TransportProtos.NotificationUpdateProto>> remoteUpdates = new HashMap<>();
+        for (int i = 0; i < notifications.size(); i++) {
+            User recipient = webNotifications.get(i).getFirst();
+            NotificationUpdate update = NotificationUpdate.builder()
+                    .created(true)
+                    .notification(notifications.get(i))
+                    .build();
+            TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, recipient.getTenantId(), recipient.getId());
+            if (currentPartitions.contains(tpi)) {
+                subscriptionManagerService.ifPresent(subscriptionManagerService -> {
+                    subscriptionManagerService.onNotificationUpdate(recipient.getTenantId(), recipient.getId(), update, TbCallback.EMPTY);
+                });
+            } else {
+                remoteUpdates.computeIfAbsent(tpi, k -> new ArrayList<>())
+                        .add(TbSubscriptionUtils.toNotificationUpdateProto(recipient.getTenantId(), recipient.getId(), update));
+            }
+            ctx.getStats().reportSent(WEB, recipient);
+        }
+        remoteUpdates.forEach((tpi, updates) -> {
+            // splitting the updates, so that a single message stays below the max message size of the queue
+            List<TransportProtos.NotificationUpdateProto> chunk = new ArrayList<>();
+            int chunkSize = 0;
+            for (TransportProtos.NotificationUpdateProto update : updates) {
+                int updateSize = update.getSerializedSize();
+                if (!chunk.isEmpty() && chunkSize + updateSize > bulkDeliveryMaxUpdatesMsgSize) {
+                    pushNotificationUpdates(tpi, chunk, ctx);
+                    chunk = new ArrayList<>();
+                    chunkSize = 0;
+                }
+                chunk.add(update);
+                chunkSize += updateSize;
+            }
+            pushNotificationUpdates(tpi, chunk, ctx);
+        });
     }
 
-    @Override
-    public void sendNotification(User recipient, WebDeliveryMethodNotificationTemplate processedTemplate, NotificationProcessingContext ctx) throws Exception {
+    private void pushNotificationUpdates(TopicPartitionInfo tpi, List<TransportProtos.NotificationUpdateProto> updates, NotificationProcessingContext ctx) {
+        log.trace("[{}] Submitting {} notification updates to {}", ctx.getRequest().getId(), updates.size(), tpi);
+        clusterService.pushMsgToCore(tpi, UUID.randomUUID(), TbSubscriptionUtils.notificationUpdatesToProto(updates), null);
+    }
+
+    private Notification toWebNotification(User recipient, WebDeliveryMethodNotificationTemplate processedTemplate, NotificationProcessingContext ctx) {
         NotificationRequest request = ctx.getRequest();
-        Notification notification = Notification.builder()
+        return Notification.builder()
                 .requestId(request.getId())
                 .recipientId(recipient.getId())
                 .type(ctx.getNotificationType())
@@ -326,6 +498,11 @@ public class DefaultNotificationCenter extends AbstractSubscriptionService imple
                 .info(request.getInfo())
                 .status(NotificationStatus.SENT)
                 .build();
+    }
+
+    @Override
+    public void sendNotification(User recipient, WebDeliveryMethodNotificationTemplate processedTemplate, NotificationProcessingContext ctx) throws Exception {
+        Notification notification = toWebNotification(recipient, processedTemplate, ctx);
         try {
             notification = notificationService.saveNotification(recipient.getTenantId(), notification);
         } catch (Exception e) {
@@ -34,6 +34,7 @@ import org.thingsboard.server.common.data.util.TemplateUtils;
 
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -103,6 +104,25 @@ public class NotificationProcessingContext {
         return template;
     }
 
+    /*
+     * Same as getProcessedTemplate(deliveryMethod, recipient), but the template is processed only once
+     * for each unique set of recipient params that it actually uses
+     * */
+    public <T extends DeliveryMethodNotificationTemplate> T getProcessedTemplate(NotificationDeliveryMethod deliveryMethod, NotificationRecipient recipient,
+                                                                                 Map<Map<String, String>, T> processedTemplates) {
+        T template = (T) templates.get(deliveryMethod);
+        Map<String, String> usedTemplateContext = new HashMap<>();
+        createTemplateContextForRecipient(recipient).forEach((param, value) -> {
+            if (template.getTemplatableValues().stream().anyMatch(templatableValue -> templatableValue.containsParams(List.of(param)))) {
+                usedTemplateContext.put(param, value);
+            }
+        });
+        if (usedTemplateContext.isEmpty()) {
+            return template;
+        }
+        return processedTemplates.computeIfAbsent(usedTemplateContext, params -> processTemplate(template, params));
+    }
+
     private <T extends DeliveryMethodNotificationTemplate> T processTemplate(T template, Map<String, String> additionalTemplateContext) {
         Map<String, String> templateContext = new HashMap<>();
         if (request.getInfo() != null) {
@@ -15,6 +15,8 @@
  */
 package org.thingsboard.server.service.queue;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +24,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.cluster.TbClusterService;
 import org.thingsboard.server.common.data.ApiUsageState;
 import org.thingsboard.server.common.data.Device;
@@ -87,6 +90,9 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -101,6 +107,10 @@ public class DefaultTbClusterService implements TbClusterService {
     private boolean statsEnabled;
     @Value("${edges.enabled:true}")
     protected boolean edgesEnabled;
+    @Value("${cluster.broadcast.coalesce.enabled:false}")
+    private boolean coalesceEnabled;
+    @Value("${cluster.broadcast.coalesce.window_ms:100}")
+    private long coalesceWindowMs;
 
     private final AtomicInteger toCoreMsgs = new AtomicInteger(0);
     private final AtomicInteger toCoreNfs = new AtomicInteger(0);
@@ -108,6 +118,10 @@ public class DefaultTbClusterService implements TbClusterService {
     private final AtomicInteger toRuleEngineNfs = new AtomicInteger(0);
     private final AtomicInteger toTransportNfs = new AtomicInteger(0);
 
+    private final TbBroadcastCoalescer<EntityId> lifecycleCoalescer = new TbBroadcastCoalescer<>();
+    private final TbBroadcastCoalescer<EntityId> transportCoalescer = new TbBroadcastCoalescer<>();
+    private ScheduledExecutorService coalesceScheduler;
+
     @Autowired
     @Lazy
     private PartitionService partitionService;
@@ -129,6 +143,31 @@ public class DefaultTbClusterService implements TbClusterService {
     private final GatewayNotificationsService gatewayNotificationsService;
     private final EdgeService edgeService;
 
+    @PostConstruct
+    public void init() {
+        if (coalesceEnabled) {
+            coalesceScheduler = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("cluster-broadcast-coalescer"));
+            coalesceScheduler.scheduleWithFixedDelay(this::flushBroadcasts, coalesceWindowMs, coalesceWindowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (coalesceScheduler != null) {
+            coalesceScheduler.shutdownNow();
+            flushBroadcasts();
+        }
+    }
+
+    private void flushBroadcasts() {
+        try {
+            lifecycleCoalescer.flush();
+            transportCoalescer.flush();
+        } catch (Throwable t) {
+            log.warn("Failed to flush coalesced broadcasts", t);
+        }
+    }
+
     @Override
     public void pushMsgToCore(TenantId tenantId, EntityId entityId, ToCoreMsg msg, TbQueueCallback callback) {
         TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, tenantId, entityId);
@@ -163,6 +202,27 @@ public class DefaultTbClusterService implements TbClusterService {
         }
     }
 
+    @Override
+    public void broadcastRelationGraphEvict(TransportProtos.RelationGraphEvictMsg msg) {
+        UUID msgId = UUID.randomUUID();
+        TbQueueProducer<TbProtoQueueMsg<ToCoreNotificationMsg>> toCoreNfProducer = producerProvider.getTbCoreNotificationsMsgProducer();
+        Set<String> tbCoreServices = partitionService.getAllServiceIds(ServiceType.TB_CORE);
+        for (String serviceId : tbCoreServices) {
+            TopicPartitionInfo tpi = topicService.getNotificationsTopic(ServiceType.TB_CORE, serviceId);
+            toCoreNfProducer.send(tpi, new TbProtoQueueMsg<>(msgId, ToCoreNotificationMsg.newBuilder().setRelationGraphEvictMsg(msg).build()), null);
+            toCoreNfs.incrementAndGet();
+        }
+        TbQueueProducer<TbProtoQueueMsg<ToRuleEngineNotificationMsg>> toRuleEngineProducer = producerProvider.getRuleEngineNotificationsMsgProducer();
+        Set<String> tbRuleEngineServices = partitionService.getAllServiceIds(ServiceType.TB_RULE_ENGINE);
+        // No need to push notifications twice
+        tbRuleEngineServices.removeAll(tbCoreServices);
+        for (String serviceId : tbRuleEngineServices) {
+            TopicPartitionInfo tpi = topicService.getNotificationsTopic(ServiceType.TB_RULE_ENGINE, serviceId);
+            toRuleEngineProducer.send(tpi, new TbProtoQueueMsg<>(msgId, ToRuleEngineNotificationMsg.newBuilder().setRelationGraphEvictMsg(msg).build()), null);
+            toRuleEngineNfs.incrementAndGet();
+        }
+    }
+
     @Override
     public void pushMsgToVersionControl(TenantId tenantId, TransportProtos.ToVersionControlServiceMsg msg, TbQueueCallback callback) {
         TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_VC_EXECUTOR, tenantId, tenantId);
@@ -338,6 +398,18 @@ public class DefaultTbClusterService implements TbClusterService {
         sendDeviceStateServiceEvent(device.getTenantId(), device.getId(), true, false, false);
     }
 
+    @Override
+    public void onDeviceCredentialsUpdated(TenantId tenantId, DeviceId deviceId, TbQueueCallback callback) {
+        log.trace("[{}][{}] Processing device credentials update event", tenantId, deviceId);
+        TransportProtos.DeviceCredentialsUpdateMsg deviceCredentialsUpdateMsg = TransportProtos.DeviceCredentialsUpdateMsg.newBuilder()
+                .setTenantIdMSB(tenantId.getId().getMostSignificantBits())
+                .setTenantIdLSB(tenantId.getId().getLeastSignificantBits())
+                .setDeviceIdMSB(deviceId.getId().getMostSignificantBits())
+                .setDeviceIdLSB(deviceId.getId().getLeastSignificantBits())
+                .build();
+        broadcast(ToTransportMsg.newBuilder().setDeviceCredentialsUpdateMsg(deviceCredentialsUpdateMsg).build(), callback);
+    }
+
     @Override
     public void onResourceChange(TbResourceInfo resource, TbQueueCallback callback) {
         TenantId tenantId = resource.getTenantId();
@@ -369,7 +441,14 @@ public class DefaultTbClusterService implements TbClusterService {
         String entityName = (entity instanceof HasName) ? ((HasName) entity).getName() : entity.getClass().getName();
         log.trace("[{}][{}][{}] Processing [{}] change event", tenantId, entityid.getEntityType(), entityid.getId(), entityName);
         ToTransportMsg transportMsg = ToTransportMsg.newBuilder().setEntityUpdateMsg(ProtoUtils.toEntityUpdateProto(entity)).build();
-        broadcast(transportMsg, callback);
+        if (!coalesceEnabled) {
+            broadcast(transportMsg, callback);
+        } else if (callback == null) {
+            // The update carries the full entity, so only the latest one within the window needs to be delivered
+            transportCoalescer.submit(entityid, () -> broadcast(transportMsg, null));
+        } else {
+            transportCoalescer.sendNow(entityid, () -> broadcast(transportMsg, callback));
+        }
     }
 
     private void broadcastEntityDeleteToTransport(TenantId tenantId, EntityId entityId, String name, TbQueueCallback callback) {
@@ -380,7 +459,11 @@ public class DefaultTbClusterService implements TbClusterService {
                 .setEntityIdLSB(entityId.getId().getLeastSignificantBits())
                 .build();
         ToTransportMsg transportMsg = ToTransportMsg.newBuilder().setEntityDeleteMsg(entityDeleteMsg).build();
-        broadcast(transportMsg, callback);
+        if (coalesceEnabled) {
+            transportCoalescer.sendNow(entityId, () -> broadcast(transportMsg, callback));
+        } else {
+            broadcast(transportMsg, callback);
+        }
     }
 
     private void broadcast(ToTransportMsg transportMsg, TbQueueCallback callback) {
@@ -427,6 +510,17 @@ public class DefaultTbClusterService implements TbClusterService {
     }
 
     private void broadcast(ComponentLifecycleMsg msg) {
+        if (!coalesceEnabled) {
+            doBroadcast(msg);
+        } else if (msg.getEvent() == ComponentLifecycleEvent.UPDATED) {
+            // Receivers reload the entity on UPDATED, so repeated updates within the window are redundant
+            lifecycleCoalescer.submit(msg.getEntityId(), () -> doBroadcast(msg));
+        } else {
+            lifecycleCoalescer.sendNow(msg.getEntityId(), () -> doBroadcast(msg));
+        }
+    }
+
+    private void doBroadcast(ComponentLifecycleMsg msg) {
         TransportProtos.ComponentLifecycleMsgProto componentLifecycleMsgProto = toProto(msg);
         TbQueueProducer<TbProtoQueueMsg<ToRuleEngineNotificationMsg>> toRuleEngineProducer = producerProvider.getRuleEngineNotificationsMsgProducer();
         Set<String> tbRuleEngineServices = partitionService.getAllServiceIds(ServiceType.TB_RULE_ENGINE);
@@ -472,6 +566,14 @@ public class DefaultTbClusterService implements TbClusterService {
                 log.info("To TbCore: [{}] messages [{}] notifications; To TbRuleEngine: [{}] messages [{}] notifications; To Transport: [{}] notifications",
                         toCoreMsgCnt, toCoreNfsCnt, toRuleEngineMsgsCnt, toRuleEngineNfsCnt, toTransportNfsCnt);
             }
+            if (coalesceEnabled) {
+                int lifecycleCoalescedCnt = lifecycleCoalescer.getAndResetCoalescedCount();
+                int transportCoalescedCnt = transportCoalescer.getAndResetCoalescedCount();
+                if (lifecycleCoalescedCnt > 0 || transportCoalescedCnt > 0) {
+                    log.info("Coalesced broadcasts: [{}] lifecycle events, [{}] transport entity updates",
+                            lifecycleCoalescedCnt, transportCoalescedCnt);
+                }
+            }
         }
     }
 
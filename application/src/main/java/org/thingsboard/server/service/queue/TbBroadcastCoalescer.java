@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Debounces cluster broadcasts per key. Only the latest pending broadcast for a key is sent on {@link #flush()},
+ * earlier ones are dropped and counted as coalesced. Broadcasts that must not be dropped are sent with
+ * {@link #sendNow(Object, Runnable)}, which first sends the pending broadcast of the same key to keep the order.
+ * Broadcasts are sent outside of the map operations, so a slow or failing send does not hold the other keys.
+ */
+@Slf4j
+class TbBroadcastCoalescer<K> {
+
+    private final ConcurrentMap<K, Runnable> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger coalesced = new AtomicInteger();
+
+    void submit(K key, Runnable broadcast) {
+        if (pending.put(key, broadcast) != null) {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    void sendNow(K key, Runnable broadcast) {
+        Runnable pendingBroadcast = pending.remove(key);
+        if (pendingBroadcast != null) {
+            send(key, pendingBroadcast);
+        }
+        send(key, broadcast);
+    }
+
+    void flush() {
+        for (K key : pending.keySet()) {
+            Runnable pendingBroadcast = pending.remove(key);
+            if (pendingBroadcast != null) {
+                send(key, pendingBroadcast);
+            }
+        }
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    int getAndResetCoalescedCount() {
+        return coalesced.getAndSet(0);
+    }
+
+    private void send(K key, Runnable broadcast) {
+        try {
+            broadcast.run();
+        } catch (Exception e) {
+            log.warn("[{}] Failed to send broadcast", key, e);
+        }
+    }
+
+}
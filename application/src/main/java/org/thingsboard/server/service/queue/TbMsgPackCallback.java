@@ -27,6 +27,7 @@ import org.thingsboard.server.common.msg.queue.TbMsgCallback;
 
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 
 @Slf4j
 public class TbMsgPackCallback implements TbMsgCallback {
@@ -36,18 +37,27 @@ public class TbMsgPackCallback implements TbMsgCallback {
     private final long startMsgProcessing;
     private final Timer successfulMsgTimer;
     private final Timer failedMsgTimer;
+    private final long packStartTs;
+    private final LongConsumer latencyRecorder;
 
     public TbMsgPackCallback(UUID id, TenantId tenantId, TbMsgPackProcessingContext ctx) {
         this(id, tenantId, ctx, null, null);
     }
 
     public TbMsgPackCallback(UUID id, TenantId tenantId, TbMsgPackProcessingContext ctx, Timer successfulMsgTimer, Timer failedMsgTimer) {
+        this(id, tenantId, ctx, successfulMsgTimer, failedMsgTimer, 0L, null);
+    }
+
+    public TbMsgPackCallback(UUID id, TenantId tenantId, TbMsgPackProcessingContext ctx, Timer successfulMsgTimer, Timer failedMsgTimer,
+                             long packStartTs, LongConsumer latencyRecorder) {
         this.id = id;
         this.tenantId = tenantId;
         this.ctx = ctx;
         this.successfulMsgTimer = successfulMsgTimer;
         this.failedMsgTimer = failedMsgTimer;
         startMsgProcessing = System.currentTimeMillis();
+        this.packStartTs = packStartTs > 0 ? packStartTs : startMsgProcessing;
+        this.latencyRecorder = latencyRecorder;
     }
 
     @Override
@@ -56,6 +66,7 @@ public class TbMsgPackCallback implements TbMsgCallback {
         if (successfulMsgTimer != null) {
             successfulMsgTimer.record(System.currentTimeMillis() - startMsgProcessing, TimeUnit.MILLISECONDS);
         }
+        recordLatency();
         ctx.onSuccess(id);
     }
 
@@ -66,6 +77,7 @@ public class TbMsgPackCallback implements TbMsgCallback {
         if (failedMsgTimer != null) {
             failedMsgTimer.record(System.currentTimeMillis() - startMsgProcessing, TimeUnit.MILLISECONDS);
         }
+        recordLatency();
         ctx.onSuccess(id);
     }
     
@@ -80,9 +92,16 @@ public class TbMsgPackCallback implements TbMsgCallback {
         if (failedMsgTimer != null) {
             failedMsgTimer.record(System.currentTimeMillis() - startMsgProcessing, TimeUnit.MILLISECONDS);
         }
+        recordLatency();
         ctx.onFailure(tenantId, id, e);
     }
 
+    private void recordLatency() {
+        if (latencyRecorder != null) {
+            latencyRecorder.accept(System.currentTimeMillis() - packStartTs);
+        }
+    }
+
     @Override
     public boolean isMsgValid() {
         return !ctx.isCanceled();
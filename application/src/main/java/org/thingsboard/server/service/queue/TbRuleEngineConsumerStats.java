@@ -19,6 +19,7 @@ import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.msg.queue.RuleEngineException;
+import org.thingsboard.server.common.stats.DefaultCounter;
 import org.thingsboard.server.common.stats.StatsCounter;
 import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.common.stats.StatsType;
@@ -32,6 +33,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class TbRuleEngineConsumerStats {
@@ -45,6 +47,8 @@ public class TbRuleEngineConsumerStats {
     public static final String SUCCESSFUL_ITERATIONS = "successfulIterations";
     public static final String FAILED_ITERATIONS = "failedIterations";
     public static final String TENANT_ID_TAG = "tenantId";
+    public static final String LATENCY = "latency";
+    public static final String LATENCY_SLO_VIOLATIONS = "latencySloViolations";
 
     private final StatsFactory statsFactory;
 
@@ -62,6 +66,8 @@ public class TbRuleEngineConsumerStats {
     private final List<StatsCounter> counters = new ArrayList<>();
     private final ConcurrentMap<UUID, TbTenantRuleEngineStats> tenantStats = new ConcurrentHashMap<>();
     private final ConcurrentMap<TenantId, Timer> tenantMsgProcessTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TenantId, Timer> tenantLatencyTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TenantId, DefaultCounter> tenantLatencySloViolations = new ConcurrentHashMap<>();
     private final ConcurrentMap<TenantId, RuleEngineException> tenantExceptions = new ConcurrentHashMap<>();
 
     private final String queueName;
@@ -102,6 +108,22 @@ public class TbRuleEngineConsumerStats {
                 ));
     }
 
+    /**
+     * Records the time from the pack being polled to the message being fully processed, i.e. including the time
+     * the message waited behind messages of other tenants. Latencies above the SLO are additionally counted per tenant.
+     */
+    public void recordLatency(TenantId tenantId, long latencyMs, long sloMs) {
+        String statsKey = StatsType.RULE_ENGINE.getName() + "." + queueName;
+        tenantLatencyTimers.computeIfAbsent(tenantId,
+                id -> statsFactory.createTimer(statsKey + "." + LATENCY, TENANT_ID_TAG, id.getId().toString())
+        ).record(latencyMs, TimeUnit.MILLISECONDS);
+        if (sloMs > 0 && latencyMs > sloMs) {
+            tenantLatencySloViolations.computeIfAbsent(tenantId,
+                    id -> statsFactory.createDefaultCounter(statsKey + "." + LATENCY_SLO_VIOLATIONS, TENANT_ID_TAG, id.getId().toString())
+            ).increment();
+        }
+    }
+
     public void log(TbRuleEngineProcessingResult msg, boolean finalIterationForPack) {
         int success = msg.getSuccessMap().size();
         int pending = msg.getPendingMap().size();
@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.processing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.queue.SubmitStrategyType;
+import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
+import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.util.TbRuleEngineComponent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reorders a polled pack so that tenants sharing a rule engine queue are dispatched using deficit round robin.
+ * Each tenant gets a sub-queue in order of its first message; every round a tenant may submit as many messages
+ * as its scheduling weight from the tenant profile. Relative order of messages of the same tenant is preserved.
+ * <p>
+ * Only applied to the SEQUENTIAL and BATCH submit strategies, which submit the pack in order. BURST submits the whole
+ * pack at once, and the SEQUENTIAL_BY_TENANT/ORIGINATOR strategies already process every tenant or originator
+ * in parallel, so the order of the pack does not change when a tenant's messages are processed.
+ */
+@Slf4j
+@Component
+@TbRuleEngineComponent
+@RequiredArgsConstructor
+public class TbRuleEngineFairScheduler {
+
+    private final TbTenantProfileCache tenantProfileCache;
+
+    @Value("${queue.rule-engine.fair-scheduling.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled(SubmitStrategyType submitStrategyType) {
+        return enabled && (submitStrategyType == SubmitStrategyType.SEQUENTIAL || submitStrategyType == SubmitStrategyType.BATCH);
+    }
+
+    public List<TbProtoQueueMsg<ToRuleEngineMsg>> schedule(List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs) {
+        Map<TenantId, ArrayDeque<TbProtoQueueMsg<ToRuleEngineMsg>>> tenantQueues = new LinkedHashMap<>();
+        for (TbProtoQueueMsg<ToRuleEngineMsg> msg : msgs) {
+            ToRuleEngineMsg value = msg.getValue();
+            TenantId tenantId = TenantId.fromUUID(new UUID(value.getTenantIdMSB(), value.getTenantIdLSB()));
+            tenantQueues.computeIfAbsent(tenantId, id -> new ArrayDeque<>()).add(msg);
+        }
+        if (tenantQueues.size() < 2) {
+            return msgs;
+        }
+
+        List<TenantQueue> active = new ArrayList<>(tenantQueues.size());
+        tenantQueues.forEach((tenantId, queue) -> active.add(new TenantQueue(queue, getWeight(tenantId))));
+
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> result = new ArrayList<>(msgs.size());
+        while (!active.isEmpty()) {
+            Iterator<TenantQueue> it = active.iterator();
+            while (it.hasNext()) {
+                TenantQueue tenantQueue = it.next();
+                tenantQueue.deficit += tenantQueue.quantum;
+                while (tenantQueue.deficit > 0 && !tenantQueue.msgs.isEmpty()) {
+                    result.add(tenantQueue.msgs.poll());
+                    tenantQueue.deficit--;
+                }
+                if (tenantQueue.msgs.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+        return result;
+    }
+
+    int getWeight(TenantId tenantId) {
+        if (tenantId.isSysTenantId()) {
+            return 1;
+        }
+        TenantProfile profile = tenantProfileCache.get(tenantId);
+        if (profile == null) {
+            return 1;
+        }
+        DefaultTenantProfileConfiguration configuration = profile.getDefaultProfileConfiguration();
+        if (configuration == null) {
+            return 1;
+        }
+        return Math.max(1, configuration.getRuleEngineSchedulingWeight());
+    }
+
+    private static class TenantQueue {
+        private final ArrayDeque<TbProtoQueueMsg<ToRuleEngineMsg>> msgs;
+        private final int quantum;
+        private int deficit;
+
+        private TenantQueue(ArrayDeque<TbProtoQueueMsg<ToRuleEngineMsg>> msgs, int quantum) {
+            this.msgs = msgs;
+            this.quantum = quantum;
+        }
+    }
+
+}
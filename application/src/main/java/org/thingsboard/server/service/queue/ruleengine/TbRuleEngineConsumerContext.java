@@ -27,6 +27,7 @@ import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
 import org.thingsboard.server.queue.provider.TbQueueProducerProvider;
 import org.thingsboard.server.queue.provider.TbRuleEngineQueueFactory;
 import org.thingsboard.server.queue.util.TbRuleEngineComponent;
+import org.thingsboard.server.service.queue.processing.TbRuleEngineFairScheduler;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineProcessingStrategyFactory;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineSubmitStrategyFactory;
 import org.thingsboard.server.service.stats.RuleEngineStatisticsService;
@@ -45,6 +46,8 @@ public class TbRuleEngineConsumerContext {
     private boolean statsEnabled;
     @Value("${queue.rule-engine.prometheus-stats.enabled:false}")
     private boolean prometheusStatsEnabled;
+    @Value("${queue.rule-engine.stats.latency-slo-ms:1000}")
+    private long latencySloMs;
     @Value("${queue.rule-engine.topic-deletion-delay:15}")
     private int topicDeletionDelayInSec;
     @Value("${queue.rule-engine.management-thread-pool-size:12}")
@@ -54,6 +57,7 @@ public class TbRuleEngineConsumerContext {
     private final StatsFactory statsFactory;
     private final TbRuleEngineSubmitStrategyFactory submitStrategyFactory;
     private final TbRuleEngineProcessingStrategyFactory processingStrategyFactory;
+    private final TbRuleEngineFairScheduler fairScheduler;
     private final TbRuleEngineQueueFactory queueFactory;
     private final RuleEngineStatisticsService statisticsService;
     private final TbServiceInfoProvider serviceInfoProvider;
@@ -121,10 +121,14 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
                                Queue queue) throws Exception {
         TbRuleEngineSubmitStrategy submitStrategy = getSubmitStrategy(queue);
         TbRuleEngineProcessingStrategy ackStrategy = getProcessingStrategy(queue);
+        long packStartTs = System.currentTimeMillis();
+        if (ctx.getFairScheduler().isEnabled(queue.getSubmitStrategy().getType())) {
+            msgs = ctx.getFairScheduler().schedule(msgs);
+        }
         submitStrategy.init(msgs);
         while (!stopped && !consumer.isStopped()) {
             TbMsgPackProcessingContext packCtx = new TbMsgPackProcessingContext(queue.getName(), submitStrategy, ackStrategy.isSkipTimeoutMsgs());
-            submitStrategy.submitAttempt((id, msg) -> submitMessage(packCtx, id, msg));
+            submitStrategy.submitAttempt((id, msg) -> submitMessage(packCtx, id, msg, packStartTs));
 
             final boolean timeout = !packCtx.await(queue.getPackProcessingTimeout(), TimeUnit.MILLISECONDS);
 
@@ -162,12 +166,13 @@ public class TbRuleEngineQueueConsumerManager extends MainQueueConsumerManager<T
         return ctx.getProcessingStrategyFactory().newInstance(queue.getName(), queue.getProcessingStrategy());
     }
 
-    private void submitMessage(TbMsgPackProcessingContext packCtx, UUID id, TbProtoQueueMsg<ToRuleEngineMsg> msg) {
+    private void submitMessage(TbMsgPackProcessingContext packCtx, UUID id, TbProtoQueueMsg<ToRuleEngineMsg> msg, long packStartTs) {
         log.trace("[{}] Creating callback for topic {} message: {}", id, config.getName(), msg.getValue());
         ToRuleEngineMsg toRuleEngineMsg = msg.getValue();
         TenantId tenantId = TenantId.fromUUID(new UUID(toRuleEngineMsg.getTenantIdMSB(), toRuleEngineMsg.getTenantIdLSB()));
         TbMsgCallback callback = ctx.isPrometheusStatsEnabled() ?
-                new TbMsgPackCallback(id, tenantId, packCtx, stats.getTimer(tenantId, SUCCESSFUL_STATUS), stats.getTimer(tenantId, FAILED_STATUS)) :
+                new TbMsgPackCallback(id, tenantId, packCtx, stats.getTimer(tenantId, SUCCESSFUL_STATUS), stats.getTimer(tenantId, FAILED_STATUS),
+                        packStartTs, latencyMs -> stats.recordLatency(tenantId, latencyMs, ctx.getLatencySloMs())) :
                 new TbMsgPackCallback(id, tenantId, packCtx);
         try {
             if (!toRuleEngineMsg.getTbMsg().isEmpty()) {
@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.relation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+import org.thingsboard.server.dao.relation.RelationGraphEvictEvent;
+import org.thingsboard.server.dao.relation.RelationGraphIndex;
+import org.thingsboard.server.gen.transport.TransportProtos.RelationGraphEvictMsg;
+
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RelationGraphIndexSyncService {
+
+    private final TbClusterService clusterService;
+    private final RelationGraphIndex relationGraphIndex;
+
+    @EventListener(RelationGraphEvictEvent.class)
+    public void onLocalEvict(RelationGraphEvictEvent event) {
+        RelationGraphEvictMsg.Builder msg = RelationGraphEvictMsg.newBuilder()
+                .setTenantIdMSB(event.tenantId().getId().getMostSignificantBits())
+                .setTenantIdLSB(event.tenantId().getId().getLeastSignificantBits())
+                .setRelationTypeGroup(event.typeGroup().name());
+        if (event.from() != null) {
+            msg.setFromEntityType(event.from().getEntityType().name())
+                    .setFromIdMSB(event.from().getId().getMostSignificantBits())
+                    .setFromIdLSB(event.from().getId().getLeastSignificantBits());
+        }
+        if (event.to() != null) {
+            msg.setToEntityType(event.to().getEntityType().name())
+                    .setToIdMSB(event.to().getId().getMostSignificantBits())
+                    .setToIdLSB(event.to().getId().getLeastSignificantBits());
+        }
+        clusterService.broadcastRelationGraphEvict(msg.build());
+    }
+
+    public void onRemoteEvict(RelationGraphEvictMsg msg) {
+        TenantId tenantId = TenantId.fromUUID(new UUID(msg.getTenantIdMSB(), msg.getTenantIdLSB()));
+        EntityId from = msg.hasFromEntityType() ?
+                EntityIdFactory.getByTypeAndUuid(msg.getFromEntityType(), new UUID(msg.getFromIdMSB(), msg.getFromIdLSB())) : null;
+        EntityId to = msg.hasToEntityType() ?
+                EntityIdFactory.getByTypeAndUuid(msg.getToEntityType(), new UUID(msg.getToIdMSB(), msg.getToIdLSB())) : null;
+        log.trace("[{}] Received relation graph evict msg [{}][{}]", tenantId, from, to);
+        relationGraphIndex.evict(tenantId, from, to, RelationTypeGroup.valueOf(msg.getRelationTypeGroup()));
+    }
+
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.rule;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@Service
+public class DefaultTbRuleNodeDebugEventService implements TbRuleNodeDebugEventService {
+
+    static final String ARCHIVE_FILE_PREFIX = "rule-node-debug-events-";
+    static final String ARCHIVE_FILE_SUFFIX = ".jsonl.gz";
+
+    @Getter
+    @Value("${actors.rule.node.debug_sampling.enabled:false}")
+    private boolean enabled;
+    @Value("${actors.rule.node.debug_sampling.max_events_per_second:10}")
+    private int maxEventsPerSecond;
+    @Value("${actors.rule.node.debug_sampling.sample_rate:0}")
+    private int sampleRate;
+    @Value("${actors.rule.node.debug_sampling.buffer_size:100}")
+    private int bufferSize;
+    @Value("${actors.rule.node.debug_sampling.buffer_ttl_sec:3600}")
+    private long bufferTtlSec;
+    @Value("${actors.rule.node.debug_sampling.archive.enabled:false}")
+    private boolean archiveEnabled;
+    @Value("${actors.rule.node.debug_sampling.archive.dir:}")
+    private String archiveDir;
+    @Value("${actors.rule.node.debug_sampling.archive.ttl_days:7}")
+    private int archiveTtlDays;
+    @Value("${actors.rule.node.debug_sampling.archive.max_queue_size:100000}")
+    private int archiveMaxQueueSize;
+    @Value("${actors.rule.node.debug_sampling.archive.max_batch_size:10000}")
+    private int archiveMaxBatchSize;
+    @Value("${actors.rule.node.debug_sampling.archive.flush_interval_ms:1000}")
+    private long archiveFlushIntervalMs;
+
+    private Cache<UUID, NodeDebugEvents> nodeEvents;
+    private BlockingQueue<RuleNodeDebugEvent> archiveQueue;
+    private ScheduledExecutorService archiveExecutor;
+    private final AtomicLong archiveDropped = new AtomicLong();
+    private Path archivePath;
+    private LocalDate archiveDate;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        nodeEvents = Caffeine.newBuilder()
+                .expireAfterAccess(bufferTtlSec, TimeUnit.SECONDS)
+                .build();
+        if (archiveEnabled) {
+            archivePath = StringUtils.isBlank(archiveDir) ? Path.of(System.getProperty("java.io.tmpdir"), "tb-debug-events") : Path.of(archiveDir);
+            Files.createDirectories(archivePath);
+            archiveQueue = new LinkedBlockingQueue<>(archiveMaxQueueSize);
+            archiveExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("rule-node-debug-archive"));
+            archiveExecutor.scheduleWithFixedDelay(this::flushArchive, archiveFlushIntervalMs, archiveFlushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("Rule node debug event sampling enabled: max {} events per second, sample rate {}, buffer size {}, archive {}",
+                maxEventsPerSecond, sampleRate, bufferSize, archiveEnabled ? archivePath : "disabled");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (archiveExecutor != null) {
+            archiveExecutor.shutdown();
+            try {
+                archiveExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushArchive();
+        }
+    }
+
+    @Override
+    public boolean capture(RuleNodeDebugEvent event) {
+        NodeDebugEvents events = nodeEvents.get(event.getEntityId(), id -> new NodeDebugEvents(bufferSize));
+        boolean sampled = events.add(event, maxEventsPerSecond, sampleRate) || event.getError() != null;
+        if (!sampled && archiveQueue != null && !archiveQueue.offer(event)) {
+            archiveDropped.incrementAndGet();
+        }
+        return sampled;
+    }
+
+    @Override
+    public List<RuleNodeDebugEvent> getLatestEvents(RuleNodeId ruleNodeId, int limit) {
+        NodeDebugEvents events = nodeEvents != null ? nodeEvents.getIfPresent(ruleNodeId.getId()) : null;
+        return events != null ? events.getLatest(limit) : List.of();
+    }
+
+    void flushArchive() {
+        try {
+            List<RuleNodeDebugEvent> batch = new ArrayList<>(Math.min(archiveQueue.size(), archiveMaxBatchSize));
+            while (archiveQueue.drainTo(batch, archiveMaxBatchSize) > 0) {
+                writeArchiveBatch(batch);
+                batch.clear();
+            }
+            long dropped = archiveDropped.getAndSet(0);
+            if (dropped > 0) {
+                log.warn("Dropped {} rule node debug events, the archive queue is full", dropped);
+            }
+        } catch (Throwable e) {
+            log.warn("Failed to write rule node debug events to the archive", e);
+        }
+    }
+
+    private void writeArchiveBatch(List<RuleNodeDebugEvent> batch) throws IOException {
+        LocalDate date = LocalDate.now(ZoneOffset.UTC);
+        if (!date.equals(archiveDate)) {
+            archiveDate = date;
+            cleanUpArchive(date);
+        }
+        Path file = archivePath.resolve(ARCHIVE_FILE_PREFIX + date + ARCHIVE_FILE_SUFFIX);
+        // Every batch is appended as a separate gzip member, the concatenated members are read as a single gzip stream
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             Writer writer = new OutputStreamWriter(new GZIPOutputStream(out, 64 * 1024), StandardCharsets.UTF_8)) {
+            for (RuleNodeDebugEvent event : batch) {
+                writer.write(JacksonUtil.toString(event.toInfo(EntityType.RULE_NODE)));
+                writer.write('\n');
+            }
+        }
+        log.trace("Archived {} rule node debug events to {}", batch.size(), file);
+    }
+
+    private void cleanUpArchive(LocalDate date) throws IOException {
+        String oldestFileName = ARCHIVE_FILE_PREFIX + date.minusDays(archiveTtlDays) + ARCHIVE_FILE_SUFFIX;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(archivePath, ARCHIVE_FILE_PREFIX + "*" + ARCHIVE_FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().compareTo(oldestFileName) < 0) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static class NodeDebugEvents {
+
+        private final RuleNodeDebugEvent[] buffer;
+        private long count;
+        private long currentSecond;
+        private int sampledInCurrentSecond;
+
+        NodeDebugEvents(int size) {
+            this.buffer = new RuleNodeDebugEvent[size];
+        }
+
+        synchronized boolean add(RuleNodeDebugEvent event, int maxEventsPerSecond, int sampleRate) {
+            if (buffer.length > 0) {
+                buffer[(int) (count % buffer.length)] = event;
+            }
+            count++;
+            if (sampleRate > 1 && (count - 1) % sampleRate != 0) {
+                return false;
+            }
+            if (maxEventsPerSecond > 0) {
+                long second = event.getCreatedTime() / 1000;
+                if (second != currentSecond) {
+                    currentSecond = second;
+                    sampledInCurrentSecond = 0;
+                }
+                if (sampledInCurrentSecond >= maxEventsPerSecond) {
+                    return false;
+                }
+                sampledInCurrentSecond++;
+            }
+            return true;
+        }
+
+        synchronized List<RuleNodeDebugEvent> getLatest(int limit) {
+            int size = (int) Math.max(0, Math.min(Math.min(count, buffer.length), limit));
+            List<RuleNodeDebugEvent> events = new ArrayList<>(size);
+            for (long i = count - 1; i >= count - size; i--) {
+                events.add(buffer[(int) (i % buffer.length)]);
+            }
+            return events;
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.rule;
+
+import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.List;
+
+public interface TbRuleNodeDebugEventService {
+
+    boolean isEnabled();
+
+    /**
+     * Keeps the event in the in-memory buffer of the rule node and decides whether it should be persisted.
+     * Events that are not sampled are written to the compressed archive if it is enabled.
+     *
+     * @return true if the event is sampled and should be saved to the database
+     */
+    boolean capture(RuleNodeDebugEvent event);
+
+    /**
+     * Returns the latest debug events of the rule node captured by this server, the newest first.
+     */
+    List<RuleNodeDebugEvent> getLatestEvents(RuleNodeId ruleNodeId, int limit);
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.rule.RuleNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DefaultRuleNodeStatsService implements RuleNodeStatsService {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${metrics.rule_nodes.enabled:false}")
+    private boolean enabled;
+    @Value("${metrics.rule_nodes.max_nodes:1000}")
+    private int maxNodes;
+    @Value("${metrics.rule_nodes.percentile_histogram:false}")
+    private boolean percentileHistogram;
+
+    private final ConcurrentMap<RuleNodeId, RuleNodeStats> nodeStats = new ConcurrentHashMap<>();
+
+    @Override
+    public RuleNodeStats register(TenantId tenantId, RuleChainId ruleChainId, RuleNode ruleNode) {
+        if (!enabled) {
+            return null;
+        }
+        RuleNodeStats existing = nodeStats.get(ruleNode.getId());
+        if (existing != null) {
+            return existing;
+        }
+        if (nodeStats.size() >= maxNodes) {
+            log.debug("[{}][{}] Rule node stats limit of {} nodes reached, skipping rule node [{}]", tenantId, ruleChainId, maxNodes, ruleNode.getId());
+            return null;
+        }
+        String ruleNodeType = ruleNode.getType().substring(ruleNode.getType().lastIndexOf('.') + 1);
+        return nodeStats.computeIfAbsent(ruleNode.getId(), id -> new RuleNodeStats(meterRegistry, percentileHistogram,
+                Tags.of("tenantId", tenantId.getId().toString(),
+                        "ruleChainId", ruleChainId.getId().toString(),
+                        "ruleNodeId", id.getId().toString(),
+                        "ruleNodeType", ruleNodeType),
+                ruleChainId, id, ruleNodeType));
+    }
+
+    @Override
+    public void unregister(RuleNodeStats stats) {
+        if (stats != null && nodeStats.remove(stats.getRuleNodeId(), stats)) {
+            stats.destroy();
+        }
+    }
+
+    @Override
+    public List<RuleNodeStatsInfo> getRuleChainStats(RuleChainId ruleChainId) {
+        List<RuleNodeStatsInfo> result = new ArrayList<>();
+        for (RuleNodeStats stats : nodeStats.values()) {
+            if (stats.getRuleChainId().equals(ruleChainId)) {
+                result.addAll(stats.getInfo());
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.thingsboard.server.common.data.DataConstants;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters of a single rule node: processing time and queue (mailbox) wait per rule engine queue,
+ * and the number of messages sent to the node and not yet processed. Recording does not allocate once the timers
+ * of a queue are created.
+ */
+public class RuleNodeStats {
+
+    public static final String PROCESSING_TIME = "ruleNode.processing";
+    public static final String QUEUE_WAIT_TIME = "ruleNode.queueWait";
+    public static final String IN_FLIGHT = "ruleNode.inFlight";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry meterRegistry;
+    private final boolean percentileHistogram;
+    private final Tags tags;
+    @Getter
+    private final RuleChainId ruleChainId;
+    @Getter
+    private final RuleNodeId ruleNodeId;
+    @Getter
+    private final String ruleNodeType;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Gauge inFlightGauge;
+    private final ConcurrentMap<String, QueueTimers> queueTimers = new ConcurrentHashMap<>();
+    private volatile boolean destroyed;
+
+    RuleNodeStats(MeterRegistry meterRegistry, boolean percentileHistogram, Tags tags,
+                  RuleChainId ruleChainId, RuleNodeId ruleNodeId, String ruleNodeType) {
+        this.meterRegistry = meterRegistry;
+        this.percentileHistogram = percentileHistogram;
+        this.tags = tags;
+        this.ruleChainId = ruleChainId;
+        this.ruleNodeId = ruleNodeId;
+        this.ruleNodeType = ruleNodeType;
+        this.inFlightGauge = Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get).tags(tags).register(meterRegistry);
+    }
+
+    public void onEnqueue() {
+        inFlight.incrementAndGet();
+    }
+
+    public void onDequeue(String queueName, long waitNanos) {
+        inFlight.decrementAndGet();
+        QueueTimers timers = getQueueTimers(queueName);
+        if (timers != null) {
+            timers.queueWait.record(waitNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Called for the message that was sent to the node but dropped from the mailbox of the stopped rule node actor.
+     */
+    public void onDrop() {
+        inFlight.decrementAndGet();
+    }
+
+    public void recordProcessing(String queueName, long processingNanos) {
+        QueueTimers timers = getQueueTimers(queueName);
+        if (timers != null) {
+            timers.processing.record(processingNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    List<RuleNodeStatsInfo> getInfo() {
+        List<RuleNodeStatsInfo> result = new ArrayList<>(queueTimers.size());
+        queueTimers.forEach((queueName, timers) -> {
+            RuleNodeStatsInfo info = new RuleNodeStatsInfo();
+            info.setRuleNodeId(ruleNodeId);
+            info.setRuleNodeType(ruleNodeType);
+            info.setQueueName(queueName);
+            info.setInFlight(inFlight.get());
+            info.setProcessing(RuleNodeStatsInfo.TimerInfo.of(timers.processing));
+            info.setQueueWait(RuleNodeStatsInfo.TimerInfo.of(timers.queueWait));
+            result.add(info);
+        });
+        return result;
+    }
+
+    void destroy() {
+        destroyed = true;
+        List<Meter> meters = new ArrayList<>();
+        meters.add(inFlightGauge);
+        queueTimers.values().forEach(timers -> {
+            meters.add(timers.processing);
+            meters.add(timers.queueWait);
+        });
+        queueTimers.clear();
+        meters.forEach(meterRegistry::remove);
+    }
+
+    private QueueTimers getQueueTimers(String queueName) {
+        if (queueName == null) {
+            queueName = DataConstants.MAIN_QUEUE_NAME;
+        }
+        QueueTimers timers = queueTimers.get(queueName);
+        if (timers == null && !destroyed) {
+            timers = queueTimers.computeIfAbsent(queueName, QueueTimers::new);
+        }
+        return timers;
+    }
+
+    private class QueueTimers {
+        private final Timer processing;
+        private final Timer queueWait;
+
+        private QueueTimers(String queueName) {
+            Tags queueTags = tags.and("queue", queueName);
+            this.processing = timer(PROCESSING_TIME, queueTags);
+            this.queueWait = timer(QUEUE_WAIT_TIME, queueTags);
+        }
+
+        private Timer timer(String name, Tags queueTags) {
+            return Timer.builder(name)
+                    .tags(queueTags)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(meterRegistry);
+        }
+    }
+
+}
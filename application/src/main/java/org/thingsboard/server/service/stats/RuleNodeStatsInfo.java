@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Data;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.concurrent.TimeUnit;
+
+@Data
+public class RuleNodeStatsInfo {
+
+    private RuleNodeId ruleNodeId;
+    private String ruleNodeType;
+    private String queueName;
+    private int inFlight;
+    private TimerInfo processing;
+    private TimerInfo queueWait;
+
+    @Data
+    public static class TimerInfo {
+
+        private long count;
+        private double meanMs;
+        private double maxMs;
+        private double p50Ms;
+        private double p95Ms;
+        private double p99Ms;
+
+        static TimerInfo of(Timer timer) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            TimerInfo info = new TimerInfo();
+            info.setCount(snapshot.count());
+            info.setMeanMs(snapshot.mean(TimeUnit.MILLISECONDS));
+            info.setMaxMs(snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                double value = percentile.value(TimeUnit.MILLISECONDS);
+                if (percentile.percentile() == 0.5) {
+                    info.setP50Ms(value);
+                } else if (percentile.percentile() == 0.95) {
+                    info.setP95Ms(value);
+                } else if (percentile.percentile() == 0.99) {
+                    info.setP99Ms(value);
+                }
+            }
+            return info;
+        }
+    }
+
+}
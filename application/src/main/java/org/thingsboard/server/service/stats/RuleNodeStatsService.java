@@ -0,0 +1,35 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.rule.RuleNode;
+
+import java.util.List;
+
+public interface RuleNodeStatsService {
+
+    /**
+     * Returns the meters of the rule node or null if rule node stats are disabled or the cardinality limit is reached.
+     */
+    RuleNodeStats register(TenantId tenantId, RuleChainId ruleChainId, RuleNode ruleNode);
+
+    void unregister(RuleNodeStats stats);
+
+    List<RuleNodeStatsInfo> getRuleChainStats(RuleChainId ruleChainId);
+
+}
@@ -51,6 +51,7 @@ import org.thingsboard.server.queue.provider.TbQueueProducerProvider;
 import org.thingsboard.server.queue.util.TbCoreComponent;
 import org.thingsboard.server.service.state.DefaultDeviceStateService;
 import org.thingsboard.server.service.state.DeviceStateService;
+import org.thingsboard.server.service.telemetry.ActiveAlarmsIndex;
 import org.thingsboard.server.service.ws.notification.sub.NotificationUpdate;
 import org.thingsboard.server.service.ws.notification.sub.NotificationsSubscriptionUpdate;
 
@@ -80,6 +81,7 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
     private final DeviceStateService deviceStateService;
     private final TbClusterService clusterService;
     private final SubscriptionSchedulerComponent scheduler;
+    private final ActiveAlarmsIndex activeAlarmsIndex;
 
     private final Lock subsLock = new ReentrantLock();
     private final ConcurrentMap<EntityId, TbEntityRemoteSubsInfo> entitySubscriptions = new ConcurrentHashMap<>();
@@ -298,6 +300,9 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
     }
 
     private void onAlarmSubUpdate(TenantId tenantId, EntityId entityId, AlarmInfo alarm, boolean deleted, TbCallback callback) {
+        if (entityId.equals(alarm.getOriginator())) {
+            activeAlarmsIndex.onAlarmUpdate(alarm, deleted);
+        }
         TbEntityRemoteSubsInfo subInfo = entitySubscriptions.get(entityId);
         if (subInfo != null) {
             log.trace("[{}][{}] Handling alarm update {}: {}", tenantId, entityId, alarm, deleted);
@@ -15,18 +15,24 @@
  */
 package org.thingsboard.server.service.sync.vc;
 
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.thingsboard.common.util.DonAsynchron;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.common.util.TbStopWatch;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.cache.TbTransactionalCache;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.ExportableEntity;
@@ -93,6 +99,8 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -115,6 +123,25 @@ public class DefaultEntitiesVersionControlService implements EntitiesVersionCont
     private final TbTransactionalCache<UUID, VersionControlTaskCacheEntry> taskCache;
     private final VersionControlExecutor executor;
 
+    @Value("${vc.export.thread_pool_size:4}")
+    private int exportThreadPoolSize;
+    @Value("${vc.export.batch_size:100}")
+    private int exportBatchSize;
+
+    private ListeningExecutorService exportExecutor;
+
+    @PostConstruct
+    public void init() {
+        exportExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(exportThreadPoolSize, ThingsBoardThreadFactory.forName("vc-export")));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (exportExecutor != null) {
+            exportExecutor.shutdownNow();
+        }
+    }
+
     @SuppressWarnings("UnstableApiUsage")
     @Override
     public ListenableFuture<UUID> saveEntitiesVersion(User user, VersionCreateRequest request) throws Exception {
@@ -185,29 +212,48 @@ public class DefaultEntitiesVersionControlService implements EntitiesVersionCont
         ComplexVersionCreateRequest request = parentCtx.getRequest();
         request.getEntityTypes().forEach((entityType, config) -> {
             EntityTypeExportCtx ctx = new EntityTypeExportCtx(parentCtx, config, request.getSyncStrategy(), entityType);
-            if (ctx.isOverwrite()) {
-                ctx.add(gitServiceQueue.deleteAll(ctx.getCommit(), entityType));
-            }
+            parentCtx.add(exportExecutor.submit(() -> {
+                exportEntities(ctx, config);
+                return null;
+            }));
+        });
+    }
 
-            if (config.isAllEntities()) {
-                DaoUtil.processInBatches(pageLink -> exportableEntitiesService.findEntitiesIdsByTenantId(ctx.getTenantId(), entityType, pageLink),
-                        100, entityId -> {
-                            try {
-                                ctx.add(saveEntityData(ctx, entityId));
-                            } catch (Exception e) {
-                                throw new RuntimeException(e);
-                            }
-                        });
-            } else {
-                for (UUID entityId : config.getEntityIds()) {
-                    try {
-                        ctx.add(saveEntityData(ctx, EntityIdFactory.getByTypeAndUuid(entityType, entityId)));
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
+    private void exportEntities(EntityTypeExportCtx ctx, EntityTypeVersionCreateConfig config) throws Exception {
+        EntityType entityType = ctx.getEntityType();
+        TbStopWatch stopWatch = TbStopWatch.create();
+        if (ctx.isOverwrite()) {
+            gitServiceQueue.deleteAll(ctx.getCommit(), entityType).get();
+        }
+
+        AtomicInteger exported = new AtomicInteger();
+        if (config.isAllEntities()) {
+            DaoUtil.processBatches(pageLink -> exportableEntitiesService.findEntitiesIdsByTenantId(ctx.getTenantId(), entityType, pageLink),
+                    exportBatchSize, batch -> saveEntitiesData(ctx, batch.getData(), exported));
+        } else {
+            List<EntityId> entityIds = config.getEntityIds().stream()
+                    .map(entityId -> EntityIdFactory.getByTypeAndUuid(entityType, entityId))
+                    .collect(Collectors.toList());
+            for (List<EntityId> batch : Lists.partition(entityIds, exportBatchSize)) {
+                saveEntitiesData(ctx, batch, exported);
             }
-        });
+        }
+
+        long timing = Math.max(stopWatch.stopAndGetTotalTimeMillis(), 1);
+        log.info("[{}][{}] Exported {} {} entities in {} ms ({} entities/s)", ctx.getTenantId(), ctx.getCommit().getTxId(),
+                exported.get(), entityType, timing, exported.get() * 1000L / timing);
+    }
+
+    @SneakyThrows
+    private void saveEntitiesData(EntityTypeExportCtx ctx, List<? extends EntityId> entityIds, AtomicInteger exported) {
+        List<ListenableFuture<Void>> futures = new ArrayList<>(entityIds.size());
+        for (EntityId entityId : entityIds) {
+            futures.add(saveEntityData(ctx, entityId));
+        }
+        // waiting for the batch to be sent before exporting the next one, so that only one batch per entity type is held in memory
+        Futures.allAsList(futures).get();
+        exported.addAndGet(entityIds.size());
+        log.debug("[{}][{}] Exported {} {} entities", ctx.getTenantId(), ctx.getCommit().getTxId(), exported.get(), ctx.getEntityType());
     }
 
     private ListenableFuture<Void> saveEntityData(EntitiesExportCtx<?> ctx, EntityId entityId) throws Exception {
@@ -0,0 +1,143 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.telemetry;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.alarm.Alarm;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
+import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * In-memory view of the active (not cleared) alarm per originator and alarm type.
+ * <p>
+ * The index only serves originators from the core partitions of this service, since alarm updates
+ * of such originators are delivered to this service by the subscription manager regardless of the node that made them.
+ * Lookups of other originators, and of originators not yet known to the index, are answered from the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActiveAlarmsIndex extends TbApplicationEventListener<PartitionChangeEvent> {
+
+    private final PartitionService partitionService;
+
+    @Value("${sql.alarms.active_index.enabled:false}")
+    private boolean enabled;
+    @Value("${sql.alarms.active_index.max_size:100000}")
+    private long maxSize;
+    @Value("${sql.alarms.active_index.ttl_ms:600000}")
+    private long ttlMs;
+
+    private final Set<TopicPartitionInfo> currentPartitions = ConcurrentHashMap.newKeySet();
+    private Cache<ActiveAlarmKey, ActiveAlarm> activeAlarms;
+
+    @PostConstruct
+    private void init() {
+        activeAlarms = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public Alarm findLatestActiveByOriginatorAndType(TenantId tenantId, EntityId originator, String type, Supplier<Alarm> dbLookup) {
+        if (!enabled || !isMyPartition(tenantId, originator)) {
+            return dbLookup.get();
+        }
+        ActiveAlarmKey key = new ActiveAlarmKey(tenantId, originator, type);
+        ActiveAlarm activeAlarm = activeAlarms.getIfPresent(key);
+        if (activeAlarm != null && activeAlarm.isKnown()) {
+            return activeAlarm.getAlarm() != null ? new Alarm(activeAlarm.getAlarm()) : null;
+        }
+
+        long startTs = System.nanoTime();
+        Alarm alarm = dbLookup.get();
+        // updates that happened while the alarm was being fetched take precedence over the fetched alarm
+        activeAlarms.asMap().compute(key, (k, current) -> {
+            if (current == null || (!current.isKnown() && current.getTs() < startTs)) {
+                return new ActiveAlarm(alarm != null ? new Alarm(alarm) : null, true, startTs);
+            }
+            return current;
+        });
+        return alarm;
+    }
+
+    public void onAlarmUpdate(Alarm alarm, boolean deleted) {
+        if (!enabled || !isMyPartition(alarm.getTenantId(), alarm.getOriginator())) {
+            return;
+        }
+        ActiveAlarmKey key = new ActiveAlarmKey(alarm.getTenantId(), alarm.getOriginator(), alarm.getType());
+        long ts = System.nanoTime();
+        if (!deleted && !alarm.isCleared()) {
+            activeAlarms.put(key, new ActiveAlarm(new Alarm(alarm), true, ts));
+        } else {
+            activeAlarms.asMap().compute(key, (k, current) -> {
+                if (current == null || !current.isKnown()) {
+                    // the state of other alarms of this type is not known, the next lookup goes to the database
+                    return new ActiveAlarm(null, false, ts);
+                } else if (current.getAlarm() != null && current.getAlarm().getId().equals(alarm.getId())) {
+                    return new ActiveAlarm(null, true, ts);
+                }
+                return current;
+            });
+        }
+    }
+
+    @Override
+    protected void onTbApplicationEvent(PartitionChangeEvent event) {
+        if (ServiceType.TB_CORE.equals(event.getServiceType())) {
+            currentPartitions.clear();
+            currentPartitions.addAll(event.getPartitions());
+            // alarms of the newly acquired originators could have been updated by another service
+            activeAlarms.invalidateAll();
+        }
+    }
+
+    private boolean isMyPartition(TenantId tenantId, EntityId originator) {
+        return currentPartitions.contains(partitionService.resolve(ServiceType.TB_CORE, tenantId, originator));
+    }
+
+    @Data
+    private static class ActiveAlarmKey {
+        private final TenantId tenantId;
+        private final EntityId originator;
+        private final String type;
+    }
+
+    @Data
+    private static class ActiveAlarm {
+        private final Alarm alarm;
+        private final boolean known;
+        private final long ts;
+    }
+
+}
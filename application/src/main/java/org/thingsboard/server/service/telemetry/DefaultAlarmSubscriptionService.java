@@ -73,6 +73,7 @@ public class DefaultAlarmSubscriptionService extends AbstractSubscriptionService
     private final TbApiUsageReportClient apiUsageClient;
     private final TbApiUsageStateService apiUsageStateService;
     private final NotificationRuleProcessor notificationRuleProcessor;
+    private final ActiveAlarmsIndex activeAlarmsIndex;
 
     @Override
     protected String getExecutorPrefix() {
@@ -117,6 +118,9 @@ public class DefaultAlarmSubscriptionService extends AbstractSubscriptionService
     @Override
     public Boolean deleteAlarm(TenantId tenantId, AlarmId alarmId) {
         AlarmApiCallResult result = alarmService.delAlarm(tenantId, alarmId);
+        if (result.isSuccessful()) {
+            activeAlarmsIndex.onAlarmUpdate(result.getAlarm(), true);
+        }
         onAlarmDeleted(result);
         return result.isSuccessful();
     }
@@ -168,12 +172,13 @@ public class DefaultAlarmSubscriptionService extends AbstractSubscriptionService
 
     @Override
     public Alarm findLatestActiveByOriginatorAndType(TenantId tenantId, EntityId originator, String type) {
-        return alarmService.findLatestActiveByOriginatorAndType(tenantId, originator, type);
+        return activeAlarmsIndex.findLatestActiveByOriginatorAndType(tenantId, originator, type,
+                () -> alarmService.findLatestActiveByOriginatorAndType(tenantId, originator, type));
     }
 
     @Override
     public Alarm findLatestByOriginatorAndType(TenantId tenantId, EntityId originator, String type) {
-        return alarmService.findLatestActiveByOriginatorAndType(tenantId, originator, type);
+        return findLatestActiveByOriginatorAndType(tenantId, originator, type);
     }
 
     @Override
@@ -234,6 +239,7 @@ public class DefaultAlarmSubscriptionService extends AbstractSubscriptionService
 
     private AlarmApiCallResult withWsCallback(AlarmModificationRequest request, AlarmApiCallResult result) {
         if (result.isSuccessful() && result.isModified()) {
+            activeAlarmsIndex.onAlarmUpdate(result.getAlarm(), false);
             Futures.addCallback(Futures.immediateFuture(result), new AlarmUpdateCallback(), wsCallBackExecutor);
             if (result.isSeverityChanged()) {
                 AlarmInfo alarm = result.getAlarm();
@@ -619,6 +619,10 @@ public class DefaultTransportApiService implements TransportApiService {
                 builder.setVersion(otaPackageInfo.getVersion());
                 builder.setFileName(otaPackageInfo.getFileName());
                 builder.setContentType(otaPackageInfo.getContentType());
+                if (otaPackageInfo.getChecksumAlgorithm() != null && otaPackageInfo.getChecksum() != null) {
+                    builder.setChecksumAlgorithm(otaPackageInfo.getChecksumAlgorithm().name());
+                    builder.setChecksum(otaPackageInfo.getChecksum());
+                }
                 if (!otaPackageDataCache.has(otaPackageId.toString())) {
                     OtaPackage otaPackage = otaPackageService.findOtaPackageById(tenantId, otaPackageId);
                     otaPackageDataCache.put(otaPackageId.toString(), otaPackage.getData().array());
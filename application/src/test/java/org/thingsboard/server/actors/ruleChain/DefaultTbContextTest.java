@@ -0,0 +1,113 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.msg.TbActorStopReason;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+import org.thingsboard.server.service.stats.DefaultRuleNodeStatsService;
+import org.thingsboard.server.service.stats.RuleNodeStats;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class DefaultTbContextTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+
+    private SimpleMeterRegistry meterRegistry;
+    private RuleNodeStats stats;
+    private RuleNodeCtx nodeCtx;
+
+    @BeforeEach
+    public void setUp() {
+        RuleNode ruleNode = new RuleNode(new RuleNodeId(UUID.randomUUID()));
+        ruleNode.setRuleChainId(new RuleChainId(UUID.randomUUID()));
+        ruleNode.setType("org.thingsboard.rule.engine.action.TbLogNode");
+        nodeCtx = new RuleNodeCtx(tenantId, mock(TbActorRef.class), mock(TbActorRef.class), ruleNode);
+
+        meterRegistry = new SimpleMeterRegistry();
+        DefaultRuleNodeStatsService statsService = new DefaultRuleNodeStatsService(meterRegistry);
+        ReflectionTestUtils.setField(statsService, "enabled", true);
+        ReflectionTestUtils.setField(statsService, "maxNodes", 10);
+        stats = statsService.register(tenantId, ruleNode.getRuleChainId(), ruleNode);
+    }
+
+    @Test
+    public void givenAsyncNode_whenTellNext_thenProcessingIsMeasuredUntilOutcome() {
+        DefaultTbContext ctx = new DefaultTbContext(mock(ActorSystemContext.class), "Root Rule Chain", nodeCtx);
+        TbMsg msg = createMsg();
+        long startNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50);
+
+        ctx.onProcessingStart(stats, "Main", startNanos);
+        assertThat(processingTimer()).isNull();
+
+        ctx.tellSuccess(msg);
+        ctx.tellNext(msg, TbNodeConnectionType.OTHER);
+
+        assertThat(processingTimer().count()).isEqualTo(1);
+        assertThat(processingTimer().max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50.0);
+    }
+
+    @Test
+    public void givenFailedNode_whenTellFailure_thenProcessingIsRecorded() {
+        DefaultTbContext ctx = new DefaultTbContext(mock(ActorSystemContext.class), "Root Rule Chain", nodeCtx);
+
+        ctx.onProcessingStart(stats, "Main", System.nanoTime());
+        ctx.tellFailure(createMsg(), new RuntimeException("failed"));
+
+        assertThat(processingTimer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenMsgDroppedFromStoppedActor_thenInFlightIsDecremented() {
+        DefaultTbContext ctx = new DefaultTbContext(mock(ActorSystemContext.class), "Root Rule Chain", nodeCtx);
+        stats.onEnqueue();
+        RuleChainToRuleNodeMsg msg = new RuleChainToRuleNodeMsg(ctx, createMsg(), TbNodeConnectionType.SUCCESS, stats);
+        assertThat(stats.getInFlight()).isEqualTo(1);
+
+        msg.onTbActorStopped(TbActorStopReason.STOPPED);
+
+        assertThat(stats.getInFlight()).isZero();
+    }
+
+    private Timer processingTimer() {
+        return meterRegistry.find(RuleNodeStats.PROCESSING_TIME).tag("queue", "Main").timer();
+    }
+
+    private TbMsg createMsg() {
+        return TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), new TbMsgMetaData(), "{}", TbMsgCallback.EMPTY);
+    }
+
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.action.TbLogNode;
+import org.thingsboard.rule.engine.filter.TbCheckMessageNode;
+import org.thingsboard.rule.engine.filter.TbMsgTypeFilterNode;
+import org.thingsboard.rule.engine.filter.TbMsgTypeSwitchNode;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.actors.TbActorCtx;
+import org.thingsboard.server.actors.TbActorRef;
+import org.thingsboard.server.actors.TbEntityActorId;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+import org.thingsboard.server.common.data.rule.RuleChain;
+import org.thingsboard.server.common.data.rule.RuleChainType;
+import org.thingsboard.server.common.data.rule.RuleNode;
+import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
+import org.thingsboard.server.common.data.tenant.profile.TenantProfileData;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
+import org.thingsboard.server.common.msg.queue.RuleEngineException;
+import org.thingsboard.server.common.msg.queue.RuleNodeException;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.TbApiUsageReportClient;
+import org.thingsboard.server.dao.rule.RuleChainService;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
+import org.thingsboard.server.service.stats.RuleNodeStatsService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RuleChainActorMessageProcessorTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final RuleChainId ruleChainId = new RuleChainId(UUID.randomUUID());
+
+    private ActorSystemContext systemContext;
+    private RuleChainService ruleChainService;
+    private TbActorCtx actorCtx;
+    private RuleChain ruleChain;
+    private List<RuleNode> ruleNodes;
+    private Map<RuleNodeId, TbActorRef> nodeActors;
+
+    private RuleNode typeSwitch;
+    private RuleNode typeFilter;
+    private RuleNode checkFields;
+    private RuleNode log;
+
+    private int successCount;
+    private RuleEngineException failure;
+
+    @BeforeEach
+    public void setUp() {
+        systemContext = mock(ActorSystemContext.class);
+        ruleChainService = mock(RuleChainService.class);
+        actorCtx = mock(TbActorCtx.class);
+        when(systemContext.getRuleChainService()).thenReturn(ruleChainService);
+        when(systemContext.getClusterService()).thenReturn(mock(TbClusterService.class));
+        when(systemContext.getApiUsageClient()).thenReturn(mock(TbApiUsageReportClient.class));
+        when(systemContext.getRuleNodeStatsService()).thenReturn(mock(RuleNodeStatsService.class));
+        when(systemContext.isRuleChainInlineExecutionEnabled()).thenReturn(true);
+        when(systemContext.getRuleChainInlineExecutionMaxNodes()).thenReturn(100);
+        when(systemContext.resolve(eq(tenantId), any(), any(TbMsg.class))).thenReturn(new TopicPartitionInfo("tb_rule_engine", tenantId, 0, true));
+
+        TbTenantProfileCache tenantProfileCache = mock(TbTenantProfileCache.class);
+        TenantProfile tenantProfile = new TenantProfile();
+        TenantProfileData profileData = new TenantProfileData();
+        profileData.setConfiguration(new DefaultTenantProfileConfiguration());
+        tenantProfile.setProfileData(profileData);
+        when(tenantProfileCache.get(tenantId)).thenReturn(tenantProfile);
+        when(systemContext.getTenantProfileCache()).thenReturn(tenantProfileCache);
+
+        ruleChain = new RuleChain(ruleChainId);
+        ruleChain.setTenantId(tenantId);
+        ruleChain.setName("Root Rule Chain");
+        ruleChain.setType(RuleChainType.CORE);
+        when(ruleChainService.findRuleChainById(tenantId, ruleChainId)).thenReturn(ruleChain);
+
+        ruleNodes = new ArrayList<>();
+        typeSwitch = createRuleNode(TbMsgTypeSwitchNode.class.getName(), JacksonUtil.newObjectNode());
+        typeFilter = createRuleNode(TbMsgTypeFilterNode.class.getName(),
+                JacksonUtil.newObjectNode().set("messageTypes", JacksonUtil.toJsonNode("[\"" + TbMsgType.POST_TELEMETRY_REQUEST.name() + "\"]")));
+        checkFields = createRuleNode(TbCheckMessageNode.class.getName(),
+                JacksonUtil.toJsonNode("{\"messageNames\":[\"temperature\"],\"metadataNames\":[],\"checkAllKeys\":true}"));
+        log = createRuleNode(TbLogNode.class.getName(), JacksonUtil.newObjectNode());
+        ruleChain.setFirstRuleNodeId(typeSwitch.getId());
+        when(ruleChainService.getRuleChainNodes(tenantId, ruleChainId)).thenReturn(ruleNodes);
+
+        relate(typeSwitch, typeFilter, TbMsgType.POST_TELEMETRY_REQUEST.getRuleNodeConnection());
+        relate(typeFilter, checkFields, TbNodeConnectionType.TRUE);
+        relate(checkFields, log, TbNodeConnectionType.TRUE);
+
+        nodeActors = new HashMap<>();
+        ruleNodes.forEach(ruleNode -> nodeActors.put(ruleNode.getId(), mock(TbActorRef.class)));
+        when(actorCtx.getOrCreateChildActor(any(), any(), any(), any())).thenAnswer(invocation -> {
+            RuleNodeId ruleNodeId = (RuleNodeId) ((TbEntityActorId) invocation.getArgument(0)).getEntityId();
+            return nodeActors.get(ruleNodeId);
+        });
+    }
+
+    @Test
+    public void whenInlineExecutionEnabled_thenStatelessNodesAreExecutedByRuleChain() {
+        RuleChainActorMessageProcessor processor = startProcessor();
+
+        processor.onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, createMsg("{\"temperature\":42}"), null, null));
+
+        verify(nodeActors.get(typeSwitch.getId()), never()).tell(any());
+        verify(nodeActors.get(typeFilter.getId()), never()).tell(any());
+        verify(nodeActors.get(checkFields.getId()), never()).tell(any());
+        verify(nodeActors.get(log.getId())).tell(any(RuleChainToRuleNodeMsg.class));
+    }
+
+    @Test
+    public void whenInlineExecutionDisabled_thenMsgIsSentToFirstNodeActor() {
+        when(systemContext.isRuleChainInlineExecutionEnabled()).thenReturn(false);
+        RuleChainActorMessageProcessor processor = startProcessor();
+
+        processor.onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, createMsg("{\"temperature\":42}"), null, null));
+
+        verify(nodeActors.get(typeSwitch.getId())).tell(any(RuleChainToRuleNodeMsg.class));
+        verify(nodeActors.get(log.getId()), never()).tell(any());
+    }
+
+    @Test
+    public void whenNoRelationMatchesInlineOutput_thenMsgIsAcknowledged() {
+        RuleChainActorMessageProcessor processor = startProcessor();
+
+        processor.onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, createMsg("{\"humidity\":42}"), null, null));
+
+        assertThat(successCount).isEqualTo(1);
+        assertThat(failure).isNull();
+        verify(nodeActors.get(log.getId()), never()).tell(any());
+    }
+
+    @Test
+    public void whenInlineNodeFailsWithoutFailureRelation_thenMsgIsFailedWithRuleNodeException() {
+        RuleChainActorMessageProcessor processor = startProcessor();
+
+        processor.onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, createMsg("not a json"), null, null));
+
+        assertThat(successCount).isZero();
+        assertThat(failure).isInstanceOf(RuleNodeException.class);
+        assertThat(((RuleNodeException) failure).getRuleNodeId()).isEqualTo(checkFields.getId());
+    }
+
+    @Test
+    public void whenInlineExecutionLimitReached_thenRemainingNodesAreExecutedByActors() {
+        when(systemContext.getRuleChainInlineExecutionMaxNodes()).thenReturn(1);
+        RuleChainActorMessageProcessor processor = startProcessor();
+
+        processor.onQueueToRuleEngineMsg(new QueueToRuleEngineMsg(tenantId, createMsg("{\"temperature\":42}"), null, null));
+
+        verify(nodeActors.get(typeSwitch.getId()), never()).tell(any());
+        verify(nodeActors.get(typeFilter.getId())).tell(any(RuleChainToRuleNodeMsg.class));
+    }
+
+    @Test
+    public void whenInlineNodeIsNotActive_thenMsgIsFailed() {
+        RuleNodeCtx nodeCtx = new RuleNodeCtx(tenantId, mock(TbActorRef.class), mock(TbActorRef.class), typeSwitch);
+        InlineRuleNode inlineNode = new InlineRuleNode(systemContext, "Root Rule Chain", nodeCtx, tellNextMsg -> {});
+        assertThat(inlineNode.init()).isTrue();
+        inlineNode.destroy();
+
+        inlineNode.onMsg(createMsg("{\"temperature\":42}"), TbNodeConnectionType.SUCCESS);
+
+        assertThat(successCount).isZero();
+        assertThat(failure).isInstanceOf(RuleNodeException.class);
+        assertThat(failure.getMessage()).isEqualTo("Rule Node is not active! Failed to initialize.");
+    }
+
+    private RuleChainActorMessageProcessor startProcessor() {
+        RuleChainActorMessageProcessor processor = new RuleChainActorMessageProcessor(tenantId, ruleChain, systemContext, mock(TbActorRef.class), actorCtx);
+        processor.start(actorCtx);
+        return processor;
+    }
+
+    private TbMsg createMsg(String data) {
+        return TbMsg.newMsg(TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), new TbMsgMetaData(), data, new TbMsgCallback() {
+            @Override
+            public void onSuccess() {
+                successCount++;
+            }
+
+            @Override
+            public void onFailure(RuleEngineException e) {
+                failure = e;
+            }
+
+            @Override
+            public boolean isMsgValid() {
+                return true;
+            }
+        });
+    }
+
+    private RuleNode createRuleNode(String type, JsonNode configuration) {
+        RuleNode ruleNode = new RuleNode(new RuleNodeId(UUID.randomUUID()));
+        ruleNode.setRuleChainId(ruleChainId);
+        ruleNode.setName(type.substring(type.lastIndexOf('.') + 1));
+        ruleNode.setType(type);
+        ruleNode.setConfiguration(configuration);
+        ruleNodes.add(ruleNode);
+        return ruleNode;
+    }
+
+    private void relate(RuleNode from, RuleNode to, String type) {
+        EntityRelation relation = new EntityRelation(from.getId(), to.getId(), type, RelationTypeGroup.RULE_NODE);
+        when(ruleChainService.getRuleNodeRelations(TenantId.SYS_TENANT_ID, from.getId())).thenReturn(List.of(relation));
+    }
+
+}
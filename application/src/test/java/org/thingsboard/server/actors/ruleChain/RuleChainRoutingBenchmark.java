@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the relation resolution done by {@link RuleChainActorMessageProcessor} on every onTellNext: filtering
+ * the relation list of the originator node by relation type and looking up target contexts by id, as it was done
+ * before {@link RuleChainRoutingTable}, with the routing table lookup. The chain has {@code nodes} nodes and each node
+ * fans out to {@code fanOut} targets per relation type, with "Success", "Failure" and "True" relations.
+ * <p>
+ * Run from the IDE or with the test classpath: {@code java -cp <test classpath> org.thingsboard.server.actors.ruleChain.RuleChainRoutingBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleChainRoutingBenchmark {
+
+    private static final String[] RELATION_TYPES = {"Success", "Failure", "True"};
+
+    @Param({"50"})
+    private int nodes;
+
+    @Param({"1", "10"})
+    private int fanOut;
+
+    private final Map<RuleNodeId, RuleNodeCtx> nodeActors = new HashMap<>();
+    private final Map<RuleNodeId, List<RuleNodeRelation>> nodeRoutes = new HashMap<>();
+    private RuleChainRoutingTable routingTable;
+    private RuleNodeId[] originators;
+    private final Set<String> successType = Collections.singleton("Success");
+
+    @Setup
+    public void setup() {
+        List<RuleNodeId> ids = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            RuleNodeId id = new RuleNodeId(UUID.randomUUID());
+            ids.add(id);
+            nodeActors.put(id, new RuleNodeCtx(null, null, null, null));
+        }
+        RuleChainRoutingTable.Builder builder = RuleChainRoutingTable.builder();
+        for (int i = 0; i < nodes; i++) {
+            RuleNodeId from = ids.get(i);
+            for (String type : RELATION_TYPES) {
+                for (int j = 1; j <= fanOut; j++) {
+                    RuleNodeId to = ids.get((i + j) % nodes);
+                    builder.addRelation(from, to, type, nodeActors.get(to));
+                    nodeRoutes.computeIfAbsent(from, k -> new ArrayList<>()).add(new RuleNodeRelation(from, to, type, 0, null));
+                }
+            }
+        }
+        routingTable = builder.build();
+        originators = ids.toArray(new RuleNodeId[0]);
+    }
+
+    @Benchmark
+    public void listFiltering(Blackhole blackhole) {
+        for (RuleNodeId originator : originators) {
+            List<RuleNodeRelation> relationsByTypes = nodeRoutes.get(originator).stream()
+                    .filter(r -> contains(successType, r.getType()))
+                    .collect(Collectors.toList());
+            for (RuleNodeRelation relation : relationsByTypes) {
+                blackhole.consume(nodeActors.get(new RuleNodeId(relation.getOut().getId())));
+            }
+        }
+    }
+
+    @Benchmark
+    public void routingTable(Blackhole blackhole) {
+        for (RuleNodeId originator : originators) {
+            for (RuleNodeRelation relation : routingTable.getRelations(originator, successType)) {
+                blackhole.consume(relation.getTargetCtx());
+            }
+        }
+    }
+
+    private static boolean contains(Set<String> relationTypes, String type) {
+        for (String relationType : relationTypes) {
+            if (relationType.equalsIgnoreCase(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RuleChainRoutingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
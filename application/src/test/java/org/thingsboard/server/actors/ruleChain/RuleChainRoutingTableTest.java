@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class RuleChainRoutingTableTest {
+
+    private final RuleNodeId source = new RuleNodeId(UUID.randomUUID());
+    private final RuleNodeId leaf = new RuleNodeId(UUID.randomUUID());
+    private final RuleNodeId targetA = new RuleNodeId(UUID.randomUUID());
+    private final RuleNodeId targetB = new RuleNodeId(UUID.randomUUID());
+    private final RuleChainId targetChain = new RuleChainId(UUID.randomUUID());
+    private final RuleNodeCtx targetACtx = mock(RuleNodeCtx.class);
+    private final RuleNodeCtx targetBCtx = mock(RuleNodeCtx.class);
+
+    private final RuleChainRoutingTable table = RuleChainRoutingTable.builder()
+            .addNode(leaf)
+            .addRelation(source, targetA, "Success", targetACtx)
+            .addRelation(source, targetChain, "Failure", null)
+            .addRelation(source, targetB, "success", targetBCtx)
+            .addRelation(source, targetB, "True", targetBCtx)
+            .build();
+
+    @Test
+    public void testSingleRelationTypeIgnoresCase() {
+        RuleNodeRelation[] relations = table.getRelations(source, Collections.singleton("SUCCESS"));
+        assertThat(relations).extracting(RuleNodeRelation::getOut).containsExactly(targetA, targetB);
+        assertThat(relations[0].getTargetCtx()).isSameAs(targetACtx);
+        assertThat(relations[1].getTargetCtx()).isSameAs(targetBCtx);
+        assertThat(table.getRelations(source, Collections.singleton("Success"))).isSameAs(relations);
+    }
+
+    @Test
+    public void testMultipleRelationTypesKeepRelationOrder() {
+        Set<String> types = new LinkedHashSet<>(List.of("True", "Failure", "Success"));
+        assertThat(table.getRelations(source, types)).extracting(RuleNodeRelation::getOut)
+                .containsExactly(targetA, targetChain, targetB, targetB);
+        assertThat(table.getRelations(source, Set.of("True", "TRUE"))).extracting(RuleNodeRelation::getOut)
+                .containsExactly(targetB);
+        assertThat(table.getRelations(source, Set.of("Other", "Unknown"))).isEmpty();
+    }
+
+    @Test
+    public void testNullRelationTypesReturnAllRelations() {
+        assertThat(table.getRelations(source, null)).extracting(RuleNodeRelation::getType)
+                .containsExactly("Success", "Failure", "success", "True");
+    }
+
+    @Test
+    public void testUnknownTypeAndNodes() {
+        assertThat(table.getRelations(source, Collections.singleton("False"))).isEmpty();
+        assertThat(table.getRelations(source, Collections.emptySet())).isEmpty();
+        assertThat(table.getRelations(leaf, Collections.singleton("Success"))).isEmpty();
+        assertThat(table.getRelations(leaf, null)).isEmpty();
+        assertThat(table.getRelations(new RuleNodeId(UUID.randomUUID()), Collections.singleton("Success"))).isNull();
+        assertThat(RuleChainRoutingTable.EMPTY.getRelations(source, null)).isNull();
+        assertThat(Arrays.stream(table.getRelations(source, null)).mapToInt(RuleNodeRelation::getTypeId).distinct().count()).isEqualTo(3);
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc.fetch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.edge.Edge;
+import org.thingsboard.server.common.data.edge.EdgeEvent;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.edge.EdgeEventService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GeneralEdgeEventFetcherTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final List<EdgeEvent> storedEvents = new ArrayList<>();
+    private EdgeEventService edgeEventService;
+    private Edge edge;
+
+    @BeforeEach
+    public void setUp() {
+        edge = new Edge(new EdgeId(UUID.randomUUID()));
+        edge.setTenantId(tenantId);
+        edgeEventService = mock(EdgeEventService.class);
+        when(edgeEventService.findEdgeEventsAfter(eq(tenantId), eq(edge.getId()), anyLong(), anyLong(), anyLong(), any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    long seqIdStart = invocation.getArgument(4);
+                    Long seqIdEnd = invocation.getArgument(5);
+                    int limit = invocation.getArgument(6);
+                    // events are stored in the insertion order, the same as the order of seq ids within one cycle
+                    return storedEvents.stream()
+                            .filter(e -> e.getSeqId() > seqIdStart)
+                            .filter(e -> seqIdEnd == null || e.getSeqId() < seqIdEnd)
+                            .sorted((a, b) -> Long.compare(a.getSeqId(), b.getSeqId()))
+                            .limit(limit)
+                            .toList();
+                });
+    }
+
+    @Test
+    public void givenEventsAfterSeqIdStart_whenFetchNextEdgeEvents_thenReadAllPagesOnce() {
+        addEvents(1, 10);
+        GeneralEdgeEventFetcher fetcher = createFetcher(3L);
+
+        List<Long> fetchedSeqIds = new ArrayList<>();
+        List<EdgeEvent> page = fetcher.fetchNextEdgeEvents(tenantId, edge, System.currentTimeMillis(), PAGE_SIZE, true);
+        while (!page.isEmpty()) {
+            page.forEach(e -> fetchedSeqIds.add(e.getSeqId()));
+            page = fetcher.fetchNextEdgeEvents(tenantId, edge, System.currentTimeMillis(), PAGE_SIZE, false);
+        }
+
+        assertThat(fetchedSeqIds).containsExactly(4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(fetcher.isSeqIdNewCycleStarted()).isFalse();
+    }
+
+    @Test
+    public void givenSeqIdStartedNewCycle_whenFetchFirstPage_thenReadEventsOfNewCycle() {
+        addEvents(1, 4);
+        GeneralEdgeEventFetcher fetcher = createFetcher(1000L);
+
+        List<Long> fetchedSeqIds = new ArrayList<>();
+        List<EdgeEvent> page = fetcher.fetchNextEdgeEvents(tenantId, edge, System.currentTimeMillis(), PAGE_SIZE, true);
+        while (!page.isEmpty()) {
+            page.forEach(e -> fetchedSeqIds.add(e.getSeqId()));
+            page = fetcher.fetchNextEdgeEvents(tenantId, edge, System.currentTimeMillis(), PAGE_SIZE, false);
+        }
+
+        assertThat(fetchedSeqIds).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(fetcher.isSeqIdNewCycleStarted()).isTrue();
+        assertThat(fetcher.getSeqIdEnd()).isEqualTo(1000L - PAGE_SIZE);
+    }
+
+    @Test
+    public void givenNoNewEventsAndNoNewCycle_whenFetchFirstPage_thenReturnEmpty() {
+        addEvents(10, 12);
+        GeneralEdgeEventFetcher fetcher = createFetcher(12L);
+
+        List<EdgeEvent> page = fetcher.fetchNextEdgeEvents(tenantId, edge, System.currentTimeMillis(), PAGE_SIZE, true);
+
+        assertThat(page).isEmpty();
+        assertThat(fetcher.isSeqIdNewCycleStarted()).isFalse();
+    }
+
+    @Test
+    public void givenNoNewEvents_whenFetchNextPage_thenDoNotCheckNewCycle() {
+        addEvents(1, 4);
+        GeneralEdgeEventFetcher fetcher = createFetcher(1000L);
+
+        List<EdgeEvent> page = fetcher.fetchNextEdgeEvents(tenantId, edge, System.currentTimeMillis(), PAGE_SIZE, false);
+
+        assertThat(page).isEmpty();
+        assertThat(fetcher.isSeqIdNewCycleStarted()).isFalse();
+        assertThat(fetcher.getSeqIdEnd()).isNull();
+    }
+
+    private GeneralEdgeEventFetcher createFetcher(long seqIdStart) {
+        return new GeneralEdgeEventFetcher(0L, seqIdStart, null, false, (long) PAGE_SIZE, edgeEventService);
+    }
+
+    private void addEvents(long fromSeqId, long toSeqId) {
+        for (long seqId = fromSeqId; seqId <= toSeqId; seqId++) {
+            EdgeEvent edgeEvent = new EdgeEvent();
+            edgeEvent.setTenantId(tenantId);
+            edgeEvent.setEdgeId(edge.getId());
+            edgeEvent.setSeqId(seqId);
+            storedEvents.add(edgeEvent);
+        }
+    }
+
+}
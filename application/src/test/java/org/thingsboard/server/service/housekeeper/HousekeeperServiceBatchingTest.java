@@ -0,0 +1,251 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.housekeeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.housekeeper.HousekeeperTask;
+import org.thingsboard.server.common.data.housekeeper.HousekeeperTaskType;
+import org.thingsboard.server.common.data.housekeeper.TsHistoryDeletionHousekeeperTask;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
+import org.thingsboard.server.gen.transport.TransportProtos.HousekeeperTaskProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ToHousekeeperServiceMsg;
+import org.thingsboard.server.queue.TbQueueConsumer;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.housekeeper.HousekeeperConfig;
+import org.thingsboard.server.queue.provider.TbCoreQueueFactory;
+import org.thingsboard.server.service.housekeeper.processor.HousekeeperTaskProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class HousekeeperServiceBatchingTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final TenantId otherTenantId = TenantId.fromUUID(UUID.randomUUID());
+
+    @Mock
+    private HousekeeperConfig config;
+    @Mock
+    private HousekeeperReprocessingService reprocessingService;
+    @Mock
+    private TbCoreQueueFactory queueFactory;
+    @Mock
+    private NotificationRuleProcessor notificationRuleProcessor;
+    @Mock
+    private TbQueueConsumer<TbProtoQueueMsg<ToHousekeeperServiceMsg>> consumer;
+
+    private TestTaskProcessor eventsProcessor;
+    private TestTaskProcessor tsHistoryProcessor;
+    private TestTaskProcessor attributesProcessor;
+    private HousekeeperService housekeeperService;
+
+    @BeforeEach
+    public void setUp() {
+        when(config.getTaskBatchSize()).thenReturn(100);
+        when(config.getTaskBatchWindow()).thenReturn(10);
+        when(config.getTaskProcessingTimeout()).thenReturn(10000);
+        when(config.getMaxReprocessingAttempts()).thenReturn(10);
+        when(queueFactory.createHousekeeperMsgConsumer()).thenReturn(consumer);
+        when(consumer.poll(anyLong())).thenReturn(Collections.emptyList());
+
+        eventsProcessor = new TestTaskProcessor(HousekeeperTaskType.DELETE_EVENTS, true);
+        tsHistoryProcessor = new TestTaskProcessor(HousekeeperTaskType.DELETE_TS_HISTORY, true) {
+            @Override
+            public Object getBatchKey(HousekeeperTask task) {
+                return ((TsHistoryDeletionHousekeeperTask) task).getKey();
+            }
+        };
+        attributesProcessor = new TestTaskProcessor(HousekeeperTaskType.DELETE_ATTRIBUTES, false);
+        housekeeperService = new HousekeeperService(config, reprocessingService, queueFactory, Optional.empty(), notificationRuleProcessor,
+                List.of(eventsProcessor, tsHistoryProcessor, attributesProcessor));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(housekeeperService, "stop");
+    }
+
+    @Test
+    public void givenTasksOfDifferentTypesAndKeys_whenProcessMsgs_thenBatchTasksWithEqualTypeAndBatchKey() {
+        DeviceId first = new DeviceId(UUID.randomUUID());
+        DeviceId second = new DeviceId(UUID.randomUUID());
+        DeviceId third = new DeviceId(UUID.randomUUID());
+
+        processMsgs(List.of(
+                toMsg(HousekeeperTask.deleteEvents(tenantId, first)),
+                toMsg(new TsHistoryDeletionHousekeeperTask(tenantId, first, "temperature")),
+                toMsg(HousekeeperTask.deleteEvents(tenantId, second)),
+                toMsg(HousekeeperTask.deleteEvents(otherTenantId, third)),
+                toMsg(new TsHistoryDeletionHousekeeperTask(tenantId, second, "temperature")),
+                toMsg(new TsHistoryDeletionHousekeeperTask(tenantId, first, "humidity")),
+                toMsg(HousekeeperTask.deleteAttributes(tenantId, first)),
+                toMsg(HousekeeperTask.deleteAttributes(tenantId, second))));
+
+        assertThat(eventsProcessor.batches).containsExactly(List.of(first, second));
+        assertThat(eventsProcessor.processed).containsExactly(third);
+        assertThat(tsHistoryProcessor.batches).containsExactly(List.of(first, second));
+        assertThat(tsHistoryProcessor.processed).containsExactly(first);
+        assertThat(attributesProcessor.batches).isEmpty();
+        assertThat(attributesProcessor.processed).containsExactly(first, second);
+        verify(consumer).commit();
+    }
+
+    @Test
+    public void givenBatchSizeReached_whenProcessMsgs_thenStopPolling() {
+        when(config.getTaskBatchSize()).thenReturn(3);
+        when(config.getTaskBatchWindow()).thenReturn(60000);
+        DeviceId first = new DeviceId(UUID.randomUUID());
+        DeviceId second = new DeviceId(UUID.randomUUID());
+        DeviceId third = new DeviceId(UUID.randomUUID());
+        DeviceId fourth = new DeviceId(UUID.randomUUID());
+        when(consumer.poll(anyLong())).thenReturn(List.of(
+                toMsg(HousekeeperTask.deleteEvents(tenantId, third)),
+                toMsg(HousekeeperTask.deleteEvents(tenantId, fourth))));
+
+        processMsgs(List.of(
+                toMsg(HousekeeperTask.deleteEvents(tenantId, first)),
+                toMsg(HousekeeperTask.deleteEvents(tenantId, second))));
+
+        verify(consumer, times(1)).poll(anyLong());
+        assertThat(eventsProcessor.batches).containsExactly(List.of(first, second, third, fourth));
+    }
+
+    @Test
+    public void givenBatchWindowPassed_whenProcessMsgs_thenProcessCollectedTasks() {
+        when(config.getTaskBatchWindow()).thenReturn(50);
+        DeviceId first = new DeviceId(UUID.randomUUID());
+        DeviceId second = new DeviceId(UUID.randomUUID());
+        when(consumer.poll(anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(Math.min(invocation.<Long>getArgument(0), 10));
+            return Collections.emptyList();
+        });
+
+        long startTs = System.currentTimeMillis();
+        processMsgs(List.of(
+                toMsg(HousekeeperTask.deleteEvents(tenantId, first)),
+                toMsg(HousekeeperTask.deleteEvents(tenantId, second))));
+
+        assertThat(System.currentTimeMillis() - startTs).isGreaterThanOrEqualTo(50);
+        assertThat(eventsProcessor.batches).containsExactly(List.of(first, second));
+        verify(consumer).commit();
+    }
+
+    @Test
+    public void givenBatchFailure_whenProcessMsgs_thenProcessTasksOneByOne() {
+        DeviceId first = new DeviceId(UUID.randomUUID());
+        DeviceId second = new DeviceId(UUID.randomUUID());
+        DeviceId third = new DeviceId(UUID.randomUUID());
+        eventsProcessor.failBatches = true;
+        eventsProcessor.failedEntityId = second;
+        ToHousekeeperServiceMsg failedMsg = toMsg(HousekeeperTask.deleteEvents(tenantId, second)).getValue();
+
+        processMsgs(List.of(
+                toMsg(HousekeeperTask.deleteEvents(tenantId, first)),
+                new TbProtoQueueMsg<>(UUID.randomUUID(), failedMsg),
+                toMsg(HousekeeperTask.deleteEvents(tenantId, third))));
+
+        assertThat(eventsProcessor.batches).isEmpty();
+        assertThat(eventsProcessor.processed).containsExactly(first, third);
+        verify(reprocessingService).submitForReprocessing(eq(failedMsg), any(IllegalStateException.class));
+        verify(reprocessingService, times(1)).submitForReprocessing(any(), any());
+        verify(consumer).commit();
+    }
+
+    private void processMsgs(List<TbProtoQueueMsg<ToHousekeeperServiceMsg>> msgs) {
+        ReflectionTestUtils.invokeMethod(housekeeperService, "processMsgs", msgs, consumer);
+    }
+
+    private static TbProtoQueueMsg<ToHousekeeperServiceMsg> toMsg(HousekeeperTask task) {
+        return new TbProtoQueueMsg<>(task.getEntityId().getId(), ToHousekeeperServiceMsg.newBuilder()
+                .setTask(HousekeeperTaskProto.newBuilder()
+                        .setValue(JacksonUtil.toString(task))
+                        .setTs(task.getTs())
+                        .setAttempt(0)
+                        .build())
+                .build());
+    }
+
+    private static class TestTaskProcessor extends HousekeeperTaskProcessor<HousekeeperTask> {
+
+        private final HousekeeperTaskType taskType;
+        private final boolean batchingSupported;
+        private final List<List<EntityId>> batches = new CopyOnWriteArrayList<>();
+        private final List<EntityId> processed = new CopyOnWriteArrayList<>();
+        private volatile boolean failBatches;
+        private volatile EntityId failedEntityId;
+
+        private TestTaskProcessor(HousekeeperTaskType taskType, boolean batchingSupported) {
+            this.taskType = taskType;
+            this.batchingSupported = batchingSupported;
+        }
+
+        @Override
+        public void process(HousekeeperTask task) {
+            if (task.getEntityId().equals(failedEntityId)) {
+                throw new IllegalStateException("Failed to process task");
+            }
+            processed.add(task.getEntityId());
+        }
+
+        @Override
+        public void processBatch(List<HousekeeperTask> tasks) {
+            if (failBatches) {
+                throw new IllegalStateException("Failed to process batch");
+            }
+            List<EntityId> entityIds = new ArrayList<>();
+            tasks.forEach(task -> entityIds.add(task.getEntityId()));
+            batches.add(entityIds);
+        }
+
+        @Override
+        public boolean isBatchingSupported() {
+            return batchingSupported;
+        }
+
+        @Override
+        public HousekeeperTaskType getTaskType() {
+            return taskType;
+        }
+
+    }
+
+}
@@ -0,0 +1,337 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.notification;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.limits.RateLimitService;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.User;
+import org.thingsboard.server.common.data.id.NotificationId;
+import org.thingsboard.server.common.data.id.NotificationRequestId;
+import org.thingsboard.server.common.data.id.NotificationTargetId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.id.UserId;
+import org.thingsboard.server.common.data.notification.Notification;
+import org.thingsboard.server.common.data.notification.NotificationDeliveryMethod;
+import org.thingsboard.server.common.data.notification.NotificationRequest;
+import org.thingsboard.server.common.data.notification.NotificationRequestStats;
+import org.thingsboard.server.common.data.notification.NotificationType;
+import org.thingsboard.server.common.data.notification.settings.UserNotificationSettings;
+import org.thingsboard.server.common.data.notification.targets.NotificationTarget;
+import org.thingsboard.server.common.data.notification.targets.platform.AllUsersFilter;
+import org.thingsboard.server.common.data.notification.targets.platform.PlatformUsersNotificationTargetConfig;
+import org.thingsboard.server.common.data.notification.template.DeliveryMethodNotificationTemplate;
+import org.thingsboard.server.common.data.notification.template.EmailDeliveryMethodNotificationTemplate;
+import org.thingsboard.server.common.data.notification.template.NotificationTemplate;
+import org.thingsboard.server.common.data.notification.template.NotificationTemplateConfig;
+import org.thingsboard.server.common.data.notification.template.WebDeliveryMethodNotificationTemplate;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.dao.notification.NotificationRequestService;
+import org.thingsboard.server.dao.notification.NotificationService;
+import org.thingsboard.server.dao.notification.NotificationSettingsService;
+import org.thingsboard.server.dao.notification.NotificationTargetService;
+import org.thingsboard.server.dao.notification.NotificationTemplateService;
+import org.thingsboard.server.gen.transport.TransportProtos.ToCoreMsg;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.discovery.TopicService;
+import org.thingsboard.server.queue.provider.TbQueueProducerProvider;
+import org.thingsboard.server.service.executors.NotificationExecutorService;
+import org.thingsboard.server.service.notification.channels.NotificationChannel;
+import org.thingsboard.server.service.subscription.SubscriptionManagerService;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class DefaultNotificationCenterTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final TopicPartitionInfo localTpi = new TopicPartitionInfo("tb_core", null, 0, true);
+    private final TopicPartitionInfo remoteTpi = new TopicPartitionInfo("tb_core", null, 1, false);
+
+    private final NotificationTargetService notificationTargetService = mock(NotificationTargetService.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final NotificationSettingsService notificationSettingsService = mock(NotificationSettingsService.class);
+    private final PartitionService partitionService = mock(PartitionService.class);
+    private final TbClusterService clusterService = mock(TbClusterService.class);
+    private final SubscriptionManagerService subscriptionManagerService = mock(SubscriptionManagerService.class);
+    private final NotificationChannel emailChannel = mock(NotificationChannel.class);
+    private final Set<UserId> remoteUserIds = ConcurrentHashMap.newKeySet();
+
+    private DefaultNotificationCenter notificationCenter;
+
+    @AfterEach
+    public void tearDown() {
+        if (notificationCenter != null) {
+            ReflectionTestUtils.invokeMethod(notificationCenter, "destroy");
+        }
+    }
+
+    @Test
+    public void givenBulkDelivery_whenProcessForTarget_thenSaveAndPushWebNotificationsPerBatch() throws Exception {
+        notificationCenter = createNotificationCenter(true, 1000);
+        List<User> users = createUsers(2500);
+        mockRecipients(users);
+        mockSaveNotifications(0);
+        when(notificationSettingsService.getUserNotificationSettings(any(), any(), anyBoolean())).thenReturn(UserNotificationSettings.DEFAULT);
+
+        NotificationProcessingContext ctx = createContext(Set.of(NotificationDeliveryMethod.WEB, NotificationDeliveryMethod.EMAIL));
+        ReflectionTestUtils.invokeMethod(notificationCenter, "processForTarget", createTarget(), ctx);
+
+        NotificationRequestStats stats = ctx.getStats();
+        assertThat(stats.getTotalErrors().get()).isZero();
+        assertThat(stats.getSent().get(NotificationDeliveryMethod.WEB).get()).isEqualTo(2500);
+        assertThat(stats.getSent().get(NotificationDeliveryMethod.EMAIL).get()).isEqualTo(2500);
+
+        ArgumentCaptor<List<Notification>> notificationsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(notificationService, times(3)).saveNotifications(eq(tenantId), notificationsCaptor.capture());
+        verify(notificationService, never()).saveNotification(any(), any());
+        assertThat(notificationsCaptor.getAllValues()).extracting(List::size).containsExactly(1000, 1000, 500);
+        Notification notification = notificationsCaptor.getAllValues().get(0).get(7);
+        assertThat(notification.getSubject()).isEqualTo("Hello, First 7");
+        assertThat(notification.getRecipientId()).isEqualTo(users.get(7).getId());
+
+        verify(subscriptionManagerService, times(1250)).onNotificationUpdate(eq(tenantId), any(), any(), any());
+        ArgumentCaptor<ToCoreMsg> toCoreMsgCaptor = ArgumentCaptor.forClass(ToCoreMsg.class);
+        verify(clusterService, times(3)).pushMsgToCore(eq(remoteTpi), any(), toCoreMsgCaptor.capture(), isNull());
+        assertThat(toCoreMsgCaptor.getAllValues()).extracting(msg -> msg.getToSubscriptionMgrMsg().getNotificationUpdates().getUpdatesCount())
+                .containsExactly(500, 500, 250);
+
+        ArgumentCaptor<User> emailRecipientCaptor = ArgumentCaptor.forClass(User.class);
+        ArgumentCaptor<EmailDeliveryMethodNotificationTemplate> emailTemplateCaptor = ArgumentCaptor.forClass(EmailDeliveryMethodNotificationTemplate.class);
+        verify(emailChannel, times(2500)).sendNotification(emailRecipientCaptor.capture(), emailTemplateCaptor.capture(), eq(ctx));
+        for (int i = 0; i < 2500; i++) {
+            User recipient = emailRecipientCaptor.getAllValues().get(i);
+            assertThat(emailTemplateCaptor.getAllValues().get(i).getBody()).isEqualTo("Dear " + recipient.getFirstName());
+        }
+    }
+
+    @Test
+    public void givenBulkDelivery_whenRecipientDisabledNotifications_thenReportErrorForRecipient() throws Exception {
+        notificationCenter = createNotificationCenter(true, 1000);
+        List<User> users = createUsers(10);
+        users.add(users.get(0));
+        mockRecipients(users);
+        mockSaveNotifications(0);
+        UserId disabledUserId = users.get(3).getId();
+        UserNotificationSettings.NotificationPref pref = UserNotificationSettings.NotificationPref.createDefault();
+        pref.getEnabledDeliveryMethods().put(NotificationDeliveryMethod.EMAIL, false);
+        UserNotificationSettings disabledEmailSettings = new UserNotificationSettings(Map.of(NotificationType.GENERAL, pref));
+        when(notificationSettingsService.getUserNotificationSettings(any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            return disabledUserId.equals(invocation.getArgument(1)) ? disabledEmailSettings : UserNotificationSettings.DEFAULT;
+        });
+
+        NotificationProcessingContext ctx = createContext(Set.of(NotificationDeliveryMethod.WEB, NotificationDeliveryMethod.EMAIL));
+        ReflectionTestUtils.invokeMethod(notificationCenter, "processForTarget", createTarget(), ctx);
+
+        NotificationRequestStats stats = ctx.getStats();
+        assertThat(stats.getSent().get(NotificationDeliveryMethod.WEB).get()).isEqualTo(10);
+        assertThat(stats.getSent().get(NotificationDeliveryMethod.EMAIL).get()).isEqualTo(9);
+        assertThat(stats.getErrors().get(NotificationDeliveryMethod.EMAIL)).containsOnlyKeys(users.get(3).getTitle());
+        verify(emailChannel, never()).sendNotification(eq(users.get(3)), any(), any());
+    }
+
+    @Test
+    public void givenBulkDeliveryAndSaveFailure_whenProcessForTarget_thenReportErrorForEachWebRecipient() throws Exception {
+        notificationCenter = createNotificationCenter(true, 1000);
+        mockRecipients(createUsers(20));
+        when(notificationService.saveNotifications(any(), anyList())).thenThrow(new RuntimeException("Database is down"));
+        when(notificationSettingsService.getUserNotificationSettings(any(), any(), anyBoolean())).thenReturn(UserNotificationSettings.DEFAULT);
+
+        NotificationProcessingContext ctx = createContext(Set.of(NotificationDeliveryMethod.WEB));
+        ReflectionTestUtils.invokeMethod(notificationCenter, "processForTarget", createTarget(), ctx);
+
+        assertThat(ctx.getStats().getTotalErrors().get()).isEqualTo(20);
+        assertThat(ctx.getStats().getTotalSent().get()).isZero();
+        verify(subscriptionManagerService, never()).onNotificationUpdate(any(), any(), any(), any());
+        verify(clusterService, never()).pushMsgToCore(any(TopicPartitionInfo.class), any(), any(), any());
+    }
+
+    @Test
+    public void givenBulkDelivery_whenUpdatesExceedMaxMsgSize_thenSplitIntoSeveralMessages() throws Exception {
+        notificationCenter = createNotificationCenter(true, 1000);
+        int maxMsgSize = 4096;
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryMaxUpdatesMsgSize", maxMsgSize);
+        mockRecipients(createUsers(200));
+        mockSaveNotifications(0);
+        when(notificationSettingsService.getUserNotificationSettings(any(), any(), anyBoolean())).thenReturn(UserNotificationSettings.DEFAULT);
+
+        NotificationProcessingContext ctx = createContext(Set.of(NotificationDeliveryMethod.WEB));
+        ReflectionTestUtils.invokeMethod(notificationCenter, "processForTarget", createTarget(), ctx);
+
+        ArgumentCaptor<ToCoreMsg> toCoreMsgCaptor = ArgumentCaptor.forClass(ToCoreMsg.class);
+        verify(clusterService, atLeast(2)).pushMsgToCore(eq(remoteTpi), any(), toCoreMsgCaptor.capture(), isNull());
+        assertThat(toCoreMsgCaptor.getAllValues()).allSatisfy(msg -> {
+            assertThat(msg.getToSubscriptionMgrMsg().getNotificationUpdates().getSerializedSize()).isLessThanOrEqualTo(maxMsgSize + 64);
+        });
+        assertThat(toCoreMsgCaptor.getAllValues().stream()
+                .mapToInt(msg -> msg.getToSubscriptionMgrMsg().getNotificationUpdates().getUpdatesCount()).sum()).isEqualTo(100);
+    }
+
+    @Test
+    public void givenBulkDeliveryWithRateLimits_whenProcessForTarget_thenSendRateLimitedMethodOnItsOwnPool() throws Exception {
+        notificationCenter = createNotificationCenter(true, 1000, "EMAIL=1000:1");
+        mockRecipients(createUsers(20));
+        mockSaveNotifications(0);
+        when(notificationSettingsService.getUserNotificationSettings(any(), any(), anyBoolean())).thenReturn(UserNotificationSettings.DEFAULT);
+        Set<String> emailThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            emailThreads.add(Thread.currentThread().getName());
+            return null;
+        }).when(emailChannel).sendNotification(any(), any(), any());
+
+        NotificationProcessingContext ctx = createContext(Set.of(NotificationDeliveryMethod.WEB, NotificationDeliveryMethod.EMAIL));
+        ReflectionTestUtils.invokeMethod(notificationCenter, "processForTarget", createTarget(), ctx);
+
+        assertThat(ctx.getStats().getSent().get(NotificationDeliveryMethod.EMAIL).get()).isEqualTo(20);
+        assertThat(emailThreads).isNotEmpty().allSatisfy(threadName -> assertThat(threadName).startsWith("notification-delivery-email"));
+    }
+
+    private DefaultNotificationCenter createNotificationCenter(boolean bulkDelivery, int batchSize) {
+        return createNotificationCenter(bulkDelivery, batchSize, "");
+    }
+
+    private DefaultNotificationCenter createNotificationCenter(boolean bulkDelivery, int batchSize, String rateLimitsConfig) {
+        DefaultNotificationCenter notificationCenter = new DefaultNotificationCenter(notificationTargetService, mock(NotificationRequestService.class),
+                notificationService, mock(NotificationTemplateService.class), notificationSettingsService, mock(NotificationExecutorService.class),
+                mock(TopicService.class), mock(TbQueueProducerProvider.class), mock(RateLimitService.class));
+        ReflectionTestUtils.setField(notificationCenter, "clusterService", clusterService);
+        ReflectionTestUtils.setField(notificationCenter, "partitionService", partitionService);
+        ReflectionTestUtils.setField(notificationCenter, "subscriptionManagerService", Optional.of(subscriptionManagerService));
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryEnabled", bulkDelivery);
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryBatchSize", batchSize);
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryThreadPoolSize", 10);
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryRateLimitsConfig", rateLimitsConfig);
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryMaxUpdatesMsgSize", 524288);
+        ReflectionTestUtils.invokeMethod(notificationCenter, "init");
+        ((Set<TopicPartitionInfo>) ReflectionTestUtils.getField(notificationCenter, "currentPartitions")).add(localTpi);
+        when(emailChannel.getDeliveryMethod()).thenReturn(NotificationDeliveryMethod.EMAIL);
+        notificationCenter.setChannels(List.of(emailChannel), notificationCenter);
+        return notificationCenter;
+    }
+
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User(new UserId(UUID.randomUUID()));
+            user.setTenantId(tenantId);
+            user.setEmail("user" + i + "@thingsboard.org");
+            user.setFirstName("First " + (i % 10));
+            users.add(user);
+            if (i % 2 != 0) {
+                remoteUserIds.add(user.getId());
+            }
+        }
+        when(partitionService.resolve(eq(ServiceType.TB_CORE), eq(tenantId), any())).thenAnswer(invocation -> {
+            return remoteUserIds.contains(invocation.getArgument(2)) ? remoteTpi : localTpi;
+        });
+        return users;
+    }
+
+    private void mockRecipients(List<User> users) {
+        when(notificationTargetService.findRecipientsForNotificationTargetConfig(eq(tenantId), any(), any())).thenAnswer(invocation -> {
+            PageLink pageLink = invocation.getArgument(2);
+            int from = pageLink.getPage() * pageLink.getPageSize();
+            int to = Math.min(from + pageLink.getPageSize(), users.size());
+            return new PageData<>(users.subList(from, to), (users.size() + pageLink.getPageSize() - 1) / pageLink.getPageSize(), users.size(), to < users.size());
+        });
+    }
+
+    private void mockSaveNotifications(long latencyNanos) {
+        when(notificationService.saveNotification(any(), any())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(latencyNanos);
+            Notification notification = invocation.getArgument(1);
+            notification.setId(new NotificationId(UUID.randomUUID()));
+            return notification;
+        });
+        when(notificationService.saveNotifications(any(), anyList())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(latencyNanos);
+            List<Notification> notifications = invocation.getArgument(1);
+            notifications.forEach(notification -> notification.setId(new NotificationId(UUID.randomUUID())));
+            return notifications;
+        });
+    }
+
+    private NotificationTarget createTarget() {
+        NotificationTarget target = new NotificationTarget();
+        target.setId(new NotificationTargetId(UUID.randomUUID()));
+        target.setTenantId(tenantId);
+        PlatformUsersNotificationTargetConfig targetConfig = new PlatformUsersNotificationTargetConfig();
+        targetConfig.setUsersFilter(new AllUsersFilter());
+        target.setConfiguration(targetConfig);
+        return target;
+    }
+
+    private NotificationProcessingContext createContext(Set<NotificationDeliveryMethod> deliveryMethods) {
+        WebDeliveryMethodNotificationTemplate webTemplate = new WebDeliveryMethodNotificationTemplate();
+        webTemplate.setEnabled(true);
+        webTemplate.setSubject("Hello, ${recipientFirstName}");
+        webTemplate.setBody("New alarm");
+        EmailDeliveryMethodNotificationTemplate emailTemplate = new EmailDeliveryMethodNotificationTemplate();
+        emailTemplate.setEnabled(true);
+        emailTemplate.setSubject("New alarm");
+        emailTemplate.setBody("Dear ${recipientFirstName}");
+        Map<NotificationDeliveryMethod, DeliveryMethodNotificationTemplate> templates = new EnumMap<>(NotificationDeliveryMethod.class);
+        templates.put(NotificationDeliveryMethod.WEB, webTemplate);
+        templates.put(NotificationDeliveryMethod.EMAIL, emailTemplate);
+        NotificationTemplateConfig templateConfig = new NotificationTemplateConfig();
+        templateConfig.setDeliveryMethodsTemplates(templates);
+        NotificationTemplate template = new NotificationTemplate();
+        template.setTenantId(tenantId);
+        template.setNotificationType(NotificationType.GENERAL);
+        template.setConfiguration(templateConfig);
+
+        NotificationRequest request = NotificationRequest.builder()
+                .tenantId(tenantId)
+                .template(template)
+                .build();
+        request.setId(new NotificationRequestId(UUID.randomUUID()));
+        return NotificationProcessingContext.builder()
+                .tenantId(tenantId)
+                .request(request)
+                .deliveryMethods(deliveryMethods)
+                .template(template)
+                .build();
+    }
+
+}
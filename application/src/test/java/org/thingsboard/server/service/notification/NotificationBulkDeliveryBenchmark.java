@@ -0,0 +1,247 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.notification;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.limits.RateLimitService;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.User;
+import org.thingsboard.server.common.data.id.NotificationId;
+import org.thingsboard.server.common.data.id.NotificationRequestId;
+import org.thingsboard.server.common.data.id.NotificationTargetId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.id.UserId;
+import org.thingsboard.server.common.data.notification.Notification;
+import org.thingsboard.server.common.data.notification.NotificationDeliveryMethod;
+import org.thingsboard.server.common.data.notification.NotificationRequest;
+import org.thingsboard.server.common.data.notification.NotificationType;
+import org.thingsboard.server.common.data.notification.settings.UserNotificationSettings;
+import org.thingsboard.server.common.data.notification.targets.NotificationTarget;
+import org.thingsboard.server.common.data.notification.targets.platform.AllUsersFilter;
+import org.thingsboard.server.common.data.notification.targets.platform.PlatformUsersNotificationTargetConfig;
+import org.thingsboard.server.common.data.notification.template.DeliveryMethodNotificationTemplate;
+import org.thingsboard.server.common.data.notification.template.EmailDeliveryMethodNotificationTemplate;
+import org.thingsboard.server.common.data.notification.template.NotificationTemplate;
+import org.thingsboard.server.common.data.notification.template.NotificationTemplateConfig;
+import org.thingsboard.server.common.data.notification.template.WebDeliveryMethodNotificationTemplate;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.dao.notification.NotificationRequestService;
+import org.thingsboard.server.dao.notification.NotificationService;
+import org.thingsboard.server.dao.notification.NotificationSettingsService;
+import org.thingsboard.server.dao.notification.NotificationTargetService;
+import org.thingsboard.server.dao.notification.NotificationTemplateService;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.discovery.TopicService;
+import org.thingsboard.server.queue.provider.TbQueueProducerProvider;
+import org.thingsboard.server.service.executors.NotificationExecutorService;
+import org.thingsboard.server.service.notification.channels.NotificationChannel;
+import org.thingsboard.server.service.subscription.SubscriptionManagerService;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares sending web and email notifications to {@code recipients} users one recipient at a time with the bulk
+ * delivery of {@link DefaultNotificationCenter}. Each database call is delayed by {@code dbLatencyMicros} and each
+ * email is delayed by 1 ms. Each invocation processes one notification request for all the recipients.
+ * <p>
+ * Run from the IDE or with the test classpath: {@code java -cp <test classpath> org.thingsboard.server.service.notification.NotificationBulkDeliveryBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("unchecked")
+public class NotificationBulkDeliveryBenchmark {
+
+    @Param({"1000"})
+    private int recipients;
+
+    @Param({"200"})
+    private int dbLatencyMicros;
+
+    @Param({"false", "true"})
+    private boolean bulkDelivery;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final TopicPartitionInfo localTpi = new TopicPartitionInfo("tb_core", null, 0, true);
+
+    private DefaultNotificationCenter notificationCenter;
+    private NotificationTarget target;
+    private NotificationTemplate template;
+
+    @Setup
+    public void setup() throws Exception {
+        NotificationTargetService notificationTargetService = mock(NotificationTargetService.class);
+        NotificationService notificationService = mock(NotificationService.class);
+        NotificationSettingsService notificationSettingsService = mock(NotificationSettingsService.class);
+        PartitionService partitionService = mock(PartitionService.class);
+        NotificationChannel emailChannel = mock(NotificationChannel.class);
+
+        List<User> users = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            User user = new User(new UserId(UUID.randomUUID()));
+            user.setTenantId(tenantId);
+            user.setEmail("user" + i + "@thingsboard.org");
+            user.setFirstName("First " + (i % 10));
+            users.add(user);
+        }
+        when(notificationTargetService.findRecipientsForNotificationTargetConfig(eq(tenantId), any(), any())).thenAnswer(invocation -> {
+            PageLink pageLink = invocation.getArgument(2);
+            int from = pageLink.getPage() * pageLink.getPageSize();
+            int to = Math.min(from + pageLink.getPageSize(), users.size());
+            return new PageData<>(users.subList(from, to), (users.size() + pageLink.getPageSize() - 1) / pageLink.getPageSize(), users.size(), to < users.size());
+        });
+        long dbLatencyNanos = TimeUnit.MICROSECONDS.toNanos(dbLatencyMicros);
+        when(notificationService.saveNotification(any(), any())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(dbLatencyNanos);
+            Notification notification = invocation.getArgument(1);
+            notification.setId(new NotificationId(UUID.randomUUID()));
+            return notification;
+        });
+        when(notificationService.saveNotifications(any(), anyList())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(dbLatencyNanos);
+            List<Notification> notifications = invocation.getArgument(1);
+            notifications.forEach(notification -> notification.setId(new NotificationId(UUID.randomUUID())));
+            return notifications;
+        });
+        when(notificationSettingsService.getUserNotificationSettings(any(), any(), anyBoolean())).thenReturn(UserNotificationSettings.DEFAULT);
+        when(partitionService.resolve(eq(ServiceType.TB_CORE), eq(tenantId), any())).thenReturn(localTpi);
+        when(emailChannel.getDeliveryMethod()).thenReturn(NotificationDeliveryMethod.EMAIL);
+        doAnswer(invocation -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            return null;
+        }).when(emailChannel).sendNotification(any(), any(), any());
+
+        notificationCenter = new DefaultNotificationCenter(notificationTargetService, mock(NotificationRequestService.class),
+                notificationService, mock(NotificationTemplateService.class), notificationSettingsService, mock(NotificationExecutorService.class),
+                mock(TopicService.class), mock(TbQueueProducerProvider.class), mock(RateLimitService.class));
+        ReflectionTestUtils.setField(notificationCenter, "clusterService", mock(TbClusterService.class));
+        ReflectionTestUtils.setField(notificationCenter, "partitionService", partitionService);
+        ReflectionTestUtils.setField(notificationCenter, "subscriptionManagerService", Optional.of(mock(SubscriptionManagerService.class)));
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryEnabled", bulkDelivery);
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryBatchSize", 1000);
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryThreadPoolSize", 10);
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryRateLimitsConfig", "");
+        ReflectionTestUtils.setField(notificationCenter, "bulkDeliveryMaxUpdatesMsgSize", 524288);
+        ReflectionTestUtils.invokeMethod(notificationCenter, "init");
+        ((Set<TopicPartitionInfo>) ReflectionTestUtils.getField(notificationCenter, "currentPartitions")).add(localTpi);
+        notificationCenter.setChannels(List.of(emailChannel), notificationCenter);
+
+        target = createTarget();
+        template = createTemplate();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(notificationCenter, "destroy");
+    }
+
+    @Benchmark
+    public int processForTarget() {
+        NotificationProcessingContext ctx = createContext();
+        ReflectionTestUtils.invokeMethod(notificationCenter, "processForTarget", target, ctx);
+        int sent = ctx.getStats().getTotalSent().get();
+        if (sent != recipients * 2) {
+            throw new IllegalStateException("Sent " + sent + " notifications instead of " + recipients * 2);
+        }
+        return sent;
+    }
+
+    private NotificationTarget createTarget() {
+        NotificationTarget target = new NotificationTarget();
+        target.setId(new NotificationTargetId(UUID.randomUUID()));
+        target.setTenantId(tenantId);
+        PlatformUsersNotificationTargetConfig targetConfig = new PlatformUsersNotificationTargetConfig();
+        targetConfig.setUsersFilter(new AllUsersFilter());
+        target.setConfiguration(targetConfig);
+        return target;
+    }
+
+    private NotificationTemplate createTemplate() {
+        WebDeliveryMethodNotificationTemplate webTemplate = new WebDeliveryMethodNotificationTemplate();
+        webTemplate.setEnabled(true);
+        webTemplate.setSubject("Hello, ${recipientFirstName}");
+        webTemplate.setBody("New alarm");
+        EmailDeliveryMethodNotificationTemplate emailTemplate = new EmailDeliveryMethodNotificationTemplate();
+        emailTemplate.setEnabled(true);
+        emailTemplate.setSubject("New alarm");
+        emailTemplate.setBody("Dear ${recipientFirstName}");
+        Map<NotificationDeliveryMethod, DeliveryMethodNotificationTemplate> templates = new EnumMap<>(NotificationDeliveryMethod.class);
+        templates.put(NotificationDeliveryMethod.WEB, webTemplate);
+        templates.put(NotificationDeliveryMethod.EMAIL, emailTemplate);
+        NotificationTemplateConfig templateConfig = new NotificationTemplateConfig();
+        templateConfig.setDeliveryMethodsTemplates(templates);
+        NotificationTemplate template = new NotificationTemplate();
+        template.setTenantId(tenantId);
+        template.setNotificationType(NotificationType.GENERAL);
+        template.setConfiguration(templateConfig);
+        return template;
+    }
+
+    private NotificationProcessingContext createContext() {
+        NotificationRequest request = NotificationRequest.builder()
+                .tenantId(tenantId)
+                .template(template)
+                .build();
+        request.setId(new NotificationRequestId(UUID.randomUUID()));
+        return NotificationProcessingContext.builder()
+                .tenantId(tenantId)
+                .request(request)
+                .deliveryMethods(Set.of(NotificationDeliveryMethod.WEB, NotificationDeliveryMethod.EMAIL))
+                .template(template)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(NotificationBulkDeliveryBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbBroadcastCoalescerTest {
+
+    private final TbBroadcastCoalescer<String> coalescer = new TbBroadcastCoalescer<>();
+    private final List<String> sent = new ArrayList<>();
+
+    @Test
+    public void testOnlyLatestPendingBroadcastIsSent() {
+        for (int i = 0; i < 5; i++) {
+            int version = i;
+            coalescer.submit("a", () -> sent.add("a" + version));
+        }
+        coalescer.submit("b", () -> sent.add("b0"));
+        assertThat(sent).isEmpty();
+        assertThat(coalescer.getPendingCount()).isEqualTo(2);
+
+        coalescer.flush();
+
+        assertThat(sent).containsExactlyInAnyOrder("a4", "b0");
+        assertThat(coalescer.getPendingCount()).isZero();
+        assertThat(coalescer.getAndResetCoalescedCount()).isEqualTo(4);
+        assertThat(coalescer.getAndResetCoalescedCount()).isZero();
+
+        coalescer.flush();
+        assertThat(sent).hasSize(2);
+    }
+
+    @Test
+    public void testSendNowFlushesPendingBroadcastOfSameKeyFirst() {
+        coalescer.submit("a", () -> sent.add("a-updated"));
+        coalescer.submit("b", () -> sent.add("b-updated"));
+
+        coalescer.sendNow("a", () -> sent.add("a-deleted"));
+
+        assertThat(sent).containsExactly("a-updated", "a-deleted");
+        assertThat(coalescer.getPendingCount()).isEqualTo(1);
+
+        coalescer.flush();
+        assertThat(sent).containsExactly("a-updated", "a-deleted", "b-updated");
+    }
+
+    @Test
+    public void testFailedBroadcastDoesNotBlockOthers() {
+        coalescer.submit("a", () -> {
+            throw new RuntimeException("test");
+        });
+        coalescer.submit("b", () -> sent.add("b"));
+
+        coalescer.flush();
+
+        assertThat(sent).containsExactly("b");
+        assertThat(coalescer.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void testFailedPendingBroadcastDoesNotBlockSendNow() {
+        coalescer.submit("a", () -> {
+            throw new RuntimeException("test");
+        });
+
+        coalescer.sendNow("a", () -> sent.add("a-deleted"));
+
+        assertThat(sent).containsExactly("a-deleted");
+        assertThat(coalescer.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void testBroadcastSubmittedDuringSendIsKept() {
+        coalescer.submit("a", () -> coalescer.submit("a", () -> sent.add("a-next")));
+
+        coalescer.flush();
+        assertThat(sent).isEmpty();
+        assertThat(coalescer.getPendingCount()).isEqualTo(1);
+
+        coalescer.flush();
+        assertThat(sent).containsExactly("a-next");
+    }
+
+}
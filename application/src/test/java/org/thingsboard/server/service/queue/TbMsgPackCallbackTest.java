@@ -16,6 +16,7 @@
 package org.thingsboard.server.service.queue;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -26,9 +27,12 @@ import org.thingsboard.server.common.msg.queue.RuleEngineException;
 import org.thingsboard.server.common.msg.queue.RuleNodeException;
 import org.thingsboard.server.common.msg.tools.TbRateLimitsException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -95,4 +99,18 @@ class TbMsgPackCallbackTest {
         verify(ctx, never()).onFailure(any(), any(), any());
     }
 
+    @Test
+    void testLatencyIsRecordedForEveryOutcome() {
+        List<Long> latencies = new ArrayList<>();
+        long packStartTs = System.currentTimeMillis();
+
+        new TbMsgPackCallback(msgId, tenantId, ctx, null, null, packStartTs, latencies::add).onSuccess();
+        new TbMsgPackCallback(msgId, tenantId, ctx, null, null, packStartTs, latencies::add)
+                .onFailure(new RuleEngineException("failure"));
+        new TbMsgPackCallback(msgId, tenantId, ctx, null, null, packStartTs, latencies::add)
+                .onFailure(new RuleEngineException("rate limit", new TbRateLimitsException(EntityType.ASSET)));
+
+        assertThat(latencies).hasSize(3).allSatisfy(latency -> assertThat(latency).isNotNegative());
+    }
+
 }
@@ -0,0 +1,136 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue.processing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.queue.SubmitStrategyType;
+import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
+import org.thingsboard.server.common.data.tenant.profile.TenantProfileData;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
+import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TbRuleEngineFairSchedulerTest {
+
+    private final TenantId tenantA = TenantId.fromUUID(UUID.randomUUID());
+    private final TenantId tenantB = TenantId.fromUUID(UUID.randomUUID());
+    private final TenantId tenantC = TenantId.fromUUID(UUID.randomUUID());
+
+    private TbTenantProfileCache tenantProfileCache;
+    private TbRuleEngineFairScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        tenantProfileCache = mock(TbTenantProfileCache.class);
+        when(tenantProfileCache.get(any(TenantId.class))).thenReturn(profile(0));
+        scheduler = new TbRuleEngineFairScheduler(tenantProfileCache);
+    }
+
+    @Test
+    public void testEnabledOnlyForInOrderSubmitStrategies() {
+        assertThat(scheduler.isEnabled(SubmitStrategyType.SEQUENTIAL)).isFalse();
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+
+        assertThat(scheduler.isEnabled(SubmitStrategyType.SEQUENTIAL)).isTrue();
+        assertThat(scheduler.isEnabled(SubmitStrategyType.BATCH)).isTrue();
+        assertThat(scheduler.isEnabled(SubmitStrategyType.BURST)).isFalse();
+        assertThat(scheduler.isEnabled(SubmitStrategyType.SEQUENTIAL_BY_TENANT)).isFalse();
+        assertThat(scheduler.isEnabled(SubmitStrategyType.SEQUENTIAL_BY_ORIGINATOR)).isFalse();
+    }
+
+    @Test
+    public void testSingleTenantPackIsNotReordered() {
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs = msgs(tenantA, 5);
+        assertThat(scheduler.schedule(msgs)).isSameAs(msgs);
+    }
+
+    @Test
+    public void testFloodingTenantIsInterleaved() {
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs = new ArrayList<>();
+        msgs.addAll(msgs(tenantA, 6));
+        msgs.addAll(msgs(tenantB, 2));
+        msgs.addAll(msgs(tenantC, 1));
+
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> result = scheduler.schedule(msgs);
+
+        assertThat(result).hasSize(msgs.size());
+        assertThat(tenants(result)).containsExactly(tenantA, tenantB, tenantC, tenantA, tenantB, tenantA, tenantA, tenantA, tenantA);
+        assertThat(result.stream().filter(msg -> tenant(msg).equals(tenantA)).toList())
+                .containsExactlyElementsOf(msgs.subList(0, 6));
+    }
+
+    @Test
+    public void testWeightsFromTenantProfile() {
+        when(tenantProfileCache.get(tenantB)).thenReturn(profile(3));
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs = new ArrayList<>();
+        msgs.addAll(msgs(tenantA, 4));
+        msgs.addAll(msgs(tenantB, 6));
+
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> result = scheduler.schedule(msgs);
+
+        assertThat(tenants(result)).containsExactly(tenantA, tenantB, tenantB, tenantB, tenantA, tenantB, tenantB, tenantB, tenantA, tenantA);
+        assertThat(result.stream().filter(msg -> tenant(msg).equals(tenantB)).toList())
+                .containsExactlyElementsOf(msgs.subList(4, 10));
+    }
+
+    @Test
+    public void testMissingProfileUsesDefaultWeight() {
+        when(tenantProfileCache.get(tenantB)).thenReturn(null);
+        assertThat(scheduler.getWeight(tenantB)).isEqualTo(1);
+        assertThat(scheduler.getWeight(TenantId.SYS_TENANT_ID)).isEqualTo(1);
+    }
+
+    private static TenantProfile profile(int weight) {
+        TenantProfile profile = new TenantProfile();
+        TenantProfileData profileData = new TenantProfileData();
+        profileData.setConfiguration(DefaultTenantProfileConfiguration.builder().ruleEngineSchedulingWeight(weight).build());
+        profile.setProfileData(profileData);
+        return profile;
+    }
+
+    private static List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs(TenantId tenantId, int count) {
+        List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            msgs.add(new TbProtoQueueMsg<>(UUID.randomUUID(), ToRuleEngineMsg.newBuilder()
+                    .setTenantIdMSB(tenantId.getId().getMostSignificantBits())
+                    .setTenantIdLSB(tenantId.getId().getLeastSignificantBits())
+                    .build()));
+        }
+        return msgs;
+    }
+
+    private static List<TenantId> tenants(List<TbProtoQueueMsg<ToRuleEngineMsg>> msgs) {
+        return msgs.stream().map(TbRuleEngineFairSchedulerTest::tenant).toList();
+    }
+
+    private static TenantId tenant(TbProtoQueueMsg<ToRuleEngineMsg> msg) {
+        return TenantId.fromUUID(new UUID(msg.getValue().getTenantIdMSB(), msg.getValue().getTenantIdLSB()));
+    }
+
+}
@@ -47,6 +47,7 @@ import org.thingsboard.server.common.msg.queue.QueueToRuleEngineMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
 import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
 import org.thingsboard.server.gen.transport.TransportProtos.ToRuleEngineMsg;
 import org.thingsboard.server.queue.TbQueueAdmin;
 import org.thingsboard.server.queue.TbQueueProducer;
@@ -59,6 +60,7 @@ import org.thingsboard.server.queue.provider.KafkaMonolithQueueFactory;
 import org.thingsboard.server.queue.provider.KafkaTbRuleEngineQueueFactory;
 import org.thingsboard.server.queue.provider.TbQueueProducerProvider;
 import org.thingsboard.server.queue.provider.TbRuleEngineQueueFactory;
+import org.thingsboard.server.service.queue.processing.TbRuleEngineFairScheduler;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineProcessingStrategyFactory;
 import org.thingsboard.server.service.queue.processing.TbRuleEngineSubmitStrategyFactory;
 import org.thingsboard.server.service.stats.RuleEngineStatisticsService;
@@ -122,6 +124,8 @@ public class TbRuleEngineQueueConsumerManagerTest {
     private TbQueueProducer<TbProtoQueueMsg<ToRuleEngineMsg>> ruleEngineMsgProducer;
     @Mock
     private TbQueueAdmin queueAdmin;
+    @Mock
+    private TbTenantProfileCache tenantProfileCache;
     private TbRuleEngineConsumerContext ruleEngineConsumerContext;
     private ExecutorService consumersExecutor;
     private ScheduledExecutorService scheduler;
@@ -139,7 +143,7 @@ public class TbRuleEngineQueueConsumerManagerTest {
     public void beforeEach() {
         ruleEngineConsumerContext = new TbRuleEngineConsumerContext(
                 actorContext, statsFactory, spy(new TbRuleEngineSubmitStrategyFactory()),
-                spy(new TbRuleEngineProcessingStrategyFactory()), queueFactory, statisticsService,
+                spy(new TbRuleEngineProcessingStrategyFactory()), new TbRuleEngineFairScheduler(tenantProfileCache), queueFactory, statisticsService,
                 serviceInfoProvider, partitionService, producerProvider, queueAdmin
         );
         consumers = ConcurrentHashMap.newKeySet();
@@ -0,0 +1,159 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.rule;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DefaultTbRuleNodeDebugEventServiceTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final RuleNodeId ruleNodeId = new RuleNodeId(UUID.randomUUID());
+
+    @TempDir
+    Path archiveDir;
+
+    private DefaultTbRuleNodeDebugEventService service;
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    public void givenMaxEventsPerSecond_whenCapture_thenSampleLimitedNumberOfEventsPerSecond() throws Exception {
+        service = createService(5, 0, 100, false);
+
+        int sampled = 0;
+        for (int i = 0; i < 50; i++) {
+            sampled += service.capture(event(ruleNodeId, 1000L + i, null)) ? 1 : 0;
+        }
+        assertThat(sampled).isEqualTo(5);
+        assertThat(service.capture(event(ruleNodeId, 2000L, null))).isTrue();
+        assertThat(service.capture(event(ruleNodeId, 1010L, "Error"))).isTrue();
+    }
+
+    @Test
+    public void givenSampleRate_whenCapture_thenSampleEveryNthEvent() throws Exception {
+        service = createService(0, 10, 100, false);
+
+        int sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            sampled += service.capture(event(ruleNodeId, 1000L + i, null)) ? 1 : 0;
+        }
+        assertThat(sampled).isEqualTo(10);
+    }
+
+    @Test
+    public void givenCapturedEvents_whenGetLatestEvents_thenReturnBufferedEventsNewestFirst() throws Exception {
+        service = createService(1, 0, 10, false);
+        RuleNodeId otherRuleNodeId = new RuleNodeId(UUID.randomUUID());
+        for (int i = 0; i < 25; i++) {
+            service.capture(event(ruleNodeId, 1000L + i, null));
+        }
+        service.capture(event(otherRuleNodeId, 1000L, null));
+
+        List<RuleNodeDebugEvent> latest = service.getLatestEvents(ruleNodeId, 5);
+        assertThat(latest).extracting(RuleNodeDebugEvent::getCreatedTime).containsExactly(1024L, 1023L, 1022L, 1021L, 1020L);
+        assertThat(service.getLatestEvents(ruleNodeId, 100)).hasSize(10);
+        assertThat(service.getLatestEvents(otherRuleNodeId, 100)).hasSize(1);
+        assertThat(service.getLatestEvents(new RuleNodeId(UUID.randomUUID()), 100)).isEmpty();
+    }
+
+    @Test
+    public void givenArchiveEnabled_whenFlush_thenWriteNotSampledEventsToCompressedArchive() throws Exception {
+        service = createService(1, 0, 10, true);
+        for (int i = 0; i < 20; i++) {
+            service.capture(event(ruleNodeId, 1000L + i, null));
+        }
+        service.flushArchive();
+        for (int i = 0; i < 5; i++) {
+            service.capture(event(ruleNodeId, 1020L + i, null));
+        }
+        service.flushArchive();
+
+        List<Path> files;
+        try (var stream = Files.list(archiveDir)) {
+            files = stream.collect(Collectors.toList());
+        }
+        assertThat(files).hasSize(1);
+        assertThat(files.get(0).getFileName().toString()).startsWith(DefaultTbRuleNodeDebugEventService.ARCHIVE_FILE_PREFIX);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(files.get(0))), StandardCharsets.UTF_8))) {
+            List<String> lines = reader.lines().collect(Collectors.toList());
+            assertThat(lines).hasSize(24);
+            assertThat(JacksonUtil.toJsonNode(lines.get(0)).get("body").get("data").asText()).isEqualTo("{\"temperature\":42}");
+        }
+    }
+
+    private DefaultTbRuleNodeDebugEventService createService(int maxEventsPerSecond, int sampleRate, int bufferSize, boolean archive) throws Exception {
+        DefaultTbRuleNodeDebugEventService service = new DefaultTbRuleNodeDebugEventService();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxEventsPerSecond", maxEventsPerSecond);
+        ReflectionTestUtils.setField(service, "sampleRate", sampleRate);
+        ReflectionTestUtils.setField(service, "bufferSize", bufferSize);
+        ReflectionTestUtils.setField(service, "bufferTtlSec", 3600L);
+        ReflectionTestUtils.setField(service, "archiveEnabled", archive);
+        ReflectionTestUtils.setField(service, "archiveDir", archiveDir.toString());
+        ReflectionTestUtils.setField(service, "archiveTtlDays", 7);
+        ReflectionTestUtils.setField(service, "archiveMaxQueueSize", 100000);
+        ReflectionTestUtils.setField(service, "archiveMaxBatchSize", 10000);
+        ReflectionTestUtils.setField(service, "archiveFlushIntervalMs", TimeUnit.HOURS.toMillis(1));
+        service.init();
+        return service;
+    }
+
+    private RuleNodeDebugEvent event(RuleNodeId ruleNodeId, long ts, String error) {
+        return RuleNodeDebugEvent.builder()
+                .tenantId(tenantId)
+                .entityId(ruleNodeId.getId())
+                .serviceId("tb-rule-engine")
+                .id(UUID.randomUUID())
+                .ts(ts)
+                .eventType("IN")
+                .eventEntity(new DeviceId(UUID.randomUUID()))
+                .msgId(UUID.randomUUID())
+                .msgType("POST_TELEMETRY_REQUEST")
+                .dataType("JSON")
+                .relationType("Success")
+                .data("{\"temperature\":42}")
+                .metadata("{\"deviceName\":\"Device A\"}")
+                .error(error)
+                .build();
+    }
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.rule;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.event.RuleNodeDebugEvent;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the capture overhead of rule node debug events with the debug events fully on, when every event is passed
+ * to the database queue, with the sampling of {@code maxEventsPerSecond} events per rule node per second, when the rest
+ * of the events is only buffered and archived. The events are spread over {@code nodes} rule nodes. Only the capture
+ * is measured: saving the events that are let through to the database is done by the caller and is not included.
+ * <p>
+ * Run from the IDE or with the test classpath: {@code java -cp <test classpath> org.thingsboard.server.service.rule.RuleNodeDebugEventSamplingBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleNodeDebugEventSamplingBenchmark {
+
+    @Param({"20"})
+    private int nodes;
+
+    @Param({"10"})
+    private int maxEventsPerSecond;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+
+    private Path archiveDir;
+    private DefaultTbRuleNodeDebugEventService fullyOn;
+    private DefaultTbRuleNodeDebugEventService sampling;
+    private RuleNodeId[] ruleNodeIds;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        archiveDir = Files.createTempDirectory("debug-benchmark");
+        fullyOn = createService(0, 0, false);
+        sampling = createService(maxEventsPerSecond, 100, true);
+        ruleNodeIds = new RuleNodeId[nodes];
+        for (int i = 0; i < nodes; i++) {
+            ruleNodeIds[i] = new RuleNodeId(UUID.randomUUID());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fullyOn.destroy();
+        sampling.destroy();
+        try (Stream<Path> files = Files.walk(archiveDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean fullyOn() {
+        return fullyOn.capture(nextEvent());
+    }
+
+    @Benchmark
+    public boolean sampling() {
+        return sampling.capture(nextEvent());
+    }
+
+    private RuleNodeDebugEvent nextEvent() {
+        UUID eventId = Uuids.timeBased();
+        RuleNodeId ruleNodeId = ruleNodeIds[next++ % nodes];
+        return RuleNodeDebugEvent.builder()
+                .tenantId(tenantId)
+                .entityId(ruleNodeId.getId())
+                .serviceId("tb-rule-engine")
+                .id(eventId)
+                .ts(Uuids.unixTimestamp(eventId))
+                .eventType("IN")
+                .eventEntity(new DeviceId(UUID.randomUUID()))
+                .msgId(UUID.randomUUID())
+                .msgType("POST_TELEMETRY_REQUEST")
+                .dataType("JSON")
+                .relationType("Success")
+                .data("{\"temperature\":42}")
+                .metadata("{\"deviceName\":\"Device A\"}")
+                .build();
+    }
+
+    private DefaultTbRuleNodeDebugEventService createService(int maxEventsPerSecond, int bufferSize, boolean archive) throws Exception {
+        DefaultTbRuleNodeDebugEventService service = new DefaultTbRuleNodeDebugEventService();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxEventsPerSecond", maxEventsPerSecond);
+        ReflectionTestUtils.setField(service, "sampleRate", 0);
+        ReflectionTestUtils.setField(service, "bufferSize", bufferSize);
+        ReflectionTestUtils.setField(service, "bufferTtlSec", 3600L);
+        ReflectionTestUtils.setField(service, "archiveEnabled", archive);
+        ReflectionTestUtils.setField(service, "archiveDir", archiveDir.toString());
+        ReflectionTestUtils.setField(service, "archiveTtlDays", 7);
+        ReflectionTestUtils.setField(service, "archiveMaxQueueSize", 100000);
+        ReflectionTestUtils.setField(service, "archiveMaxBatchSize", 10000);
+        ReflectionTestUtils.setField(service, "archiveFlushIntervalMs", 1000L);
+        service.init();
+        return service;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RuleNodeDebugEventSamplingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.rule.RuleNode;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DefaultRuleNodeStatsServiceTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final RuleChainId ruleChainId = new RuleChainId(UUID.randomUUID());
+
+    private SimpleMeterRegistry meterRegistry;
+    private DefaultRuleNodeStatsService service;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new DefaultRuleNodeStatsService(meterRegistry);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxNodes", 2);
+    }
+
+    @Test
+    public void testDisabled() {
+        ReflectionTestUtils.setField(service, "enabled", false);
+        assertThat(service.register(tenantId, ruleChainId, ruleNode())).isNull();
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void testRecordAndReport() {
+        RuleNode ruleNode = ruleNode();
+        RuleNodeStats stats = service.register(tenantId, ruleChainId, ruleNode);
+        assertThat(service.register(tenantId, ruleChainId, ruleNode)).isSameAs(stats);
+
+        stats.onEnqueue();
+        stats.onEnqueue();
+        stats.onDequeue("Main", TimeUnit.MILLISECONDS.toNanos(3));
+        stats.recordProcessing("Main", TimeUnit.MILLISECONDS.toNanos(10));
+        stats.recordProcessing("HighPriority", TimeUnit.MILLISECONDS.toNanos(20));
+
+        List<RuleNodeStatsInfo> infos = service.getRuleChainStats(ruleChainId);
+        assertThat(infos).hasSize(2);
+        RuleNodeStatsInfo main = infos.stream().filter(info -> info.getQueueName().equals("Main")).findFirst().orElseThrow();
+        assertThat(main.getRuleNodeId()).isEqualTo(ruleNode.getId());
+        assertThat(main.getRuleNodeType()).isEqualTo("TbMsgTypeSwitchNode");
+        assertThat(main.getInFlight()).isEqualTo(1);
+        assertThat(main.getProcessing().getCount()).isEqualTo(1);
+        assertThat(main.getProcessing().getMaxMs()).isEqualTo(10.0);
+        assertThat(main.getQueueWait().getCount()).isEqualTo(1);
+        assertThat(main.getQueueWait().getMeanMs()).isEqualTo(3.0);
+
+        assertThat(meterRegistry.find(RuleNodeStats.PROCESSING_TIME).tag("queue", "HighPriority")
+                .tag("ruleNodeId", ruleNode.getId().getId().toString()).timer()).isNotNull();
+        assertThat(service.getRuleChainStats(new RuleChainId(UUID.randomUUID()))).isEmpty();
+    }
+
+    @Test
+    public void testCardinalityLimitAndUnregister() {
+        RuleNodeStats first = service.register(tenantId, ruleChainId, ruleNode());
+        RuleNodeStats second = service.register(tenantId, ruleChainId, ruleNode());
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(service.register(tenantId, ruleChainId, ruleNode())).isNull();
+
+        first.recordProcessing("Main", 1000);
+        service.unregister(first);
+        assertThat(meterRegistry.find(RuleNodeStats.PROCESSING_TIME)
+                .tag("ruleNodeId", first.getRuleNodeId().getId().toString()).timer()).isNull();
+        assertThat(meterRegistry.find(RuleNodeStats.IN_FLIGHT)
+                .tag("ruleNodeId", first.getRuleNodeId().getId().toString()).gauge()).isNull();
+
+        first.recordProcessing("Main", 1000);
+        assertThat(meterRegistry.find(RuleNodeStats.PROCESSING_TIME)
+                .tag("ruleNodeId", first.getRuleNodeId().getId().toString()).timer()).isNull();
+        assertThat(service.register(tenantId, ruleChainId, ruleNode())).isNotNull();
+    }
+
+    private static RuleNode ruleNode() {
+        RuleNode ruleNode = new RuleNode(new RuleNodeId(UUID.randomUUID()));
+        ruleNode.setType("org.thingsboard.rule.engine.filter.TbMsgTypeSwitchNode");
+        return ruleNode;
+    }
+
+}
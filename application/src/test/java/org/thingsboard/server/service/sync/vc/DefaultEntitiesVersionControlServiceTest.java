@@ -0,0 +1,206 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.sync.vc;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.server.cache.TbTransactionalCache;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.User;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.id.UserId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.common.data.sync.ie.EntityExportData;
+import org.thingsboard.server.common.data.sync.vc.VersionCreationResult;
+import org.thingsboard.server.common.data.sync.vc.request.create.ComplexVersionCreateRequest;
+import org.thingsboard.server.common.data.sync.vc.request.create.EntityTypeVersionCreateConfig;
+import org.thingsboard.server.common.data.sync.vc.request.create.SyncStrategy;
+import org.thingsboard.server.service.entitiy.TbLogEntityActionService;
+import org.thingsboard.server.service.executors.VersionControlExecutor;
+import org.thingsboard.server.service.sync.ie.EntitiesExportImportService;
+import org.thingsboard.server.service.sync.ie.exporting.ExportableEntitiesService;
+import org.thingsboard.server.service.sync.vc.autocommit.TbAutoCommitSettingsService;
+import org.thingsboard.server.service.sync.vc.data.CommitGitRequest;
+import org.thingsboard.server.service.sync.vc.data.EntitiesExportCtx;
+import org.thingsboard.server.service.sync.vc.repository.TbRepositorySettingsService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultEntitiesVersionControlServiceTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final ScheduledExecutorService gitExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private GitVersionControlQueueService gitServiceQueue;
+    private EntitiesExportImportService exportImportService;
+    private ExportableEntitiesService exportableEntitiesService;
+    private DefaultEntitiesVersionControlService service;
+
+    private final Set<EntityId> exported = ConcurrentHashMap.newKeySet();
+    private final Set<String> exportThreads = ConcurrentHashMap.newKeySet();
+    private final Map<EntityType, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<EntityType, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicReference<EntitiesExportCtx<?>> exportCtx = new AtomicReference<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        gitServiceQueue = mock(GitVersionControlQueueService.class);
+        exportImportService = mock(EntitiesExportImportService.class);
+        exportableEntitiesService = mock(ExportableEntitiesService.class);
+        VersionControlExecutor executor = mock(VersionControlExecutor.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any());
+
+        service = new DefaultEntitiesVersionControlService(mock(TbRepositorySettingsService.class), mock(TbAutoCommitSettingsService.class),
+                gitServiceQueue, exportImportService, exportableEntitiesService, mock(TbLogEntityActionService.class),
+                mock(TransactionTemplate.class), mock(TbTransactionalCache.class), executor);
+        ReflectionTestUtils.setField(service, "exportThreadPoolSize", 2);
+        ReflectionTestUtils.setField(service, "exportBatchSize", BATCH_SIZE);
+        service.init();
+
+        when(gitServiceQueue.prepareCommit(any(), any())).thenAnswer(invocation ->
+                Futures.immediateFuture(new CommitGitRequest(tenantId, invocation.getArgument(1))));
+        when(gitServiceQueue.deleteAll(any(), any())).thenReturn(Futures.immediateFuture(null));
+        when(gitServiceQueue.push(any())).thenAnswer(invocation -> {
+            assertThat(pending.get()).as("entities not yet added to the commit").isZero();
+            return Futures.immediateFuture(new VersionCreationResult());
+        });
+        when(exportImportService.exportEntity(any(), any())).thenAnswer(invocation -> {
+            EntitiesExportCtx<?> ctx = invocation.getArgument(0);
+            EntityId entityId = invocation.getArgument(1);
+            exportCtx.set(ctx);
+            exportThreads.add(Thread.currentThread().getName());
+            ctx.putExternalId(entityId, entityId);
+            exported.add(entityId);
+            EntityExportData<?> entityData = new EntityExportData<>();
+            entityData.setEntityType(entityId.getEntityType());
+            return entityData;
+        });
+        when(gitServiceQueue.addToCommit(any(), any())).thenAnswer(invocation -> {
+            EntityType entityType = invocation.<EntityExportData<?>>getArgument(1).getEntityType();
+            int current = inFlight.computeIfAbsent(entityType, t -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.computeIfAbsent(entityType, t -> new AtomicInteger()).accumulateAndGet(current, Math::max);
+            pending.incrementAndGet();
+            SettableFuture<Void> future = SettableFuture.create();
+            gitExecutor.schedule(() -> {
+                inFlight.get(entityType).decrementAndGet();
+                pending.decrementAndGet();
+                future.set(null);
+            }, 5, TimeUnit.MILLISECONDS);
+            return future;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.destroy();
+        gitExecutor.shutdownNow();
+    }
+
+    @Test
+    public void givenSeveralEntityTypes_whenSaveEntitiesVersion_thenExportAllEntitiesInBatches() throws Exception {
+        List<DeviceId> devices = IntStream.range(0, 10).mapToObj(i -> new DeviceId(UUID.randomUUID())).collect(Collectors.toList());
+        List<AssetId> assets = IntStream.range(0, 7).mapToObj(i -> new AssetId(UUID.randomUUID())).collect(Collectors.toList());
+        when(exportableEntitiesService.findEntitiesIdsByTenantId(eq(tenantId), eq(EntityType.DEVICE), any()))
+                .thenAnswer(invocation -> page(devices, invocation.getArgument(2)));
+
+        Map<EntityType, EntityTypeVersionCreateConfig> entityTypes = new LinkedHashMap<>();
+        EntityTypeVersionCreateConfig devicesConfig = new EntityTypeVersionCreateConfig();
+        devicesConfig.setAllEntities(true);
+        entityTypes.put(EntityType.DEVICE, devicesConfig);
+        EntityTypeVersionCreateConfig assetsConfig = new EntityTypeVersionCreateConfig();
+        assetsConfig.setEntityIds(assets.stream().map(AssetId::getId).collect(Collectors.toList()));
+        assetsConfig.setSyncStrategy(SyncStrategy.OVERWRITE);
+        entityTypes.put(EntityType.ASSET, assetsConfig);
+
+        ComplexVersionCreateRequest request = new ComplexVersionCreateRequest();
+        request.setBranch("main");
+        request.setVersionName("test");
+        request.setSyncStrategy(SyncStrategy.MERGE);
+        request.setEntityTypes(entityTypes);
+
+        service.saveEntitiesVersion(createUser(), request).get(10, TimeUnit.SECONDS);
+
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> verify(gitServiceQueue).push(any()));
+        List<EntityId> expected = new ArrayList<>(devices);
+        expected.addAll(assets);
+        assertThat(exported).containsExactlyInAnyOrderElementsOf(expected);
+        verify(gitServiceQueue, times(expected.size())).addToCommit(any(), any());
+        verify(gitServiceQueue).deleteAll(any(), eq(EntityType.ASSET));
+        verify(gitServiceQueue, never()).deleteAll(any(), eq(EntityType.DEVICE));
+
+        assertThat(exportThreads).allMatch(name -> name.startsWith("vc-export"));
+        assertThat(maxInFlight.get(EntityType.DEVICE).get()).isLessThanOrEqualTo(BATCH_SIZE);
+        assertThat(maxInFlight.get(EntityType.ASSET).get()).isLessThanOrEqualTo(BATCH_SIZE);
+        assertThat(exportCtx.get().getExternalIdMap()).hasSize(expected.size());
+        assertThat(exportCtx.get().getExternalIdMap()).isInstanceOf(ConcurrentHashMap.class);
+    }
+
+    private static <T> PageData<T> page(List<T> all, PageLink pageLink) {
+        int from = pageLink.getPage() * pageLink.getPageSize();
+        int to = Math.min(from + pageLink.getPageSize(), all.size());
+        Collection<T> data = from < to ? all.subList(from, to) : List.of();
+        int totalPages = (all.size() + pageLink.getPageSize() - 1) / pageLink.getPageSize();
+        return new PageData<>(new ArrayList<>(data), totalPages, all.size(), to < all.size());
+    }
+
+    private User createUser() {
+        User user = new User(new UserId(UUID.randomUUID()));
+        user.setTenantId(tenantId);
+        return user;
+    }
+
+}
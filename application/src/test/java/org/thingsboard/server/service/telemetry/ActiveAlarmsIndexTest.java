@@ -0,0 +1,151 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.telemetry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.alarm.Alarm;
+import org.thingsboard.server.common.data.alarm.AlarmSeverity;
+import org.thingsboard.server.common.data.id.AlarmId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.discovery.QueueKey;
+import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ActiveAlarmsIndexTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final TopicPartitionInfo myPartition = new TopicPartitionInfo("tb_core", null, 0, true);
+    private final TopicPartitionInfo otherPartition = new TopicPartitionInfo("tb_core", null, 1, false);
+
+    private PartitionService partitionService;
+    private ActiveAlarmsIndex index;
+    private DeviceId originator;
+    private AtomicInteger dbLookups;
+
+    @BeforeEach
+    public void setUp() {
+        partitionService = mock(PartitionService.class);
+        index = new ActiveAlarmsIndex(partitionService);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "maxSize", 1000L);
+        ReflectionTestUtils.setField(index, "ttlMs", 60000L);
+        ReflectionTestUtils.invokeMethod(index, "init");
+        index.onApplicationEvent(new PartitionChangeEvent(this, ServiceType.TB_CORE, Map.of(new QueueKey(ServiceType.TB_CORE), Set.of(myPartition))));
+
+        originator = new DeviceId(UUID.randomUUID());
+        when(partitionService.resolve(eq(ServiceType.TB_CORE), any(), any())).thenReturn(myPartition);
+        dbLookups = new AtomicInteger();
+    }
+
+    @Test
+    public void whenActiveAlarmLookedUpTwice_thenServedFromIndex() {
+        Alarm alarm = createAlarm(false);
+
+        Alarm first = findActive(alarm);
+        Alarm second = findActive(alarm);
+
+        assertThat(dbLookups.get()).isEqualTo(1);
+        assertThat(second).isEqualTo(alarm);
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void whenAlarmCreatedAndCleared_thenIndexFollowsUpdates() {
+        Alarm alarm = createAlarm(false);
+        assertThat(findActive(null)).isNull();
+
+        index.onAlarmUpdate(alarm, false);
+        assertThat(findActive(null)).isEqualTo(alarm);
+
+        alarm.setCleared(true);
+        index.onAlarmUpdate(alarm, false);
+        assertThat(findActive(null)).isNull();
+        assertThat(dbLookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenUnknownAlarmCleared_thenLookedUpInDb() {
+        Alarm alarm = createAlarm(true);
+
+        index.onAlarmUpdate(alarm, true);
+        findActive(null);
+        findActive(null);
+
+        assertThat(dbLookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenAlarmUpdatedDuringDbLookup_thenUpdateTakesPrecedence() {
+        Alarm alarm = createAlarm(false);
+
+        index.findLatestActiveByOriginatorAndType(tenantId, originator, alarm.getType(), () -> {
+            dbLookups.incrementAndGet();
+            Alarm cleared = new Alarm(alarm);
+            cleared.setCleared(true);
+            index.onAlarmUpdate(cleared, false);
+            return alarm;
+        });
+
+        assertThat(findActive(alarm)).isEqualTo(alarm);
+        assertThat(dbLookups.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenOriginatorIsNotInMyPartitions_thenLookedUpInDb() {
+        when(partitionService.resolve(eq(ServiceType.TB_CORE), any(), any())).thenReturn(otherPartition);
+        Alarm alarm = createAlarm(false);
+
+        index.onAlarmUpdate(alarm, false);
+        findActive(alarm);
+        findActive(alarm);
+
+        assertThat(dbLookups.get()).isEqualTo(2);
+    }
+
+    private Alarm findActive(Alarm dbAlarm) {
+        return index.findLatestActiveByOriginatorAndType(tenantId, originator, "High Temperature", () -> {
+            dbLookups.incrementAndGet();
+            return dbAlarm;
+        });
+    }
+
+    private Alarm createAlarm(boolean cleared) {
+        Alarm alarm = new Alarm(new AlarmId(UUID.randomUUID()));
+        alarm.setTenantId(tenantId);
+        alarm.setOriginator(originator);
+        alarm.setType("High Temperature");
+        alarm.setSeverity(AlarmSeverity.MAJOR);
+        alarm.setCleared(cleared);
+        return alarm;
+    }
+
+}
@@ -24,6 +24,7 @@ import org.thingsboard.server.common.data.Tenant;
 import org.thingsboard.server.common.data.TenantProfile;
 import org.thingsboard.server.common.data.edge.EdgeEventActionType;
 import org.thingsboard.server.common.data.edge.EdgeEventType;
+import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EdgeId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
@@ -54,6 +55,8 @@ public interface TbClusterService extends TbQueueClusterService {
 
     void broadcastToCore(TransportProtos.ToCoreNotificationMsg msg);
 
+    void broadcastRelationGraphEvict(TransportProtos.RelationGraphEvictMsg msg);
+
     void pushMsgToVersionControl(TenantId tenantId, ToVersionControlServiceMsg msg, TbQueueCallback callback);
 
     void pushNotificationToCore(String targetServiceId, FromDeviceRpcResponse response, TbQueueCallback callback);
@@ -88,6 +91,8 @@ public interface TbClusterService extends TbQueueClusterService {
 
     void onDeviceAssignedToTenant(TenantId oldTenantId, Device device);
 
+    void onDeviceCredentialsUpdated(TenantId tenantId, DeviceId deviceId, TbQueueCallback callback);
+
     void onResourceChange(TbResourceInfo resource, TbQueueCallback callback);
 
     void onResourceDeleted(TbResourceInfo resource, TbQueueCallback callback);
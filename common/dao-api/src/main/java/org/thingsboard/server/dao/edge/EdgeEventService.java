@@ -22,12 +22,20 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.TimePageLink;
 
+import java.util.List;
+
 public interface EdgeEventService {
 
     ListenableFuture<Void> saveAsync(EdgeEvent edgeEvent);
 
     PageData<EdgeEvent> findEdgeEvents(TenantId tenantId, EdgeId edgeId, Long seqIdStart, Long seqIdEnd, TimePageLink pageLink);
 
+    /**
+     * Finds the next edge events after the given seq id, ordered by seq id.
+     * Unlike {@link #findEdgeEvents}, doesn't use offset and doesn't count total number of the events.
+     */
+    List<EdgeEvent> findEdgeEventsAfter(TenantId tenantId, EdgeId edgeId, long startTime, long endTime, long seqIdStart, Long seqIdEnd, int limit);
+
     /**
      * Executes stored procedure to cleanup old edge events.
      * @param ttl the ttl for edge events in seconds
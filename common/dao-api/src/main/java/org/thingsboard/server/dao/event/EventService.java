@@ -43,6 +43,8 @@ public interface EventService {
 
     void removeEvents(TenantId tenantId, EntityId entityId, EventFilter eventFilter, Long startTime, Long endTime);
 
+    void removeEvents(TenantId tenantId, List<EntityId> entityIds, long startTime, long endTime);
+
     void cleanupEvents(long regularEventExpTs, long debugEventExpTs, boolean cleanupDb);
 
 }
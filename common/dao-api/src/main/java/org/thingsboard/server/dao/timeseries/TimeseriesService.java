@@ -54,6 +54,8 @@ public interface TimeseriesService {
 
     ListenableFuture<List<TsKvLatestRemovingResult>> remove(TenantId tenantId, EntityId entityId, List<DeleteTsKvQuery> queries);
 
+    ListenableFuture<Void> remove(TenantId tenantId, List<EntityId> entityIds, DeleteTsKvQuery query);
+
     ListenableFuture<List<TsKvLatestRemovingResult>> removeLatest(TenantId tenantId, EntityId entityId, Collection<String> keys);
 
     ListenableFuture<Collection<String>> removeAllLatest(TenantId tenantId, EntityId entityId);
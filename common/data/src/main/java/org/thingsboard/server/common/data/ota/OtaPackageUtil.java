@@ -15,6 +15,8 @@
  */
 package org.thingsboard.server.common.data.ota;
 
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.HasOtaPackage;
 import org.thingsboard.server.common.data.id.OtaPackageId;
@@ -75,6 +77,19 @@ public class OtaPackageUtil {
         return type.getKeyPrefix() + "_" + key.getValue();
     }
 
+    @SuppressWarnings("deprecation")
+    public static HashFunction getHashFunction(ChecksumAlgorithm checksumAlgorithm) {
+        return switch (checksumAlgorithm) {
+            case MD5 -> Hashing.md5();
+            case SHA256 -> Hashing.sha256();
+            case SHA384 -> Hashing.sha384();
+            case SHA512 -> Hashing.sha512();
+            case CRC32 -> Hashing.crc32();
+            case MURMUR3_32 -> Hashing.murmur3_32();
+            case MURMUR3_128 -> Hashing.murmur3_128();
+        };
+    }
+
     public static OtaPackageId getOtaPackageId(HasOtaPackage entity, OtaPackageType type) {
         switch (type) {
             case FIRMWARE:
@@ -63,6 +63,7 @@ public class DefaultTenantProfileConfiguration implements TenantProfileConfigura
     private long maxTbelExecutions;
     private long maxDPStorageDays;
     private int maxRuleNodeExecutionsPerMessage;
+    private int ruleEngineSchedulingWeight;
     private long maxEmails;
     private Boolean smsEnabled;
     private long maxSms;
@@ -21,6 +21,8 @@ package org.thingsboard.server.common.msg;
 public enum TbMsgDataType {
 
     // Do not change ordering. We use ordinal to save some bytes on serialization
-    JSON, TEXT, BINARY;
+    JSON, TEXT, BINARY,
+    // Key-value list of the device telemetry or attributes, rendered to the JSON object on demand
+    KV_LIST;
 
 }
@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.thingsboard.server.common.data.kv.BooleanDataEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.msg.gen.MsgProtos.TbMsgKvProto;
+
+import java.util.List;
+
+final class TbMsgKvUtil {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private TbMsgKvUtil() {
+    }
+
+    static String toJson(List<KvEntry> kvData) {
+        ObjectNode json = OBJECT_MAPPER.createObjectNode();
+        for (KvEntry kv : kvData) {
+            switch (kv.getDataType()) {
+                case BOOLEAN -> json.put(kv.getKey(), kv.getBooleanValue().orElse(false));
+                case LONG -> json.put(kv.getKey(), kv.getLongValue().orElse(0L));
+                case DOUBLE -> json.put(kv.getKey(), kv.getDoubleValue().orElse(0.0));
+                case STRING -> json.put(kv.getKey(), kv.getStrValue().orElse(""));
+                case JSON -> {
+                    try {
+                        json.set(kv.getKey(), OBJECT_MAPPER.readTree(kv.getJsonValue().orElse("null")));
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalArgumentException("Failed to parse JSON value of the key: " + kv.getKey(), e);
+                    }
+                }
+            }
+        }
+        return json.toString();
+    }
+
+    static TbMsgKvProto toProto(KvEntry kv) {
+        TbMsgKvProto.Builder builder = TbMsgKvProto.newBuilder().setKey(kv.getKey());
+        switch (kv.getDataType()) {
+            case BOOLEAN -> builder.setType(TbMsgKvProto.Type.BOOLEAN).setBoolV(kv.getBooleanValue().orElse(false));
+            case LONG -> builder.setType(TbMsgKvProto.Type.LONG).setLongV(kv.getLongValue().orElse(0L));
+            case DOUBLE -> builder.setType(TbMsgKvProto.Type.DOUBLE).setDoubleV(kv.getDoubleValue().orElse(0.0));
+            case STRING -> builder.setType(TbMsgKvProto.Type.STRING).setStrV(kv.getStrValue().orElse(""));
+            case JSON -> builder.setType(TbMsgKvProto.Type.JSON).setStrV(kv.getJsonValue().orElse(""));
+        }
+        return builder.build();
+    }
+
+    static KvEntry fromProto(TbMsgKvProto proto) {
+        return switch (proto.getType()) {
+            case BOOLEAN -> new BooleanDataEntry(proto.getKey(), proto.getBoolV());
+            case LONG -> new LongDataEntry(proto.getKey(), proto.getLongV());
+            case DOUBLE -> new DoubleDataEntry(proto.getKey(), proto.getDoubleV());
+            case STRING -> new StringDataEntry(proto.getKey(), proto.getStrV());
+            case JSON -> new JsonDataEntry(proto.getKey(), proto.getStrV());
+            case UNRECOGNIZED -> throw new IllegalArgumentException("Unsupported key-value type: " + proto.getTypeValue());
+        };
+    }
+
+}
@@ -63,4 +63,8 @@ public class TbRateLimits {
         return bucket.tryConsume(number);
     }
 
+    public void consume() throws InterruptedException {
+        bucket.asBlocking().consume(1);
+    }
+
 }
@@ -0,0 +1,85 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.msg;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.kv.BooleanDataEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.msg.queue.TbMsgCallback;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbMsgKvListTest {
+
+    private static final List<KvEntry> KV_DATA = List.of(
+            new BooleanDataEntry("active", true),
+            new LongDataEntry("count", 42L),
+            new DoubleDataEntry("temperature", 36.6),
+            new StringDataEntry("status", "OK \"quoted\""),
+            new JsonDataEntry("location", "{\"lat\":1.5,\"lng\":[1,2]}"));
+    private static final String KV_JSON = "{\"active\":true,\"count\":42,\"temperature\":36.6,\"status\":\"OK \\\"quoted\\\"\",\"location\":{\"lat\":1.5,\"lng\":[1,2]}}";
+
+    @Test
+    public void givenKvListMsg_whenGetData_thenRenderJson() {
+        TbMsg msg = newKvListMsg();
+
+        assertThat(msg.getDataType()).isEqualTo(TbMsgDataType.KV_LIST);
+        assertThat(msg.getData()).isEqualTo(KV_JSON);
+        assertThat(msg.getData()).isSameAs(msg.getData());
+    }
+
+    @Test
+    public void givenKvListMsg_whenSerialize_thenKeepKvData() {
+        TbMsg msg = TbMsg.fromBytes("Main", TbMsg.toByteArray(newKvListMsg()), TbMsgCallback.EMPTY);
+
+        assertThat(msg.getDataType()).isEqualTo(TbMsgDataType.KV_LIST);
+        assertThat(msg.getKvData()).isEqualTo(KV_DATA);
+        assertThat(msg.getData()).isEqualTo(KV_JSON);
+    }
+
+    @Test
+    public void givenKvListMsg_whenTransformData_thenKeepKvDataOnlyIfDataNotReplaced() {
+        TbMsg msg = newKvListMsg();
+
+        TbMsg sameData = TbMsg.transformMsg(msg, new TbMsgMetaData(), msg.getData());
+        assertThat(sameData.getDataType()).isEqualTo(TbMsgDataType.KV_LIST);
+        assertThat(sameData.getKvData()).isEqualTo(KV_DATA);
+
+        TbMsg newData = TbMsg.transformMsgData(msg, "{\"count\":43}");
+        assertThat(newData.getDataType()).isEqualTo(TbMsgDataType.JSON);
+        assertThat(newData.getKvData()).isNull();
+        assertThat(newData.getData()).isEqualTo("{\"count\":43}");
+
+        TbMsg copy = TbMsg.transformMsgQueueName(msg, "HighPriority");
+        assertThat(copy.getKvData()).isEqualTo(KV_DATA);
+        assertThat(copy.getData()).isEqualTo(KV_JSON);
+    }
+
+    private static TbMsg newKvListMsg() {
+        return TbMsg.newKvListMsg("Main", TbMsgType.POST_TELEMETRY_REQUEST, new DeviceId(UUID.randomUUID()), null,
+                new TbMsgMetaData(), KV_DATA, null, null);
+    }
+
+}
@@ -36,5 +36,9 @@ public class HousekeeperConfig {
     private int taskReprocessingDelay;
     @Value("${queue.core.housekeeper.max-reprocessing-attempts:10}")
     private int maxReprocessingAttempts;
+    @Value("${queue.core.housekeeper.task-batch-size:1}")
+    private int taskBatchSize;
+    @Value("${queue.core.housekeeper.task-batch-window-ms:1000}")
+    private int taskBatchWindow;
 
 }
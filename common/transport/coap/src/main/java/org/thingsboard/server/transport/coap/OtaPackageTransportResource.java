@@ -22,6 +22,7 @@ import org.eclipse.californium.core.coap.Response;
 import org.eclipse.californium.core.network.Exchange;
 import org.eclipse.californium.core.server.resources.CoapExchange;
 import org.eclipse.californium.core.server.resources.Resource;
+import org.thingsboard.common.util.DonAsynchron;
 import org.thingsboard.server.common.data.DeviceTransportType;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.id.DeviceId;
@@ -34,6 +35,7 @@ import org.thingsboard.server.common.transport.auth.ValidateDeviceCredentialsRes
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.transport.coap.callback.CoapDeviceAuthCallback;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -115,13 +117,13 @@ public class OtaPackageTransportResource extends AbstractCoapTransportResource {
             String title = exchange.getQueryParameter("title");
             String version = exchange.getQueryParameter("version");
             if (msg.getResponseStatus().equals(TransportProtos.ResponseStatus.SUCCESS)) {
-                String firmwareId = new UUID(msg.getOtaPackageIdMSB(), msg.getOtaPackageIdLSB()).toString();
                 if ((title == null || msg.getTitle().equals(title)) && (version == null || msg.getVersion().equals(version))) {
                     String strChunkSize = exchange.getQueryParameter("size");
                     String strChunk = exchange.getQueryParameter("chunk");
                     int chunkSize = StringUtils.isEmpty(strChunkSize) ? 0 : Integer.parseInt(strChunkSize);
                     int chunk = StringUtils.isEmpty(strChunk) ? 0 : Integer.parseInt(strChunk);
-                    respondOtaPackage(exchange, transportContext.getOtaPackageDataCache().get(firmwareId, chunkSize, chunk));
+                    DonAsynchron.withCallback(transportContext.getOtaPackageStore().getChunk(msg, chunkSize, chunk),
+                            data -> respondOtaPackage(exchange, data), this::onError);
                 } else {
                     exchange.respond(CoAP.ResponseCode.BAD_REQUEST);
                 }
@@ -137,9 +139,12 @@ public class OtaPackageTransportResource extends AbstractCoapTransportResource {
         }
     }
 
-    private void respondOtaPackage(CoapExchange exchange, byte[] data) {
+    private void respondOtaPackage(CoapExchange exchange, ByteBuffer chunk) {
         Response response = new Response(CoAP.ResponseCode.CONTENT);
-        if (data != null && data.length > 0) {
+        if (chunk.hasRemaining()) {
+            // Californium keeps the payload as a byte array, so only the requested chunk is copied
+            byte[] data = new byte[chunk.remaining()];
+            chunk.get(data);
             response.setPayload(data);
             if (exchange.getRequestOptions().getBlock2() != null) {
                 int chunkSize = exchange.getRequestOptions().getBlock2().getSzx();
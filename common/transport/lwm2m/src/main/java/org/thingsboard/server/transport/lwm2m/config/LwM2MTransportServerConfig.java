@@ -78,6 +78,14 @@ public class LwM2MTransportServerConfig implements LwM2MSecureServerConfig {
     @Value("${transport.lwm2m.clean_period_in_sec:}")
     private int cleanPeriodInSec;
 
+    @Getter
+    @Value("${transport.lwm2m.registration_store.dir:}")
+    private String registrationStoreDir;
+
+    @Getter
+    @Value("${transport.lwm2m.registration_store.compaction_min_size:16777216}")
+    private long registrationStoreCompactionMinSize;
+
     @Getter
     @Value("${transport.lwm2m.server.id:}")
     private Integer id;
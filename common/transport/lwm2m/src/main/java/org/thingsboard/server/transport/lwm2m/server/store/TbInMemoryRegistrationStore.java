@@ -463,6 +463,22 @@ public class TbInMemoryRegistrationStore implements RegistrationStore, Startable
         }
     }
 
+    /**
+     * Puts the previously stored observations of the registration back into the store, without the validation and the
+     * absorption by the existing observations.
+     */
+    protected void restoreObservations(String registrationId, Collection<Observation> observations) {
+        try {
+            lock.writeLock().lock();
+            for (Observation observation : observations) {
+                obsByToken.put(observation.getId(), observation);
+                tokensByRegId.computeIfAbsent(registrationId, id -> new HashSet<>()).add(observation.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     /* *************** Observation utility functions **************** */
 
     private Observation unsafeGetObservation(ObservationIdentifier token) {
@@ -0,0 +1,512 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.lwm2m.server.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.observation.ObservationIdentifier;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.server.redis.serialization.ObservationSerDes;
+import org.eclipse.leshan.server.redis.serialization.RegistrationSerDes;
+import org.eclipse.leshan.server.registration.Deregistration;
+import org.eclipse.leshan.server.registration.ExpirationListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.registration.UpdatedRegistration;
+import org.thingsboard.server.transport.lwm2m.config.LwM2MTransportServerConfig;
+import org.thingsboard.server.transport.lwm2m.server.LwM2mVersionedModelProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Registration store that keeps the registrations and observations in memory and persists them to an append-only log file,
+ * so they survive the restart of the transport without Redis.
+ * <p>
+ * Every change of a registration or of the observations of a registration is appended to the log as a record with the new state.
+ * On startup the log is replayed, the last state of every registration wins. A record that is cut by a crash fails the checksum,
+ * the log is truncated at this record. When the log grows twice as big as it was after the last compaction,
+ * it is rewritten with the live registrations only.
+ * <p>
+ * Instead of scanning all the registrations periodically, the expiration time of every registration is put into a timer wheel.
+ * When the time comes, the registration is removed if it wasn't updated meanwhile, otherwise it is scheduled again.
+ */
+@Slf4j
+public class TbLwM2mFileRegistrationStore extends TbInMemoryRegistrationStore {
+
+    static final String LOG_FILE_NAME = "registrations.log";
+
+    private static final byte REGISTRATION = 1;
+    private static final byte REGISTRATION_REMOVED = 2;
+    private static final byte OBSERVATIONS = 3;
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+    private static final int WHEEL_SIZE = 512;
+
+    private final RegistrationSerDes registrationSerDes = new RegistrationSerDes();
+    private final ObservationSerDes observationSerDes = new ObservationSerDes();
+
+    private final Path logFile;
+    private final long compactionMinSize;
+    private final ReentrantLock logLock = new ReentrantLock();
+    private FileChannel channel;
+    private long sizeAfterCompaction;
+    private boolean compactionRequired;
+
+    private final ScheduledExecutorService schedExecutor;
+    private final long tickMs;
+    private final ExpirationWheel expirationWheel;
+    private ScheduledFuture<?> expirationTask;
+    private ExpirationListener expirationListener;
+
+    public TbLwM2mFileRegistrationStore(LwM2MTransportServerConfig config, Path directory, long tickInSec, long compactionMinSize,
+                                        LwM2mVersionedModelProvider modelProvider) {
+        this(config, Executors.newScheduledThreadPool(1, new NamedThreadFactory(String.format("TbLwM2mFileRegistrationStore Cleaner (%ds)", tickInSec))),
+                directory, tickInSec, compactionMinSize, modelProvider);
+    }
+
+    public TbLwM2mFileRegistrationStore(LwM2MTransportServerConfig config, ScheduledExecutorService schedExecutor, Path directory, long tickInSec,
+                                        long compactionMinSize, LwM2mVersionedModelProvider modelProvider) {
+        super(config, schedExecutor, tickInSec, modelProvider);
+        this.schedExecutor = schedExecutor;
+        this.tickMs = TimeUnit.SECONDS.toMillis(tickInSec);
+        this.expirationWheel = new ExpirationWheel(tickMs, System.currentTimeMillis());
+        this.logFile = directory.resolve(LOG_FILE_NAME);
+        this.compactionMinSize = compactionMinSize;
+        try {
+            Files.createDirectories(directory);
+            recover();
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            sizeAfterCompaction = channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open LwM2M registration store " + logFile, e);
+        }
+    }
+
+    /* *************** Leshan Registration API **************** */
+
+    @Override
+    public Deregistration addRegistration(Registration registration) {
+        logLock.lock();
+        try {
+            Deregistration deregistration = super.addRegistration(registration);
+            append(REGISTRATION, registrationSerDes.bSerialize(registration));
+            scheduleExpiration(registration);
+            return deregistration;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    @Override
+    public UpdatedRegistration updateRegistration(RegistrationUpdate update) {
+        logLock.lock();
+        try {
+            UpdatedRegistration updatedRegistration = super.updateRegistration(update);
+            if (updatedRegistration != null) {
+                Registration registration = updatedRegistration.getUpdatedRegistration();
+                append(REGISTRATION, registrationSerDes.bSerialize(registration));
+                // the old expiration reschedules the registration lazily, unless the lifetime got shorter
+                expirationWheel.scheduleIfEarlier(registration.getId(), registration.getExpirationTimeStamp());
+            }
+            return updatedRegistration;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    @Override
+    public Deregistration removeRegistration(String registrationId) {
+        logLock.lock();
+        try {
+            Deregistration deregistration = super.removeRegistration(registrationId);
+            if (deregistration != null) {
+                append(REGISTRATION_REMOVED, registrationId.getBytes(UTF_8));
+                expirationWheel.cancel(registrationId);
+            }
+            return deregistration;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /* *************** Leshan Observation API **************** */
+
+    @Override
+    public Collection<Observation> addObservation(String registrationId, Observation observation, boolean addIfAbsent) {
+        logLock.lock();
+        try {
+            Collection<Observation> removed = super.addObservation(registrationId, observation, addIfAbsent);
+            appendObservations(registrationId);
+            return removed;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    @Override
+    public Observation removeObservation(String registrationId, ObservationIdentifier observationId) {
+        logLock.lock();
+        try {
+            Observation removed = super.removeObservation(registrationId, observationId);
+            if (removed != null) {
+                appendObservations(registrationId);
+            }
+            return removed;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<Observation> removeObservations(String registrationId) {
+        logLock.lock();
+        try {
+            Collection<Observation> removed = super.removeObservations(registrationId);
+            if (!removed.isEmpty()) {
+                appendObservations(registrationId);
+            }
+            return removed;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /* *************** Expiration handling **************** */
+
+    @Override
+    public void setExpirationListener(ExpirationListener listener) {
+        super.setExpirationListener(listener);
+        this.expirationListener = listener;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (expirationTask == null) {
+            expirationTask = schedExecutor.scheduleAtFixedRate(this::onTick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (expirationTask != null) {
+            expirationTask.cancel(false);
+            expirationTask = null;
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        stop();
+        super.destroy();
+        logLock.lock();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close LwM2M registration store {}", logFile, e);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void onTick() {
+        try {
+            expireRegistrations(System.currentTimeMillis());
+            compactIfNeeded();
+        } catch (Exception e) {
+            log.warn("Unexpected Exception while registration cleaning", e);
+        }
+    }
+
+    void expireRegistrations(long now) {
+        for (String registrationId : expirationWheel.advance(now)) {
+            Registration registration = getRegistration(registrationId);
+            if (registration == null) {
+                continue;
+            }
+            if (registration.isAlive()) {
+                scheduleExpiration(registration);
+                continue;
+            }
+            Deregistration removedRegistration = removeRegistration(registrationId);
+            if (removedRegistration != null && expirationListener != null) {
+                expirationListener.registrationExpired(removedRegistration.getRegistration(), removedRegistration.getObservations());
+            }
+        }
+    }
+
+    private void scheduleExpiration(Registration registration) {
+        expirationWheel.schedule(registration.getId(), registration.getExpirationTimeStamp());
+    }
+
+    /* *************** Log file **************** */
+
+    private void appendObservations(String registrationId) {
+        Collection<Observation> observations = getObservations(registrationId);
+        append(OBSERVATIONS, serializeObservations(registrationId, observations));
+    }
+
+    private void append(byte type, byte[] payload) {
+        try {
+            writeRecord(channel, type, payload);
+        } catch (IOException e) {
+            // the in-memory state is still valid, rewrite the whole log on the next tick
+            log.error("Failed to write to LwM2M registration store {}", logFile, e);
+            compactionRequired = true;
+        }
+    }
+
+    void compactIfNeeded() {
+        logLock.lock();
+        try {
+            long size = channel.size();
+            if (compactionRequired || (size > compactionMinSize && size > 2 * sizeAfterCompaction)) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.error("Failed to compact LwM2M registration store {}", logFile, e);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void compact() throws IOException {
+        long startTs = System.currentTimeMillis();
+        Path tmpFile = logFile.resolveSibling(LOG_FILE_NAME + ".tmp");
+        int registrations = 0;
+        try (FileChannel tmpChannel = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Iterator<Registration> iterator = getAllRegistrations();
+            while (iterator.hasNext()) {
+                Registration registration = iterator.next();
+                writeRecord(tmpChannel, REGISTRATION, registrationSerDes.bSerialize(registration));
+                Collection<Observation> observations = getObservations(registration.getId());
+                if (!observations.isEmpty()) {
+                    writeRecord(tmpChannel, OBSERVATIONS, serializeObservations(registration.getId(), observations));
+                }
+                registrations++;
+            }
+            tmpChannel.force(true);
+        }
+        channel.close();
+        Files.move(tmpFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        sizeAfterCompaction = channel.size();
+        compactionRequired = false;
+        log.debug("Compacted LwM2M registration store with {} registrations to {} bytes in {} ms", registrations, sizeAfterCompaction, System.currentTimeMillis() - startTs);
+    }
+
+    private void recover() throws IOException {
+        if (!Files.exists(logFile)) {
+            return;
+        }
+        long startTs = System.currentTimeMillis();
+        Map<String, Registration> registrations = new LinkedHashMap<>();
+        Map<String, String> registrationIdsByEndpoint = new HashMap<>();
+        Map<String, Collection<Observation>> observations = new HashMap<>();
+        long validSize = 0;
+        int records = 0;
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        while (data.remaining() >= RECORD_HEADER_SIZE) {
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length <= 0 || length > data.remaining()) {
+                break;
+            }
+            byte[] record = new byte[length];
+            data.get(record);
+            if (checksum(record) != checksum) {
+                break;
+            }
+            byte[] payload = Arrays.copyOfRange(record, 1, record.length);
+            switch (record[0]) {
+                case REGISTRATION -> {
+                    Registration registration = registrationSerDes.deserialize(payload);
+                    String previousId = registrationIdsByEndpoint.put(registration.getEndpoint(), registration.getId());
+                    if (previousId != null && !previousId.equals(registration.getId())) {
+                        registrations.remove(previousId);
+                        observations.remove(previousId);
+                    }
+                    registrations.put(registration.getId(), registration);
+                }
+                case REGISTRATION_REMOVED -> {
+                    String registrationId = new String(payload, UTF_8);
+                    Registration registration = registrations.remove(registrationId);
+                    if (registration != null) {
+                        registrationIdsByEndpoint.remove(registration.getEndpoint(), registrationId);
+                    }
+                    observations.remove(registrationId);
+                }
+                case OBSERVATIONS -> {
+                    ByteBuffer buffer = ByteBuffer.wrap(payload);
+                    String registrationId = readString(buffer);
+                    List<Observation> registrationObservations = new ArrayList<>();
+                    while (buffer.hasRemaining()) {
+                        byte[] observation = new byte[buffer.getInt()];
+                        buffer.get(observation);
+                        registrationObservations.add(observationSerDes.deserialize(observation));
+                    }
+                    if (registrations.containsKey(registrationId) && !registrationObservations.isEmpty()) {
+                        observations.put(registrationId, registrationObservations);
+                    } else {
+                        observations.remove(registrationId);
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown record type " + record[0]);
+            }
+            validSize = data.position();
+            records++;
+        }
+        if (validSize < data.capacity()) {
+            log.warn("LwM2M registration store {} is truncated at {} of {} bytes, the rest of the log is corrupted", logFile, validSize, data.capacity());
+            try (FileChannel truncateChannel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                truncateChannel.truncate(validSize);
+            }
+        }
+        for (Registration registration : registrations.values()) {
+            super.addRegistration(registration);
+            scheduleExpiration(registration);
+        }
+        observations.forEach(this::restoreObservations);
+        log.info("Recovered {} LwM2M registrations from {} records of {} in {} ms", registrations.size(), records, logFile, System.currentTimeMillis() - startTs);
+    }
+
+    private byte[] serializeObservations(String registrationId, Collection<Observation> observations) {
+        List<byte[]> serialized = new ArrayList<>(observations.size());
+        byte[] id = registrationId.getBytes(UTF_8);
+        int size = 4 + id.length;
+        for (Observation observation : observations) {
+            byte[] bytes = observationSerDes.serialize(observation);
+            serialized.add(bytes);
+            size += 4 + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(id.length).put(id);
+        for (byte[] bytes : serialized) {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+        return buffer.array();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeRecord(FileChannel channel, byte type, byte[] payload) throws IOException {
+        byte[] record = new byte[payload.length + 1];
+        record[0] = type;
+        System.arraycopy(payload, 0, record, 1, payload.length);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+        buffer.putInt(record.length).putInt(checksum(record)).put(record).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Hashed timer wheel of the registration expiration times. Every registration has at most one live entry,
+     * an entry is stale once the registration is scheduled again or cancelled and is dropped when its bucket is processed.
+     */
+    private static final class ExpirationWheel {
+
+        private final long tickMs;
+        private final List<Map<String, Long>> buckets = new ArrayList<>(WHEEL_SIZE);
+        private final Map<String, Long> deadlines = new HashMap<>();
+        private long lastTick;
+
+        private ExpirationWheel(long tickMs, long now) {
+            this.tickMs = tickMs;
+            this.lastTick = now / tickMs;
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                buckets.add(new HashMap<>());
+            }
+        }
+
+        synchronized void schedule(String id, long deadline) {
+            deadlines.put(id, deadline);
+            // the deadlines in the past are processed by the next tick
+            long tick = Math.max(deadline / tickMs, lastTick + 1);
+            buckets.get((int) (tick % WHEEL_SIZE)).put(id, deadline);
+        }
+
+        synchronized void scheduleIfEarlier(String id, long deadline) {
+            Long current = deadlines.get(id);
+            if (current == null || deadline < current) {
+                schedule(id, deadline);
+            }
+        }
+
+        synchronized void cancel(String id) {
+            deadlines.remove(id);
+        }
+
+        synchronized List<String> advance(long now) {
+            long nowTick = now / tickMs;
+            if (nowTick <= lastTick) {
+                return Collections.emptyList();
+            }
+            List<String> expired = new ArrayList<>();
+            long fromTick = Math.max(lastTick + 1, nowTick - WHEEL_SIZE + 1);
+            for (long tick = fromTick; tick <= nowTick; tick++) {
+                Iterator<Map.Entry<String, Long>> iterator = buckets.get((int) (tick % WHEEL_SIZE)).entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, Long> entry = iterator.next();
+                    Long deadline = deadlines.get(entry.getKey());
+                    if (!entry.getValue().equals(deadline)) {
+                        iterator.remove();
+                    } else if (deadline <= now) {
+                        iterator.remove();
+                        deadlines.remove(entry.getKey());
+                        expired.add(entry.getKey());
+                    }
+                }
+            }
+            lastTick = nowTick;
+            return expired;
+        }
+
+    }
+
+}
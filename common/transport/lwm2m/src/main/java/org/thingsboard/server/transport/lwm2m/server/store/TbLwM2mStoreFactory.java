@@ -22,11 +22,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.stereotype.Component;
 import org.thingsboard.server.cache.TBRedisCacheConfiguration;
+import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.queue.util.TbLwM2mTransportComponent;
 import org.thingsboard.server.transport.lwm2m.config.LwM2MTransportServerConfig;
 import org.thingsboard.server.transport.lwm2m.secure.LwM2mCredentialsSecurityInfoValidator;
 import org.thingsboard.server.transport.lwm2m.server.LwM2mVersionedModelProvider;
 
+import java.nio.file.Path;
 import java.util.Optional;
 
 @Slf4j
@@ -42,9 +44,14 @@ public class TbLwM2mStoreFactory {
 
     @Bean
     private RegistrationStore registrationStore() {
-        return redisConfiguration.isPresent() ?
-                new TbLwM2mRedisRegistrationStore(config, getConnectionFactory(), modelProvider) :
-                new TbInMemoryRegistrationStore(config, config.getCleanPeriodInSec(), modelProvider);
+        if (redisConfiguration.isPresent()) {
+            return new TbLwM2mRedisRegistrationStore(config, getConnectionFactory(), modelProvider);
+        } else if (StringUtils.isNotBlank(config.getRegistrationStoreDir())) {
+            return new TbLwM2mFileRegistrationStore(config, Path.of(config.getRegistrationStoreDir()), config.getCleanPeriodInSec(),
+                    config.getRegistrationStoreCompactionMinSize(), modelProvider);
+        } else {
+            return new TbInMemoryRegistrationStore(config, config.getCleanPeriodInSec(), modelProvider);
+        }
     }
 
     @Bean
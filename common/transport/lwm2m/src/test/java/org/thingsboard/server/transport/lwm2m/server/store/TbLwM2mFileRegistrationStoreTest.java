@@ -0,0 +1,207 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.lwm2m.server.store;
+
+import org.eclipse.leshan.core.LwM2m.LwM2mVersion;
+import org.eclipse.leshan.core.endpoint.EndpointUriUtil;
+import org.eclipse.leshan.core.link.Link;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.observation.ObservationIdentifier;
+import org.eclipse.leshan.core.observation.SingleObservation;
+import org.eclipse.leshan.core.peer.IpPeer;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.server.registration.ExpirationListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TbLwM2mFileRegistrationStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private TbLwM2mFileRegistrationStore store;
+
+    @AfterEach
+    public void tearDown() {
+        if (store != null) {
+            store.destroy();
+        }
+    }
+
+    @Test
+    public void givenRegistrationsAndObservations_whenRestart_thenRecoverLastState() {
+        store = createStore(0);
+        Registration first = registration("reg1", "endpoint1", 5001, 3600, System.currentTimeMillis());
+        Registration second = registration("reg2", "endpoint2", 5002, 3600, System.currentTimeMillis());
+        store.addRegistration(first);
+        store.addRegistration(second);
+        store.updateRegistration(new RegistrationUpdate("reg2", second.getClientTransportData(), 7200L,
+                null, null, null, null, null, null, null, null, null));
+        store.addObservation("reg2", observation("reg2", 1, 3), false);
+        store.addObservation("reg2", observation("reg2", 2, 5), false);
+        store.removeObservation("reg2", new ObservationIdentifier(new byte[]{2}));
+        store.removeRegistration("reg1");
+
+        store.destroy();
+        store = createStore(0);
+
+        assertThat(store.getRegistrationByEndpoint("endpoint1")).isNull();
+        assertThat(store.getRegistration("reg1")).isNull();
+        Registration recovered = store.getRegistrationByEndpoint("endpoint2");
+        assertThat(recovered.getId()).isEqualTo("reg2");
+        assertThat(recovered.getLifeTimeInSec()).isEqualTo(7200L);
+        assertThat(store.getRegistrationByAdress(new InetSocketAddress("127.0.0.1", 5002)).getId()).isEqualTo("reg2");
+        assertThat(store.getObservations("reg2")).extracting(observation -> ((SingleObservation) observation).getPath())
+                .containsExactly(new LwM2mPath(3));
+        assertThat(store.getObservation(new ObservationIdentifier(new byte[]{1}))).isNotNull();
+    }
+
+    @Test
+    public void givenReRegistrationWithNewId_whenRestart_thenKeepNewRegistrationOnly() {
+        store = createStore(0);
+        store.addRegistration(registration("reg1", "endpoint1", 5001, 3600, System.currentTimeMillis()));
+        store.addObservation("reg1", observation("reg1", 1, 3), false);
+        store.addRegistration(registration("reg2", "endpoint1", 5003, 3600, System.currentTimeMillis()));
+
+        store.destroy();
+        store = createStore(0);
+
+        assertThat(store.getRegistration("reg1")).isNull();
+        assertThat(store.getRegistrationByEndpoint("endpoint1").getId()).isEqualTo("reg2");
+        assertThat(store.getObservations("reg1")).isEmpty();
+        assertThat(store.getObservation(new ObservationIdentifier(new byte[]{1}))).isNull();
+    }
+
+    @Test
+    public void givenCorruptedTail_whenRestart_thenTruncateAndRecoverValidRecords() throws Exception {
+        store = createStore(0);
+        store.addRegistration(registration("reg1", "endpoint1", 5001, 3600, System.currentTimeMillis()));
+        store.destroy();
+        Path logFile = dir.resolve(TbLwM2mFileRegistrationStore.LOG_FILE_NAME);
+        long validSize = Files.size(logFile);
+        Files.write(logFile, new byte[]{0, 0, 1, 0, 42, 42, 42}, StandardOpenOption.APPEND);
+
+        store = createStore(0);
+
+        assertThat(store.getRegistration("reg1")).isNotNull();
+        assertThat(Files.size(logFile)).isEqualTo(validSize);
+        store.addRegistration(registration("reg2", "endpoint2", 5002, 3600, System.currentTimeMillis()));
+        store.destroy();
+        store = createStore(0);
+        assertThat(store.getRegistration("reg2")).isNotNull();
+    }
+
+    @Test
+    public void givenExpiredRegistration_whenTimerAdvances_thenExpireAndPersistRemoval() {
+        store = createStore(0);
+        ExpirationListener listener = mock(ExpirationListener.class);
+        store.setExpirationListener(listener);
+        long now = System.currentTimeMillis();
+        store.addRegistration(registration("expired", "endpoint1", 5001, 1, now - 10000));
+        store.addRegistration(registration("alive", "endpoint2", 5002, 3600, now));
+
+        store.expireRegistrations(now + 2000);
+
+        ArgumentCaptor<Registration> expired = ArgumentCaptor.forClass(Registration.class);
+        verify(listener).registrationExpired(expired.capture(), any());
+        assertThat(expired.getValue().getId()).isEqualTo("expired");
+        assertThat(store.getRegistration("expired")).isNull();
+        assertThat(store.getRegistration("alive")).isNotNull();
+
+        store.destroy();
+        store = createStore(0);
+        assertThat(store.getRegistration("expired")).isNull();
+    }
+
+    @Test
+    public void givenUpdatedRegistration_whenOldDeadlinePasses_thenKeepRegistration() {
+        store = createStore(0);
+        ExpirationListener listener = mock(ExpirationListener.class);
+        store.setExpirationListener(listener);
+        long now = System.currentTimeMillis();
+        Registration registration = registration("reg1", "endpoint1", 5001, 5, now);
+        store.addRegistration(registration);
+        store.updateRegistration(new RegistrationUpdate("reg1", registration.getClientTransportData(), 3600L,
+                null, null, null, null, null, null, null, null, null));
+
+        store.expireRegistrations(now + 10000);
+
+        verify(listener, never()).registrationExpired(any(), any());
+        assertThat(store.getRegistration("reg1")).isNotNull();
+    }
+
+    @Test
+    public void givenManyUpdates_whenCompact_thenShrinkLogAndKeepState() throws Exception {
+        store = createStore(0);
+        Registration registration = registration("reg1", "endpoint1", 5001, 3600, System.currentTimeMillis());
+        store.addRegistration(registration);
+        store.addObservation("reg1", observation("reg1", 1, 3), false);
+        for (int i = 0; i < 100; i++) {
+            store.updateRegistration(new RegistrationUpdate("reg1", registration.getClientTransportData(), 3600L + i,
+                    null, null, null, null, null, null, null, null, null));
+        }
+        Path logFile = dir.resolve(TbLwM2mFileRegistrationStore.LOG_FILE_NAME);
+        long sizeBeforeCompaction = Files.size(logFile);
+
+        store.compactIfNeeded();
+
+        assertThat(Files.size(logFile)).isLessThan(sizeBeforeCompaction / 10);
+        store.destroy();
+        store = createStore(0);
+        assertThat(store.getRegistration("reg1").getLifeTimeInSec()).isEqualTo(3699L);
+        assertThat(store.getObservations("reg1")).hasSize(1);
+    }
+
+    private TbLwM2mFileRegistrationStore createStore(long compactionMinSize) {
+        return new TbLwM2mFileRegistrationStore(null, dir, 1, compactionMinSize, null);
+    }
+
+    private static Registration registration(String id, String endpoint, int port, long lifetime, long lastUpdate) {
+        return new Registration.Builder(id, endpoint, new IpPeer(new InetSocketAddress("127.0.0.1", port)),
+                EndpointUriUtil.createUri("coap://localhost:5685"))
+                .supportedContentFormats()
+                .supportedObjects(Map.of(3, LwM2mVersion.V1_0, 5, LwM2mVersion.V1_0))
+                .objectLinks(new Link[]{new Link("/3"), new Link("/5")})
+                .lifeTimeInSec(lifetime)
+                .registrationDate(new Date(lastUpdate))
+                .lastUpdate(new Date(lastUpdate))
+                .build();
+    }
+
+    private static Observation observation(String registrationId, int token, int objectId) {
+        return new SingleObservation(new ObservationIdentifier(new byte[]{(byte) token}), registrationId, new LwM2mPath(objectId),
+                ContentFormat.TLV, Map.of(), Map.of());
+    }
+
+}
@@ -79,6 +79,10 @@ public class MqttTransportContext extends TransportContext {
     @Value("${transport.mqtt.proxy_enabled:false}")
     private boolean proxyEnabled;
 
+    @Getter
+    @Value("${transport.mqtt.gateway_batch_enabled:false}")
+    private boolean gatewayBatchEnabled;
+
     private final AtomicInteger connectionsCounter = new AtomicInteger();
 
     @PostConstruct
@@ -45,6 +45,7 @@ import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.leshan.core.ResponseCode;
+import org.thingsboard.common.util.DonAsynchron;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.server.common.adaptor.AdaptorException;
 import org.thingsboard.server.common.data.DataConstants;
@@ -57,7 +58,6 @@ import org.thingsboard.server.common.data.device.profile.MqttTopics;
 import org.thingsboard.server.common.data.exception.ThingsboardErrorCode;
 import org.thingsboard.server.common.data.exception.ThingsboardException;
 import org.thingsboard.server.common.data.id.DeviceId;
-import org.thingsboard.server.common.data.id.OtaPackageId;
 import org.thingsboard.server.common.data.ota.OtaPackageType;
 import org.thingsboard.server.common.data.rpc.RpcStatus;
 import org.thingsboard.server.common.msg.EncryptionUtil;
@@ -80,8 +80,8 @@ import org.thingsboard.server.transport.mqtt.adaptors.MqttTransportAdaptor;
 import org.thingsboard.server.transport.mqtt.adaptors.ProtoMqttAdaptor;
 import org.thingsboard.server.transport.mqtt.session.DeviceSessionCtx;
 import org.thingsboard.server.transport.mqtt.session.GatewaySessionHandler;
-import org.thingsboard.server.transport.mqtt.session.MqttTopicMatcher;
 import org.thingsboard.server.transport.mqtt.session.SparkplugNodeSessionHandler;
+import org.thingsboard.server.transport.mqtt.util.MqttTopicTrie;
 import org.thingsboard.server.transport.mqtt.util.ReturnCodeResolver;
 import org.thingsboard.server.transport.mqtt.util.sparkplug.SparkplugMessageType;
 import org.thingsboard.server.transport.mqtt.util.sparkplug.SparkplugRpcRequestHeader;
@@ -141,14 +141,14 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
     private final TransportService transportService;
     private final SchedulerComponent scheduler;
     private final SslHandler sslHandler;
-    private final ConcurrentMap<MqttTopicMatcher, Integer> mqttQoSMap;
+    private final MqttTopicTrie<Integer> mqttQoSMap;
 
     final DeviceSessionCtx deviceSessionCtx;
     volatile InetSocketAddress address;
     volatile GatewaySessionHandler gatewaySessionHandler;
     volatile SparkplugNodeSessionHandler sparkplugSessionHandler;
 
-    private final ConcurrentHashMap<String, String> otaPackSessions;
+    private final ConcurrentHashMap<String, TransportProtos.GetOtaPackageResponseMsg> otaPackSessions;
     private final ConcurrentHashMap<String, Integer> chunkSizes;
     private final ConcurrentMap<Integer, TransportProtos.ToDeviceRpcRequestMsg> rpcAwaitingAck;
 
@@ -163,7 +163,7 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
         this.transportService = context.getTransportService();
         this.scheduler = context.getScheduler();
         this.sslHandler = sslHandler;
-        this.mqttQoSMap = new ConcurrentHashMap<>();
+        this.mqttQoSMap = new MqttTopicTrie<>();
         this.deviceSessionCtx = new DeviceSessionCtx(sessionId, mqttQoSMap, context);
         this.otaPackSessions = new ConcurrentHashMap<>();
         this.chunkSizes = new ConcurrentHashMap<>();
@@ -606,10 +606,10 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
             return;
         }
 
-        String otaPackageId = otaPackSessions.get(requestId);
+        TransportProtos.GetOtaPackageResponseMsg otaPackage = otaPackSessions.get(requestId);
 
-        if (otaPackageId != null) {
-            sendOtaPackage(ctx, mqttMsg.variableHeader().packetId(), otaPackageId, requestId, chunkSize, chunk, type);
+        if (otaPackage != null) {
+            sendOtaPackage(ctx, mqttMsg.variableHeader().packetId(), otaPackage, requestId, chunkSize, chunk, type);
         } else {
             TransportProtos.SessionInfoProto sessionInfo = deviceSessionCtx.getSessionInfo();
             TransportProtos.GetOtaPackageRequestMsg getOtaPackageRequestMsg = TransportProtos.GetOtaPackageRequestMsg.newBuilder()
@@ -705,9 +705,8 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
         @Override
         public void onSuccess(TransportProtos.GetOtaPackageResponseMsg response) {
             if (TransportProtos.ResponseStatus.SUCCESS.equals(response.getResponseStatus())) {
-                OtaPackageId firmwareId = new OtaPackageId(new UUID(response.getOtaPackageIdMSB(), response.getOtaPackageIdLSB()));
-                otaPackSessions.put(requestId, firmwareId.toString());
-                sendOtaPackage(ctx, msgId, firmwareId.toString(), requestId, chunkSize, chunk, OtaPackageType.valueOf(response.getType()));
+                otaPackSessions.put(requestId, response);
+                sendOtaPackage(ctx, msgId, response, requestId, chunkSize, chunk, OtaPackageType.valueOf(response.getType()));
             } else {
                 sendOtaPackageError(ctx, response.getResponseStatus().toString());
             }
@@ -720,17 +719,18 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
         }
     }
 
-    private void sendOtaPackage(ChannelHandlerContext ctx, int msgId, String firmwareId, String requestId, int chunkSize, int chunk, OtaPackageType type) {
-        log.trace("[{}] Send firmware [{}] to device!", sessionId, firmwareId);
+    private void sendOtaPackage(ChannelHandlerContext ctx, int msgId, TransportProtos.GetOtaPackageResponseMsg otaPackage, String requestId, int chunkSize, int chunk, OtaPackageType type) {
+        log.trace("[{}] Send firmware [{}] to device!", sessionId, new UUID(otaPackage.getOtaPackageIdMSB(), otaPackage.getOtaPackageIdLSB()));
         ack(ctx, msgId, MqttReasonCodes.PubAck.SUCCESS);
-        try {
-            byte[] firmwareChunk = context.getOtaPackageDataCache().get(firmwareId, chunkSize, chunk);
-            deviceSessionCtx.getPayloadAdaptor()
-                    .convertToPublish(deviceSessionCtx, firmwareChunk, requestId, chunk, type)
-                    .ifPresent(deviceSessionCtx.getChannel()::writeAndFlush);
-        } catch (Exception e) {
-            log.trace("[{}] Failed to send firmware response!", sessionId, e);
-        }
+        DonAsynchron.withCallback(context.getOtaPackageStore().getChunk(otaPackage, chunkSize, chunk), firmwareChunk -> {
+            try {
+                deviceSessionCtx.getPayloadAdaptor()
+                        .convertToPublish(deviceSessionCtx, firmwareChunk, requestId, chunk, type)
+                        .ifPresent(deviceSessionCtx.getChannel()::writeAndFlush);
+            } catch (Exception e) {
+                log.trace("[{}] Failed to send firmware response!", sessionId, e);
+            }
+        }, e -> log.trace("[{}] Failed to get firmware chunk!", sessionId, e));
     }
 
     private void sendOtaPackageError(ChannelHandlerContext ctx, String error) {
@@ -861,7 +861,7 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
 
     public void registerSubQoS(String topic, List<Integer> grantedQoSList, MqttQoS reqQoS) {
         grantedQoSList.add(getMinSupportedQos(reqQoS));
-        mqttQoSMap.put(new MqttTopicMatcher(topic), getMinSupportedQos(reqQoS));
+        mqttQoSMap.put(topic, getMinSupportedQos(reqQoS));
     }
 
     private void processUnsubscribe(ChannelHandlerContext ctx, MqttUnsubscribeMessage mqttMsg) {
@@ -874,9 +874,7 @@ public class MqttTransportHandler extends ChannelInboundHandlerAdapter implement
         List<Short> unSubResults = new ArrayList<>();
         log.trace("[{}] Processing subscription [{}]!", sessionId, mqttMsg.variableHeader().messageId());
         for (String topicName : mqttMsg.payload().topics()) {
-            MqttTopicMatcher matcher = new MqttTopicMatcher(topicName);
-            if (mqttQoSMap.containsKey(matcher)) {
-                mqttQoSMap.remove(matcher);
+            if (mqttQoSMap.remove(topicName) != null) {
                 try {
                     short resultValue = MqttReasonCodes.UnsubAck.SUCCESS.byteValue();
                     switch (topicName) {
@@ -16,11 +16,11 @@
 package org.thingsboard.server.transport.mqtt;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.util.AttributeKey;
 import io.netty.util.ResourceLeakDetector;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +30,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 import org.thingsboard.server.common.data.DataConstants;
 import org.thingsboard.server.common.data.TbTransportService;
+import org.thingsboard.server.transport.mqtt.util.NettyTransportType;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -66,6 +67,16 @@ public class MqttTransportService implements TbTransportService {
     private Integer workerGroupThreadCount;
     @Value("${transport.mqtt.netty.so_keep_alive}")
     private boolean keepAlive;
+    @Value("${transport.mqtt.netty.transport_type:NIO}")
+    private String transportType;
+    @Value("${transport.mqtt.netty.so_backlog:0}")
+    private int soBacklog;
+    @Value("${transport.mqtt.netty.recv_buffer_initial_size:1024}")
+    private int recvBufferInitialSize;
+    @Value("${transport.mqtt.netty.write_buffer_low_water_mark:32768}")
+    private int writeBufferLowWaterMark;
+    @Value("${transport.mqtt.netty.write_buffer_high_water_mark:65536}")
+    private int writeBufferHighWaterMark;
 
     @Autowired
     private MqttTransportContext context;
@@ -80,27 +91,33 @@ public class MqttTransportService implements TbTransportService {
         log.info("Setting resource leak detector level to {}", leakDetectorLevel);
         ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.valueOf(leakDetectorLevel.toUpperCase()));
 
-        log.info("Starting MQTT transport...");
-        bossGroup = new NioEventLoopGroup(bossGroupThreadCount);
-        workerGroup = new NioEventLoopGroup(workerGroupThreadCount);
-        ServerBootstrap b = new ServerBootstrap();
-        b.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
-                .childHandler(new MqttTransportServerInitializer(context, false))
-                .childOption(ChannelOption.SO_KEEPALIVE, keepAlive);
+        NettyTransportType nettyTransportType = NettyTransportType.resolve(transportType);
+        log.info("Starting MQTT transport using {} event loops...", nettyTransportType);
+        bossGroup = nettyTransportType.newEventLoopGroup(bossGroupThreadCount, "mqtt-transport-boss");
+        workerGroup = nettyTransportType.newEventLoopGroup(workerGroupThreadCount, "mqtt-transport-worker");
 
-        serverChannel = b.bind(host, port).sync().channel();
+        serverChannel = newServerBootstrap(nettyTransportType, false).bind(host, port).sync().channel();
         if (sslEnabled) {
-            b = new ServerBootstrap();
-            b.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
-                    .childHandler(new MqttTransportServerInitializer(context, true))
-                    .childOption(ChannelOption.SO_KEEPALIVE, keepAlive);
-            sslServerChannel = b.bind(sslHost, sslPort).sync().channel();
+            sslServerChannel = newServerBootstrap(nettyTransportType, true).bind(sslHost, sslPort).sync().channel();
         }
         log.info("Mqtt transport started!");
     }
 
+    private ServerBootstrap newServerBootstrap(NettyTransportType nettyTransportType, boolean ssl) {
+        ServerBootstrap b = new ServerBootstrap();
+        b.group(bossGroup, workerGroup)
+                .channel(nettyTransportType.getServerChannelClass())
+                .childHandler(new MqttTransportServerInitializer(context, ssl))
+                .childOption(ChannelOption.SO_KEEPALIVE, keepAlive)
+                // Most of the device connections are idle, so start with small read buffers and let them grow on demand
+                .childOption(ChannelOption.RCVBUF_ALLOCATOR, new AdaptiveRecvByteBufAllocator(64, recvBufferInitialSize, 65536))
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
+        if (soBacklog > 0) {
+            b.option(ChannelOption.SO_BACKLOG, soBacklog);
+        }
+        return b;
+    }
+
     @PreDestroy
     public void shutdown() throws InterruptedException {
         log.info("Stopping MQTT transport!");
@@ -18,6 +18,7 @@ package org.thingsboard.server.transport.mqtt.session;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -49,6 +50,8 @@ import org.thingsboard.server.common.data.DeviceProfile;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.msg.tools.TbRateLimitsException;
+import org.thingsboard.server.common.transport.GatewayBatchCallback;
+import org.thingsboard.server.common.transport.GatewayDeviceMsg;
 import org.thingsboard.server.common.transport.TransportService;
 import org.thingsboard.server.common.transport.TransportServiceCallback;
 import org.thingsboard.server.common.transport.auth.GetOrCreateDeviceFromGatewayResponse;
@@ -62,6 +65,7 @@ import org.thingsboard.server.transport.mqtt.MqttTransportHandler;
 import org.thingsboard.server.transport.mqtt.adaptors.JsonMqttAdaptor;
 import org.thingsboard.server.transport.mqtt.adaptors.MqttTransportAdaptor;
 import org.thingsboard.server.transport.mqtt.adaptors.ProtoMqttAdaptor;
+import org.thingsboard.server.transport.mqtt.util.MqttTopicTrie;
 import org.thingsboard.server.transport.mqtt.util.sparkplug.SparkplugConnectionState;
 
 import java.util.ArrayList;
@@ -77,6 +81,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
@@ -111,7 +116,7 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
     private final ConcurrentMap<String, Lock> deviceCreationLockMap;
     private final ConcurrentMap<String, T> devices;
     private final ConcurrentMap<String, ListenableFuture<T>> deviceFutures;
-    protected final ConcurrentMap<MqttTopicMatcher, Integer> mqttQoSMap;
+    protected final MqttTopicTrie<Integer> mqttQoSMap;
     protected final ChannelHandlerContext channel;
     protected final DeviceSessionCtx deviceSessionCtx;
 
@@ -367,6 +372,10 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
     protected void onDeviceTelemetryJson(int msgId, ByteBuf payload) throws AdaptorException {
         JsonElement json = JsonMqttAdaptor.validateJsonPayload(sessionId, payload);
         validateJsonObject(json);
+        if (context.isGatewayBatchEnabled()) {
+            onDeviceTelemetryJsonBatch(msgId, json);
+            return;
+        }
         for (Map.Entry<String, JsonElement> deviceEntry : json.getAsJsonObject().entrySet()) {
             if (!deviceEntry.getValue().isJsonArray()) {
                 log.warn("{}[{}]", CAN_T_PARSE_VALUE, json);
@@ -378,6 +387,26 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
         }
     }
 
+    private void onDeviceTelemetryJsonBatch(int msgId, JsonElement json) {
+        List<String> deviceNames = new ArrayList<>();
+        List<TransportProtos.PostTelemetryMsg> msgs = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> deviceEntry : json.getAsJsonObject().entrySet()) {
+            if (!deviceEntry.getValue().isJsonArray()) {
+                log.warn("{}[{}]", CAN_T_PARSE_VALUE, json);
+                continue;
+            }
+            try {
+                msgs.add(JsonConverter.convertToTelemetryProto(deviceEntry.getValue().getAsJsonArray()));
+                deviceNames.add(deviceEntry.getKey());
+            } catch (Throwable e) {
+                log.warn("[{}][{}][{}] Failed to convert telemetry: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceEntry.getKey(), deviceEntry.getValue(), e);
+                ackOrClose(msgId);
+                return;
+            }
+        }
+        processBatch(msgId, TELEMETRY, deviceNames, msgs, transportService::processGatewayTelemetry);
+    }
+
     private void processPostTelemetryMsg(T deviceCtx, JsonElement msg, String deviceName, int msgId) {
         try {
             TransportProtos.PostTelemetryMsg postTelemetryMsg = JsonConverter.convertToTelemetryProto(msg.getAsJsonArray());
@@ -397,6 +426,23 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
                 throw new IllegalArgumentException("[" + sessionId + "] Devices telemetry messages is empty for [" + gateway.getDeviceId() + "]");
             }
 
+            if (context.isGatewayBatchEnabled()) {
+                List<String> deviceNames = new ArrayList<>(deviceMsgList.size());
+                List<TransportProtos.PostTelemetryMsg> msgs = new ArrayList<>(deviceMsgList.size());
+                for (TransportApiProtos.TelemetryMsg telemetryMsg : deviceMsgList) {
+                    String deviceName = checkDeviceName(telemetryMsg.getDeviceName());
+                    try {
+                        msgs.add(ProtoConverter.validatePostTelemetryMsg(telemetryMsg.getMsg().toByteArray()));
+                        deviceNames.add(deviceName);
+                    } catch (Throwable e) {
+                        log.warn("[{}][{}][{}] Failed to convert telemetry: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceName, telemetryMsg.getMsg(), e);
+                        ackOrClose(msgId);
+                        return;
+                    }
+                }
+                processBatch(msgId, TELEMETRY, deviceNames, msgs, transportService::processGatewayTelemetry);
+                return;
+            }
             deviceMsgList.forEach(telemetryMsg -> {
                 String deviceName = checkDeviceName(telemetryMsg.getDeviceName());
                 process(deviceName, deviceCtx -> processPostTelemetryMsg(deviceCtx, telemetryMsg.getMsg(), deviceName, msgId),
@@ -487,6 +533,10 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
     private void onDeviceAttributesJson(int msgId, ByteBuf payload) throws AdaptorException {
         JsonElement json = JsonMqttAdaptor.validateJsonPayload(sessionId, payload);
         validateJsonObject(json);
+        if (context.isGatewayBatchEnabled()) {
+            onDeviceAttributesJsonBatch(msgId, json);
+            return;
+        }
         for (Map.Entry<String, JsonElement> deviceEntry : json.getAsJsonObject().entrySet()) {
             if (!deviceEntry.getValue().isJsonObject()) {
                 log.warn("{}[{}]", CAN_T_PARSE_VALUE, json);
@@ -499,6 +549,26 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
         }
     }
 
+    private void onDeviceAttributesJsonBatch(int msgId, JsonElement json) {
+        List<String> deviceNames = new ArrayList<>();
+        List<TransportProtos.PostAttributeMsg> msgs = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> deviceEntry : json.getAsJsonObject().entrySet()) {
+            if (!deviceEntry.getValue().isJsonObject()) {
+                log.warn("{}[{}]", CAN_T_PARSE_VALUE, json);
+                continue;
+            }
+            try {
+                msgs.add(JsonConverter.convertToAttributesProto(deviceEntry.getValue().getAsJsonObject()));
+                deviceNames.add(deviceEntry.getKey());
+            } catch (Throwable e) {
+                log.warn("[{}][{}][{}] Failed to process device attributes command: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceEntry.getKey(), deviceEntry.getValue(), e);
+                ackOrClose(msgId);
+                return;
+            }
+        }
+        processBatch(msgId, ATTRIBUTE, deviceNames, msgs, transportService::processGatewayAttributes);
+    }
+
     private void processPostAttributesMsg(MqttDeviceAwareSessionContext deviceCtx, JsonElement msg, String deviceName, int msgId) {
         try {
             TransportProtos.PostAttributeMsg postAttributeMsg = JsonConverter.convertToAttributesProto(msg.getAsJsonObject());
@@ -518,6 +588,23 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
                 throw new IllegalArgumentException("[" + sessionId + "] Devices attributes keys list is empty for [" + gateway.getDeviceId() + "]");
             }
 
+            if (context.isGatewayBatchEnabled()) {
+                List<String> deviceNames = new ArrayList<>(attributesMsgList.size());
+                List<TransportProtos.PostAttributeMsg> msgs = new ArrayList<>(attributesMsgList.size());
+                for (TransportApiProtos.AttributesMsg attributesMsg : attributesMsgList) {
+                    String deviceName = checkDeviceName(attributesMsg.getDeviceName());
+                    try {
+                        msgs.add(ProtoConverter.validatePostAttributeMsg(attributesMsg.getMsg()));
+                        deviceNames.add(deviceName);
+                    } catch (Throwable e) {
+                        log.warn("[{}][{}][{}] Failed to process device attributes command: [{}]", gateway.getTenantId(), gateway.getDeviceId(), deviceName, attributesMsg.getMsg(), e);
+                        ackOrClose(msgId);
+                        return;
+                    }
+                }
+                processBatch(msgId, ATTRIBUTE, deviceNames, msgs, transportService::processGatewayAttributes);
+                return;
+            }
             attributesMsgList.forEach(attributesMsg -> {
                 String deviceName = checkDeviceName(attributesMsg.getDeviceName());
                 process(deviceName, deviceCtx -> processPostAttributesMsg(deviceCtx, attributesMsg.getMsg(), deviceName, msgId),
@@ -728,6 +815,38 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
         };
     }
 
+    private GatewayBatchCallback getBatchPubAckCallback(final ChannelHandlerContext ctx, final int msgId, final String msgType) {
+        return new GatewayBatchCallback() {
+            @Override
+            public void onSuccess(Void dummy) {
+                log.trace("[{}][{}][{}] Published {} batch", gateway.getTenantId(), gateway.getDeviceId(), sessionId, msgType);
+                if (msgId > 0) {
+                    ctx.writeAndFlush(MqttTransportHandler.createMqttPubAckMsg(deviceSessionCtx, msgId, MqttReasonCodes.PubAck.SUCCESS.byteValue()));
+                } else {
+                    log.trace("[{}][{}][{}] Wrong msg id: [{}]", gateway.getTenantId(), gateway.getDeviceId(), sessionId, msgType);
+                    ctx.writeAndFlush(MqttTransportHandler.createMqttPubAckMsg(deviceSessionCtx, msgId, MqttReasonCodes.PubAck.UNSPECIFIED_ERROR.byteValue()));
+                }
+            }
+
+            @Override
+            public void onDeviceError(String deviceName, Throwable e) {
+                log.trace("[{}][{}][{}] Failed to publish {} batch because of device: [{}]", gateway.getTenantId(), gateway.getDeviceId(), sessionId, msgType, deviceName, e);
+                if (e instanceof TbRateLimitsException) {
+                    closeDeviceSession(deviceName, MqttReasonCodes.Disconnect.MESSAGE_RATE_TOO_HIGH);
+                } else {
+                    closeDeviceSession(deviceName, MqttReasonCodes.Disconnect.UNSPECIFIED_ERROR);
+                }
+                ctx.close();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                log.trace("[{}][{}][{}] Failed to publish {} batch", gateway.getTenantId(), gateway.getDeviceId(), sessionId, msgType, e);
+                ctx.close();
+            }
+        };
+    }
+
     protected void process(String deviceName, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
         ListenableFuture<T> deviceCtxFuture = onDeviceConnect(deviceName, DEFAULT_DEVICE_TYPE);
         process(deviceCtxFuture, onSuccess, onFailure);
@@ -742,6 +861,34 @@ public abstract class AbstractGatewaySessionHandler<T extends AbstractGatewayDev
         }
     }
 
+    /**
+     * Sends the messages of all the gateway devices from a single publish to the transport service as one batch.
+     * Devices that can't be connected are skipped, the publish is acknowledged once for the whole batch.
+     */
+    private <M> void processBatch(int msgId, String msgType, List<String> deviceNames, List<M> msgs,
+                                  BiConsumer<List<GatewayDeviceMsg<M>>, GatewayBatchCallback> batchProcessor) {
+        List<ListenableFuture<T>> deviceCtxFutures = new ArrayList<>(deviceNames.size());
+        for (String deviceName : deviceNames) {
+            deviceCtxFutures.add(Futures.catching(onDeviceConnect(deviceName, DEFAULT_DEVICE_TYPE), Throwable.class, t -> {
+                failedToProcessLog(deviceName, msgType, t);
+                return null;
+            }, MoreExecutors.directExecutor()));
+        }
+        process(Futures.allAsList(deviceCtxFutures), deviceCtxs -> {
+            List<GatewayDeviceMsg<M>> batch = new ArrayList<>(deviceCtxs.size());
+            for (int i = 0; i < deviceCtxs.size(); i++) {
+                T deviceCtx = deviceCtxs.get(i);
+                if (deviceCtx != null) {
+                    batch.add(new GatewayDeviceMsg<>(deviceCtx.getSessionInfo(), msgs.get(i)));
+                }
+            }
+            if (!batch.isEmpty()) {
+                log.trace("[{}][{}][{}] Processing {} batch of [{}] devices", gateway.getTenantId(), gateway.getDeviceId(), sessionId, msgType, batch.size());
+                batchProcessor.accept(batch, getBatchPubAckCallback(channel, msgId, msgType));
+            }
+        }, t -> log.debug("[{}][{}][{}] Failed to process {} batch", gateway.getTenantId(), gateway.getDeviceId(), sessionId, msgType, t));
+    }
+
     protected void failedToProcessLog(String deviceName, String msgType, Throwable t) {
         log.debug("[{}][{}][{}] Failed to process device {} command: [{}]", gateway.getTenantId(), gateway.getDeviceId(), sessionId, msgType, deviceName, t);
     }
@@ -18,8 +18,7 @@ package org.thingsboard.server.transport.mqtt.session;
 import org.thingsboard.server.common.data.DeviceProfile;
 import org.thingsboard.server.common.transport.TransportService;
 import org.thingsboard.server.common.transport.auth.TransportDeviceInfo;
-
-import java.util.concurrent.ConcurrentMap;
+import org.thingsboard.server.transport.mqtt.util.MqttTopicTrie;
 
 /**
  * Created by nickAS21 on 26.12.22
@@ -29,7 +28,7 @@ public class GatewayDeviceSessionContext extends AbstractGatewayDeviceSessionCon
     public GatewayDeviceSessionContext(GatewaySessionHandler parent,
                                        TransportDeviceInfo deviceInfo,
                                        DeviceProfile deviceProfile,
-                                       ConcurrentMap<MqttTopicMatcher, Integer> mqttQoSMap,
+                                       MqttTopicTrie<Integer> mqttQoSMap,
                                        TransportService transportService) {
         super(parent, deviceInfo, deviceProfile, mqttQoSMap, transportService);
     }
@@ -36,12 +36,7 @@ public class MqttTopicFilterFactory {
             if (filter.equals("#")) {
                 return new AlwaysTrueTopicFilter();
             } else if (filter.contains("+") || filter.contains("#")) {
-                String regex = filter
-                        .replace("\\", "\\\\")
-                        .replace("+", "[^/]+")
-                        .replace("/#", "($|/.*)");
-                log.debug("Converting [{}] to [{}]", filter, regex);
-                return new RegexTopicFilter(regex);
+                return new WildcardTopicFilter(filter);
             } else {
                 return new EqualsTopicFilter(filter);
             }
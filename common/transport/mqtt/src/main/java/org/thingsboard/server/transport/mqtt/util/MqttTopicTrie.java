@@ -0,0 +1,157 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.mqtt.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Index of MQTT topic filters organized by topic levels.
+ * <p>
+ * A topic is matched by walking its levels, so the lookup cost depends on the number of levels and not on the number of filters.
+ * The '+' wildcard matches exactly one non-empty level, the '#' wildcard matches the parent level and any number of child levels.
+ * Wildcards are only recognized when they occupy a whole level, otherwise they are matched literally.
+ * Filters that have '#' in any but the last level don't match any topic.
+ * <p>
+ * Modifications are serialized, lookups are lock-free.
+ */
+public class MqttTopicTrie<V> {
+
+    private static final char LEVEL_SEPARATOR = '/';
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+
+    private final Node<V> root = new Node<>();
+
+    public synchronized V put(String topicFilter, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value can't be null!");
+        }
+        Node<V> node = root;
+        for (String level : toLevels(topicFilter)) {
+            node = node.children.computeIfAbsent(level, l -> new Node<>());
+        }
+        V previous = node.value;
+        node.value = value;
+        return previous;
+    }
+
+    public synchronized V remove(String topicFilter) {
+        return remove(root, toLevels(topicFilter), 0);
+    }
+
+    public V get(String topicFilter) {
+        Node<V> node = root;
+        for (String level : toLevels(topicFilter)) {
+            node = node.children.get(level);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.value;
+    }
+
+    public boolean isEmpty() {
+        return root.children.isEmpty();
+    }
+
+    /**
+     * Passes the values of all filters that match the topic to the consumer.
+     */
+    public void match(String topic, Consumer<V> consumer) {
+        match(root, topic, 0, consumer);
+    }
+
+    public boolean matches(String topic) {
+        boolean[] found = new boolean[1];
+        match(topic, value -> found[0] = true);
+        return found[0];
+    }
+
+    private void match(Node<V> node, String topic, int start, Consumer<V> consumer) {
+        Node<V> multiLevel = node.children.get(MULTI_LEVEL_WILDCARD);
+        if (multiLevel != null && multiLevel.value != null) {
+            consumer.accept(multiLevel.value);
+        }
+        if (start > topic.length()) {
+            V value = node.value;
+            if (value != null) {
+                consumer.accept(value);
+            }
+            return;
+        }
+        int end = topic.indexOf(LEVEL_SEPARATOR, start);
+        if (end < 0) {
+            end = topic.length();
+        }
+        String level = topic.substring(start, end);
+        Node<V> child = node.children.get(level);
+        if (child != null) {
+            match(child, topic, end + 1, consumer);
+        }
+        if (end > start) {
+            Node<V> singleLevel = node.children.get(SINGLE_LEVEL_WILDCARD);
+            if (singleLevel != null && !level.equals(SINGLE_LEVEL_WILDCARD)) {
+                match(singleLevel, topic, end + 1, consumer);
+            }
+        }
+    }
+
+    private V remove(Node<V> node, List<String> levels, int index) {
+        if (index == levels.size()) {
+            V previous = node.value;
+            node.value = null;
+            return previous;
+        }
+        Node<V> child = node.children.get(levels.get(index));
+        if (child == null) {
+            return null;
+        }
+        V previous = remove(child, levels, index + 1);
+        if (child.value == null && child.children.isEmpty()) {
+            node.children.remove(levels.get(index));
+        }
+        return previous;
+    }
+
+    private static List<String> toLevels(String topicFilter) {
+        if (topicFilter == null) {
+            throw new IllegalArgumentException("Topic filter can't be null!");
+        }
+        List<String> levels = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = topicFilter.indexOf(LEVEL_SEPARATOR, start)) >= 0) {
+            String level = topicFilter.substring(start, end);
+            // '#' that is not the last level makes the filter invalid, the key can't be equal to any topic level
+            levels.add(MULTI_LEVEL_WILDCARD.equals(level) ? LEVEL_SEPARATOR + level : level);
+            start = end + 1;
+        }
+        levels.add(topicFilter.substring(start));
+        return levels;
+    }
+
+    private static final class Node<V> {
+
+        private final Map<String, Node<V>> children = new ConcurrentHashMap<>();
+        private volatile V value;
+
+    }
+
+}
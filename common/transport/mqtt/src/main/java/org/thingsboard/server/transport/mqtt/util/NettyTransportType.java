@@ -0,0 +1,77 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.mqtt.util;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Event loop backend of the Netty based transports.
+ * <p>
+ * {@link #AUTO} selects the native epoll transport when it is available on the current platform and falls back to NIO otherwise.
+ */
+@Slf4j
+public enum NettyTransportType {
+
+    AUTO, NIO, EPOLL;
+
+    public static NettyTransportType resolve(String value) {
+        NettyTransportType type = NettyTransportType.valueOf(value.toUpperCase());
+        switch (type) {
+            case AUTO:
+                return Epoll.isAvailable() ? EPOLL : NIO;
+            case EPOLL:
+                if (!Epoll.isAvailable()) {
+                    log.warn("Native epoll transport is not available, falling back to NIO", Epoll.unavailabilityCause());
+                    return NIO;
+                }
+                return EPOLL;
+            default:
+                return type;
+        }
+    }
+
+    public EventLoopGroup newEventLoopGroup(int threads, String threadNamePrefix) {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(threadNamePrefix);
+        switch (this) {
+            case EPOLL:
+                return new EpollEventLoopGroup(threads, threadFactory);
+            case NIO:
+                return new NioEventLoopGroup(threads, threadFactory);
+            default:
+                throw new IllegalStateException("Transport type " + this + " must be resolved before use");
+        }
+    }
+
+    public Class<? extends ServerChannel> getServerChannelClass() {
+        return this == EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public Class<? extends SocketChannel> getSocketChannelClass() {
+        return this == EPOLL ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+}
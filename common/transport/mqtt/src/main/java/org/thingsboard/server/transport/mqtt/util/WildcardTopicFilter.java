@@ -0,0 +1,39 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.mqtt.util;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@EqualsAndHashCode(of = "filter")
+@ToString(of = "filter")
+public class WildcardTopicFilter implements MqttTopicFilter {
+
+    @Getter
+    private final String filter;
+    private final MqttTopicTrie<Boolean> trie = new MqttTopicTrie<>();
+
+    public WildcardTopicFilter(String filter) {
+        this.filter = filter;
+        this.trie.put(filter, Boolean.TRUE);
+    }
+
+    @Override
+    public boolean filter(String topic) {
+        return trie.matches(topic);
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.mqtt;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.mqtt.MqttConnAckMessage;
+import io.netty.handler.codec.mqtt.MqttConnectReturnCode;
+import io.netty.handler.codec.mqtt.MqttDecoder;
+import io.netty.handler.codec.mqtt.MqttEncoder;
+import io.netty.handler.codec.mqtt.MqttMessage;
+import io.netty.handler.codec.mqtt.MqttMessageBuilders;
+import io.netty.handler.codec.mqtt.MqttMessageType;
+import io.netty.handler.codec.mqtt.MqttPublishMessage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.DeviceTransportType;
+import org.thingsboard.server.common.data.device.profile.DeviceProfileData;
+import org.thingsboard.server.common.data.device.profile.JsonTransportPayloadConfiguration;
+import org.thingsboard.server.common.data.device.profile.MqttDeviceProfileTransportConfiguration;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.transport.TransportService;
+import org.thingsboard.server.common.transport.TransportServiceCallback;
+import org.thingsboard.server.common.transport.auth.TransportDeviceInfo;
+import org.thingsboard.server.common.transport.auth.ValidateDeviceCredentialsResponse;
+import org.thingsboard.server.common.transport.limits.TransportRateLimitService;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.queue.discovery.TbServiceInfoProvider;
+import org.thingsboard.server.transport.mqtt.adaptors.JsonMqttAdaptor;
+import org.thingsboard.server.transport.mqtt.adaptors.ProtoMqttAdaptor;
+import org.thingsboard.server.transport.mqtt.util.NettyTransportType;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Connection scale benchmark of the MQTT transport.
+ * <p>
+ * Starts {@link MqttTransportService} on a local port, so the clients go through the same bootstrap as in production:
+ * {@link MqttTransportServerInitializer} pipeline, {@link MqttTransportHandler}, the configured event loop backend,
+ * receive buffer allocator and write buffer water marks. Only the {@link TransportService} is stubbed: every device is
+ * authorized and every message is acknowledged right away, so the numbers do not include the core round-trip.
+ * The benchmark reports the memory used per connection and the publish (QoS 1) round-trip latency.
+ * <p>
+ * Disabled unless the number of connections is set, e.g.:
+ * <pre>
+ * mvn test -pl common/transport/mqtt -Dtest=MqttConnectionScaleBenchmarkTest -Dmqtt.benchmark.connections=20000 -Dmqtt.benchmark.transportType=EPOLL
+ * </pre>
+ * Note that all clients share a single source address, so more than ~28k connections require
+ * a wider net.ipv4.ip_local_port_range.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "mqtt.benchmark.connections", matches = "\\d+")
+public class MqttConnectionScaleBenchmarkTest {
+
+    private static final int MAX_PAYLOAD_SIZE = 65536;
+    private static final byte[] PAYLOAD = "{\"temperature\":42}".getBytes(StandardCharsets.UTF_8);
+
+    private final int connections = Integer.getInteger("mqtt.benchmark.connections", 0);
+    private final int publishes = Integer.getInteger("mqtt.benchmark.publishes", 10000);
+    private final String transportType = System.getProperty("mqtt.benchmark.transportType", "AUTO");
+    private final int recvBufferInitialSize = Integer.getInteger("mqtt.benchmark.recvBufferInitialSize", 1024);
+    private final int writeBufferLowWaterMark = Integer.getInteger("mqtt.benchmark.writeBufferLowWaterMark", 32768);
+    private final int writeBufferHighWaterMark = Integer.getInteger("mqtt.benchmark.writeBufferHighWaterMark", 65536);
+
+    private ExecutorService callbackExecutor;
+    private MqttTransportContext context;
+    private MqttTransportService transportService;
+    private int port;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        callbackExecutor = ThingsBoardExecutors.newWorkStealingPool(4, getClass());
+        context = new MqttTransportContext();
+        ReflectionTestUtils.setField(context, "transportService", mockTransportService());
+        TbServiceInfoProvider serviceInfoProvider = mock(TbServiceInfoProvider.class);
+        when(serviceInfoProvider.getServiceId()).thenReturn("mqtt-benchmark");
+        ReflectionTestUtils.setField(context, "serviceInfoProvider", serviceInfoProvider);
+        TransportRateLimitService rateLimitService = mock(TransportRateLimitService.class);
+        when(rateLimitService.checkAddress(any())).thenReturn(true);
+        ReflectionTestUtils.setField(context, "rateLimitService", rateLimitService);
+        ReflectionTestUtils.setField(context, "jsonMqttAdaptor", new JsonMqttAdaptor());
+        ReflectionTestUtils.setField(context, "protoMqttAdaptor", new ProtoMqttAdaptor());
+        ReflectionTestUtils.setField(context, "maxPayloadSize", MAX_PAYLOAD_SIZE);
+        ReflectionTestUtils.setField(context, "messageQueueSizePerDeviceLimit", 100);
+        context.init();
+
+        port = findFreePort();
+        transportService = new MqttTransportService();
+        ReflectionTestUtils.setField(transportService, "context", context);
+        ReflectionTestUtils.setField(transportService, "host", "127.0.0.1");
+        ReflectionTestUtils.setField(transportService, "port", port);
+        ReflectionTestUtils.setField(transportService, "leakDetectorLevel", "DISABLED");
+        ReflectionTestUtils.setField(transportService, "bossGroupThreadCount", 1);
+        ReflectionTestUtils.setField(transportService, "workerGroupThreadCount", 0);
+        ReflectionTestUtils.setField(transportService, "keepAlive", true);
+        ReflectionTestUtils.setField(transportService, "transportType", transportType);
+        ReflectionTestUtils.setField(transportService, "soBacklog", 4096);
+        ReflectionTestUtils.setField(transportService, "recvBufferInitialSize", recvBufferInitialSize);
+        ReflectionTestUtils.setField(transportService, "writeBufferLowWaterMark", writeBufferLowWaterMark);
+        ReflectionTestUtils.setField(transportService, "writeBufferHighWaterMark", writeBufferHighWaterMark);
+        transportService.init();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        transportService.shutdown();
+        context.stop();
+        callbackExecutor.shutdownNow();
+    }
+
+    @Test
+    public void benchmarkConnections() throws Exception {
+        NettyTransportType type = NettyTransportType.resolve(transportType);
+        EventLoopGroup clientGroup = type.newEventLoopGroup(0, "mqtt-benchmark-client");
+        List<Channel> clients = new ArrayList<>(connections);
+        try {
+            Bootstrap clientBootstrap = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(type.getSocketChannelClass())
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new AdaptiveRecvByteBufAllocator(64, recvBufferInitialSize, 65536))
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new MqttDecoder(MAX_PAYLOAD_SIZE), MqttEncoder.INSTANCE, new ClientHandler());
+                        }
+                    });
+
+            long heapBefore = usedHeap();
+            long directBefore = PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory();
+            long connectStart = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                Channel channel = clientBootstrap.connect("127.0.0.1", port).sync().channel();
+                ClientHandler handler = channel.pipeline().get(ClientHandler.class);
+                CompletableFuture<MqttMessage> connAck = handler.expect();
+                channel.writeAndFlush(MqttMessageBuilders.connect().clientId("benchmark-" + i).username("token-" + i).keepAlive(600).build());
+                MqttConnAckMessage ack = (MqttConnAckMessage) connAck.get(10, TimeUnit.SECONDS);
+                assertThat(ack.variableHeader().connectReturnCode()).isEqualTo(MqttConnectReturnCode.CONNECTION_ACCEPTED);
+                clients.add(channel);
+            }
+            long connectTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+            long heapPerConnection = (usedHeap() - heapBefore) / connections;
+            long directPerConnection = (PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory() - directBefore) / connections;
+
+            long[] latencies = new long[publishes];
+            for (int i = 0; i < publishes; i++) {
+                Channel channel = clients.get(i % connections);
+                CompletableFuture<MqttMessage> pubAck = channel.pipeline().get(ClientHandler.class).expect();
+                MqttPublishMessage publish = MqttMessageBuilders.publish()
+                        .topicName("v1/devices/me/telemetry")
+                        .qos(MqttQoS.AT_LEAST_ONCE)
+                        .messageId(i % 65535 + 1)
+                        .payload(Unpooled.wrappedBuffer(PAYLOAD))
+                        .build();
+                long start = System.nanoTime();
+                channel.writeAndFlush(publish);
+                pubAck.get(10, TimeUnit.SECONDS);
+                latencies[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(latencies);
+
+            log.info("Transport [{}], connections [{}] established in [{}] ms", type, connections, connectTimeMs);
+            log.info("Memory per connection (client and server side): heap [{}] bytes, pooled direct [{}] bytes", heapPerConnection, directPerConnection);
+            log.info("Publish latency over [{}] messages: p50 [{}] us, p99 [{}] us, max [{}] us", publishes,
+                    percentile(latencies, 0.5), percentile(latencies, 0.99), TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1]));
+            assertThat(clients).hasSize(connections);
+        } finally {
+            clients.forEach(Channel::close);
+            clientGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TransportService mockTransportService() {
+        TransportService transportService = mock(TransportService.class);
+        when(transportService.getCallbackExecutor()).thenReturn(callbackExecutor);
+        doAnswer(invocation -> {
+            TransportProtos.ValidateBasicMqttCredRequestMsg request = invocation.getArgument(1);
+            invocation.<TransportServiceCallback<ValidateDeviceCredentialsResponse>>getArgument(2).onSuccess(validResponse(request.getUserName()));
+            return null;
+        }).when(transportService).process(eq(DeviceTransportType.MQTT), any(TransportProtos.ValidateBasicMqttCredRequestMsg.class), any());
+        doAnswer(invocation -> {
+            invocation.<TransportServiceCallback<Void>>getArgument(2).onSuccess(null);
+            return null;
+        }).when(transportService).process(any(TransportProtos.SessionInfoProto.class), any(TransportProtos.SessionEventMsg.class), any(TransportServiceCallback.class));
+        doAnswer(invocation -> {
+            invocation.<TransportServiceCallback<Void>>getArgument(3).onSuccess(null);
+            return null;
+        }).when(transportService).process(any(TransportProtos.SessionInfoProto.class), any(TransportProtos.PostTelemetryMsg.class), any(), any());
+        return transportService;
+    }
+
+    private static ValidateDeviceCredentialsResponse validResponse(String deviceName) {
+        TransportDeviceInfo deviceInfo = new TransportDeviceInfo();
+        deviceInfo.setTenantId(TenantId.fromUUID(UUID.randomUUID()));
+        deviceInfo.setCustomerId(new CustomerId(UUID.randomUUID()));
+        deviceInfo.setDeviceProfileId(new DeviceProfileId(UUID.randomUUID()));
+        deviceInfo.setDeviceId(new DeviceId(UUID.randomUUID()));
+        deviceInfo.setDeviceName(deviceName);
+        deviceInfo.setDeviceType("default");
+        deviceInfo.setAdditionalInfo("{}");
+
+        MqttDeviceProfileTransportConfiguration transportConfiguration = new MqttDeviceProfileTransportConfiguration();
+        transportConfiguration.setTransportPayloadTypeConfiguration(new JsonTransportPayloadConfiguration());
+        DeviceProfileData profileData = new DeviceProfileData();
+        profileData.setTransportConfiguration(transportConfiguration);
+        DeviceProfile deviceProfile = new DeviceProfile(deviceInfo.getDeviceProfileId());
+        deviceProfile.setTransportType(DeviceTransportType.MQTT);
+        deviceProfile.setProfileData(profileData);
+
+        return ValidateDeviceCredentialsResponse.builder()
+                .deviceInfo(deviceInfo)
+                .deviceProfile(deviceProfile)
+                .build();
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(index, 0)]);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class ClientHandler extends SimpleChannelInboundHandler<MqttMessage> {
+
+        private volatile CompletableFuture<MqttMessage> expected;
+
+        CompletableFuture<MqttMessage> expect() {
+            CompletableFuture<MqttMessage> future = new CompletableFuture<>();
+            expected = future;
+            return future;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, MqttMessage msg) {
+            MqttMessageType type = msg.fixedHeader().messageType();
+            if (type == MqttMessageType.CONNACK || type == MqttMessageType.PUBACK) {
+                CompletableFuture<MqttMessage> future = expected;
+                if (future != null) {
+                    future.complete(msg);
+                }
+            }
+        }
+
+    }
+
+}
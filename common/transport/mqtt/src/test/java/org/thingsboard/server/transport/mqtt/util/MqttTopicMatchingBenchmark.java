@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.mqtt.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares QoS resolution of an outgoing topic by iterating regex based subscriptions with the {@link MqttTopicTrie} lookup.
+ * <p>
+ * Run from the IDE or with the test classpath: {@code java -cp <test classpath> org.thingsboard.server.transport.mqtt.util.MqttTopicMatchingBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MqttTopicMatchingBenchmark {
+
+    @Param({"1000", "10000"})
+    private int filtersCount;
+
+    private final Map<Pattern, Integer> regexFilters = new LinkedHashMap<>();
+    private final MqttTopicTrie<Integer> trie = new MqttTopicTrie<>();
+    private String[] topics;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < filtersCount; i++) {
+            String filter;
+            switch (i % 4) {
+                case 0:
+                    filter = "devices/" + i + "/attributes";
+                    break;
+                case 1:
+                    filter = "devices/" + i + "/rpc/request/+";
+                    break;
+                case 2:
+                    filter = "devices/" + i + "/attributes/response/+";
+                    break;
+                default:
+                    filter = "devices/" + i + "/#";
+                    break;
+            }
+            // The same conversion that was used for the subscriptions before the trie
+            regexFilters.put(Pattern.compile(filter.replace("+", "[^/]+").replace("#", ".+") + "$"), i % 3);
+            trie.put(filter, i % 3);
+        }
+        topics = new String[]{
+                "devices/" + (filtersCount - 4) + "/attributes",
+                "devices/" + (filtersCount - 3) + "/rpc/request/42",
+                "devices/" + (filtersCount / 2 + 3) + "/telemetry/raw",
+                "devices/unknown/attributes"
+        };
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String topic : topics) {
+            int qos = -1;
+            for (Map.Entry<Pattern, Integer> entry : regexFilters.entrySet()) {
+                if (entry.getKey().matcher(topic).matches()) {
+                    qos = Math.max(qos, entry.getValue());
+                }
+            }
+            blackhole.consume(qos);
+        }
+    }
+
+    @Benchmark
+    public void trie(Blackhole blackhole) {
+        for (String topic : topics) {
+            int[] qos = {-1};
+            trie.match(topic, value -> qos[0] = Math.max(qos[0], value));
+            blackhole.consume(qos[0]);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MqttTopicMatchingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.mqtt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MqttTopicTrieTest {
+
+    @Test
+    public void givenFilters_whenMatch_thenReturnAllMatchingValues() {
+        MqttTopicTrie<Integer> trie = new MqttTopicTrie<>();
+        trie.put("v1/devices/me/attributes", 0);
+        trie.put("v1/devices/me/attributes/response/+", 1);
+        trie.put("v1/devices/me/rpc/request/+", 2);
+        trie.put("v1/devices/#", 3);
+
+        assertThat(match(trie, "v1/devices/me/attributes")).containsExactlyInAnyOrder(0, 3);
+        assertThat(match(trie, "v1/devices/me/attributes/response/42")).containsExactlyInAnyOrder(1, 3);
+        assertThat(match(trie, "v1/devices/me/rpc/request/1")).containsExactlyInAnyOrder(2, 3);
+        assertThat(match(trie, "v1/devices")).containsExactly(3);
+        assertThat(match(trie, "v1/gateway/rpc")).isEmpty();
+    }
+
+    @Test
+    public void givenSingleLevelWildcard_whenMatch_thenMatchOneNonEmptyLevel() {
+        MqttTopicTrie<Integer> trie = new MqttTopicTrie<>();
+        trie.put("Sensor/+/House/+", 1);
+
+        assertThat(trie.matches("Sensor/Temperature/House/48")).isTrue();
+        assertThat(trie.matches("Sensor/Temperature/House")).isFalse();
+        assertThat(trie.matches("Sensor/Temperature/House/48/1")).isFalse();
+        assertThat(trie.matches("Sensor//House/48")).isFalse();
+    }
+
+    @Test
+    public void givenInvalidWildcards_whenMatch_thenMatchLiterally() {
+        MqttTopicTrie<Integer> trie = new MqttTopicTrie<>();
+        trie.put("Sensor/Temperature#", 1);
+        trie.put("Sensor/a+b", 2);
+        trie.put("Sensor/#/House", 3);
+
+        assertThat(trie.matches("Sensor/Temperature")).isFalse();
+        assertThat(match(trie, "Sensor/Temperature#")).containsExactly(1);
+        assertThat(match(trie, "Sensor/a+b")).containsExactly(2);
+        assertThat(trie.matches("Sensor/axb")).isFalse();
+        assertThat(trie.matches("Sensor/x/House")).isFalse();
+    }
+
+    @Test
+    public void givenFilters_whenRemove_thenPruneAndStopMatching() {
+        MqttTopicTrie<Integer> trie = new MqttTopicTrie<>();
+        trie.put("a/+/c", 1);
+        trie.put("a/b", 2);
+
+        assertThat(trie.put("a/+/c", 4)).isEqualTo(1);
+        assertThat(trie.remove("a/+/c")).isEqualTo(4);
+        assertThat(trie.remove("a/+/c")).isNull();
+        assertThat(trie.matches("a/x/c")).isFalse();
+        assertThat(trie.get("a/b")).isEqualTo(2);
+
+        assertThat(trie.remove("a/b")).isEqualTo(2);
+        assertThat(trie.isEmpty()).isTrue();
+    }
+
+    private static List<Integer> match(MqttTopicTrie<Integer> trie, String topic) {
+        List<Integer> result = new ArrayList<>();
+        trie.match(topic, result::add);
+        return result;
+    }
+
+}
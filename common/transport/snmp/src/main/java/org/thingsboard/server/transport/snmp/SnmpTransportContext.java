@@ -161,6 +161,8 @@ public class SnmpTransportContext extends TransportContext {
                 sessionContext.setDeviceTransportConfiguration(newDeviceTransportConfiguration);
                 sessionContext.setDevice(device);
                 sessionContext.initializeTarget(newProfileTransportConfiguration, newDeviceTransportConfiguration);
+                snmpTransportService.cancelQueryingTasks(sessionContext);
+                snmpTransportService.createQueryingTasks(sessionContext);
                 transportService.lifecycleEvent(sessionContext.getTenantId(), sessionContext.getDeviceId(), ComponentLifecycleEvent.UPDATED, true, null);
             } else {
                 log.trace("Configuration of the device {} was not updated", device);
@@ -41,6 +41,7 @@ import org.thingsboard.server.queue.util.TbSnmpTransportComponent;
 import org.thingsboard.server.transport.snmp.session.DeviceSessionContext;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,6 +85,28 @@ public class PduService {
         return pdus;
     }
 
+    /**
+     * Packs the OIDs into GET requests. Every PDU is limited by the max number of OIDs and by the encoded size of its variable bindings.
+     */
+    public List<PDU> createGetPdus(DeviceSessionContext sessionContext, Collection<OID> oids, int maxRequestSize) {
+        List<PDU> pdus = new ArrayList<>();
+        PDU pdu = null;
+        int requestSize = 0;
+        for (OID oid : oids) {
+            VariableBinding variableBinding = new VariableBinding(oid);
+            int bindingSize = variableBinding.getBERLength();
+            if (pdu == null || pdu.size() >= maxRequestOids || requestSize + bindingSize > maxRequestSize) {
+                pdu = setUpPdu(sessionContext);
+                pdu.setType(SnmpMethod.GET.getCode());
+                pdus.add(pdu);
+                requestSize = 0;
+            }
+            pdu.add(variableBinding);
+            requestSize += bindingSize;
+        }
+        return pdus;
+    }
+
     public PDU createSingleVariablePdu(DeviceSessionContext sessionContext, SnmpMethod snmpMethod, String oid, String value, DataType dataType) {
         PDU pdu = setUpPdu(sessionContext);
         pdu.setType(snmpMethod.getCode());
@@ -0,0 +1,335 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.snmp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.snmp4j.PDU;
+import org.snmp4j.Snmp;
+import org.snmp4j.Target;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OID;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.device.data.SnmpDeviceTransportConfiguration;
+import org.thingsboard.server.common.data.transport.snmp.SnmpMapping;
+import org.thingsboard.server.common.data.transport.snmp.config.RepeatingQueryingSnmpCommunicationConfig;
+import org.thingsboard.server.common.data.transport.snmp.config.SnmpCommunicationConfig;
+import org.thingsboard.server.transport.snmp.session.DeviceSessionContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Polls the devices with repeating querying configs in time slots.
+ * <p>
+ * Configs that are queried with the same frequency from the same SNMP agent (address, protocol version and security parameters)
+ * share a slot. When the slot is due, the OIDs of all its configs are deduplicated and packed into as few GET requests as
+ * the max number of OIDs and the max request size allow. The requests are sent back to back without waiting for the responses,
+ * and the merged response is dispatched to every config of the slot.
+ * <p>
+ * All slots are driven by a single timer thread. The lag of a slot is the delay between its due time and the time its requests are sent.
+ * A slot that lags behind by more than its querying frequency skips the missed polls.
+ */
+@Slf4j
+public class SnmpPollingEngine {
+
+    private final Snmp snmp;
+    private final PduService pduService;
+    private final PollingHandler handler;
+    private final long tickIntervalMs;
+    private final int maxRequestSize;
+    private final long statsPrintIntervalMs;
+
+    private final Object lock = new Object();
+    private final Map<SlotKey, PollingSlot> slots = new HashMap<>();
+    private final Map<DeviceSessionContext, List<PollingSlot>> sessionSlots = new IdentityHashMap<>();
+    private final PriorityQueue<PollingSlot> schedule = new PriorityQueue<>((a, b) -> Long.compare(a.nextPollTime, b.nextPollTime));
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder skippedPolls = new LongAdder();
+    private final LongAdder totalLagMs = new LongAdder();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private volatile PollingSlot maxLagSlot;
+
+    private ScheduledExecutorService timer;
+
+    public SnmpPollingEngine(Snmp snmp, PduService pduService, PollingHandler handler, long tickIntervalMs, int maxRequestSize, long statsPrintIntervalMs) {
+        this.snmp = snmp;
+        this.pduService = pduService;
+        this.handler = handler;
+        this.tickIntervalMs = tickIntervalMs;
+        this.maxRequestSize = maxRequestSize;
+        this.statsPrintIntervalMs = statsPrintIntervalMs;
+    }
+
+    public void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("snmp-polling"));
+        timer.scheduleWithFixedDelay(this::pollDueSlots, tickIntervalMs, tickIntervalMs, TimeUnit.MILLISECONDS);
+        if (statsPrintIntervalMs > 0) {
+            timer.scheduleAtFixedRate(this::printStats, statsPrintIntervalMs, statsPrintIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    public void register(DeviceSessionContext sessionContext, RepeatingQueryingSnmpCommunicationConfig config) {
+        SlotKey key = new SlotKey(getTargetKey(sessionContext), config.getQueryingFrequencyMs());
+        synchronized (lock) {
+            PollingSlot slot = slots.computeIfAbsent(key, k -> {
+                PollingSlot newSlot = new PollingSlot(k, System.currentTimeMillis() + k.queryingFrequencyMs());
+                schedule.add(newSlot);
+                return newSlot;
+            });
+            slot.pollers.add(new Poller(sessionContext, config));
+            sessionSlots.computeIfAbsent(sessionContext, s -> new ArrayList<>()).add(slot);
+        }
+        log.debug("[{}] Registered {} polling in slot {}", sessionContext.getDeviceId(), config.getSpec(), key);
+    }
+
+    public void unregister(DeviceSessionContext sessionContext) {
+        synchronized (lock) {
+            List<PollingSlot> removed = sessionSlots.remove(sessionContext);
+            if (removed == null) {
+                return;
+            }
+            for (PollingSlot slot : removed) {
+                slot.pollers.removeIf(poller -> poller.sessionContext() == sessionContext);
+                if (slot.pollers.isEmpty()) {
+                    slots.remove(slot.key);
+                    schedule.remove(slot);
+                }
+            }
+        }
+    }
+
+    public int getSlotsCount() {
+        synchronized (lock) {
+            return slots.size();
+        }
+    }
+
+    public long getRequestsCount() {
+        return requests.sum();
+    }
+
+    private void pollDueSlots() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            PollingSlot slot;
+            synchronized (lock) {
+                slot = schedule.peek();
+                if (slot == null || slot.nextPollTime > now) {
+                    return;
+                }
+                schedule.poll();
+                long lagMs = now - slot.nextPollTime;
+                slot.lastLagMs = lagMs;
+                slot.nextPollTime += slot.key.queryingFrequencyMs();
+                if (slot.nextPollTime <= now) {
+                    long skipped = (now - slot.nextPollTime) / slot.key.queryingFrequencyMs() + 1;
+                    skippedPolls.add(skipped);
+                    slot.nextPollTime += skipped * slot.key.queryingFrequencyMs();
+                    log.warn("[{}] Polling slot lags behind by {} ms, skipping {} polls", slot.key, lagMs, skipped);
+                }
+                schedule.add(slot);
+            }
+            try {
+                poll(slot);
+            } catch (Exception e) {
+                log.error("[{}] Failed to poll slot", slot.key, e);
+            }
+        }
+    }
+
+    private void poll(PollingSlot slot) {
+        List<Poller> pollers = new ArrayList<>();
+        Set<OID> oids = new LinkedHashSet<>();
+        for (Poller poller : slot.pollers) {
+            if (poller.sessionContext().isActive()) {
+                pollers.add(poller);
+                for (SnmpMapping mapping : poller.config().getAllMappings()) {
+                    oids.add(new OID(mapping.getOid()));
+                }
+            }
+        }
+        if (pollers.isEmpty() || oids.isEmpty()) {
+            return;
+        }
+        recordLag(slot);
+
+        // all the pollers of the slot share the agent, so any of the sessions can provide the target and the PDU parameters
+        DeviceSessionContext sessionContext = pollers.get(0).sessionContext();
+        Target<?> target = sessionContext.getTarget();
+        List<PDU> request = pduService.createGetPdus(sessionContext, oids, maxRequestSize);
+        PollRequest pollRequest = new PollRequest(slot, pollers, request.size());
+        log.trace("[{}] Polling {} OIDs for {} configs with {} requests", slot.key, oids.size(), pollers.size(), request.size());
+        for (int i = 0; i < request.size(); i++) {
+            try {
+                snmp.send(request.get(i), target, i, pollRequest);
+                requests.increment();
+            } catch (Exception e) {
+                log.debug("[{}] Failed to send SNMP request", slot.key, e);
+                pollRequest.onPartCompleted(i, null, e);
+            }
+        }
+    }
+
+    private void recordLag(PollingSlot slot) {
+        long lagMs = slot.lastLagMs;
+        polls.increment();
+        totalLagMs.add(lagMs);
+        if (lagMs > maxLagMs.get()) {
+            maxLagMs.set(lagMs);
+            maxLagSlot = slot;
+        }
+    }
+
+    private void printStats() {
+        long pollsCount = polls.sumThenReset();
+        long lagMs = totalLagMs.sumThenReset();
+        long maxLag = maxLagMs.getAndSet(0);
+        PollingSlot slowestSlot = maxLagSlot;
+        maxLagSlot = null;
+        if (pollsCount == 0) {
+            return;
+        }
+        log.info("SNMP polling stats: slots [{}], polls [{}], requests [{}], timeouts [{}], skipped polls [{}], lag ms: avg [{}], max [{}] in slot {}",
+                getSlotsCount(), pollsCount, requests.sumThenReset(), timeouts.sumThenReset(), skippedPolls.sumThenReset(),
+                lagMs / pollsCount, maxLag, slowestSlot != null ? slowestSlot.key : null);
+    }
+
+    private static String getTargetKey(DeviceSessionContext sessionContext) {
+        Target<?> target = sessionContext.getTarget();
+        SnmpDeviceTransportConfiguration deviceTransportConfiguration = sessionContext.getDeviceTransportConfiguration();
+        return target.getAddress() + "|" + target.getVersion() + "|" + target.getSecurityModel() + "|" + target.getSecurityLevel() + "|" +
+                target.getSecurityName() + "|" + deviceTransportConfiguration.getContextName() + "|" + deviceTransportConfiguration.getEngineId();
+    }
+
+    public interface PollingHandler {
+
+        void onResponse(DeviceSessionContext sessionContext, SnmpCommunicationConfig config, List<PDU> response);
+
+        void onError(DeviceSessionContext sessionContext, SnmpCommunicationConfig config, Throwable error);
+
+    }
+
+    private record SlotKey(String target, long queryingFrequencyMs) {
+
+        @Override
+        public String toString() {
+            // the security parameters are not logged
+            return target.substring(0, target.indexOf('|')) + "/" + queryingFrequencyMs + "ms";
+        }
+
+    }
+
+    private record Poller(DeviceSessionContext sessionContext, SnmpCommunicationConfig config) {}
+
+    private static class PollingSlot {
+
+        private final SlotKey key;
+        private final List<Poller> pollers = new CopyOnWriteArrayList<>();
+        private long nextPollTime;
+        private volatile long lastLagMs;
+
+        private PollingSlot(SlotKey key, long nextPollTime) {
+            this.key = key;
+            this.nextPollTime = nextPollTime;
+        }
+
+    }
+
+    private class PollRequest implements ResponseListener {
+
+        private final PollingSlot slot;
+        private final List<Poller> pollers;
+        private final AtomicReferenceArray<PDU> responseParts;
+        private final AtomicInteger remaining;
+        private volatile Throwable error;
+
+        private PollRequest(PollingSlot slot, List<Poller> pollers, int requestSize) {
+            this.slot = slot;
+            this.pollers = pollers;
+            this.responseParts = new AtomicReferenceArray<>(requestSize);
+            this.remaining = new AtomicInteger(requestSize);
+        }
+
+        @Override
+        public <A extends Address> void onResponse(ResponseEvent<A> event) {
+            ((Snmp) event.getSource()).cancel(event.getRequest(), this);
+            onPartCompleted((Integer) event.getUserObject(), event.getResponse(), event.getError());
+        }
+
+        private void onPartCompleted(int index, PDU response, Throwable error) {
+            if (error != null) {
+                this.error = error;
+            } else if (response == null) {
+                timeouts.increment();
+            }
+            responseParts.set(index, response);
+            if (remaining.decrementAndGet() == 0) {
+                dispatch();
+            }
+        }
+
+        private void dispatch() {
+            List<PDU> response = new ArrayList<>(responseParts.length());
+            for (int i = 0; i < responseParts.length(); i++) {
+                PDU part = responseParts.get(i);
+                if (part != null) {
+                    response.add(part);
+                }
+            }
+            log.trace("[{}] Collected {} of {} response parts", slot.key, response.size(), responseParts.length());
+            for (Poller poller : pollers) {
+                if (!poller.sessionContext().isActive()) {
+                    continue;
+                }
+                if (error != null) {
+                    handler.onError(poller.sessionContext(), poller.config(), error);
+                } else if (response.isEmpty()) {
+                    handler.onError(poller.sessionContext(), poller.config(), new RuntimeException("No response from device"));
+                }
+                if (!response.isEmpty()) {
+                    handler.onResponse(poller.sessionContext(), poller.config(), response);
+                }
+            }
+        }
+
+    }
+
+}
@@ -95,6 +95,7 @@ public class SnmpTransportService implements TbTransportService, CommandResponde
     private Snmp snmp;
     private ListeningScheduledExecutorService scheduler;
     private ExecutorService executor;
+    private SnmpPollingEngine pollingEngine;
 
     private final Map<SnmpCommunicationSpec, ResponseDataMapper> responseDataMappers = new EnumMap<>(SnmpCommunicationSpec.class);
     private final Map<SnmpCommunicationSpec, ResponseProcessor> responseProcessors = new EnumMap<>(SnmpCommunicationSpec.class);
@@ -109,6 +110,14 @@ public class SnmpTransportService implements TbTransportService, CommandResponde
     private String snmpUnderlyingProtocol;
     @Value("${transport.snmp.request_chunk_delay_ms:100}")
     private int requestChunkDelayMs;
+    @Value("${transport.snmp.polling.bulk_enabled:false}")
+    private boolean bulkPollingEnabled;
+    @Value("${transport.snmp.polling.tick_interval_ms:50}")
+    private long pollingTickIntervalMs;
+    @Value("${transport.snmp.polling.max_request_size:1200}")
+    private int pollingMaxRequestSize;
+    @Value("${transport.snmp.polling.stats_print_interval_ms:60000}")
+    private long pollingStatsPrintIntervalMs;
 
     @PostConstruct
     private void init() throws IOException {
@@ -118,12 +127,18 @@ public class SnmpTransportService implements TbTransportService, CommandResponde
         initializeSnmp();
         configureResponseDataMappers();
         configureResponseProcessors();
+        if (bulkPollingEnabled) {
+            initializePollingEngine();
+        }
 
         log.info("SNMP transport service initialized");
     }
 
     @PreDestroy
     public void stop() {
+        if (pollingEngine != null) {
+            pollingEngine.stop();
+        }
         if (scheduler != null) {
             scheduler.shutdownNow();
         }
@@ -152,7 +167,41 @@ public class SnmpTransportService implements TbTransportService, CommandResponde
         SecurityModels.getInstance().addSecurityModel(usm);
     }
 
+    private void initializePollingEngine() {
+        pollingEngine = new SnmpPollingEngine(snmp, pduService, new SnmpPollingEngine.PollingHandler() {
+            @Override
+            public void onResponse(DeviceSessionContext sessionContext, SnmpCommunicationConfig config, List<PDU> response) {
+                RequestContext requestContext = RequestContext.builder()
+                        .communicationSpec(config.getSpec())
+                        .method(config.getMethod())
+                        .responseMappings(config.getAllMappings())
+                        .requestSize(response.size())
+                        .build();
+                executor.execute(() -> {
+                    try {
+                        processResponse(sessionContext, response, requestContext);
+                    } catch (Exception e) {
+                        transportService.errorEvent(sessionContext.getTenantId(), sessionContext.getDeviceId(), config.getSpec().getLabel(), e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(DeviceSessionContext sessionContext, SnmpCommunicationConfig config, Throwable error) {
+                log.debug("[{}] SNMP polling error: {}", sessionContext.getDeviceId(), error.toString());
+                transportService.errorEvent(sessionContext.getTenantId(), sessionContext.getDeviceId(), config.getSpec().getLabel(), new RuntimeException(error));
+            }
+        }, pollingTickIntervalMs, pollingMaxRequestSize, pollingStatsPrintIntervalMs);
+        pollingEngine.start();
+    }
+
     public void createQueryingTasks(DeviceSessionContext sessionContext) {
+        if (pollingEngine != null) {
+            sessionContext.getProfileTransportConfiguration().getCommunicationConfigs().stream()
+                    .filter(communicationConfig -> communicationConfig instanceof RepeatingQueryingSnmpCommunicationConfig)
+                    .forEach(config -> pollingEngine.register(sessionContext, (RepeatingQueryingSnmpCommunicationConfig) config));
+            return;
+        }
         sessionContext.getProfileTransportConfiguration().getCommunicationConfigs().stream()
                 .filter(communicationConfig -> communicationConfig instanceof RepeatingQueryingSnmpCommunicationConfig)
                 .forEach(config -> {
@@ -176,6 +225,9 @@ public class SnmpTransportService implements TbTransportService, CommandResponde
     }
 
     public void cancelQueryingTasks(DeviceSessionContext sessionContext) {
+        if (pollingEngine != null) {
+            pollingEngine.unregister(sessionContext);
+        }
         sessionContext.getQueryingTasks().forEach(ScheduledTask::cancel);
         sessionContext.getQueryingTasks().clear();
     }
@@ -464,6 +516,9 @@ public class SnmpTransportService implements TbTransportService, CommandResponde
     @PreDestroy
     public void shutdown() {
         log.info("Stopping SNMP transport!");
+        if (pollingEngine != null) {
+            pollingEngine.stop();
+        }
         if (scheduler != null) {
             scheduler.shutdownNow();
         }
@@ -56,13 +56,15 @@ import java.util.stream.Collectors;
 @SuppressWarnings("deprecation")
 public class SnmpDeviceSimulatorV2 extends BaseAgent {
 
+    private static final String TMP_DIR = System.getProperty("java.io.tmpdir");
+
     private final Target target;
     private final Address address;
     private final Map<String, String> mappings;
     private Snmp snmp;
 
     public SnmpDeviceSimulatorV2(int port, String password, Map<String, String> mappings) throws IOException {
-        super(new File("conf.agent"), new File("bootCounter.agent"), new CommandProcessor(new OctetString("12312")));
+        super(new File(TMP_DIR, "conf.agent"), new File(TMP_DIR, "bootCounter.agent"), new CommandProcessor(new OctetString("12312")));
         CommunityTarget target = new CommunityTarget();
         target.setCommunity(new OctetString(password));
         this.address = GenericAddress.parse("udp:0.0.0.0/" + port);
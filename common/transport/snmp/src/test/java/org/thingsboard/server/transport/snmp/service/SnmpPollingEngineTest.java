@@ -0,0 +1,197 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.snmp.service;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.snmp4j.PDU;
+import org.snmp4j.Snmp;
+import org.snmp4j.smi.OID;
+import org.snmp4j.transport.DefaultUdpTransportMapping;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.device.data.SnmpDeviceTransportConfiguration;
+import org.thingsboard.server.common.data.device.profile.SnmpDeviceProfileTransportConfiguration;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.transport.snmp.SnmpMapping;
+import org.thingsboard.server.common.data.transport.snmp.config.RepeatingQueryingSnmpCommunicationConfig;
+import org.thingsboard.server.common.data.transport.snmp.config.SnmpCommunicationConfig;
+import org.thingsboard.server.common.data.transport.snmp.config.impl.TelemetryQueryingSnmpCommunicationConfig;
+import org.thingsboard.server.transport.snmp.SnmpDeviceSimulatorV2;
+import org.thingsboard.server.transport.snmp.SnmpTransportContext;
+import org.thingsboard.server.transport.snmp.session.DeviceSessionContext;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SnmpPollingEngineTest {
+
+    private static final String OID_1 = "1.3.6.1.2.1.1.1.52";
+    private static final String OID_2 = "1.3.6.1.2.1.2.1.52";
+    private static final String OID_3 = "1.3.6.1.2.1.3.1.52";
+
+    private SnmpDeviceSimulatorV2 agent;
+    private int agentPort;
+    private Snmp snmp;
+    private PduService pduService;
+    private SnmpTransportContext transportContext;
+    private SnmpPollingEngine pollingEngine;
+
+    private final Map<DeviceSessionContext, JsonObject> responses = new ConcurrentHashMap<>();
+    private final Map<DeviceSessionContext, Throwable> errors = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            agentPort = socket.getLocalPort();
+        }
+        agent = new SnmpDeviceSimulatorV2(agentPort, "public", Map.of(OID_1, "value_1", OID_2, "value_2", OID_3, "value_3"));
+        agent.start();
+
+        snmp = new Snmp(new DefaultUdpTransportMapping());
+        snmp.listen();
+
+        pduService = new PduService();
+        ReflectionTestUtils.setField(pduService, "maxRequestOids", 2);
+
+        SnmpAuthService authService = new SnmpAuthService(null);
+        ReflectionTestUtils.setField(authService, "snmpUnderlyingProtocol", "udp");
+        transportContext = mock(SnmpTransportContext.class);
+        when(transportContext.getSnmpAuthService()).thenReturn(authService);
+
+        pollingEngine = new SnmpPollingEngine(snmp, pduService, new SnmpPollingEngine.PollingHandler() {
+            @Override
+            public void onResponse(DeviceSessionContext sessionContext, SnmpCommunicationConfig config, List<PDU> response) {
+                responses.put(sessionContext, pduService.processPdus(response, config.getAllMappings()));
+            }
+
+            @Override
+            public void onError(DeviceSessionContext sessionContext, SnmpCommunicationConfig config, Throwable error) {
+                errors.put(sessionContext, error);
+            }
+        }, 10, 1200, 0);
+        pollingEngine.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        pollingEngine.stop();
+        snmp.close();
+        agent.stop();
+    }
+
+    @Test
+    public void givenDevicesOfSameAgent_whenPolling_thenShareSlotAndDispatchOwnValues() throws Exception {
+        RepeatingQueryingSnmpCommunicationConfig configA = telemetryConfig(100, OID_1, OID_2);
+        RepeatingQueryingSnmpCommunicationConfig configB = telemetryConfig(100, OID_2, OID_3);
+        RepeatingQueryingSnmpCommunicationConfig configC = telemetryConfig(100, OID_1);
+        DeviceSessionContext deviceA = createSession(agentPort, configA);
+        DeviceSessionContext deviceB = createSession(agentPort, configB);
+        DeviceSessionContext deviceC = createSession(agentPort, configC);
+
+        pollingEngine.register(deviceA, configA);
+        pollingEngine.register(deviceB, configB);
+        pollingEngine.register(deviceC, configC);
+        assertThat(pollingEngine.getSlotsCount()).isEqualTo(1);
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> responses.size() == 3);
+        assertThat(errors).isEmpty();
+        assertThat(responses.get(deviceA).keySet()).containsExactlyInAnyOrder("key_" + OID_1, "key_" + OID_2);
+        assertThat(responses.get(deviceB).keySet()).containsExactlyInAnyOrder("key_" + OID_2, "key_" + OID_3);
+        assertThat(responses.get(deviceC).get("key_" + OID_1).getAsString()).isEqualTo("value_1");
+
+        pollingEngine.unregister(deviceA);
+        pollingEngine.unregister(deviceB);
+        assertThat(pollingEngine.getSlotsCount()).isEqualTo(1);
+        pollingEngine.unregister(deviceC);
+        assertThat(pollingEngine.getSlotsCount()).isZero();
+    }
+
+    @Test
+    public void givenDifferentFrequencyOrAgent_whenRegister_thenUseSeparateSlots() throws Exception {
+        RepeatingQueryingSnmpCommunicationConfig fastConfig = telemetryConfig(100, OID_1);
+        RepeatingQueryingSnmpCommunicationConfig slowConfig = telemetryConfig(200, OID_1);
+        DeviceSessionContext fastDevice = createSession(agentPort, fastConfig);
+        DeviceSessionContext slowDevice = createSession(agentPort, slowConfig);
+        DeviceSessionContext otherAgentDevice = createSession(agentPort + 1, fastConfig);
+
+        pollingEngine.register(fastDevice, fastConfig);
+        pollingEngine.register(slowDevice, slowConfig);
+        pollingEngine.register(otherAgentDevice, fastConfig);
+
+        assertThat(pollingEngine.getSlotsCount()).isEqualTo(3);
+        await().atMost(10, TimeUnit.SECONDS).until(() -> responses.containsKey(fastDevice) && responses.containsKey(slowDevice));
+    }
+
+    @Test
+    public void givenManyOids_whenCreateGetPdus_thenLimitOidsAndSize() throws Exception {
+        DeviceSessionContext sessionContext = createSession(agentPort, telemetryConfig(100, OID_1));
+        List<OID> oids = List.of(new OID(OID_1), new OID(OID_2), new OID(OID_3));
+
+        List<PDU> pdus = pduService.createGetPdus(sessionContext, oids, 1200);
+        assertThat(pdus).extracting(PDU::size).containsExactly(2, 1);
+        assertThat(pdus).allMatch(pdu -> pdu.getType() == PDU.GET);
+
+        pdus = pduService.createGetPdus(sessionContext, oids, 10);
+        assertThat(pdus).extracting(PDU::size).containsExactly(1, 1, 1);
+    }
+
+    private DeviceSessionContext createSession(int port, RepeatingQueryingSnmpCommunicationConfig config) throws Exception {
+        SnmpDeviceProfileTransportConfiguration profileTransportConfiguration = new SnmpDeviceProfileTransportConfiguration();
+        profileTransportConfiguration.setTimeoutMs(500);
+        profileTransportConfiguration.setRetries(0);
+        profileTransportConfiguration.setCommunicationConfigs(List.of(config));
+
+        SnmpDeviceTransportConfiguration deviceTransportConfiguration = new SnmpDeviceTransportConfiguration();
+        deviceTransportConfiguration.setHost("127.0.0.1");
+        deviceTransportConfiguration.setPort(port);
+
+        return DeviceSessionContext.builder()
+                .tenantId(TenantId.fromUUID(UUID.randomUUID()))
+                .device(new Device(new DeviceId(UUID.randomUUID())))
+                .deviceProfile(new DeviceProfile())
+                .token(UUID.randomUUID().toString())
+                .profileTransportConfiguration(profileTransportConfiguration)
+                .deviceTransportConfiguration(deviceTransportConfiguration)
+                .snmpTransportContext(transportContext)
+                .build();
+    }
+
+    private static RepeatingQueryingSnmpCommunicationConfig telemetryConfig(long queryingFrequencyMs, String... oids) {
+        TelemetryQueryingSnmpCommunicationConfig config = new TelemetryQueryingSnmpCommunicationConfig();
+        config.setQueryingFrequencyMs(queryingFrequencyMs);
+        config.setMappings(Arrays.stream(oids)
+                .map(oid -> new SnmpMapping(oid, "key_" + oid, DataType.STRING))
+                .toList());
+        return config;
+    }
+
+}
@@ -0,0 +1,27 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport;
+
+/**
+ * Callback of the messages of multiple gateway devices that are processed together. It is notified once for the whole batch:
+ * with {@link #onDeviceError} when the message of a single device failed the batch, for example because of its rate limits,
+ * or with {@link #onError} when the failure is not bound to a single device.
+ */
+public interface GatewayBatchCallback extends TransportServiceCallback<Void> {
+
+    void onDeviceError(String deviceName, Throwable e);
+
+}
@@ -55,6 +55,10 @@ public abstract class TransportContext {
     @Autowired
     private OtaPackageDataCache otaPackageDataCache;
 
+    @Getter
+    @Autowired
+    private TransportOtaPackageStore otaPackageStore;
+
     @Autowired
     private TransportResourceCache transportResourceCache;
 
@@ -0,0 +1,35 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceCredentialsResponseMsg;
+
+import java.util.function.Supplier;
+
+public interface TransportDeviceCredentialsCache {
+
+    /**
+     * Returns the cached validation result for the request, joins the identical request that is already in flight
+     * or sends a new one using the loader.
+     */
+    ListenableFuture<ValidateDeviceCredentialsResponseMsg> get(TransportApiRequestMsg request, Supplier<ListenableFuture<ValidateDeviceCredentialsResponseMsg>> loader);
+
+    void evict(DeviceId deviceId);
+
+}
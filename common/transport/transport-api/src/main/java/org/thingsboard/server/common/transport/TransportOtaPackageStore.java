@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.thingsboard.server.gen.transport.TransportProtos.GetOtaPackageResponseMsg;
+
+import java.nio.ByteBuffer;
+
+public interface TransportOtaPackageStore {
+
+    /**
+     * Returns the requested chunk of the OTA package as a read-only buffer. The buffer may be backed by a memory-mapped
+     * local copy of the package, so callers should hand it to the network layer as is instead of copying it.
+     * A chunk size less than 1 returns the whole package, a chunk beyond the end of the package returns an empty buffer.
+     * The future may complete on the thread loading the package, so callers should not do any blocking work in its callbacks.
+     */
+    ListenableFuture<ByteBuffer> getChunk(GetOtaPackageResponseMsg otaPackage, int chunkSize, int chunk);
+
+}
@@ -119,6 +119,18 @@ public interface TransportService {
 
     void process(SessionInfoProto sessionInfo, PostAttributeMsg msg, TbMsgMetaData md, TransportServiceCallback<Void> callback);
 
+    /**
+     * Processes the telemetry of multiple gateway devices that came in a single publish.
+     * Messages are produced to the rule engine queue together and the callback is notified once for the whole batch.
+     */
+    void processGatewayTelemetry(List<GatewayDeviceMsg<PostTelemetryMsg>> msgs, GatewayBatchCallback callback);
+
+    /**
+     * Processes the attributes of multiple gateway devices that came in a single publish.
+     * Messages are produced to the rule engine queue together and the callback is notified once for the whole batch.
+     */
+    void processGatewayAttributes(List<GatewayDeviceMsg<PostAttributeMsg>> msgs, GatewayBatchCallback callback);
+
     void process(SessionInfoProto sessionInfo, GetAttributeRequestMsg msg, TransportServiceCallback<Void> callback);
 
     void process(SessionInfoProto sessionInfo, SubscribeToAttributeUpdatesMsg msg, TransportServiceCallback<Void> callback);
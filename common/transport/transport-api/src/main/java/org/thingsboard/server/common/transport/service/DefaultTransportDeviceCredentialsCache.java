@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.transport.TransportDeviceCredentialsCache;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceCredentialsResponseMsg;
+import org.thingsboard.server.queue.util.TbTransportComponent;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps successful device credentials validation results on the transport node, so the devices that reconnect
+ * (e.g. after a load balancer failover) are authenticated without a round trip to the core.
+ * <p>
+ * Entries are evicted when the device is updated, deleted or its credentials are changed.
+ * Identical validation requests that are in flight at the same time are sent to the core only once, regardless of whether the cache is enabled.
+ */
+@Slf4j
+@Component
+@TbTransportComponent
+public class DefaultTransportDeviceCredentialsCache implements TransportDeviceCredentialsCache {
+
+    private final Cache<TransportApiRequestMsg, ValidateDeviceCredentialsResponseMsg> cache;
+    private final ConcurrentMap<DeviceId, Set<TransportApiRequestMsg>> deviceRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TransportApiRequestMsg, ListenableFuture<ValidateDeviceCredentialsResponseMsg>> inFlightRequests = new ConcurrentHashMap<>();
+    // Incremented on each eviction to avoid caching the responses that were requested before the eviction
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DefaultTransportDeviceCredentialsCache(@Value("${cache.transportDeviceCredentials.timeToLiveInMinutes:5}") int ttl,
+                                                  @Value("${cache.transportDeviceCredentials.maxSize:0}") int maxSize) {
+        if (ttl > 0 && maxSize > 0) {
+            cache = Caffeine.newBuilder()
+                    .expireAfterWrite(ttl, TimeUnit.MINUTES)
+                    .maximumSize(maxSize)
+                    .executor(MoreExecutors.directExecutor())
+                    .<TransportApiRequestMsg, ValidateDeviceCredentialsResponseMsg>removalListener((request, response, cause) -> {
+                        if (request != null && response != null && cause != RemovalCause.REPLACED) {
+                            removeDeviceRequest(toDeviceId(response), request);
+                        }
+                    })
+                    .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    @Override
+    public ListenableFuture<ValidateDeviceCredentialsResponseMsg> get(TransportApiRequestMsg request, Supplier<ListenableFuture<ValidateDeviceCredentialsResponseMsg>> loader) {
+        if (cache != null) {
+            ValidateDeviceCredentialsResponseMsg cached = cache.getIfPresent(request);
+            if (cached != null) {
+                return Futures.immediateFuture(cached);
+            }
+        }
+        SettableFuture<ValidateDeviceCredentialsResponseMsg> future = SettableFuture.create();
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> inFlight = inFlightRequests.putIfAbsent(request, future);
+        if (inFlight != null) {
+            log.trace("Joining in-flight request: {}", request);
+            return inFlight;
+        }
+        long evictionsBefore = evictions.get();
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> response;
+        try {
+            response = loader.get();
+        } catch (Throwable e) {
+            inFlightRequests.remove(request, future);
+            future.setException(e);
+            return future;
+        }
+        Futures.addCallback(response, new FutureCallback<>() {
+            @Override
+            public void onSuccess(ValidateDeviceCredentialsResponseMsg msg) {
+                if (cache != null && msg.hasDeviceInfo()) {
+                    put(request, msg, evictionsBefore);
+                }
+                inFlightRequests.remove(request, future);
+                future.set(msg);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                inFlightRequests.remove(request, future);
+                future.setException(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    @Override
+    public void evict(DeviceId deviceId) {
+        if (cache == null) {
+            return;
+        }
+        evictions.incrementAndGet();
+        Set<TransportApiRequestMsg> requests = deviceRequests.remove(deviceId);
+        if (requests != null) {
+            log.trace("[{}] Evicting {} cached credentials validation result(s)", deviceId, requests.size());
+            cache.invalidateAll(requests);
+        }
+    }
+
+    private void put(TransportApiRequestMsg request, ValidateDeviceCredentialsResponseMsg msg, long evictionsBefore) {
+        DeviceId deviceId = toDeviceId(msg);
+        // The request is indexed before it is cached, so the concurrent eviction either removes it or is detected below
+        deviceRequests.computeIfAbsent(deviceId, id -> ConcurrentHashMap.newKeySet()).add(request);
+        cache.put(request, msg);
+        if (evictions.get() != evictionsBefore) {
+            cache.invalidate(request);
+        }
+    }
+
+    private void removeDeviceRequest(DeviceId deviceId, TransportApiRequestMsg request) {
+        deviceRequests.computeIfPresent(deviceId, (id, requests) -> {
+            requests.remove(request);
+            return requests.isEmpty() ? null : requests;
+        });
+    }
+
+    private static DeviceId toDeviceId(ValidateDeviceCredentialsResponseMsg msg) {
+        return new DeviceId(new UUID(msg.getDeviceInfo().getDeviceIdMSB(), msg.getDeviceInfo().getDeviceIdLSB()));
+    }
+
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.ota.ChecksumAlgorithm;
+import org.thingsboard.server.common.data.ota.OtaPackageUtil;
+import org.thingsboard.server.common.transport.TransportOtaPackageStore;
+import org.thingsboard.server.gen.transport.TransportProtos.GetOtaPackageResponseMsg;
+import org.thingsboard.server.queue.util.TbTransportComponent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a local file copy of every OTA package requested from this transport and serves the chunks as slices
+ * of the memory-mapped file, so the package is pulled from the cache once and the chunks are never copied on heap.
+ * The files are evicted in the least recently used order when the total size exceeds the configured quota.
+ * Verified packages that don't fit into the store are kept on heap, bounded by a separate quota.
+ * Packages are loaded on a dedicated thread, so the transport threads requesting the chunks are never blocked.
+ */
+@Slf4j
+@Component
+@TbTransportComponent
+@RequiredArgsConstructor
+public class DefaultTransportOtaPackageStore implements TransportOtaPackageStore {
+
+    static final String FILE_SUFFIX = ".bin";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final OtaPackageDataCache otaPackageDataCache;
+
+    @Value("${transport.ota.local_store.enabled:false}")
+    private boolean enabled;
+    @Value("${transport.ota.local_store.dir:}")
+    private String dir;
+    @Value("${transport.ota.local_store.max_size:1073741824}")
+    private long maxSize;
+    @Value("${transport.ota.local_store.verify_checksum:true}")
+    private boolean verifyChecksum;
+    @Value("${transport.ota.local_store.max_heap_size:268435456}")
+    private long maxHeapSize;
+
+    private final ConcurrentMap<String, LocalOtaPackage> storedPackages = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SettableFuture<LocalOtaPackage>> loadingPackages = new ConcurrentHashMap<>();
+    private Cache<String, LocalOtaPackage> heapPackages;
+    private ExecutorService loadExecutor;
+    private final Lock evictionLock = new ReentrantLock();
+    private long storedSize;
+    private Path storeDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        storeDir = StringUtils.isBlank(dir) ? Path.of(System.getProperty("java.io.tmpdir"), "tb-ota-packages") : Path.of(dir);
+        Files.createDirectories(storeDir);
+        heapPackages = Caffeine.newBuilder()
+                .maximumWeight(maxHeapSize)
+                .weigher((String id, LocalOtaPackage localPackage) -> localPackage.data.capacity())
+                .build();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storeDir, "*{" + FILE_SUFFIX + "," + TMP_FILE_SUFFIX + "}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        loadExecutor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("transport-ota-package-store"));
+        log.info("Using local OTA package store [{}] with max size {} bytes", storeDir, maxSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (loadExecutor != null) {
+            loadExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public ListenableFuture<ByteBuffer> getChunk(GetOtaPackageResponseMsg otaPackage, int chunkSize, int chunk) {
+        String otaPackageId = new UUID(otaPackage.getOtaPackageIdMSB(), otaPackage.getOtaPackageIdLSB()).toString();
+        if (!enabled) {
+            byte[] data = otaPackageDataCache.get(otaPackageId, chunkSize, chunk);
+            return Futures.immediateFuture(data != null ? ByteBuffer.wrap(data) : EMPTY_BUFFER);
+        }
+        ListenableFuture<ByteBuffer> future = Futures.transform(getLocalPackage(otaPackageId, otaPackage), localPackage -> {
+            localPackage.lastAccessTime = System.currentTimeMillis();
+            return localPackage.slice(chunkSize, chunk);
+        }, MoreExecutors.directExecutor());
+        return Futures.catching(future, Exception.class, e -> {
+            log.warn("[{}] Failed to load OTA package to the local store: {}", otaPackageId, e.getMessage());
+            return EMPTY_BUFFER;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<LocalOtaPackage> getLocalPackage(String otaPackageId, GetOtaPackageResponseMsg otaPackage) {
+        LocalOtaPackage localPackage = getLoadedPackage(otaPackageId);
+        if (localPackage != null) {
+            return Futures.immediateFuture(localPackage);
+        }
+        SettableFuture<LocalOtaPackage> future = SettableFuture.create();
+        SettableFuture<LocalOtaPackage> loadingFuture = loadingPackages.putIfAbsent(otaPackageId, future);
+        if (loadingFuture != null) {
+            return loadingFuture;
+        }
+        loadExecutor.execute(() -> {
+            try {
+                // The package may have been loaded after the check above by the load that was in progress then
+                LocalOtaPackage loadedPackage = getLoadedPackage(otaPackageId);
+                if (loadedPackage == null) {
+                    loadedPackage = load(otaPackageId, otaPackage);
+                    if (loadedPackage.file == null) {
+                        heapPackages.put(otaPackageId, loadedPackage);
+                    } else {
+                        storedPackages.put(otaPackageId, loadedPackage);
+                    }
+                }
+                loadingPackages.remove(otaPackageId, future);
+                future.set(loadedPackage);
+            } catch (Throwable e) {
+                // Removed before completing, so the requests that see the failure load the package again
+                loadingPackages.remove(otaPackageId, future);
+                future.setException(e);
+            }
+        });
+        return future;
+    }
+
+    private LocalOtaPackage getLoadedPackage(String otaPackageId) {
+        LocalOtaPackage localPackage = storedPackages.get(otaPackageId);
+        return localPackage != null ? localPackage : heapPackages.getIfPresent(otaPackageId);
+    }
+
+    private LocalOtaPackage load(String otaPackageId, GetOtaPackageResponseMsg otaPackage) throws IOException {
+        byte[] data = otaPackageDataCache.get(otaPackageId);
+        if (data == null || data.length == 0) {
+            throw new IllegalStateException("OTA package data is not available in cache");
+        }
+        if (!isChecksumValid(data, otaPackage)) {
+            throw new IllegalStateException("OTA package data doesn't match the checksum");
+        }
+        if (data.length > maxSize) {
+            log.warn("[{}] OTA package size {} exceeds the local store size, serving it from heap", otaPackageId, data.length);
+            return new LocalOtaPackage(null, ByteBuffer.wrap(data).asReadOnlyBuffer());
+        }
+        reserve(data.length);
+        Path file = storeDir.resolve(otaPackageId + FILE_SUFFIX);
+        Path tmpFile = storeDir.resolve(otaPackageId + TMP_FILE_SUFFIX);
+        try {
+            Files.write(tmpFile, data);
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                LocalOtaPackage localPackage = new LocalOtaPackage(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                log.debug("[{}] Stored OTA package in {}", otaPackageId, file);
+                return localPackage;
+            }
+        } catch (IOException e) {
+            release(data.length);
+            Files.deleteIfExists(tmpFile);
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private boolean isChecksumValid(byte[] data, GetOtaPackageResponseMsg otaPackage) {
+        if (!verifyChecksum || StringUtils.isEmpty(otaPackage.getChecksumAlgorithm()) || StringUtils.isEmpty(otaPackage.getChecksum())) {
+            return true;
+        }
+        ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.valueOf(otaPackage.getChecksumAlgorithm());
+        return OtaPackageUtil.getHashFunction(checksumAlgorithm).hashBytes(data).toString().equalsIgnoreCase(otaPackage.getChecksum());
+    }
+
+    private void reserve(long size) {
+        evictionLock.lock();
+        try {
+            while (storedSize + size > maxSize) {
+                if (!evictLeastRecentlyUsed()) {
+                    break;
+                }
+            }
+            storedSize += size;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void release(long size) {
+        evictionLock.lock();
+        try {
+            storedSize -= size;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean evictLeastRecentlyUsed() {
+        Map.Entry<String, LocalOtaPackage> lruEntry = null;
+        for (Map.Entry<String, LocalOtaPackage> entry : storedPackages.entrySet()) {
+            if (lruEntry == null || entry.getValue().lastAccessTime < lruEntry.getValue().lastAccessTime) {
+                lruEntry = entry;
+            }
+        }
+        if (lruEntry == null) {
+            return false;
+        }
+        LocalOtaPackage lruPackage = lruEntry.getValue();
+        storedPackages.remove(lruEntry.getKey(), lruPackage);
+        storedSize -= lruPackage.data.capacity();
+        try {
+            // Sessions that are still downloading keep reading the mapped buffer after the file is unlinked
+            Files.deleteIfExists(lruPackage.file);
+        } catch (IOException e) {
+            log.warn("[{}] Failed to delete evicted OTA package file", lruEntry.getKey(), e);
+        }
+        log.debug("[{}] Evicted OTA package from the local store", lruEntry.getKey());
+        return true;
+    }
+
+    private static class LocalOtaPackage {
+
+        private final Path file;
+        private final ByteBuffer data;
+        private volatile long lastAccessTime;
+
+        LocalOtaPackage(Path file, ByteBuffer data) {
+            this.file = file;
+            this.data = data;
+            this.lastAccessTime = System.currentTimeMillis();
+        }
+
+        ByteBuffer slice(int chunkSize, int chunk) {
+            int length = data.capacity();
+            if (chunkSize < 1) {
+                return data.duplicate();
+            }
+            long startIndex = (long) chunkSize * chunk;
+            if (startIndex >= length) {
+                return EMPTY_BUFFER;
+            }
+            return data.slice((int) startIndex, (int) Math.min(length - startIndex, chunkSize));
+        }
+    }
+
+}
@@ -52,6 +52,7 @@ import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.RuleChainId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.id.TenantProfileId;
+import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.limit.LimitedApi;
 import org.thingsboard.server.common.data.msg.TbMsgType;
 import org.thingsboard.server.common.data.notification.rule.trigger.RateLimitsTrigger;
@@ -71,6 +72,9 @@ import org.thingsboard.server.common.transport.DeviceDeletedEvent;
 import org.thingsboard.server.common.transport.DeviceProfileUpdatedEvent;
 import org.thingsboard.server.common.transport.DeviceUpdatedEvent;
 import org.thingsboard.server.common.transport.SessionMsgListener;
+import org.thingsboard.server.common.transport.GatewayBatchCallback;
+import org.thingsboard.server.common.transport.GatewayDeviceMsg;
+import org.thingsboard.server.common.transport.TransportDeviceCredentialsCache;
 import org.thingsboard.server.common.transport.TransportDeviceProfileCache;
 import org.thingsboard.server.common.transport.TransportResourceCache;
 import org.thingsboard.server.common.transport.TransportService;
@@ -83,6 +87,7 @@ import org.thingsboard.server.common.transport.limits.EntityLimitKey;
 import org.thingsboard.server.common.transport.limits.EntityLimitsCache;
 import org.thingsboard.server.common.transport.limits.TransportRateLimitService;
 import org.thingsboard.server.common.transport.util.JsonUtils;
+import org.thingsboard.server.common.util.KvProtoUtil;
 import org.thingsboard.server.common.util.ProtoUtils;
 import org.thingsboard.server.gen.transport.TransportProtos;
 import org.thingsboard.server.gen.transport.TransportProtos.ProvisionDeviceRequestMsg;
@@ -111,6 +116,8 @@ import org.thingsboard.server.queue.scheduler.SchedulerComponent;
 import org.thingsboard.server.queue.util.AfterStartUp;
 import org.thingsboard.server.queue.util.TbTransportComponent;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -124,7 +131,9 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -156,6 +165,8 @@ public class DefaultTransportService extends TransportActivityManager implements
     private int notificationsPollDuration;
     @Value("${transport.stats.enabled:false}")
     private boolean statsEnabled;
+    @Value("${transport.kv_msg_data_enabled:false}")
+    private boolean kvMsgDataEnabled;
 
     @Autowired
     @Lazy
@@ -172,6 +183,7 @@ public class DefaultTransportService extends TransportActivityManager implements
     private final TbServiceInfoProvider serviceInfoProvider;
     private final StatsFactory statsFactory;
     private final TransportDeviceProfileCache deviceProfileCache;
+    private final TransportDeviceCredentialsCache deviceCredentialsCache;
     private final TransportTenantProfileCache tenantProfileCache;
 
     private final TransportRateLimitService rateLimitService;
@@ -404,8 +416,9 @@ public class DefaultTransportService extends TransportActivityManager implements
 
     private void doProcess(DeviceTransportType transportType, TbProtoQueueMsg<TransportApiRequestMsg> protoMsg,
                            TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
-        ListenableFuture<ValidateDeviceCredentialsResponse> response = Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> {
-            TransportProtos.ValidateDeviceCredentialsResponseMsg msg = tmp.getValue().getValidateCredResponseMsg();
+        ListenableFuture<TransportProtos.ValidateDeviceCredentialsResponseMsg> responseMsg = deviceCredentialsCache.get(protoMsg.getValue(), () ->
+                Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> tmp.getValue().getValidateCredResponseMsg(), MoreExecutors.directExecutor()));
+        ListenableFuture<ValidateDeviceCredentialsResponse> response = Futures.transform(responseMsg, msg -> {
             ValidateDeviceCredentialsResponse.ValidateDeviceCredentialsResponseBuilder result = ValidateDeviceCredentialsResponse.builder();
             if (msg.hasDeviceInfo()) {
                 result.credentials(msg.getCredentialsBody());
@@ -539,27 +552,64 @@ public class DefaultTransportService extends TransportActivityManager implements
 
     @Override
     public void process(TransportProtos.SessionInfoProto sessionInfo, TransportProtos.PostTelemetryMsg msg, TbMsgMetaData md, TransportServiceCallback<Void> callback) {
-        int dataPoints = 0;
-        for (TransportProtos.TsKvListProto tsKv : msg.getTsKvListList()) {
-            dataPoints += tsKv.getKvCount();
-        }
+        int dataPoints = getDataPoints(msg);
         if (checkLimits(sessionInfo, msg, callback, dataPoints)) {
             recordActivityInternal(sessionInfo);
             TenantId tenantId = getTenantId(sessionInfo);
-            DeviceId deviceId = new DeviceId(new UUID(sessionInfo.getDeviceIdMSB(), sessionInfo.getDeviceIdLSB()));
             CustomerId customerId = getCustomerId(sessionInfo);
             MsgPackCallback packCallback = new MsgPackCallback(msg.getTsKvListCount(), new ApiStatsProxyCallback<>(tenantId, customerId, dataPoints, callback));
-            for (TransportProtos.TsKvListProto tsKv : msg.getTsKvListList()) {
-                TbMsgMetaData metaData = md != null ? md.copy() : new TbMsgMetaData();
-                metaData.putValue("deviceName", sessionInfo.getDeviceName());
-                metaData.putValue("deviceType", sessionInfo.getDeviceType());
-                metaData.putValue("ts", tsKv.getTs() + "");
+            sendTelemetryToRuleEngine(sessionInfo, msg, md, packCallback);
+        }
+    }
+
+    @Override
+    public void processGatewayTelemetry(List<GatewayDeviceMsg<TransportProtos.PostTelemetryMsg>> msgs, GatewayBatchCallback callback) {
+        if (msgs.isEmpty()) {
+            callback.onSuccess(null);
+            return;
+        }
+        GatewayPackCallback packCallback = new GatewayPackCallback(getTenantId(msgs.get(0).sessionInfo()), callback);
+        List<GatewayDeviceMsg<TransportProtos.PostTelemetryMsg>> allowedMsgs = new ArrayList<>(msgs.size());
+        for (GatewayDeviceMsg<TransportProtos.PostTelemetryMsg> deviceMsg : msgs) {
+            int dataPoints = getDataPoints(deviceMsg.msg());
+            if (checkLimits(deviceMsg.sessionInfo(), deviceMsg.msg(), packCallback.asTransportCallback(deviceMsg.sessionInfo().getDeviceName()), dataPoints)) {
+                packCallback.add(getCustomerId(deviceMsg.sessionInfo()), deviceMsg.msg().getTsKvListCount(), dataPoints);
+                allowedMsgs.add(deviceMsg);
+            }
+        }
+        for (GatewayDeviceMsg<TransportProtos.PostTelemetryMsg> deviceMsg : allowedMsgs) {
+            recordActivityInternal(deviceMsg.sessionInfo());
+            sendTelemetryToRuleEngine(deviceMsg.sessionInfo(), deviceMsg.msg(), null, packCallback);
+        }
+        packCallback.onBatchSent();
+    }
+
+    private void sendTelemetryToRuleEngine(TransportProtos.SessionInfoProto sessionInfo, TransportProtos.PostTelemetryMsg msg, TbMsgMetaData md, TbQueueCallback callback) {
+        TenantId tenantId = getTenantId(sessionInfo);
+        DeviceId deviceId = new DeviceId(new UUID(sessionInfo.getDeviceIdMSB(), sessionInfo.getDeviceIdLSB()));
+        CustomerId customerId = getCustomerId(sessionInfo);
+        for (TransportProtos.TsKvListProto tsKv : msg.getTsKvListList()) {
+            TbMsgMetaData metaData = md != null ? md.copy() : new TbMsgMetaData();
+            metaData.putValue("deviceName", sessionInfo.getDeviceName());
+            metaData.putValue("deviceType", sessionInfo.getDeviceType());
+            metaData.putValue("ts", tsKv.getTs() + "");
+            if (kvMsgDataEnabled) {
+                sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, toKvData(tsKv.getKvList()), metaData, TbMsgType.POST_TELEMETRY_REQUEST, callback);
+            } else {
                 JsonObject json = JsonUtils.getJsonObject(tsKv.getKvList());
-                sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, json, metaData, TbMsgType.POST_TELEMETRY_REQUEST, packCallback);
+                sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, json, metaData, TbMsgType.POST_TELEMETRY_REQUEST, callback);
             }
         }
     }
 
+    private static int getDataPoints(TransportProtos.PostTelemetryMsg msg) {
+        int dataPoints = 0;
+        for (TransportProtos.TsKvListProto tsKv : msg.getTsKvListList()) {
+            dataPoints += tsKv.getKvCount();
+        }
+        return dataPoints;
+    }
+
     @Override
     public void process(TransportProtos.SessionInfoProto sessionInfo, TransportProtos.PostAttributeMsg msg, TransportServiceCallback<Void> callback) {
         process(sessionInfo, msg, null, callback);
@@ -570,18 +620,50 @@ public class DefaultTransportService extends TransportActivityManager implements
         if (checkLimits(sessionInfo, msg, callback, msg.getKvCount())) {
             recordActivityInternal(sessionInfo);
             TenantId tenantId = getTenantId(sessionInfo);
-            DeviceId deviceId = new DeviceId(new UUID(sessionInfo.getDeviceIdMSB(), sessionInfo.getDeviceIdLSB()));
-            JsonObject json = JsonUtils.getJsonObject(msg.getKvList());
-            TbMsgMetaData metaData = md != null ? md.copy() : new TbMsgMetaData();
-            metaData.putValue("deviceName", sessionInfo.getDeviceName());
-            metaData.putValue("deviceType", sessionInfo.getDeviceType());
-            if (msg.getShared()) {
-                metaData.putValue(DataConstants.SCOPE, DataConstants.SHARED_SCOPE);
-            }
-            metaData.putValue(DataConstants.NOTIFY_DEVICE_METADATA_KEY, "false");
             CustomerId customerId = getCustomerId(sessionInfo);
-            sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, json, metaData, TbMsgType.POST_ATTRIBUTES_REQUEST,
-                    new TransportTbQueueCallback(new ApiStatsProxyCallback<>(tenantId, customerId, msg.getKvList().size(), callback)));
+            TbQueueCallback queueCallback = new TransportTbQueueCallback(new ApiStatsProxyCallback<>(tenantId, customerId, msg.getKvList().size(), callback));
+            sendAttributesToRuleEngine(sessionInfo, msg, md, queueCallback);
+        }
+    }
+
+    @Override
+    public void processGatewayAttributes(List<GatewayDeviceMsg<TransportProtos.PostAttributeMsg>> msgs, GatewayBatchCallback callback) {
+        if (msgs.isEmpty()) {
+            callback.onSuccess(null);
+            return;
+        }
+        GatewayPackCallback packCallback = new GatewayPackCallback(getTenantId(msgs.get(0).sessionInfo()), callback);
+        List<GatewayDeviceMsg<TransportProtos.PostAttributeMsg>> allowedMsgs = new ArrayList<>(msgs.size());
+        for (GatewayDeviceMsg<TransportProtos.PostAttributeMsg> deviceMsg : msgs) {
+            int dataPoints = deviceMsg.msg().getKvCount();
+            if (checkLimits(deviceMsg.sessionInfo(), deviceMsg.msg(), packCallback.asTransportCallback(deviceMsg.sessionInfo().getDeviceName()), dataPoints)) {
+                packCallback.add(getCustomerId(deviceMsg.sessionInfo()), 1, dataPoints);
+                allowedMsgs.add(deviceMsg);
+            }
+        }
+        for (GatewayDeviceMsg<TransportProtos.PostAttributeMsg> deviceMsg : allowedMsgs) {
+            recordActivityInternal(deviceMsg.sessionInfo());
+            sendAttributesToRuleEngine(deviceMsg.sessionInfo(), deviceMsg.msg(), null, packCallback);
+        }
+        packCallback.onBatchSent();
+    }
+
+    private void sendAttributesToRuleEngine(TransportProtos.SessionInfoProto sessionInfo, TransportProtos.PostAttributeMsg msg, TbMsgMetaData md, TbQueueCallback callback) {
+        TenantId tenantId = getTenantId(sessionInfo);
+        DeviceId deviceId = new DeviceId(new UUID(sessionInfo.getDeviceIdMSB(), sessionInfo.getDeviceIdLSB()));
+        CustomerId customerId = getCustomerId(sessionInfo);
+        TbMsgMetaData metaData = md != null ? md.copy() : new TbMsgMetaData();
+        metaData.putValue("deviceName", sessionInfo.getDeviceName());
+        metaData.putValue("deviceType", sessionInfo.getDeviceType());
+        if (msg.getShared()) {
+            metaData.putValue(DataConstants.SCOPE, DataConstants.SHARED_SCOPE);
+        }
+        metaData.putValue(DataConstants.NOTIFY_DEVICE_METADATA_KEY, "false");
+        if (kvMsgDataEnabled) {
+            sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, toKvData(msg.getKvList()), metaData, TbMsgType.POST_ATTRIBUTES_REQUEST, callback);
+        } else {
+            JsonObject json = JsonUtils.getJsonObject(msg.getKvList());
+            sendToRuleEngine(tenantId, deviceId, customerId, sessionInfo, json, metaData, TbMsgType.POST_ATTRIBUTES_REQUEST, callback);
         }
     }
 
@@ -924,6 +1006,9 @@ public class DefaultTransportService extends TransportActivityManager implements
                     rateLimitService.remove(new DeviceId(entityUuid));
                     onDeviceDeleted(new DeviceId(entityUuid));
                 }
+            } else if (toSessionMsg.hasDeviceCredentialsUpdateMsg()) {
+                TransportProtos.DeviceCredentialsUpdateMsg msg = toSessionMsg.getDeviceCredentialsUpdateMsg();
+                deviceCredentialsCache.evict(new DeviceId(new UUID(msg.getDeviceIdMSB(), msg.getDeviceIdLSB())));
             } else if (toSessionMsg.hasResourceUpdateMsg()) {
                 TransportProtos.ResourceUpdateMsg msg = toSessionMsg.getResourceUpdateMsg();
                 TenantId tenantId = TenantId.fromUUID(new UUID(msg.getTenantIdMSB(), msg.getTenantIdLSB()));
@@ -1009,6 +1094,7 @@ public class DefaultTransportService extends TransportActivityManager implements
     }
 
     private void onDeviceUpdate(Device device) {
+        deviceCredentialsCache.evict(device.getId());
         long deviceIdMSB = device.getId().getId().getMostSignificantBits();
         long deviceIdLSB = device.getId().getId().getLeastSignificantBits();
         long deviceProfileIdMSB = device.getDeviceProfileId().getId().getMostSignificantBits();
@@ -1045,6 +1131,7 @@ public class DefaultTransportService extends TransportActivityManager implements
     }
 
     private void onDeviceDeleted(DeviceId deviceId) {
+        deviceCredentialsCache.evict(deviceId);
         sessions.forEach((id, md) -> {
             DeviceId sessionDeviceId = new DeviceId(new UUID(md.getSessionInfo().getDeviceIdMSB(), md.getSessionInfo().getDeviceIdLSB()));
             if (sessionDeviceId.equals(deviceId)) {
@@ -1103,6 +1190,18 @@ public class DefaultTransportService extends TransportActivityManager implements
 
     private void sendToRuleEngine(TenantId tenantId, DeviceId deviceId, CustomerId customerId, TransportProtos.SessionInfoProto sessionInfo, JsonObject json,
                                   TbMsgMetaData metaData, TbMsgType tbMsgType, TbQueueCallback callback) {
+        sendToRuleEngine(tenantId, sessionInfo, (queueName, ruleChainId) ->
+                TbMsg.newMsg(queueName, tbMsgType, deviceId, customerId, metaData, gson.toJson(json), ruleChainId, null), callback);
+    }
+
+    private void sendToRuleEngine(TenantId tenantId, DeviceId deviceId, CustomerId customerId, TransportProtos.SessionInfoProto sessionInfo, List<KvEntry> kvData,
+                                  TbMsgMetaData metaData, TbMsgType tbMsgType, TbQueueCallback callback) {
+        sendToRuleEngine(tenantId, sessionInfo, (queueName, ruleChainId) ->
+                TbMsg.newKvListMsg(queueName, tbMsgType, deviceId, customerId, metaData, kvData, ruleChainId, null), callback);
+    }
+
+    private void sendToRuleEngine(TenantId tenantId, TransportProtos.SessionInfoProto sessionInfo,
+                                  BiFunction<String, RuleChainId, TbMsg> msgFactory, TbQueueCallback callback) {
         DeviceProfileId deviceProfileId = new DeviceProfileId(new UUID(sessionInfo.getDeviceProfileIdMSB(), sessionInfo.getDeviceProfileIdLSB()));
         DeviceProfile deviceProfile = deviceProfileCache.get(deviceProfileId);
         RuleChainId ruleChainId;
@@ -1117,11 +1216,20 @@ public class DefaultTransportService extends TransportActivityManager implements
             queueName = deviceProfile.getDefaultQueueName();
         }
 
-        TbMsg tbMsg = TbMsg.newMsg(queueName, tbMsgType, deviceId, customerId, metaData, gson.toJson(json), ruleChainId, null);
+        TbMsg tbMsg = msgFactory.apply(queueName, ruleChainId);
         ruleEngineProducerService.sendToRuleEngine(ruleEngineMsgProducer, tenantId, tbMsg, new StatsCallback(callback, ruleEngineProducerStats));
         ruleEngineProducerStats.incrementTotal();
     }
 
+    private static List<KvEntry> toKvData(List<TransportProtos.KeyValueProto> kvList) {
+        // The later value of the duplicate key wins, the same way as in the JSON object
+        Map<String, KvEntry> kvData = new LinkedHashMap<>(kvList.size());
+        for (TransportProtos.KeyValueProto kv : kvList) {
+            kvData.put(kv.getKey(), KvProtoUtil.fromTsKvProto(kv));
+        }
+        return new ArrayList<>(kvData.values());
+    }
+
     private class TransportTbQueueCallback implements TbQueueCallback {
         private final TransportServiceCallback<Void> callback;
 
@@ -1186,6 +1294,79 @@ public class DefaultTransportService extends TransportActivityManager implements
         }
     }
 
+    /**
+     * Shared callback of all the rule engine messages that are produced for a single gateway publish.
+     * The batch callback is notified once: with the first error or, when every message is acknowledged by the queue, with success.
+     * Errors raised by the limits of a single device are reported with the name of that device.
+     * Api usage is reported per customer of the devices once the whole batch succeeds.
+     */
+    private class GatewayPackCallback implements TbQueueCallback {
+        // Holds one extra pending "message" until the whole batch is sent, so the messages acknowledged early can't complete it
+        private final AtomicInteger msgCount = new AtomicInteger(1);
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final Map<CustomerId, int[]> usage = new HashMap<>();
+        private final TenantId tenantId;
+        private final GatewayBatchCallback callback;
+
+        private GatewayPackCallback(TenantId tenantId, GatewayBatchCallback callback) {
+            this.tenantId = tenantId;
+            this.callback = callback;
+        }
+
+        private void add(CustomerId customerId, int msgs, int dataPoints) {
+            msgCount.addAndGet(msgs);
+            int[] customerUsage = usage.computeIfAbsent(customerId, id -> new int[2]);
+            customerUsage[0]++;
+            customerUsage[1] += dataPoints;
+        }
+
+        private void onBatchSent() {
+            onSuccess(null);
+        }
+
+        private TransportServiceCallback<Void> asTransportCallback(String deviceName) {
+            return new TransportServiceCallback<>() {
+                @Override
+                public void onSuccess(Void msg) {
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    onFailure(deviceName, e);
+                }
+            };
+        }
+
+        @Override
+        public void onSuccess(TbQueueMsgMetadata metadata) {
+            if (msgCount.decrementAndGet() <= 0 && done.compareAndSet(false, true)) {
+                DefaultTransportService.this.transportCallbackExecutor.submit(() -> {
+                    try {
+                        usage.forEach((customerId, customerUsage) -> {
+                            apiUsageClient.report(tenantId, customerId, ApiUsageRecordKey.TRANSPORT_MSG_COUNT, customerUsage[0]);
+                            apiUsageClient.report(tenantId, customerId, ApiUsageRecordKey.TRANSPORT_DP_COUNT, customerUsage[1]);
+                        });
+                    } finally {
+                        callback.onSuccess(null);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            if (done.compareAndSet(false, true)) {
+                DefaultTransportService.this.transportCallbackExecutor.submit(() -> callback.onError(t));
+            }
+        }
+
+        private void onFailure(String deviceName, Throwable t) {
+            if (done.compareAndSet(false, true)) {
+                DefaultTransportService.this.transportCallbackExecutor.submit(() -> callback.onDeviceError(deviceName, t));
+            }
+        }
+    }
+
     private class ApiStatsProxyCallback<T> implements TransportServiceCallback<T> {
         private final TenantId tenantId;
         private final CustomerId customerId;
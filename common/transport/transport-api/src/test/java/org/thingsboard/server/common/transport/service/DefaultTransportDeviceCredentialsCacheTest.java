@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceCredentialsResponseMsg;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DefaultTransportDeviceCredentialsCacheTest {
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    @Test
+    public void givenIdenticalRequestsInFlight_whenGet_thenSendSingleRequest() throws Exception {
+        DefaultTransportDeviceCredentialsCache cache = new DefaultTransportDeviceCredentialsCache(5, 0);
+        AtomicInteger sent = new AtomicInteger();
+        SettableFuture<ValidateDeviceCredentialsResponseMsg> response = SettableFuture.create();
+
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> first = cache.get(tokenRequest("token"), () -> {
+            sent.incrementAndGet();
+            return response;
+        });
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> second = cache.get(tokenRequest("token"), () -> {
+            sent.incrementAndGet();
+            return SettableFuture.create();
+        });
+        response.set(validResponse());
+
+        assertThat(sent).hasValue(1);
+        assertThat(first.get()).isEqualTo(validResponse());
+        assertThat(second.get()).isEqualTo(validResponse());
+
+        // The cache is disabled, so the next request is sent again
+        cache.get(tokenRequest("token"), () -> {
+            sent.incrementAndGet();
+            return Futures.immediateFuture(validResponse());
+        }).get();
+        assertThat(sent).hasValue(2);
+    }
+
+    @Test
+    public void givenCachedResponse_whenDeviceEvicted_thenSendRequestAgain() throws Exception {
+        DefaultTransportDeviceCredentialsCache cache = new DefaultTransportDeviceCredentialsCache(5, 100);
+        AtomicInteger sent = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(get(cache, "token", validResponse(), sent)).isEqualTo(validResponse());
+        }
+        assertThat(sent).hasValue(1);
+
+        cache.evict(deviceId);
+        get(cache, "token", validResponse(), sent);
+        assertThat(sent).hasValue(2);
+    }
+
+    @Test
+    public void givenInvalidCredentials_whenGet_thenDontCacheResponse() throws Exception {
+        DefaultTransportDeviceCredentialsCache cache = new DefaultTransportDeviceCredentialsCache(5, 100);
+        AtomicInteger sent = new AtomicInteger();
+
+        get(cache, "unknown", ValidateDeviceCredentialsResponseMsg.getDefaultInstance(), sent);
+        get(cache, "unknown", ValidateDeviceCredentialsResponseMsg.getDefaultInstance(), sent);
+
+        assertThat(sent).hasValue(2);
+    }
+
+    @Test
+    public void givenEvictionWhileRequestInFlight_whenResponseReceived_thenDontCacheResponse() throws Exception {
+        DefaultTransportDeviceCredentialsCache cache = new DefaultTransportDeviceCredentialsCache(5, 100);
+        AtomicInteger sent = new AtomicInteger();
+        SettableFuture<ValidateDeviceCredentialsResponseMsg> response = SettableFuture.create();
+
+        ListenableFuture<ValidateDeviceCredentialsResponseMsg> future = cache.get(tokenRequest("token"), () -> {
+            sent.incrementAndGet();
+            return response;
+        });
+        cache.evict(deviceId);
+        response.set(validResponse());
+        future.get();
+
+        get(cache, "token", validResponse(), sent);
+        assertThat(sent).hasValue(2);
+    }
+
+    private ValidateDeviceCredentialsResponseMsg get(DefaultTransportDeviceCredentialsCache cache, String token,
+                                                     ValidateDeviceCredentialsResponseMsg response, AtomicInteger sent) throws Exception {
+        return cache.get(tokenRequest(token), () -> {
+            sent.incrementAndGet();
+            return Futures.immediateFuture(response);
+        }).get();
+    }
+
+    private static TransportApiRequestMsg tokenRequest(String token) {
+        return TransportApiRequestMsg.newBuilder()
+                .setValidateTokenRequestMsg(TransportProtos.ValidateDeviceTokenRequestMsg.newBuilder().setToken(token).build())
+                .build();
+    }
+
+    private ValidateDeviceCredentialsResponseMsg validResponse() {
+        return ValidateDeviceCredentialsResponseMsg.newBuilder()
+                .setDeviceInfo(TransportProtos.DeviceInfoProto.newBuilder()
+                        .setDeviceIdMSB(deviceId.getId().getMostSignificantBits())
+                        .setDeviceIdLSB(deviceId.getId().getLeastSignificantBits())
+                        .setDeviceName("Test device")
+                        .build())
+                .build();
+    }
+
+}
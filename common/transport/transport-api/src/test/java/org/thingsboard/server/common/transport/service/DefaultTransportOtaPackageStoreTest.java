@@ -0,0 +1,241 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.common.data.ota.ChecksumAlgorithm;
+import org.thingsboard.server.gen.transport.TransportProtos.GetOtaPackageResponseMsg;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DefaultTransportOtaPackageStoreTest {
+
+    @TempDir
+    Path storeDir;
+
+    @Test
+    public void givenStoredPackage_whenGetChunks_thenServeSlicesOfLocalCopy() throws Exception {
+        TestOtaPackageDataCache cache = new TestOtaPackageDataCache();
+        DefaultTransportOtaPackageStore store = createStore(cache, 1024 * 1024);
+        byte[] data = randomData(1000);
+        GetOtaPackageResponseMsg otaPackage = otaPackage(cache, data, ChecksumAlgorithm.SHA256, null);
+
+        byte[] downloaded = new byte[data.length];
+        for (int chunk = 0; chunk < 8; chunk++) {
+            ByteBuffer buffer = store.getChunk(otaPackage, 128, chunk).get();
+            assertThat(buffer.isReadOnly()).isTrue();
+            assertThat(buffer.remaining()).isEqualTo(chunk < 7 ? 128 : 104);
+            buffer.get(downloaded, chunk * 128, buffer.remaining());
+        }
+        assertThat(downloaded).isEqualTo(data);
+        assertThat(store.getChunk(otaPackage, 128, 8).get().hasRemaining()).isFalse();
+        assertThat(store.getChunk(otaPackage, 0, 0).get().remaining()).isEqualTo(data.length);
+        assertThat(cache.fullReads).hasValue(1);
+        assertThat(Files.exists(storeDir.resolve(packageId(otaPackage) + DefaultTransportOtaPackageStore.FILE_SUFFIX))).isTrue();
+    }
+
+    @Test
+    public void givenChecksumMismatch_whenGetChunk_thenDontStorePackage() throws Exception {
+        TestOtaPackageDataCache cache = new TestOtaPackageDataCache();
+        DefaultTransportOtaPackageStore store = createStore(cache, 1024 * 1024);
+        GetOtaPackageResponseMsg otaPackage = otaPackage(cache, randomData(100), ChecksumAlgorithm.MD5, "0123456789abcdef");
+
+        assertThat(store.getChunk(otaPackage, 10, 0).get().hasRemaining()).isFalse();
+        assertThat(store.getChunk(otaPackage, 10, 0).get().hasRemaining()).isFalse();
+        assertThat(cache.fullReads).hasValue(2);
+        try (var files = Files.list(storeDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    public void givenStoreSizeExceeded_whenGetChunk_thenEvictLeastRecentlyUsedPackage() throws Exception {
+        TestOtaPackageDataCache cache = new TestOtaPackageDataCache();
+        DefaultTransportOtaPackageStore store = createStore(cache, 250);
+        GetOtaPackageResponseMsg first = otaPackage(cache, randomData(100), ChecksumAlgorithm.CRC32, null);
+        GetOtaPackageResponseMsg second = otaPackage(cache, randomData(100), ChecksumAlgorithm.CRC32, null);
+        GetOtaPackageResponseMsg third = otaPackage(cache, randomData(100), ChecksumAlgorithm.CRC32, null);
+
+        store.getChunk(first, 10, 0).get();
+        Thread.sleep(5);
+        store.getChunk(second, 10, 0).get();
+        Thread.sleep(5);
+        ByteBuffer firstChunk = store.getChunk(first, 10, 1).get();
+        store.getChunk(third, 10, 0).get();
+
+        assertThat(Files.exists(storeDir.resolve(packageId(first) + DefaultTransportOtaPackageStore.FILE_SUFFIX))).isTrue();
+        assertThat(Files.exists(storeDir.resolve(packageId(second) + DefaultTransportOtaPackageStore.FILE_SUFFIX))).isFalse();
+        assertThat(Files.exists(storeDir.resolve(packageId(third) + DefaultTransportOtaPackageStore.FILE_SUFFIX))).isTrue();
+        assertThat(cache.fullReads).hasValue(3);
+        assertThat(firstChunk.remaining()).isEqualTo(10);
+
+        // The evicted package is pulled from the cache again
+        store.getChunk(second, 10, 0).get();
+        assertThat(cache.fullReads).hasValue(4);
+    }
+
+    @Test
+    public void givenPackageLargerThanStore_whenGetChunks_thenLoadAndVerifyOnce() throws Exception {
+        TestOtaPackageDataCache cache = new TestOtaPackageDataCache();
+        DefaultTransportOtaPackageStore store = createStore(cache, 100);
+        byte[] data = randomData(1000);
+        GetOtaPackageResponseMsg otaPackage = otaPackage(cache, data, ChecksumAlgorithm.SHA256, null);
+
+        byte[] downloaded = new byte[data.length];
+        for (int chunk = 0; chunk < 10; chunk++) {
+            store.getChunk(otaPackage, 100, chunk).get().get(downloaded, chunk * 100, 100);
+        }
+
+        assertThat(downloaded).isEqualTo(data);
+        assertThat(cache.fullReads).hasValue(1);
+        try (var files = Files.list(storeDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    public void givenConcurrentRequests_whenPackageIsLoading_thenLoadOnceOffCallerThread() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch loadReleased = new CountDownLatch(1);
+        AtomicReference<Thread> loadThread = new AtomicReference<>();
+        TestOtaPackageDataCache cache = new TestOtaPackageDataCache() {
+            @Override
+            public byte[] get(String key) {
+                loadThread.set(Thread.currentThread());
+                loadStarted.countDown();
+                try {
+                    loadReleased.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return super.get(key);
+            }
+        };
+        DefaultTransportOtaPackageStore store = createStore(cache, 1024 * 1024);
+        GetOtaPackageResponseMsg otaPackage = otaPackage(cache, randomData(100), ChecksumAlgorithm.SHA256, null);
+
+        ListenableFuture<ByteBuffer> firstChunk = store.getChunk(otaPackage, 10, 0);
+        ListenableFuture<ByteBuffer> secondChunk = store.getChunk(otaPackage, 10, 1);
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(firstChunk.isDone()).isFalse();
+        assertThat(secondChunk.isDone()).isFalse();
+        loadReleased.countDown();
+
+        assertThat(firstChunk.get(5, TimeUnit.SECONDS).remaining()).isEqualTo(10);
+        assertThat(secondChunk.get(5, TimeUnit.SECONDS).remaining()).isEqualTo(10);
+        assertThat(loadThread.get()).isNotSameAs(Thread.currentThread());
+        assertThat(cache.fullReads).hasValue(1);
+        store.destroy();
+    }
+
+    private DefaultTransportOtaPackageStore createStore(OtaPackageDataCache cache, long maxSize) throws Exception {
+        DefaultTransportOtaPackageStore store = new DefaultTransportOtaPackageStore(cache);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "dir", storeDir.toString());
+        ReflectionTestUtils.setField(store, "maxSize", maxSize);
+        ReflectionTestUtils.setField(store, "verifyChecksum", true);
+        ReflectionTestUtils.setField(store, "maxHeapSize", 1024 * 1024L);
+        store.init();
+        return store;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static GetOtaPackageResponseMsg otaPackage(TestOtaPackageDataCache cache, byte[] data, ChecksumAlgorithm checksumAlgorithm, String checksum) {
+        UUID id = UUID.randomUUID();
+        cache.put(id.toString(), data);
+        if (checksum == null) {
+            checksum = switch (checksumAlgorithm) {
+                case MD5 -> Hashing.md5().hashBytes(data).toString();
+                case SHA256 -> Hashing.sha256().hashBytes(data).toString();
+                case CRC32 -> Hashing.crc32().hashBytes(data).toString();
+                default -> throw new IllegalArgumentException();
+            };
+        }
+        return GetOtaPackageResponseMsg.newBuilder()
+                .setOtaPackageIdMSB(id.getMostSignificantBits())
+                .setOtaPackageIdLSB(id.getLeastSignificantBits())
+                .setChecksumAlgorithm(checksumAlgorithm.name())
+                .setChecksum(checksum)
+                .build();
+    }
+
+    private static String packageId(GetOtaPackageResponseMsg otaPackage) {
+        return new UUID(otaPackage.getOtaPackageIdMSB(), otaPackage.getOtaPackageIdLSB()).toString();
+    }
+
+    private static byte[] randomData(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Same chunk semantics as the Caffeine based cache: every chunk is copied out of the cached package.
+     */
+    private static class TestOtaPackageDataCache implements OtaPackageDataCache {
+
+        private final Map<String, byte[]> packages = new ConcurrentHashMap<>();
+        private final AtomicInteger fullReads = new AtomicInteger();
+
+        @Override
+        public byte[] get(String key) {
+            fullReads.incrementAndGet();
+            return packages.get(key);
+        }
+
+        @Override
+        public byte[] get(String key, int chunkSize, int chunk) {
+            byte[] data = packages.get(key);
+            if (chunkSize < 1) {
+                return data;
+            }
+            int startIndex = chunkSize * chunk;
+            if (data == null || startIndex >= data.length) {
+                return new byte[0];
+            }
+            return Arrays.copyOfRange(data, startIndex, Math.min(data.length, startIndex + chunkSize));
+        }
+
+        @Override
+        public void put(String key, byte[] value) {
+            packages.put(key, value);
+        }
+
+        @Override
+        public void evict(String key) {
+            packages.remove(key);
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.ApiUsageRecordKey;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.util.TbPair;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
+import org.thingsboard.server.common.msg.tools.TbRateLimitsException;
+import org.thingsboard.server.common.stats.MessagesStats;
+import org.thingsboard.server.common.stats.TbApiUsageReportClient;
+import org.thingsboard.server.common.transport.GatewayBatchCallback;
+import org.thingsboard.server.common.transport.GatewayDeviceMsg;
+import org.thingsboard.server.common.transport.TransportDeviceProfileCache;
+import org.thingsboard.server.common.transport.limits.TransportRateLimitService;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.queue.TbQueueCallback;
+import org.thingsboard.server.queue.common.TbRuleEngineProducerService;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class DefaultTransportServiceGatewayBatchTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final CustomerId customerId = new CustomerId(UUID.randomUUID());
+
+    private DefaultTransportService transportService;
+    private TransportRateLimitService rateLimitService;
+    private TbRuleEngineProducerService ruleEngineProducerService;
+    private TbApiUsageReportClient apiUsageClient;
+    private final ExecutorService callbackExecutor = MoreExecutors.newDirectExecutorService();
+
+    @BeforeEach
+    public void setUp() {
+        transportService = mock(DefaultTransportService.class, withSettings().defaultAnswer(CALLS_REAL_METHODS).stubOnly());
+        rateLimitService = mock(TransportRateLimitService.class, withSettings().stubOnly());
+        ruleEngineProducerService = mock(TbRuleEngineProducerService.class);
+        apiUsageClient = mock(TbApiUsageReportClient.class);
+        doNothing().when(transportService).onActivity(any(), any(), anyLong());
+        ReflectionTestUtils.setField(transportService, "gson", new Gson());
+        ReflectionTestUtils.setField(transportService, "rateLimitService", rateLimitService);
+        ReflectionTestUtils.setField(transportService, "ruleEngineProducerService", ruleEngineProducerService);
+        ReflectionTestUtils.setField(transportService, "apiUsageClient", apiUsageClient);
+        TransportDeviceProfileCache deviceProfileCache = mock(TransportDeviceProfileCache.class, withSettings().stubOnly());
+        when(deviceProfileCache.get(any())).thenReturn(new DeviceProfile());
+        ReflectionTestUtils.setField(transportService, "deviceProfileCache", deviceProfileCache);
+        ReflectionTestUtils.setField(transportService, "notificationRuleProcessor", mock(NotificationRuleProcessor.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(transportService, "ruleEngineProducerStats", mock(MessagesStats.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(transportService, "transportCallbackExecutor", callbackExecutor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        callbackExecutor.shutdownNow();
+    }
+
+    @Test
+    public void givenTelemetryOfMultipleDevices_whenProcessGatewayTelemetry_thenNotifyOnceAfterAllMsgsAreSent() {
+        List<GatewayDeviceMsg<TransportProtos.PostTelemetryMsg>> msgs = List.of(
+                new GatewayDeviceMsg<>(sessionInfo(UUID.randomUUID()), telemetryMsg(2, 3)),
+                new GatewayDeviceMsg<>(sessionInfo(UUID.randomUUID()), telemetryMsg(1, 2)));
+        GatewayBatchCallback callback = mock(GatewayBatchCallback.class);
+
+        transportService.processGatewayTelemetry(msgs, callback);
+
+        ArgumentCaptor<TbMsg> msgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        ArgumentCaptor<TbQueueCallback> queueCallbackCaptor = ArgumentCaptor.forClass(TbQueueCallback.class);
+        verify(ruleEngineProducerService, times(3)).sendToRuleEngine(any(), eq(tenantId), msgCaptor.capture(), queueCallbackCaptor.capture());
+        assertThat(msgCaptor.getAllValues()).extracting(TbMsg::getOriginator).containsExactly(
+                toDeviceId(msgs.get(0).sessionInfo()), toDeviceId(msgs.get(0).sessionInfo()), toDeviceId(msgs.get(1).sessionInfo()));
+
+        List<TbQueueCallback> queueCallbacks = queueCallbackCaptor.getAllValues();
+        queueCallbacks.get(0).onSuccess(null);
+        queueCallbacks.get(1).onSuccess(null);
+        verify(callback, never()).onSuccess(any());
+
+        queueCallbacks.get(2).onSuccess(null);
+        verify(callback).onSuccess(null);
+        verify(callback, never()).onError(any());
+        verify(apiUsageClient).report(tenantId, customerId, ApiUsageRecordKey.TRANSPORT_MSG_COUNT, 2);
+        verify(apiUsageClient).report(tenantId, customerId, ApiUsageRecordKey.TRANSPORT_DP_COUNT, 8);
+    }
+
+    @Test
+    public void givenRateLimitedDevice_whenProcessGatewayAttributes_thenFailBatchOnce() {
+        UUID limitedDeviceId = UUID.randomUUID();
+        when(rateLimitService.checkLimits(eq(tenantId), isNull(), eq(new DeviceId(limitedDeviceId)), anyInt()))
+                .thenReturn(TbPair.of(EntityType.DEVICE, false));
+        List<GatewayDeviceMsg<TransportProtos.PostAttributeMsg>> msgs = List.of(
+                new GatewayDeviceMsg<>(sessionInfo(UUID.randomUUID()), attributesMsg()),
+                new GatewayDeviceMsg<>(sessionInfo(limitedDeviceId), attributesMsg()));
+        GatewayBatchCallback callback = mock(GatewayBatchCallback.class);
+
+        transportService.processGatewayAttributes(msgs, callback);
+
+        ArgumentCaptor<TbQueueCallback> queueCallbackCaptor = ArgumentCaptor.forClass(TbQueueCallback.class);
+        verify(ruleEngineProducerService).sendToRuleEngine(any(), eq(tenantId), any(), queueCallbackCaptor.capture());
+        queueCallbackCaptor.getValue().onSuccess(null);
+        verify(callback).onDeviceError(eq("Device " + limitedDeviceId), any(TbRateLimitsException.class));
+        verify(callback, never()).onError(any());
+        verify(callback, never()).onSuccess(any());
+    }
+
+    private TransportProtos.SessionInfoProto sessionInfo(UUID deviceId) {
+        return TransportProtos.SessionInfoProto.newBuilder()
+                .setTenantIdMSB(tenantId.getId().getMostSignificantBits())
+                .setTenantIdLSB(tenantId.getId().getLeastSignificantBits())
+                .setCustomerIdMSB(customerId.getId().getMostSignificantBits())
+                .setCustomerIdLSB(customerId.getId().getLeastSignificantBits())
+                .setDeviceIdMSB(deviceId.getMostSignificantBits())
+                .setDeviceIdLSB(deviceId.getLeastSignificantBits())
+                .setDeviceName("Device " + deviceId)
+                .setDeviceType("default")
+                .build();
+    }
+
+    private static DeviceId toDeviceId(TransportProtos.SessionInfoProto sessionInfo) {
+        return new DeviceId(new UUID(sessionInfo.getDeviceIdMSB(), sessionInfo.getDeviceIdLSB()));
+    }
+
+    private static TransportProtos.PostTelemetryMsg telemetryMsg(int tsCount, int keysCount) {
+        TransportProtos.PostTelemetryMsg.Builder builder = TransportProtos.PostTelemetryMsg.newBuilder();
+        for (int i = 0; i < tsCount; i++) {
+            TransportProtos.TsKvListProto.Builder tsKv = TransportProtos.TsKvListProto.newBuilder().setTs(i + 1);
+            for (int j = 0; j < keysCount; j++) {
+                tsKv.addKv(TransportProtos.KeyValueProto.newBuilder().setKey("key" + j).setType(TransportProtos.KeyValueType.LONG_V).setLongV(j));
+            }
+            builder.addTsKvList(tsKv);
+        }
+        return builder.build();
+    }
+
+    private static TransportProtos.PostAttributeMsg attributesMsg() {
+        return TransportProtos.PostAttributeMsg.newBuilder()
+                .addKv(TransportProtos.KeyValueProto.newBuilder().setKey("firmware").setType(TransportProtos.KeyValueType.STRING_V).setStringV("1.0"))
+                .build();
+    }
+
+}
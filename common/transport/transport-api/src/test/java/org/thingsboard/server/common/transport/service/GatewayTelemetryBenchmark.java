@@ -0,0 +1,235 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.ApiUsageRecordKey;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.TenantProfile;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.tenant.profile.TenantProfileData;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.notification.NotificationRuleProcessor;
+import org.thingsboard.server.common.stats.DefaultMessagesStats;
+import org.thingsboard.server.common.stats.StatsCounter;
+import org.thingsboard.server.common.stats.TbApiUsageReportClient;
+import org.thingsboard.server.common.transport.GatewayBatchCallback;
+import org.thingsboard.server.common.transport.GatewayDeviceMsg;
+import org.thingsboard.server.common.transport.TransportDeviceProfileCache;
+import org.thingsboard.server.common.transport.TransportTenantProfileCache;
+import org.thingsboard.server.common.transport.limits.DefaultTransportRateLimitService;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.queue.TbQueueCallback;
+import org.thingsboard.server.queue.TbQueueProducer;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.common.TbRuleEngineProducerService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares processing of a gateway telemetry publish with {@code devices} devices one device at a time, as the gateway
+ * session handler did before, with {@link DefaultTransportService#processGatewayTelemetry}. Each invocation processes
+ * one publish and waits until all of its messages are acknowledged. Rule engine messages are serialized,
+ * but not sent to the queue, and device activity is not tracked.
+ * <p>
+ * Run from the IDE or with the test classpath: {@code java -cp <test classpath> org.thingsboard.server.common.transport.service.GatewayTelemetryBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatewayTelemetryBenchmark {
+
+    @Param({"10", "500"})
+    private int devices;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final CustomerId customerId = new CustomerId(UUID.randomUUID());
+
+    private ExecutorService callbackExecutor;
+    private DefaultTransportService transportService;
+    private List<GatewayDeviceMsg<TransportProtos.PostTelemetryMsg>> msgs;
+
+    @Setup
+    public void setup() {
+        callbackExecutor = Executors.newWorkStealingPool(20);
+        TransportTenantProfileCache tenantProfileCache = mock(TransportTenantProfileCache.class);
+        TenantProfile tenantProfile = new TenantProfile();
+        tenantProfile.setProfileData(new TenantProfileData());
+        when(tenantProfileCache.get(any())).thenReturn(tenantProfile);
+        DeviceProfile deviceProfile = new DeviceProfile();
+        TransportDeviceProfileCache deviceProfileCache = new TransportDeviceProfileCache() {
+            @Override
+            public DeviceProfile getOrCreate(DeviceProfileId id, TransportProtos.DeviceProfileProto proto) {
+                return deviceProfile;
+            }
+
+            @Override
+            public DeviceProfile get(DeviceProfileId id) {
+                return deviceProfile;
+            }
+
+            @Override
+            public void put(DeviceProfile profile) {
+            }
+
+            @Override
+            public DeviceProfile put(TransportProtos.DeviceProfileProto proto) {
+                return deviceProfile;
+            }
+
+            @Override
+            public void evict(DeviceProfileId id) {
+            }
+        };
+        TbRuleEngineProducerService ruleEngineProducerService = new TbRuleEngineProducerService(null) {
+            @Override
+            public void sendToRuleEngine(TbQueueProducer<TbProtoQueueMsg<TransportProtos.ToRuleEngineMsg>> producer, TenantId tenantId, TbMsg tbMsg, TbQueueCallback callback) {
+                TbMsg.toByteString(tbMsg);
+                callback.onSuccess(null);
+            }
+        };
+        transportService = new DefaultTransportService(null, null, null, ruleEngineProducerService, null, null, null, deviceProfileCache,
+                null, null, new DefaultTransportRateLimitService(tenantProfileCache), null, null, null, mock(NotificationRuleProcessor.class), null) {
+            @Override
+            public void onActivity(UUID key, TransportProtos.SessionInfoProto metadata, long newLastRecordedTime) {
+            }
+        };
+        ReflectionTestUtils.setField(transportService, "apiUsageClient", new TbApiUsageReportClient() {
+            @Override
+            public void report(TenantId tenantId, CustomerId customerId, ApiUsageRecordKey key, long value) {
+            }
+
+            @Override
+            public void report(TenantId tenantId, CustomerId customerId, ApiUsageRecordKey key) {
+            }
+        });
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(transportService, "ruleEngineProducerStats", new DefaultMessagesStats(
+                new StatsCounter(new AtomicInteger(), meterRegistry.counter("total"), "total"),
+                new StatsCounter(new AtomicInteger(), meterRegistry.counter("successful"), "successful"),
+                new StatsCounter(new AtomicInteger(), meterRegistry.counter("failed"), "failed")));
+        ReflectionTestUtils.setField(transportService, "transportCallbackExecutor", callbackExecutor);
+
+        msgs = new ArrayList<>(devices);
+        for (int i = 0; i < devices; i++) {
+            msgs.add(new GatewayDeviceMsg<>(sessionInfo(UUID.randomUUID()), telemetryMsg(10)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        callbackExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void perDevice() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(msgs.size());
+        for (GatewayDeviceMsg<TransportProtos.PostTelemetryMsg> msg : msgs) {
+            transportService.process(msg.sessionInfo(), msg.msg(), countDownCallback(latch));
+        }
+        await(latch);
+    }
+
+    @Benchmark
+    public void batch() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        transportService.processGatewayTelemetry(msgs, countDownCallback(latch));
+        await(latch);
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        if (!latch.await(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Gateway telemetry was not processed in time");
+        }
+    }
+
+    private static GatewayBatchCallback countDownCallback(CountDownLatch latch) {
+        return new GatewayBatchCallback() {
+            @Override
+            public void onSuccess(Void msg) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onDeviceError(String deviceName, Throwable e) {
+                onError(e);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                throw new IllegalStateException("Failed to process msg", e);
+            }
+        };
+    }
+
+    private TransportProtos.SessionInfoProto sessionInfo(UUID deviceId) {
+        return TransportProtos.SessionInfoProto.newBuilder()
+                .setTenantIdMSB(tenantId.getId().getMostSignificantBits())
+                .setTenantIdLSB(tenantId.getId().getLeastSignificantBits())
+                .setCustomerIdMSB(customerId.getId().getMostSignificantBits())
+                .setCustomerIdLSB(customerId.getId().getLeastSignificantBits())
+                .setDeviceIdMSB(deviceId.getMostSignificantBits())
+                .setDeviceIdLSB(deviceId.getLeastSignificantBits())
+                .setDeviceName("Device " + deviceId)
+                .setDeviceType("default")
+                .build();
+    }
+
+    private static TransportProtos.PostTelemetryMsg telemetryMsg(int keysCount) {
+        TransportProtos.TsKvListProto.Builder tsKv = TransportProtos.TsKvListProto.newBuilder().setTs(1);
+        for (int j = 0; j < keysCount; j++) {
+            tsKv.addKv(TransportProtos.KeyValueProto.newBuilder().setKey("key" + j).setType(TransportProtos.KeyValueType.LONG_V).setLongV(j));
+        }
+        return TransportProtos.PostTelemetryMsg.newBuilder().addTsKvList(tsKv).build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(GatewayTelemetryBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
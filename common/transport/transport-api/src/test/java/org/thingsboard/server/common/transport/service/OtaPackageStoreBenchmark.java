@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.hash.Hashing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.ota.OtaPackageDataCache;
+import org.thingsboard.server.common.data.ota.ChecksumAlgorithm;
+import org.thingsboard.server.gen.transport.TransportProtos.GetOtaPackageResponseMsg;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares concurrent chunked downloads of an OTA package served by copying every chunk out of the cached package,
+ * which is what the transports do without the local store, with the chunks served by {@link DefaultTransportOtaPackageStore}.
+ * Each invocation downloads the whole package chunk by chunk, as a single device would.
+ * <p>
+ * Run from the IDE or with the test classpath: {@code java -cp <test classpath> org.thingsboard.server.common.transport.service.OtaPackageStoreBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class OtaPackageStoreBenchmark {
+
+    @Param({"8388608"})
+    private int packageSize;
+
+    @Param({"1024", "16384"})
+    private int chunkSize;
+
+    private Path storeDir;
+    private GetOtaPackageResponseMsg otaPackage;
+    private DefaultTransportOtaPackageStore cacheStore;
+    private DefaultTransportOtaPackageStore localStore;
+    private int chunks;
+
+    @Setup
+    public void setup() throws Exception {
+        byte[] data = new byte[packageSize];
+        new Random(packageSize).nextBytes(data);
+        UUID id = UUID.randomUUID();
+        OtaPackageDataCache cache = new CopyingOtaPackageDataCache(id.toString(), data);
+        otaPackage = GetOtaPackageResponseMsg.newBuilder()
+                .setOtaPackageIdMSB(id.getMostSignificantBits())
+                .setOtaPackageIdLSB(id.getLeastSignificantBits())
+                .setChecksumAlgorithm(ChecksumAlgorithm.SHA256.name())
+                .setChecksum(Hashing.sha256().hashBytes(data).toString())
+                .build();
+        chunks = (packageSize + chunkSize - 1) / chunkSize;
+
+        cacheStore = new DefaultTransportOtaPackageStore(cache);
+        storeDir = Files.createTempDirectory("ota-benchmark");
+        localStore = new DefaultTransportOtaPackageStore(cache);
+        ReflectionTestUtils.setField(localStore, "enabled", true);
+        ReflectionTestUtils.setField(localStore, "dir", storeDir.toString());
+        ReflectionTestUtils.setField(localStore, "maxSize", 2L * packageSize);
+        ReflectionTestUtils.setField(localStore, "verifyChecksum", true);
+        ReflectionTestUtils.setField(localStore, "maxHeapSize", 2L * packageSize);
+        localStore.init();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        localStore.destroy();
+        try (Stream<Path> files = Files.walk(storeDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long cacheCopy() throws Exception {
+        return download(cacheStore);
+    }
+
+    @Benchmark
+    public long localStore() throws Exception {
+        return download(localStore);
+    }
+
+    private long download(DefaultTransportOtaPackageStore store) throws Exception {
+        long size = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            ByteBuffer buffer = store.getChunk(otaPackage, chunkSize, chunk).get();
+            size += buffer.remaining() + buffer.get(buffer.position());
+        }
+        return size;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(OtaPackageStoreBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Same chunk semantics as the Caffeine based cache: every chunk is copied out of the cached package.
+     */
+    private static class CopyingOtaPackageDataCache implements OtaPackageDataCache {
+
+        private final String key;
+        private final byte[] data;
+
+        CopyingOtaPackageDataCache(String key, byte[] data) {
+            this.key = key;
+            this.data = data;
+        }
+
+        @Override
+        public byte[] get(String key) {
+            return this.key.equals(key) ? data : null;
+        }
+
+        @Override
+        public byte[] get(String key, int chunkSize, int chunk) {
+            byte[] data = get(key);
+            if (chunkSize < 1) {
+                return data;
+            }
+            int startIndex = chunkSize * chunk;
+            if (data == null || startIndex >= data.length) {
+                return new byte[0];
+            }
+            return Arrays.copyOfRange(data, startIndex, Math.min(data.length, startIndex + chunkSize));
+        }
+
+        @Override
+        public void put(String key, byte[] value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void evict(String key) {
+        }
+
+    }
+
+}
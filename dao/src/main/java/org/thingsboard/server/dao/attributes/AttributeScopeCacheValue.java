@@ -0,0 +1,38 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.attributes;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Full list of attributes that exist for the entity in a particular scope.
+ */
+@EqualsAndHashCode
+@Getter
+@RequiredArgsConstructor
+public class AttributeScopeCacheValue implements Serializable {
+
+    private static final long serialVersionUID = 5723841046298313925L;
+
+    private final List<AttributeKvEntry> attributes;
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.attributes;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.cache.CacheSpecsMap;
+import org.thingsboard.server.cache.RedisTbTransactionalCache;
+import org.thingsboard.server.cache.TBRedisCacheConfiguration;
+import org.thingsboard.server.cache.TbRedisSerializer;
+import org.thingsboard.server.common.data.CacheConstants;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BooleanDataEntry;
+import org.thingsboard.server.common.data.kv.DoubleDataEntry;
+import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.gen.transport.TransportProtos.AttributeValueProto;
+import org.thingsboard.server.gen.transport.TransportProtos.KeyValueType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "redis")
+@Service("AttributeScopeCache")
+public class AttributeScopeRedisCache extends RedisTbTransactionalCache<AttributeScopeCacheKey, AttributeScopeCacheValue> {
+
+    public AttributeScopeRedisCache(TBRedisCacheConfiguration configuration, CacheSpecsMap cacheSpecsMap, RedisConnectionFactory connectionFactory) {
+        super(CacheConstants.ATTRIBUTE_SCOPES_CACHE, cacheSpecsMap, connectionFactory, configuration, new TbRedisSerializer<>() {
+            @Override
+            public byte[] serialize(AttributeScopeCacheValue value) throws SerializationException {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try {
+                    for (AttributeKvEntry attribute : value.getAttributes()) {
+                        toProto(attribute).writeDelimitedTo(out);
+                    }
+                } catch (IOException e) {
+                    throw new SerializationException(e.getMessage());
+                }
+                return out.toByteArray();
+            }
+
+            @Override
+            public AttributeScopeCacheValue deserialize(AttributeScopeCacheKey key, byte[] bytes) throws SerializationException {
+                List<AttributeKvEntry> attributes = new ArrayList<>();
+                ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+                try {
+                    AttributeValueProto proto;
+                    while ((proto = AttributeValueProto.parseDelimitedFrom(in)) != null) {
+                        attributes.add(fromProto(proto));
+                    }
+                } catch (IOException e) {
+                    throw new SerializationException(e.getMessage());
+                }
+                return new AttributeScopeCacheValue(attributes);
+            }
+        });
+    }
+
+    private static AttributeValueProto toProto(AttributeKvEntry attribute) {
+        AttributeValueProto.Builder builder = AttributeValueProto.newBuilder()
+                .setKey(attribute.getKey())
+                .setLastUpdateTs(attribute.getLastUpdateTs());
+        switch (attribute.getDataType()) {
+            case BOOLEAN -> {
+                attribute.getBooleanValue().ifPresent(builder::setBoolV);
+                builder.setHasV(attribute.getBooleanValue().isPresent());
+                builder.setType(KeyValueType.BOOLEAN_V);
+            }
+            case STRING -> {
+                attribute.getStrValue().ifPresent(builder::setStringV);
+                builder.setHasV(attribute.getStrValue().isPresent());
+                builder.setType(KeyValueType.STRING_V);
+            }
+            case DOUBLE -> {
+                attribute.getDoubleValue().ifPresent(builder::setDoubleV);
+                builder.setHasV(attribute.getDoubleValue().isPresent());
+                builder.setType(KeyValueType.DOUBLE_V);
+            }
+            case LONG -> {
+                attribute.getLongValue().ifPresent(builder::setLongV);
+                builder.setHasV(attribute.getLongValue().isPresent());
+                builder.setType(KeyValueType.LONG_V);
+            }
+            case JSON -> {
+                attribute.getJsonValue().ifPresent(builder::setJsonV);
+                builder.setHasV(attribute.getJsonValue().isPresent());
+                builder.setType(KeyValueType.JSON_V);
+            }
+        }
+        return builder.build();
+    }
+
+    private static AttributeKvEntry fromProto(AttributeValueProto proto) throws SerializationException {
+        boolean hasValue = proto.getHasV();
+        KvEntry entry = switch (proto.getType()) {
+            case BOOLEAN_V -> new BooleanDataEntry(proto.getKey(), hasValue ? proto.getBoolV() : null);
+            case LONG_V -> new LongDataEntry(proto.getKey(), hasValue ? proto.getLongV() : null);
+            case DOUBLE_V -> new DoubleDataEntry(proto.getKey(), hasValue ? proto.getDoubleV() : null);
+            case STRING_V -> new StringDataEntry(proto.getKey(), hasValue ? proto.getStringV() : null);
+            case JSON_V -> new JsonDataEntry(proto.getKey(), hasValue ? proto.getJsonV() : null);
+            default -> throw new SerializationException("Unrecognized type: " + proto.getType() + " !");
+        };
+        return new BaseAttributeKvEntry(proto.getLastUpdateTs(), entry);
+    }
+
+}
@@ -25,7 +25,9 @@ import org.thingsboard.server.common.data.kv.AttributeKvEntry;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * @author Andrew Shvayka
@@ -50,4 +52,6 @@ public interface AttributesDao {
 
     List<Pair<AttributeScope, String>> removeAllByEntityId(TenantId tenantId, EntityId entityId);
 
+    Map<UUID, List<Pair<AttributeScope, String>>> removeAllByEntityIds(TenantId tenantId, List<UUID> entityIds);
+
 }
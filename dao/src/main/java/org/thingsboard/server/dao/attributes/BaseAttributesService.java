@@ -34,7 +34,9 @@ import org.thingsboard.server.dao.service.Validator;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.thingsboard.server.dao.attributes.AttributeUtils.validate;
@@ -168,4 +170,10 @@ public class BaseAttributesService implements AttributesService {
         return deleted.size();
     }
 
+    @Override
+    public int removeAllByEntityIds(TenantId tenantId, List<EntityId> entityIds) {
+        Map<UUID, List<Pair<AttributeScope, String>>> deleted = attributesDao.removeAllByEntityIds(tenantId, entityIds.stream().map(EntityId::getId).toList());
+        return deleted.values().stream().mapToInt(List::size).sum();
+    }
+
 }
@@ -51,6 +51,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.thingsboard.server.dao.attributes.AttributeUtils.validate;
@@ -69,22 +70,27 @@ public class CachedAttributesService implements AttributesService {
     private final DefaultCounter hitCounter;
     private final DefaultCounter missCounter;
     private final TbTransactionalCache<AttributeCacheKey, AttributeKvEntry> cache;
+    private final TbTransactionalCache<AttributeScopeCacheKey, AttributeScopeCacheValue> scopeCache;
     private ListeningExecutorService cacheExecutor;
 
     @Value("${cache.type:caffeine}")
     private String cacheType;
     @Value("${sql.attributes.value_no_xss_validation:false}")
     private boolean valueNoXssValidation;
+    @Value("${cache.specs.attributeScopes.maxSize:0}")
+    private int scopeCacheMaxSize;
 
     public CachedAttributesService(AttributesDao attributesDao,
                                    JpaExecutorService jpaExecutorService,
                                    StatsFactory statsFactory,
                                    CacheExecutorService cacheExecutorService,
-                                   TbTransactionalCache<AttributeCacheKey, AttributeKvEntry> cache) {
+                                   TbTransactionalCache<AttributeCacheKey, AttributeKvEntry> cache,
+                                   TbTransactionalCache<AttributeScopeCacheKey, AttributeScopeCacheValue> scopeCache) {
         this.attributesDao = attributesDao;
         this.jpaExecutorService = jpaExecutorService;
         this.cacheExecutorService = cacheExecutorService;
         this.cache = cache;
+        this.scopeCache = scopeCache;
 
         this.hitCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "hit");
         this.missCounter = statsFactory.createDefaultCounter(STATS_NAME, "result", "miss");
@@ -224,8 +230,31 @@ public class CachedAttributesService implements AttributesService {
     @Override
     public ListenableFuture<List<AttributeKvEntry>> findAll(TenantId tenantId, EntityId entityId, AttributeScope scope) {
         validate(entityId, scope);
-        // We can`t watch on cache because the keys are unknown.
-        return jpaExecutorService.submit(() -> attributesDao.findAll(tenantId, entityId, scope));
+        if (!isScopeCacheEnabled()) {
+            return jpaExecutorService.submit(() -> attributesDao.findAll(tenantId, entityId, scope));
+        }
+        AttributeScopeCacheKey scopeCacheKey = new AttributeScopeCacheKey(scope, entityId);
+        return Futures.transformAsync(cacheExecutor.submit(() -> scopeCache.get(scopeCacheKey)), cachedScope -> {
+            if (cachedScope != null) {
+                hitCounter.increment();
+                return Futures.immediateFuture(new ArrayList<>(cachedScope.get().getAttributes()));
+            }
+            missCounter.increment();
+            // DB call should run in DB executor, not in cache-related executor
+            return jpaExecutorService.submit(() -> {
+                var cacheTransaction = scopeCache.newTransactionForKey(scopeCacheKey);
+                try {
+                    List<AttributeKvEntry> result = attributesDao.findAll(tenantId, entityId, scope);
+                    cacheTransaction.putIfAbsent(scopeCacheKey, new AttributeScopeCacheValue(new ArrayList<>(result)));
+                    cacheTransaction.commit();
+                    return result;
+                } catch (Throwable e) {
+                    cacheTransaction.rollback();
+                    log.debug("Could not find all attributes from cache: [{}] [{}]", entityId, scope, e);
+                    throw e;
+                }
+            });
+        }, MoreExecutors.directExecutor());
     }
 
     @Override
@@ -262,7 +291,11 @@ public class CachedAttributesService implements AttributesService {
         validate(entityId, scope);
         AttributeUtils.validate(attribute, valueNoXssValidation);
         ListenableFuture<String> future = attributesDao.save(tenantId, entityId, scope, attribute);
-        return Futures.transform(future, key -> evict(entityId, scope, attribute, key), cacheExecutor);
+        return Futures.transform(future, key -> {
+            evict(entityId, scope, attribute, key);
+            evictScope(entityId, scope);
+            return key;
+        }, cacheExecutor);
     }
 
     @Override
@@ -281,7 +314,10 @@ public class CachedAttributesService implements AttributesService {
             futures.add(Futures.transform(future, key -> evict(entityId, scope, attribute, key), cacheExecutor));
         }
 
-        return Futures.allAsList(futures);
+        return Futures.transform(Futures.allAsList(futures), keys -> {
+            evictScope(entityId, scope);
+            return keys;
+        }, cacheExecutor);
     }
 
     private String evict(EntityId entityId, AttributeScope scope, AttributeKvEntry attribute, String key) {
@@ -291,6 +327,22 @@ public class CachedAttributesService implements AttributesService {
         return key;
     }
 
+    private boolean isScopeCacheEnabled() {
+        return scopeCacheMaxSize > 0;
+    }
+
+    /**
+     * The scope entry holds the attribute values, so it is dropped on every save.
+     * The eviction also fails any concurrent findAll that may have loaded the attributes before the save.
+     */
+    private void evictScope(EntityId entityId, AttributeScope scope) {
+        if (!isScopeCacheEnabled()) {
+            return;
+        }
+        scopeCache.evict(new AttributeScopeCacheKey(scope, entityId));
+        log.trace("[{}][{}] Evicted attribute scope cache", entityId, scope);
+    }
+
     @Override
     public ListenableFuture<List<String>> removeAll(TenantId tenantId, EntityId entityId, String scope, List<String> attributeKeys) {
         return removeAll(tenantId, entityId, AttributeScope.valueOf(scope), attributeKeys);
@@ -300,23 +352,51 @@ public class CachedAttributesService implements AttributesService {
     public ListenableFuture<List<String>> removeAll(TenantId tenantId, EntityId entityId, AttributeScope scope, List<String> attributeKeys) {
         validate(entityId, scope);
         List<ListenableFuture<String>> futures = attributesDao.removeAll(tenantId, entityId, scope, attributeKeys);
-        return Futures.allAsList(futures.stream().map(future -> Futures.transform(future, key -> {
+        return Futures.transform(Futures.allAsList(futures.stream().map(future -> Futures.transform(future, key -> {
             cache.evict(new AttributeCacheKey(scope, entityId, key));
             return key;
-        }, cacheExecutor)).collect(Collectors.toList()));
+        }, cacheExecutor)).collect(Collectors.toList())), keys -> {
+            evictScope(entityId, scope);
+            return keys;
+        }, cacheExecutor);
     }
 
     @Override
     public int removeAllByEntityId(TenantId tenantId, EntityId entityId) {
         List<Pair<AttributeScope, String>> result = attributesDao.removeAllByEntityId(tenantId, entityId);
+        Set<AttributeScope> scopes = new HashSet<>();
         result.forEach(deleted -> {
             AttributeScope scope = deleted.getKey();
             String key = deleted.getValue();
             if (scope != null && key != null) {
                 cache.evict(new AttributeCacheKey(scope, entityId, key));
+                scopes.add(scope);
             }
         });
+        scopes.forEach(scope -> evictScope(entityId, scope));
         return result.size();
     }
 
+    @Override
+    public int removeAllByEntityIds(TenantId tenantId, List<EntityId> entityIds) {
+        Map<UUID, EntityId> entityIdsMap = entityIds.stream().collect(Collectors.toMap(EntityId::getId, entityId -> entityId, (a, b) -> a));
+        Map<UUID, List<Pair<AttributeScope, String>>> result = attributesDao.removeAllByEntityIds(tenantId, new ArrayList<>(entityIdsMap.keySet()));
+        int count = 0;
+        for (Map.Entry<UUID, List<Pair<AttributeScope, String>>> entry : result.entrySet()) {
+            EntityId entityId = entityIdsMap.get(entry.getKey());
+            Set<AttributeScope> scopes = new HashSet<>();
+            for (Pair<AttributeScope, String> deleted : entry.getValue()) {
+                AttributeScope scope = deleted.getKey();
+                String key = deleted.getValue();
+                if (scope != null && key != null) {
+                    cache.evict(new AttributeCacheKey(scope, entityId, key));
+                    scopes.add(scope);
+                }
+            }
+            scopes.forEach(scope -> evictScope(entityId, scope));
+            count += entry.getValue().size();
+        }
+        return count;
+    }
+
 }
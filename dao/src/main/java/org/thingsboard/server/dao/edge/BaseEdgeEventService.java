@@ -38,6 +38,7 @@ import org.thingsboard.server.common.msg.tools.TbRateLimitsException;
 import org.thingsboard.server.dao.eventsourcing.SaveEntityEvent;
 import org.thingsboard.server.dao.service.DataValidator;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -97,6 +98,11 @@ public class BaseEdgeEventService implements EdgeEventService {
         return edgeEventDao.findEdgeEvents(tenantId.getId(), edgeId, seqIdStart, seqIdEnd, pageLink);
     }
 
+    @Override
+    public List<EdgeEvent> findEdgeEventsAfter(TenantId tenantId, EdgeId edgeId, long startTime, long endTime, long seqIdStart, Long seqIdEnd, int limit) {
+        return edgeEventDao.findEdgeEventsAfter(tenantId.getId(), edgeId, startTime, endTime, seqIdStart, seqIdEnd, limit);
+    }
+
     @Override
     public void cleanupEvents(long ttl) {
         edgeEventDao.cleanupEvents(ttl);
@@ -22,6 +22,7 @@ import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.TimePageLink;
 import org.thingsboard.server.dao.Dao;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -50,6 +51,20 @@ public interface EdgeEventDao extends Dao<EdgeEvent> {
      */
     PageData<EdgeEvent> findEdgeEvents(UUID tenantId, EdgeId edgeId, Long seqIdStart, Long seqIdEnd, TimePageLink pageLink);
 
+    /**
+     * Find edge events with seq id greater than the seq id start using keyset pagination.
+     *
+     * @param tenantId   the tenantId
+     * @param edgeId     the edgeId
+     * @param startTime  the min created time of the events
+     * @param endTime    the max created time of the events
+     * @param seqIdStart the seq id of the last read event
+     * @param seqIdEnd   the seq id end, optional
+     * @param limit      the max number of the events
+     * @return the event list ordered by seq id
+     */
+    List<EdgeEvent> findEdgeEventsAfter(UUID tenantId, EdgeId edgeId, long startTime, long endTime, long seqIdStart, Long seqIdEnd, int limit);
+
     /**
      * Executes stored procedure to cleanup old edge events.
      * @param ttl the ttl for edge events in seconds
@@ -131,6 +131,11 @@ public class BaseEventService implements EventService {
         }
     }
 
+    @Override
+    public void removeEvents(TenantId tenantId, List<EntityId> entityIds, long startTime, long endTime) {
+        eventDao.removeEvents(tenantId.getId(), entityIds.stream().map(EntityId::getId).toList(), startTime, endTime);
+    }
+
     @Override
     public void cleanupEvents(long regularEventExpTs, long debugEventExpTs, boolean cleanupDb) {
         eventDao.cleanupEvents(regularEventExpTs, debugEventExpTs, cleanupDb);
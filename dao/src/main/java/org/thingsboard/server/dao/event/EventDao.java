@@ -89,6 +89,17 @@ public interface EventDao {
      */
     void removeEvents(UUID tenantId, UUID entityId, Long startTime, Long endTime);
 
+    /**
+     * Removes all events for the specified entities and time interval,
+     * using one statement per event table partition
+     *
+     * @param tenantId
+     * @param entityIds
+     * @param startTime
+     * @param endTime
+     */
+    void removeEvents(UUID tenantId, List<UUID> entityIds, long startTime, long endTime);
+
     /**
      *
      * Removes all events for the specified entity, event filter and time interval
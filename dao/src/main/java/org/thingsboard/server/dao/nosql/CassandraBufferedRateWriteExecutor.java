@@ -25,6 +25,7 @@ import org.springframework.stereotype.Component;
 import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.dao.util.AbstractBufferedRateExecutor;
+import org.thingsboard.server.dao.util.AdaptiveConcurrencyLimiter;
 import org.thingsboard.server.dao.util.AsyncTaskContext;
 import org.thingsboard.server.dao.util.NoSqlAnyDao;
 import org.thingsboard.server.cache.limits.RateLimitService;
@@ -43,7 +44,13 @@ public class CassandraBufferedRateWriteExecutor extends AbstractBufferedRateExec
 
     public CassandraBufferedRateWriteExecutor(
             @Value("${cassandra.query.buffer_size}") int queueLimit,
+            @Value("${cassandra.query.tenant_buffer_size:0}") int tenantQueueLimit,
             @Value("${cassandra.query.concurrent_limit}") int concurrencyLimit,
+            @Value("${cassandra.query.adaptive_concurrency.enabled:false}") boolean adaptiveConcurrencyEnabled,
+            @Value("${cassandra.query.adaptive_concurrency.min_limit:20}") int minConcurrencyLimit,
+            @Value("${cassandra.query.adaptive_concurrency.initial_limit:100}") int initialConcurrencyLimit,
+            @Value("${cassandra.query.adaptive_concurrency.latency_threshold_ms:1000}") long latencyThresholdMs,
+            @Value("${cassandra.query.adaptive_concurrency.backoff_ratio:0.9}") double backoffRatio,
             @Value("${cassandra.query.permit_max_wait_time}") long maxWaitTime,
             @Value("${cassandra.query.dispatcher_threads:2}") int dispatcherThreads,
             @Value("${cassandra.query.callback_threads:4}") int callbackThreads,
@@ -53,8 +60,9 @@ public class CassandraBufferedRateWriteExecutor extends AbstractBufferedRateExec
             @Autowired StatsFactory statsFactory,
             @Autowired EntityService entityService,
             @Autowired RateLimitService rateLimitService) {
-        super(queueLimit, concurrencyLimit, maxWaitTime, dispatcherThreads, callbackThreads, pollMs, printQueriesFreq, statsFactory,
-                entityService, rateLimitService, printTenantNames);
+        super(queueLimit, tenantQueueLimit, concurrencyLimit, adaptiveConcurrencyEnabled ?
+                        new AdaptiveConcurrencyLimiter(minConcurrencyLimit, concurrencyLimit, initialConcurrencyLimit, latencyThresholdMs, backoffRatio) : null,
+                maxWaitTime, dispatcherThreads, callbackThreads, pollMs, printQueriesFreq, statsFactory, entityService, rateLimitService, printTenantNames);
     }
 
     @Scheduled(fixedDelayString = "${cassandra.query.rate_limit_print_interval_ms}")
@@ -26,8 +26,16 @@ import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.dao.Dao;
 
+import java.util.List;
+
 public interface NotificationDao extends Dao<Notification> {
 
+    /**
+     * Inserts new notifications with a single batch statement.
+     * Ids and created time are assigned to the notifications that don't have them yet.
+     */
+    List<Notification> saveAll(TenantId tenantId, List<Notification> notifications);
+
     PageData<Notification> findUnreadByDeliveryMethodAndRecipientIdAndPageLink(TenantId tenantId, NotificationDeliveryMethod deliveryMethod, UserId recipientId, PageLink pageLink);
 
     PageData<Notification> findByDeliveryMethodAndRecipientIdAndPageLink(TenantId tenantId, NotificationDeliveryMethod deliveryMethod, UserId recipientId, PageLink pageLink);
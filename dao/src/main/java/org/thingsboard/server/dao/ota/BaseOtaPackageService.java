@@ -15,8 +15,6 @@
  */
 package org.thingsboard.server.dao.ota;
 
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.ListenableFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +32,7 @@ import org.thingsboard.server.common.data.id.HasId;
 import org.thingsboard.server.common.data.id.OtaPackageId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.ota.ChecksumAlgorithm;
+import org.thingsboard.server.common.data.ota.OtaPackageUtil;
 import org.thingsboard.server.common.data.ota.OtaPackageType;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
@@ -131,29 +130,7 @@ public class BaseOtaPackageService extends AbstractCachedEntityService<OtaPackag
             throw new DataValidationException("OtaPackage data should be specified!");
         }
 
-        return getHashFunction(checksumAlgorithm).hashBytes(data.array()).toString();
-    }
-
-    @SuppressWarnings("deprecation")
-    private HashFunction getHashFunction(ChecksumAlgorithm checksumAlgorithm) {
-        switch (checksumAlgorithm) {
-            case MD5:
-                return Hashing.md5();
-            case SHA256:
-                return Hashing.sha256();
-            case SHA384:
-                return Hashing.sha384();
-            case SHA512:
-                return Hashing.sha512();
-            case CRC32:
-                return Hashing.crc32();
-            case MURMUR3_32:
-                return Hashing.murmur3_32();
-            case MURMUR3_128:
-                return Hashing.murmur3_128();
-            default:
-                throw new DataValidationException("Unknown checksum algorithm!");
-        }
+        return OtaPackageUtil.getHashFunction(checksumAlgorithm).hashBytes(data.array()).toString();
     }
 
     @Override
@@ -83,6 +83,7 @@ public class BaseRelationService implements RelationService {
     private final ApplicationEventPublisher eventPublisher;
     private final JpaExecutorService executor;
     private final JpaRelationQueryExecutorService relationsExecutor;
+    private final RelationGraphIndex graphIndex;
     protected ScheduledExecutorService timeoutExecutorService;
 
     @Value("${sql.relations.query_timeout:20}")
@@ -91,13 +92,14 @@ public class BaseRelationService implements RelationService {
     public BaseRelationService(RelationDao relationDao, @Lazy EntityService entityService,
                                TbTransactionalCache<RelationCacheKey, RelationCacheValue> cache,
                                ApplicationEventPublisher eventPublisher, JpaExecutorService executor,
-                               JpaRelationQueryExecutorService relationsExecutor) {
+                               JpaRelationQueryExecutorService relationsExecutor, RelationGraphIndex graphIndex) {
         this.relationDao = relationDao;
         this.entityService = entityService;
         this.cache = cache;
         this.eventPublisher = eventPublisher;
         this.executor = executor;
         this.relationsExecutor = relationsExecutor;
+        this.graphIndex = graphIndex;
     }
 
     @PostConstruct
@@ -121,6 +123,7 @@ public class BaseRelationService implements RelationService {
         keys.add(new RelationCacheKey(null, event.getTo(), event.getType(), event.getTypeGroup(), EntitySearchDirection.TO));
         keys.add(new RelationCacheKey(null, event.getTo(), null, event.getTypeGroup(), EntitySearchDirection.TO));
         cache.evict(keys);
+        graphIndex.onRelationChange(event);
         log.debug("Processed evict event: {}", event);
     }
 
@@ -128,6 +131,9 @@ public class BaseRelationService implements RelationService {
     public ListenableFuture<Boolean> checkRelationAsync(TenantId tenantId, EntityId from, EntityId to, String relationType, RelationTypeGroup typeGroup) {
         log.trace("Executing checkRelationAsync [{}][{}][{}][{}]", from, to, relationType, typeGroup);
         validate(from, to, relationType, typeGroup);
+        if (graphIndex.isEnabled()) {
+            return executor.submit(() -> checkRelation(tenantId, from, to, relationType, typeGroup));
+        }
         return relationDao.checkRelationAsync(tenantId, from, to, relationType, typeGroup);
     }
 
@@ -135,6 +141,10 @@ public class BaseRelationService implements RelationService {
     public boolean checkRelation(TenantId tenantId, EntityId from, EntityId to, String relationType, RelationTypeGroup typeGroup) {
         log.trace("Executing checkRelation [{}][{}][{}][{}]", from, to, relationType, typeGroup);
         validate(from, to, relationType, typeGroup);
+        if (graphIndex.isEnabled()) {
+            return graphIndex.checkRelation(tenantId, from, to, relationType, typeGroup,
+                    () -> relationDao.findAllByFrom(tenantId, from, typeGroup));
+        }
         return relationDao.checkRelation(tenantId, from, to, relationType, typeGroup);
     }
 
@@ -157,7 +167,7 @@ public class BaseRelationService implements RelationService {
         log.trace("Executing saveRelation [{}]", relation);
         validate(relation);
         var result = relationDao.saveRelation(tenantId, relation);
-        publishEvictEvent(EntityRelationEvent.from(relation));
+        publishEvictEvent(EntityRelationEvent.from(tenantId, relation));
         eventPublisher.publishEvent(new RelationActionEvent(tenantId, relation, ActionType.RELATION_ADD_OR_UPDATE));
         return result;
     }
@@ -172,7 +182,7 @@ public class BaseRelationService implements RelationService {
             relationDao.saveRelations(tenantId, partition);
         }
         for (EntityRelation relation : relations) {
-            publishEvictEvent(EntityRelationEvent.from(relation));
+            publishEvictEvent(EntityRelationEvent.from(tenantId, relation));
             eventPublisher.publishEvent(new RelationActionEvent(tenantId, relation, ActionType.RELATION_ADD_OR_UPDATE));
         }
     }
@@ -183,7 +193,7 @@ public class BaseRelationService implements RelationService {
         validate(relation);
         var future = relationDao.saveRelationAsync(tenantId, relation);
         future.addListener(() -> {
-            handleEvictEvent(EntityRelationEvent.from(relation));
+            handleEvictEvent(EntityRelationEvent.from(tenantId, relation));
             eventPublisher.publishEvent(new RelationActionEvent(tenantId, relation, ActionType.RELATION_ADD_OR_UPDATE));
         }, MoreExecutors.directExecutor());
         return future;
@@ -195,7 +205,7 @@ public class BaseRelationService implements RelationService {
         validate(relation);
         var result = relationDao.deleteRelation(tenantId, relation);
         //TODO: evict cache only if the relation was deleted. Note: relationDao.deleteRelation requires improvement.
-        publishEvictEvent(EntityRelationEvent.from(relation));
+        publishEvictEvent(EntityRelationEvent.from(tenantId, relation));
         eventPublisher.publishEvent(new RelationActionEvent(tenantId, relation, ActionType.RELATION_DELETED));
         return result;
     }
@@ -206,7 +216,7 @@ public class BaseRelationService implements RelationService {
         validate(relation);
         var future = relationDao.deleteRelationAsync(tenantId, relation);
         future.addListener(() -> {
-            handleEvictEvent(EntityRelationEvent.from(relation));
+            handleEvictEvent(EntityRelationEvent.from(tenantId, relation));
             eventPublisher.publishEvent(new RelationActionEvent(tenantId, relation, ActionType.RELATION_DELETED));
         }, MoreExecutors.directExecutor());
         return future;
@@ -219,7 +229,7 @@ public class BaseRelationService implements RelationService {
         var result = relationDao.deleteRelation(tenantId, from, to, relationType, typeGroup);
         //TODO: evict cache only if the relation was deleted. Note: relationDao.deleteRelation requires improvement.
         EntityRelation entityRelation = new EntityRelation(from, to, relationType, typeGroup);
-        publishEvictEvent(EntityRelationEvent.from(entityRelation));
+        publishEvictEvent(EntityRelationEvent.from(tenantId, entityRelation));
         eventPublisher.publishEvent(new RelationActionEvent(tenantId, entityRelation, ActionType.RELATION_DELETED));
         return result;
     }
@@ -229,7 +239,7 @@ public class BaseRelationService implements RelationService {
         log.trace("Executing deleteRelationAsync [{}][{}][{}][{}]", from, to, relationType, typeGroup);
         validate(from, to, relationType, typeGroup);
         var future = relationDao.deleteRelationAsync(tenantId, from, to, relationType, typeGroup);
-        EntityRelationEvent event = new EntityRelationEvent(from, to, relationType, typeGroup);
+        EntityRelationEvent event = new EntityRelationEvent(tenantId, from, to, relationType, typeGroup);
         future.addListener(() -> handleEvictEvent(event), MoreExecutors.directExecutor());
         return future;
     }
@@ -269,7 +279,7 @@ public class BaseRelationService implements RelationService {
             }
 
             for (EntityRelation relation : inboundRelations) {
-                eventPublisher.publishEvent(EntityRelationEvent.from(relation));
+                eventPublisher.publishEvent(EntityRelationEvent.from(tenantId, relation));
             }
         }
 
@@ -281,7 +291,7 @@ public class BaseRelationService implements RelationService {
             }
 
             for (EntityRelation relation : outboundRelations) {
-                eventPublisher.publishEvent(EntityRelationEvent.from(relation));
+                eventPublisher.publishEvent(EntityRelationEvent.from(tenantId, relation));
             }
         }
     }
@@ -298,11 +308,11 @@ public class BaseRelationService implements RelationService {
         if (deleteFromDb) {
             return Futures.transform(relationDao.deleteRelationAsync(tenantId, relation),
                     bool -> {
-                        handleEvictEvent(EntityRelationEvent.from(relation));
+                        handleEvictEvent(EntityRelationEvent.from(tenantId, relation));
                         return bool;
                     }, MoreExecutors.directExecutor());
         } else {
-            handleEvictEvent(EntityRelationEvent.from(relation));
+            handleEvictEvent(EntityRelationEvent.from(tenantId, relation));
             return Futures.immediateFuture(false);
         }
     }
@@ -311,6 +321,9 @@ public class BaseRelationService implements RelationService {
     public List<EntityRelation> findByFrom(TenantId tenantId, EntityId from, RelationTypeGroup typeGroup) {
         validate(from);
         validateTypeGroup(typeGroup);
+        if (graphIndex.isEnabled()) {
+            return graphIndex.findByFrom(tenantId, from, typeGroup, null, () -> relationDao.findAllByFrom(tenantId, from, typeGroup));
+        }
         RelationCacheKey cacheKey = RelationCacheKey.builder().from(from).typeGroup(typeGroup).direction(EntitySearchDirection.FROM).build();
         return cache.getAndPutInTransaction(cacheKey,
                 () -> relationDao.findAllByFrom(tenantId, from, typeGroup),
@@ -324,6 +337,10 @@ public class BaseRelationService implements RelationService {
         validate(from);
         validateTypeGroup(typeGroup);
 
+        if (graphIndex.isEnabled()) {
+            return findByIndexAsync(tenantId, from, EntitySearchDirection.FROM, null, typeGroup);
+        }
+
         var cacheValue = cache.get(RelationCacheKey.builder().from(from).typeGroup(typeGroup).direction(EntitySearchDirection.FROM).build());
 
         if (cacheValue != null && cacheValue.get() != null) {
@@ -354,6 +371,9 @@ public class BaseRelationService implements RelationService {
 
     @Override
     public List<EntityRelation> findByFromAndType(TenantId tenantId, EntityId from, String relationType, RelationTypeGroup typeGroup) {
+        if (graphIndex.isEnabled()) {
+            return graphIndex.findByFrom(tenantId, from, typeGroup, relationType, () -> relationDao.findAllByFrom(tenantId, from, typeGroup));
+        }
         RelationCacheKey cacheKey = RelationCacheKey.builder().from(from).type(relationType).typeGroup(typeGroup).direction(EntitySearchDirection.FROM).build();
         return cache.getAndPutInTransaction(cacheKey,
                 () -> relationDao.findAllByFromAndType(tenantId, from, relationType, typeGroup),
@@ -367,6 +387,9 @@ public class BaseRelationService implements RelationService {
         validate(from);
         validateType(relationType);
         validateTypeGroup(typeGroup);
+        if (graphIndex.isEnabled()) {
+            return findByIndexAsync(tenantId, from, EntitySearchDirection.FROM, relationType, typeGroup);
+        }
         return executor.submit(() -> findByFromAndType(tenantId, from, relationType, typeGroup));
     }
 
@@ -374,6 +397,9 @@ public class BaseRelationService implements RelationService {
     public List<EntityRelation> findByTo(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup) {
         validate(to);
         validateTypeGroup(typeGroup);
+        if (graphIndex.isEnabled()) {
+            return graphIndex.findByTo(tenantId, to, typeGroup, null, () -> relationDao.findAllByTo(tenantId, to, typeGroup));
+        }
         RelationCacheKey cacheKey = RelationCacheKey.builder().to(to).typeGroup(typeGroup).direction(EntitySearchDirection.TO).build();
         return cache.getAndPutInTransaction(cacheKey,
                 () -> relationDao.findAllByTo(tenantId, to, typeGroup),
@@ -387,6 +413,9 @@ public class BaseRelationService implements RelationService {
         log.trace("Executing findByToAsync [{}][{}]", to, typeGroup);
         validate(to);
         validateTypeGroup(typeGroup);
+        if (graphIndex.isEnabled()) {
+            return findByIndexAsync(tenantId, to, EntitySearchDirection.TO, null, typeGroup);
+        }
         return executor.submit(() -> findByTo(tenantId, to, typeGroup));
     }
 
@@ -423,6 +452,9 @@ public class BaseRelationService implements RelationService {
         validate(to);
         validateType(relationType);
         validateTypeGroup(typeGroup);
+        if (graphIndex.isEnabled()) {
+            return graphIndex.findByTo(tenantId, to, typeGroup, relationType, () -> relationDao.findAllByTo(tenantId, to, typeGroup));
+        }
         RelationCacheKey cacheKey = RelationCacheKey.builder().to(to).type(relationType).typeGroup(typeGroup).direction(EntitySearchDirection.TO).build();
         return cache.getAndPutInTransaction(cacheKey,
                 () -> relationDao.findAllByToAndType(tenantId, to, relationType, typeGroup),
@@ -437,6 +469,9 @@ public class BaseRelationService implements RelationService {
         validate(to);
         validateType(relationType);
         validateTypeGroup(typeGroup);
+        if (graphIndex.isEnabled()) {
+            return findByIndexAsync(tenantId, to, EntitySearchDirection.TO, relationType, typeGroup);
+        }
         return executor.submit(() -> findByToAndType(tenantId, to, relationType, typeGroup));
     }
 
@@ -644,6 +679,13 @@ public class BaseRelationService implements RelationService {
         if (lvl == 0) {
             return Futures.immediateFuture(Collections.emptySet());
         }
+        if (graphIndex.isEnabled()) {
+            RelationTypeGroup typeGroup = relationTypeGroup != null ? relationTypeGroup : RelationTypeGroup.COMMON;
+            ListenableFuture<Set<EntityRelation>> future = relationsExecutor.submit(() -> graphIndex.findRelationsRecursively(tenantId, rootId, direction,
+                    typeGroup, lvl, fetchLastLevelOnly, entityId -> direction == EntitySearchDirection.FROM ?
+                            relationDao.findAllByFrom(tenantId, entityId, typeGroup) : relationDao.findAllByTo(tenantId, entityId, typeGroup)));
+            return Futures.withTimeout(future, relationQueryTimeout, TimeUnit.SECONDS, timeoutExecutorService);
+        }
         var relationQueueCtx = new RelationQueueCtx(tenantId, direction, relationTypeGroup, fetchLastLevelOnly, lvl, uniqueMap);
         relationQueueCtx.tasks.add(new RelationTask(1, rootId, Collections.emptyList()));
         relationsExecutor.submit(() -> processQueue(relationQueueCtx));
@@ -664,6 +706,21 @@ public class BaseRelationService implements RelationService {
         return relations;
     }
 
+    private ListenableFuture<List<EntityRelation>> findByIndexAsync(TenantId tenantId, EntityId entityId, EntitySearchDirection direction,
+                                                                    String relationType, RelationTypeGroup typeGroup) {
+        List<EntityRelation> relations = graphIndex.findLoaded(tenantId, entityId, direction, typeGroup, relationType);
+        if (relations != null) {
+            return Futures.immediateFuture(relations);
+        }
+        if (direction == EntitySearchDirection.FROM) {
+            return executor.submit(() -> graphIndex.findByFrom(tenantId, entityId, typeGroup, relationType,
+                    () -> relationDao.findAllByFrom(tenantId, entityId, typeGroup)));
+        } else {
+            return executor.submit(() -> graphIndex.findByTo(tenantId, entityId, typeGroup, relationType,
+                    () -> relationDao.findAllByTo(tenantId, entityId, typeGroup)));
+        }
+    }
+
     private void publishEvictEvent(EntityRelationEvent event) {
         if (TransactionSynchronizationManager.isActualTransactionActive()) {
             eventPublisher.publishEvent(event);
@@ -0,0 +1,128 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.relation;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Optional in-memory index of the relation graph, one {@link TenantRelationGraph} per tenant.
+ * Kept in sync by {@link EntityRelationEvent}s of the local node and relation graph notifications of other nodes.
+ */
+@Component
+@Slf4j
+public class RelationGraphIndex {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConcurrentMap<TenantId, TenantRelationGraph> graphs = new ConcurrentHashMap<>();
+
+    @Getter
+    @Value("${cache.relationsGraph.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cache.relationsGraph.maxEntitiesPerTenant:100000}")
+    private int maxEntitiesPerTenant;
+
+    public RelationGraphIndex(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    public List<EntityRelation> findByFrom(TenantId tenantId, EntityId from, RelationTypeGroup typeGroup, String relationType,
+                                           Supplier<List<EntityRelation>> loader) {
+        return getGraph(tenantId).findRelations(from, EntitySearchDirection.FROM, typeGroup, relationType, loader);
+    }
+
+    public List<EntityRelation> findByTo(TenantId tenantId, EntityId to, RelationTypeGroup typeGroup, String relationType,
+                                         Supplier<List<EntityRelation>> loader) {
+        return getGraph(tenantId).findRelations(to, EntitySearchDirection.TO, typeGroup, relationType, loader);
+    }
+
+    /**
+     * Returns relations only if the node is already present in the index, without hitting the database.
+     */
+    public List<EntityRelation> findLoaded(TenantId tenantId, EntityId entityId, EntitySearchDirection direction,
+                                           RelationTypeGroup typeGroup, String relationType) {
+        return getGraph(tenantId).findLoadedRelations(entityId, direction, typeGroup, relationType);
+    }
+
+    public Set<EntityRelation> findRelationsRecursively(TenantId tenantId, EntityId rootId, EntitySearchDirection direction, RelationTypeGroup typeGroup,
+                                                        int maxLevel, boolean fetchLastLevelOnly, Function<EntityId, List<EntityRelation>> loader) {
+        return getGraph(tenantId).findRelationsRecursively(rootId, direction, typeGroup, maxLevel, fetchLastLevelOnly, loader);
+    }
+
+    public boolean checkRelation(TenantId tenantId, EntityId from, EntityId to, String relationType, RelationTypeGroup typeGroup,
+                                 Supplier<List<EntityRelation>> loader) {
+        return getGraph(tenantId).containsRelation(from, to, relationType, typeGroup, loader);
+    }
+
+    public void onRelationChange(EntityRelationEvent event) {
+        if (!enabled || event.getTenantId() == null) {
+            return;
+        }
+        evict(event.getTenantId(), event.getFrom(), event.getTo(), event.getTypeGroup());
+        eventPublisher.publishEvent(new RelationGraphEvictEvent(event.getTenantId(), event.getFrom(), event.getTo(), event.getTypeGroup()));
+    }
+
+    public void evict(TenantId tenantId, EntityId from, EntityId to, RelationTypeGroup typeGroup) {
+        if (!enabled) {
+            return;
+        }
+        TenantRelationGraph graph = graphs.get(tenantId);
+        if (graph != null) {
+            graph.evict(from, to, typeGroup);
+            log.trace("[{}] Evicted relation graph nodes [{}][{}][{}]", tenantId, from, to, typeGroup);
+        }
+    }
+
+    public long getMemoryUsage(TenantId tenantId) {
+        TenantRelationGraph graph = graphs.get(tenantId);
+        return graph != null ? graph.getMemoryUsage() : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${cache.relationsGraph.statsPrintIntervalMs:60000}")
+    public void printStats() {
+        if (!enabled || graphs.isEmpty()) {
+            return;
+        }
+        long totalMemoryUsage = 0;
+        for (TenantRelationGraph graph : graphs.values()) {
+            totalMemoryUsage += graph.getMemoryUsage();
+            log.debug("[{}] Relation graph index: nodes [{}], memory usage [{}] bytes", graph.getTenantId(), graph.getNodesCount(), graph.getMemoryUsage());
+        }
+        log.info("Relation graph index: tenants [{}], memory usage [{}] bytes", graphs.size(), totalMemoryUsage);
+    }
+
+    private TenantRelationGraph getGraph(TenantId tenantId) {
+        return graphs.computeIfAbsent(tenantId, id -> new TenantRelationGraph(id, maxEntitiesPerTenant));
+    }
+
+}
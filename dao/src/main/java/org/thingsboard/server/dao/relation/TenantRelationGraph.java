@@ -0,0 +1,306 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.relation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.Getter;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Adjacency-list view of the relations of a single tenant.
+ * <p>
+ * Each (entity, direction, type group) node keeps its edges in primitive arrays: the UUID of the related entity
+ * as a pair of longs, the entity type ordinal and the interned relation type. Nodes are loaded lazily, dropped
+ * on every change of a relation they participate in and evicted by size once the per-tenant limit is reached.
+ */
+public class TenantRelationGraph {
+
+    private static final EntityType[] ENTITY_TYPES = EntityType.values();
+    private static final int NODE_OVERHEAD_BYTES = 96;
+    private static final int EDGE_BYTES = Long.BYTES * 2 + Byte.BYTES + Integer.BYTES + 4;
+
+    @Getter
+    private final TenantId tenantId;
+
+    private final Cache<NodeKey, Adjacency> nodes;
+    private final Map<String, Integer> typeIds = new ConcurrentHashMap<>();
+    private final List<String> types = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong memoryUsage = new AtomicLong();
+
+    public TenantRelationGraph(TenantId tenantId, int maxNodes) {
+        this.tenantId = tenantId;
+        this.nodes = Caffeine.newBuilder()
+                .maximumSize(maxNodes)
+                .executor(Runnable::run)
+                .removalListener((NodeKey key, Adjacency adjacency, RemovalCause cause) -> {
+                    if (adjacency != null) {
+                        memoryUsage.addAndGet(-adjacency.getMemoryUsage());
+                    }
+                })
+                .build();
+    }
+
+    public List<EntityRelation> findRelations(EntityId entityId, EntitySearchDirection direction, RelationTypeGroup typeGroup,
+                                              String relationType, Supplier<List<EntityRelation>> loader) {
+        Adjacency adjacency = getOrLoad(entityId, direction, typeGroup, loader);
+        int typeId;
+        if (relationType == null) {
+            typeId = -1;
+        } else {
+            Integer id = typeIds.get(relationType);
+            if (id == null) {
+                return Collections.emptyList();
+            }
+            typeId = id;
+        }
+        return adjacency.toRelations(entityId, direction, typeGroup, typeId, types);
+    }
+
+    public List<EntityRelation> findLoadedRelations(EntityId entityId, EntitySearchDirection direction, RelationTypeGroup typeGroup,
+                                                    String relationType) {
+        Adjacency adjacency = nodes.getIfPresent(new NodeKey(entityId, direction, typeGroup));
+        if (adjacency == null) {
+            return null;
+        }
+        int typeId = -1;
+        if (relationType != null) {
+            Integer id = typeIds.get(relationType);
+            if (id == null) {
+                return Collections.emptyList();
+            }
+            typeId = id;
+        }
+        return adjacency.toRelations(entityId, direction, typeGroup, typeId, types);
+    }
+
+    public boolean containsRelation(EntityId from, EntityId to, String relationType, RelationTypeGroup typeGroup,
+                                    Supplier<List<EntityRelation>> loader) {
+        Adjacency adjacency = getOrLoad(from, EntitySearchDirection.FROM, typeGroup, loader);
+        Integer typeId = typeIds.get(relationType);
+        if (typeId == null) {
+            return false;
+        }
+        UUID toId = to.getId();
+        return adjacency.contains(toId.getMostSignificantBits(), toId.getLeastSignificantBits(), to.getEntityType(), typeId);
+    }
+
+    /**
+     * Breadth-first traversal with the same semantics as the relations query of the relation service:
+     * every related entity is expanded once, up to {@code maxLevel} levels from the root.
+     */
+    public Set<EntityRelation> findRelationsRecursively(EntityId rootId, EntitySearchDirection direction, RelationTypeGroup typeGroup,
+                                                        int maxLevel, boolean fetchLastLevelOnly, Function<EntityId, List<EntityRelation>> loader) {
+        Set<EntityRelation> result = new HashSet<>();
+        Set<EntityId> visited = new HashSet<>();
+        Queue<TraversalStep> steps = new ArrayDeque<>();
+        steps.add(new TraversalStep(rootId, 1, Collections.emptyList()));
+        TraversalStep step;
+        while ((step = steps.poll()) != null) {
+            EntityId entityId = step.entityId();
+            List<EntityRelation> relations = findRelations(entityId, direction, typeGroup, null, () -> loader.apply(entityId));
+            Map<EntityId, List<EntityRelation>> children = new LinkedHashMap<>();
+            for (EntityRelation relation : relations) {
+                EntityId childId = direction == EntitySearchDirection.FROM ? relation.getTo() : relation.getFrom();
+                if (visited.add(childId)) {
+                    children.put(childId, new ArrayList<>());
+                }
+                if (fetchLastLevelOnly) {
+                    List<EntityRelation> childRelations = children.get(childId);
+                    if (childRelations != null) {
+                        childRelations.add(relation);
+                    }
+                }
+            }
+            if (fetchLastLevelOnly) {
+                if (relations.isEmpty()) {
+                    result.addAll(step.prevRelations());
+                } else if (step.level() == maxLevel) {
+                    result.addAll(relations);
+                }
+            } else {
+                result.addAll(relations);
+            }
+            if (step.level() < maxLevel) {
+                int nextLevel = step.level() + 1;
+                children.forEach((childId, childRelations) -> steps.add(new TraversalStep(childId, nextLevel, childRelations)));
+            }
+        }
+        return result;
+    }
+
+    public void evict(EntityId from, EntityId to, RelationTypeGroup typeGroup) {
+        version.incrementAndGet();
+        if (from != null) {
+            nodes.invalidate(new NodeKey(from, EntitySearchDirection.FROM, typeGroup));
+        }
+        if (to != null) {
+            nodes.invalidate(new NodeKey(to, EntitySearchDirection.TO, typeGroup));
+        }
+    }
+
+    public long getNodesCount() {
+        nodes.cleanUp();
+        return nodes.estimatedSize();
+    }
+
+    public long getMemoryUsage() {
+        return memoryUsage.get();
+    }
+
+    private Adjacency getOrLoad(EntityId entityId, EntitySearchDirection direction, RelationTypeGroup typeGroup,
+                                Supplier<List<EntityRelation>> loader) {
+        NodeKey key = new NodeKey(entityId, direction, typeGroup);
+        Adjacency adjacency = nodes.getIfPresent(key);
+        if (adjacency != null) {
+            return adjacency;
+        }
+        long loadVersion = version.get();
+        adjacency = toAdjacency(loader.get(), direction);
+        memoryUsage.addAndGet(adjacency.getMemoryUsage());
+        if (nodes.asMap().putIfAbsent(key, adjacency) != null) {
+            memoryUsage.addAndGet(-adjacency.getMemoryUsage());
+        } else if (version.get() != loadVersion) {
+            // A relation of this tenant was changed while loading, so the loaded data may be stale
+            nodes.asMap().remove(key, adjacency);
+        }
+        return adjacency;
+    }
+
+    private Adjacency toAdjacency(List<EntityRelation> relations, EntitySearchDirection direction) {
+        int size = relations.size();
+        long[] msb = new long[size];
+        long[] lsb = new long[size];
+        byte[] entityTypes = new byte[size];
+        int[] relationTypes = new int[size];
+        JsonNode[] additionalInfo = null;
+        long additionalInfoBytes = 0;
+        for (int i = 0; i < size; i++) {
+            EntityRelation relation = relations.get(i);
+            EntityId related = direction == EntitySearchDirection.FROM ? relation.getTo() : relation.getFrom();
+            msb[i] = related.getId().getMostSignificantBits();
+            lsb[i] = related.getId().getLeastSignificantBits();
+            entityTypes[i] = (byte) related.getEntityType().ordinal();
+            relationTypes[i] = internType(relation.getType());
+            if (relation.getAdditionalInfo() != null) {
+                if (additionalInfo == null) {
+                    additionalInfo = new JsonNode[size];
+                }
+                additionalInfo[i] = relation.getAdditionalInfo();
+                // approximated by the length of the serialized JSON
+                additionalInfoBytes += relation.getAdditionalInfo().toString().length();
+            }
+        }
+        return new Adjacency(msb, lsb, entityTypes, relationTypes, additionalInfo, additionalInfoBytes);
+    }
+
+    private int internType(String type) {
+        return typeIds.computeIfAbsent(type, t -> {
+            synchronized (types) {
+                types.add(t);
+                return types.size() - 1;
+            }
+        });
+    }
+
+    private record NodeKey(EntityId entityId, EntitySearchDirection direction, RelationTypeGroup typeGroup) {
+    }
+
+    private record TraversalStep(EntityId entityId, int level, List<EntityRelation> prevRelations) {
+    }
+
+    private static final class Adjacency {
+
+        private final long[] msb;
+        private final long[] lsb;
+        private final byte[] entityTypes;
+        private final int[] relationTypes;
+        private final JsonNode[] additionalInfo;
+        private final long additionalInfoBytes;
+
+        private Adjacency(long[] msb, long[] lsb, byte[] entityTypes, int[] relationTypes, JsonNode[] additionalInfo, long additionalInfoBytes) {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.entityTypes = entityTypes;
+            this.relationTypes = relationTypes;
+            this.additionalInfo = additionalInfo;
+            this.additionalInfoBytes = additionalInfoBytes;
+        }
+
+        private boolean contains(long toMsb, long toLsb, EntityType toType, int typeId) {
+            for (int i = 0; i < msb.length; i++) {
+                if (msb[i] == toMsb && lsb[i] == toLsb && relationTypes[i] == typeId && entityTypes[i] == toType.ordinal()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<EntityRelation> toRelations(EntityId self, EntitySearchDirection direction, RelationTypeGroup typeGroup,
+                                                 int typeId, List<String> types) {
+            List<EntityRelation> result = new ArrayList<>(typeId < 0 ? msb.length : 4);
+            for (int i = 0; i < msb.length; i++) {
+                if (typeId >= 0 && relationTypes[i] != typeId) {
+                    continue;
+                }
+                EntityId related = EntityIdFactory.getByTypeAndUuid(ENTITY_TYPES[entityTypes[i]], new UUID(msb[i], lsb[i]));
+                JsonNode info = additionalInfo != null ? additionalInfo[i] : null;
+                String type = types.get(relationTypes[i]);
+                if (direction == EntitySearchDirection.FROM) {
+                    result.add(new EntityRelation(self, related, type, typeGroup, info));
+                } else {
+                    result.add(new EntityRelation(related, self, type, typeGroup, info));
+                }
+            }
+            return result;
+        }
+
+        private long getMemoryUsage() {
+            long memoryUsage = NODE_OVERHEAD_BYTES + (long) EDGE_BYTES * msb.length;
+            if (additionalInfo != null) {
+                memoryUsage += (long) Integer.BYTES * additionalInfo.length + additionalInfoBytes;
+            }
+            return memoryUsage;
+        }
+
+    }
+
+}
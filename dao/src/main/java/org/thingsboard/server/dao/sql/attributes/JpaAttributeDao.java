@@ -25,6 +25,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import org.thingsboard.server.common.data.AttributeScope;
@@ -48,8 +49,11 @@ import org.thingsboard.server.dao.util.SqlDao;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -58,6 +62,8 @@ import java.util.stream.Collectors;
 @SqlDao
 public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService implements AttributesDao {
 
+    private static final int REMOVE_ENTITIES_CHUNK_SIZE = 100;
+
     @Autowired
     ScheduledLogExecutorComponent logExecutor;
 
@@ -216,6 +222,25 @@ public class JpaAttributeDao extends JpaAbstractDaoListeningExecutorService impl
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Map<UUID, List<Pair<AttributeScope, String>>> removeAllByEntityIds(TenantId tenantId, List<UUID> entityIds) {
+        Map<UUID, List<Pair<AttributeScope, String>>> deleted = new HashMap<>();
+        // removing in chunks of entities, each in its own transaction
+        for (List<UUID> chunk : Lists.partition(entityIds, REMOVE_ENTITIES_CHUNK_SIZE)) {
+            removeAllByEntityIds(chunk, deleted);
+        }
+        return deleted;
+    }
+
+    private void removeAllByEntityIds(List<UUID> entityIds, Map<UUID, List<Pair<AttributeScope, String>>> deleted) {
+        jdbcTemplate.query("DELETE FROM attribute_kv WHERE entity_id = ANY(?) " +
+                        "RETURNING entity_id, attribute_type, attribute_key",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", entityIds.toArray())),
+                (RowCallbackHandler) rs -> deleted.computeIfAbsent(rs.getObject(ModelConstants.ENTITY_ID_COLUMN, UUID.class), id -> new ArrayList<>())
+                        .add(Pair.of(AttributeScope.valueOf(rs.getInt(ModelConstants.ATTRIBUTE_TYPE_COLUMN)),
+                                keyDictionaryDao.getKey(rs.getInt(ModelConstants.ATTRIBUTE_KEY_COLUMN)))));
+    }
+
     private AttributeKvCompositeKey getAttributeKvCompositeKey(EntityId entityId, Integer attributeType, Integer attributeKey) {
         return new AttributeKvCompositeKey(
                 entityId.getId(),
@@ -23,6 +23,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.thingsboard.server.dao.model.sql.EdgeEventEntity;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface EdgeEventRepository extends JpaRepository<EdgeEventEntity, UUID>, JpaSpecificationExecutor<EdgeEventEntity> {
@@ -44,4 +45,21 @@ public interface EdgeEventRepository extends JpaRepository<EdgeEventEntity, UUID
                                                             @Param("seqIdStart") Long seqIdStart,
                                                             @Param("seqIdEnd") Long seqIdEnd,
                                                             Pageable pageable);
+
+    @Query("SELECT e FROM EdgeEventEntity e WHERE " +
+            "e.tenantId = :tenantId " +
+            "AND e.edgeId = :edgeId " +
+            "AND e.createdTime >= :startTime " +
+            "AND e.createdTime <= :endTime " +
+            "AND e.seqId > :seqIdStart " +
+            "AND (:seqIdEnd IS NULL OR e.seqId < :seqIdEnd) " +
+            "ORDER BY e.seqId ASC"
+    )
+    List<EdgeEventEntity> findEdgeEventsAfterSeqId(@Param("tenantId") UUID tenantId,
+                                                   @Param("edgeId") UUID edgeId,
+                                                   @Param("startTime") long startTime,
+                                                   @Param("endTime") long endTime,
+                                                   @Param("seqIdStart") long seqIdStart,
+                                                   @Param("seqIdEnd") Long seqIdEnd,
+                                                   Pageable pageable);
 }
@@ -22,6 +22,7 @@ import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
@@ -193,6 +194,20 @@ public class JpaBaseEdgeEventDao extends JpaPartitionedAbstractDao<EdgeEventEnti
                                 DaoUtil.toPageable(pageLink, sortOrders)));
     }
 
+    @Override
+    public List<EdgeEvent> findEdgeEventsAfter(UUID tenantId, EdgeId edgeId, long startTime, long endTime, long seqIdStart, Long seqIdEnd, int limit) {
+        return DaoUtil.convertDataList(
+                edgeEventRepository
+                        .findEdgeEventsAfterSeqId(
+                                tenantId,
+                                edgeId.getId(),
+                                startTime,
+                                endTime,
+                                seqIdStart,
+                                seqIdEnd,
+                                PageRequest.of(0, limit)));
+    }
+
     @Override
     public void cleanupEvents(long ttl) {
         partitioningRepository.dropPartitionsBefore(TABLE_NAME, ttl, TimeUnit.HOURS.toMillis(partitionSizeInHours));
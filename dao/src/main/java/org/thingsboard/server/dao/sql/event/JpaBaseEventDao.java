@@ -22,6 +22,7 @@ import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.event.ErrorEventFilter;
@@ -89,6 +90,9 @@ public class JpaBaseEventDao implements EventDao {
     @Autowired
     private RuleChainDebugEventRepository ruleChainDebugEventRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     ScheduledLogExecutorComponent logExecutor;
 
@@ -196,6 +200,36 @@ public class JpaBaseEventDao implements EventDao {
         }
     }
 
+    @Override
+    public void removeEvents(UUID tenantId, List<UUID> entityIds, long startTime, long endTime) {
+        log.debug("[{}] Remove events of {} entities [{}-{}] ", tenantId, entityIds.size(), startTime, endTime);
+        for (EventType eventType : EventType.values()) {
+            String table = eventType.getTable();
+            long partitionDurationMs = partitionConfiguration.getPartitionSizeInMs(eventType);
+            List<Long> partitions = partitioningRepository.fetchPartitions(table);
+            if (partitions.isEmpty()) {
+                removeEvents(table, tenantId, entityIds, startTime, endTime);
+                continue;
+            }
+            for (Long partitionStartTime : partitions) {
+                long from = Math.max(startTime, partitionStartTime);
+                long to = Math.min(endTime, partitionStartTime + partitionDurationMs - 1);
+                if (from <= to) {
+                    removeEvents(table, tenantId, entityIds, from, to);
+                }
+            }
+        }
+    }
+
+    private void removeEvents(String table, UUID tenantId, List<UUID> entityIds, long startTime, long endTime) {
+        jdbcTemplate.update("DELETE FROM " + table + " WHERE tenant_id = ? AND entity_id = ANY(?) AND ts >= ? AND ts <= ?", ps -> {
+            ps.setObject(1, tenantId);
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", entityIds.toArray()));
+            ps.setLong(3, startTime);
+            ps.setLong(4, endTime);
+        });
+    }
+
     @Override
     public void removeEvents(UUID tenantId, UUID entityId, EventFilter eventFilter, Long startTime, Long endTime) {
         if (eventFilter.isNotEmpty()) {
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.dao.sql.notification;
 
+import com.datastax.oss.driver.api.core.uuid.Uuids;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -37,6 +38,8 @@ import org.thingsboard.server.dao.sql.JpaPartitionedAbstractDao;
 import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
 import org.thingsboard.server.dao.util.SqlDao;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -47,10 +50,28 @@ public class JpaNotificationDao extends JpaPartitionedAbstractDao<NotificationEn
 
     private final NotificationRepository notificationRepository;
     private final SqlPartitioningRepository partitioningRepository;
+    private final NotificationInsertRepository notificationInsertRepository;
 
     @Value("${sql.notifications.partition_size:168}")
     private int partitionSizeInHours;
 
+    @Override
+    public List<Notification> saveAll(TenantId tenantId, List<Notification> notifications) {
+        List<NotificationEntity> entities = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            NotificationEntity entity = new NotificationEntity(notification);
+            if (entity.getUuid() == null) {
+                UUID uuid = Uuids.timeBased();
+                entity.setUuid(uuid);
+                entity.setCreatedTime(Uuids.unixTimestamp(uuid));
+            }
+            createPartition(entity);
+            entities.add(entity);
+        }
+        notificationInsertRepository.save(entities);
+        return DaoUtil.convertDataList(entities);
+    }
+
     @Override
     public PageData<Notification> findUnreadByDeliveryMethodAndRecipientIdAndPageLink(TenantId tenantId, NotificationDeliveryMethod deliveryMethod, UserId recipientId, PageLink pageLink) {
         return DaoUtil.toPageData(notificationRepository.findByDeliveryMethodAndRecipientIdAndStatusNot(deliveryMethod,
@@ -0,0 +1,353 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.query.AbstractDataQuery;
+import org.thingsboard.server.common.data.query.ComplexFilterPredicate;
+import org.thingsboard.server.common.data.query.EntityCountQuery;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.FilterPredicateValue;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.KeyFilterPredicate;
+import org.thingsboard.server.common.data.query.SimpleKeyFilterPredicate;
+import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.dao.eventsourcing.ActionEntityEvent;
+import org.thingsboard.server.dao.eventsourcing.DeleteEntityEvent;
+import org.thingsboard.server.dao.eventsourcing.RelationActionEvent;
+import org.thingsboard.server.dao.eventsourcing.SaveEntityEvent;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches results of entity data and entity count queries, so that identical queries
+ * (e.g. from many users viewing the same dashboard) hit the database once.
+ * <p>
+ * Cached results of a tenant are invalidated by any entity or relation change of the tenant,
+ * and by latest value changes of the keys that the query selects, filters or sorts by.
+ * Results are additionally expired after the configured ttl, since changes made on other nodes are not tracked.
+ */
+@Slf4j
+@Component
+public class EntityDataQueryCache {
+
+    @Getter
+    @Value("${sql.entity_data_query_cache.enabled:false}")
+    private boolean enabled;
+    @Value("${sql.entity_data_query_cache.max_size:10000}")
+    private long maxSize;
+    @Value("${sql.entity_data_query_cache.ttl_ms:5000}")
+    private long ttlMs;
+    @Value("${sql.entity_data_query_cache.stats_print_interval_ms:60000}")
+    private long statsPrintIntervalMs;
+
+    @Autowired
+    private ScheduledLogExecutorComponent logExecutor;
+
+    private Cache<QueryKey, CachedResult> cache;
+    private final ConcurrentMap<QueryKey, CompletableFuture<Object>> pendingQueries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TenantId, TenantVersions> tenantVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong savedTimeMs = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .build();
+        logExecutor.scheduleAtFixedRate(this::printStats, statsPrintIntervalMs, statsPrintIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public PageData<EntityData> findEntityData(TenantId tenantId, CustomerId customerId, EntityDataQuery query, Supplier<PageData<EntityData>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        PageData<EntityData> result = get(new QueryKey(tenantId, customerId, EntityDataQuery.class, JacksonUtil.toString(query), getResolvedValues(query)), getKeys(query), loader);
+        return copy(result);
+    }
+
+    public long countEntities(TenantId tenantId, CustomerId customerId, EntityCountQuery query, Supplier<Long> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return get(new QueryKey(tenantId, customerId, EntityCountQuery.class, JacksonUtil.toString(query), getResolvedValues(query)), getKeys(query), loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(QueryKey key, Set<String> keys, Supplier<T> loader) {
+        TenantVersions versions = tenantVersions.computeIfAbsent(key.getTenantId(), id -> new TenantVersions());
+        CachedResult cached = cache.getIfPresent(key);
+        if (cached != null && versions.isValid(cached.getVersion())) {
+            hits.incrementAndGet();
+            savedTimeMs.addAndGet(cached.getLoadTimeMs());
+            return (T) cached.getResult();
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> pending = pendingQueries.putIfAbsent(key, future);
+        if (pending != null) {
+            coalesced.incrementAndGet();
+            try {
+                return (T) pending.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            // taking the snapshot before running the query, so that changes made during the query invalidate the result
+            Map<String, Long> version = versions.snapshot(keys);
+            long startTs = System.currentTimeMillis();
+            T result = loader.get();
+            cache.put(key, new CachedResult(result, version, System.currentTimeMillis() - startTs));
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingQueries.remove(key, future);
+        }
+    }
+
+    public void onLatestUpdate(TenantId tenantId, Collection<String> keys) {
+        if (!enabled) {
+            return;
+        }
+        TenantVersions versions = tenantVersions.get(tenantId);
+        if (versions != null) {
+            keys.forEach(versions::onKeyUpdate);
+        }
+    }
+
+    public void onEntitiesUpdate(TenantId tenantId) {
+        if (!enabled) {
+            return;
+        }
+        if (tenantId == null || tenantId.isSysTenantId()) {
+            tenantVersions.values().forEach(TenantVersions::onEntitiesUpdate);
+        } else {
+            TenantVersions versions = tenantVersions.get(tenantId);
+            if (versions != null) {
+                versions.onEntitiesUpdate();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleEvent(SaveEntityEvent<?> event) {
+        onEntitiesUpdate(event.getTenantId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleEvent(DeleteEntityEvent<?> event) {
+        onEntitiesUpdate(event.getTenantId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleEvent(ActionEntityEvent<?> event) {
+        onEntitiesUpdate(event.getTenantId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleEvent(RelationActionEvent event) {
+        onEntitiesUpdate(event.getTenantId());
+    }
+
+    private void printStats() {
+        long hits = this.hits.getAndSet(0);
+        long misses = this.misses.getAndSet(0);
+        long coalesced = this.coalesced.getAndSet(0);
+        long savedTimeMs = this.savedTimeMs.getAndSet(0);
+        long total = hits + misses + coalesced;
+        if (total > 0) {
+            log.info("Entity data query cache stats: queries [{}], hits [{}], coalesced [{}], misses [{}], hit rate [{}%], saved db time [{}] ms",
+                    total, hits, coalesced, misses, (hits + coalesced) * 100 / total, savedTimeMs);
+        }
+    }
+
+    private static Set<String> getKeys(EntityCountQuery query) {
+        Set<String> keys = new HashSet<>();
+        if (query.getKeyFilters() != null) {
+            for (KeyFilter keyFilter : query.getKeyFilters()) {
+                addKey(keys, keyFilter.getKey());
+            }
+            // dynamic filter values are resolved from attributes of the current tenant, customer or user
+            JsonNode keyFilters = JacksonUtil.valueToTree(query.getKeyFilters());
+            keyFilters.findValuesAsText("sourceAttribute").forEach(keys::add);
+        }
+        if (query instanceof AbstractDataQuery<?> dataQuery) {
+            addKeys(keys, dataQuery.getEntityFields());
+            addKeys(keys, dataQuery.getLatestValues());
+            if (dataQuery.getPageLink() != null && dataQuery.getPageLink().getSortOrder() != null) {
+                addKey(keys, dataQuery.getPageLink().getSortOrder().getKey());
+            }
+        }
+        return keys;
+    }
+
+    /*
+     * Resolved values of dynamic filter values (e.g. an attribute of the current user or device) are not serialized
+     * to JSON, but they differ between users and devices that run the same query, so they are part of the cache key.
+     */
+    private static List<Object> getResolvedValues(EntityCountQuery query) {
+        List<Object> values = new ArrayList<>();
+        if (query.getKeyFilters() != null) {
+            for (KeyFilter keyFilter : query.getKeyFilters()) {
+                addResolvedValues(values, keyFilter.getPredicate());
+            }
+        }
+        return values;
+    }
+
+    private static void addResolvedValues(List<Object> values, KeyFilterPredicate predicate) {
+        if (predicate instanceof ComplexFilterPredicate complexPredicate) {
+            if (complexPredicate.getPredicates() != null) {
+                complexPredicate.getPredicates().forEach(child -> addResolvedValues(values, child));
+            }
+        } else if (predicate instanceof SimpleKeyFilterPredicate<?> simplePredicate) {
+            FilterPredicateValue<?> value = simplePredicate.getValue();
+            if (value != null && value.getDynamicValue() != null) {
+                values.add(value.getDynamicValue().getResolvedValue());
+            }
+        }
+    }
+
+    private static void addKeys(Set<String> keys, List<EntityKey> entityKeys) {
+        if (entityKeys != null) {
+            entityKeys.forEach(entityKey -> addKey(keys, entityKey));
+        }
+    }
+
+    private static void addKey(Set<String> keys, EntityKey entityKey) {
+        if (entityKey != null && entityKey.getType() != EntityKeyType.ENTITY_FIELD) {
+            keys.add(entityKey.getKey());
+        }
+    }
+
+    // the subscriptions update the latest values of the returned entity data in place
+    private static PageData<EntityData> copy(PageData<EntityData> pageData) {
+        List<EntityData> data = pageData.getData().stream().map(entityData -> {
+            Map<EntityKeyType, Map<String, TsValue>> latest = null;
+            if (entityData.getLatest() != null) {
+                latest = new HashMap<>();
+                for (Map.Entry<EntityKeyType, Map<String, TsValue>> entry : entityData.getLatest().entrySet()) {
+                    latest.put(entry.getKey(), new HashMap<>(entry.getValue()));
+                }
+            }
+            return new EntityData(entityData.getEntityId(), latest,
+                    entityData.getTimeseries() != null ? new HashMap<>(entityData.getTimeseries()) : null,
+                    entityData.getAggLatest() != null ? new HashMap<>(entityData.getAggLatest()) : null);
+        }).toList();
+        return new PageData<>(data, pageData.getTotalPages(), pageData.getTotalElements(), pageData.hasNext());
+    }
+
+    @lombok.Value
+    private static class QueryKey {
+        TenantId tenantId;
+        CustomerId customerId;
+        Class<?> queryType;
+        String query;
+        List<Object> resolvedValues;
+    }
+
+    @lombok.Value
+    private static class CachedResult {
+        Object result;
+        Map<String, Long> version;
+        long loadTimeMs;
+    }
+
+    private static class TenantVersions {
+
+        private static final String ENTITIES = "";
+
+        private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+        TenantVersions() {
+            versions.put(ENTITIES, new AtomicLong());
+        }
+
+        Map<String, Long> snapshot(Set<String> keys) {
+            Map<String, Long> snapshot = new HashMap<>();
+            snapshot.put(ENTITIES, versions.get(ENTITIES).get());
+            for (String key : keys) {
+                snapshot.put(key, versions.computeIfAbsent(key, k -> new AtomicLong()).get());
+            }
+            return snapshot;
+        }
+
+        boolean isValid(Map<String, Long> snapshot) {
+            for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                if (versions.get(entry.getKey()).get() != entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void onKeyUpdate(String key) {
+            AtomicLong version = versions.get(key);
+            if (version != null) {
+                version.incrementAndGet();
+            }
+        }
+
+        void onEntitiesUpdate() {
+            versions.get(ENTITIES).incrementAndGet();
+        }
+
+    }
+
+}
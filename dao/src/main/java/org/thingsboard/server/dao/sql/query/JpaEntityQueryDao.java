@@ -31,13 +31,18 @@ public class JpaEntityQueryDao implements EntityQueryDao {
     @Autowired
     private EntityQueryRepository entityQueryRepository;
 
+    @Autowired
+    private EntityDataQueryCache entityDataQueryCache;
+
     @Override
     public long countEntitiesByQuery(TenantId tenantId, CustomerId customerId, EntityCountQuery query) {
-        return entityQueryRepository.countEntitiesByQuery(tenantId, customerId, query);
+        return entityDataQueryCache.countEntities(tenantId, customerId, query,
+                () -> entityQueryRepository.countEntitiesByQuery(tenantId, customerId, query));
     }
 
     @Override
     public PageData<EntityData> findEntityDataByQuery(TenantId tenantId, CustomerId customerId, EntityDataQuery query) {
-        return entityQueryRepository.findEntityDataByQuery(tenantId, customerId, query);
+        return entityDataQueryCache.findEntityData(tenantId, customerId, query,
+                () -> entityQueryRepository.findEntityDataByQuery(tenantId, customerId, query));
     }
 }
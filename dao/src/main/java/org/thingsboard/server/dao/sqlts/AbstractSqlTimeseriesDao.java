@@ -23,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
@@ -69,6 +70,26 @@ public abstract class AbstractSqlTimeseriesDao extends BaseAbstractSqlTimeseries
     @Value("${sql.ttl.ts.ts_key_value_ttl:0}")
     private long systemTtl;
 
+    protected ListenableFuture<Void> removeAll(List<EntityId> entityIds, int keyId, DeleteTsKvQuery query) {
+        return service.submit(() -> {
+            Object[] ids = entityIds.stream().map(EntityId::getId).toArray();
+            // removing range by range, so that each statement and its transaction only touch a single partition or chunk
+            for (TsRemovalRange range : getRemovalRanges(query.getStartTs(), query.getEndTs())) {
+                jdbcTemplate.update("DELETE FROM " + range.table() + " WHERE entity_id = ANY(?) AND key = ? AND ts >= ? AND ts < ?", ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids));
+                    ps.setInt(2, keyId);
+                    ps.setLong(3, range.startTs());
+                    ps.setLong(4, range.endTs());
+                });
+            }
+            return null;
+        });
+    }
+
+    protected abstract List<TsRemovalRange> getRemovalRanges(long startTs, long endTs);
+
+    public record TsRemovalRange(String table, long startTs, long endTs) {}
+
     public void cleanup(long systemTtl) {
         log.info("Going to cleanup old timeseries data using ttl: {}s", systemTtl);
         try (Connection connection = dataSource.getConnection();
@@ -134,8 +134,7 @@ public class SqlPartitioningRepository {
 
     public List<Long> fetchPartitions(String table) {
         List<Long> partitions = new ArrayList<>();
-        List<String> partitionsTables = jdbcTemplate.queryForList(SELECT_PARTITIONS_STMT, String.class, table);
-        for (String partitionTableName : partitionsTables) {
+        for (String partitionTableName : fetchPartitionTables(table)) {
             String partitionTsStr = partitionTableName.substring(table.length() + 1);
             try {
                 partitions.add(Long.parseLong(partitionTsStr));
@@ -146,6 +145,10 @@ public class SqlPartitioningRepository {
         return partitions;
     }
 
+    public List<String> fetchPartitionTables(String table) {
+        return jdbcTemplate.queryForList(SELECT_PARTITIONS_STMT, String.class, table);
+    }
+
     public long calculatePartitionStartTime(long ts, long partitionDuration) {
         return ts - (ts % partitionDuration);
     }
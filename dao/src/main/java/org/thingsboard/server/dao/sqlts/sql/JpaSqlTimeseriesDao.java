@@ -19,6 +19,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
 import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -40,10 +41,16 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -108,6 +115,49 @@ public class JpaSqlTimeseriesDao extends AbstractChunkedAggregationTimeseriesDao
         super.cleanup(systemTtl);
     }
 
+    @Override
+    protected List<TsRemovalRange> getRemovalRanges(long startTs, long endTs) {
+        List<TsRemovalRange> ranges = new ArrayList<>();
+        for (String partitionTable : partitioningRepository.fetchPartitionTables(SqlPartition.TS_KV)) {
+            String partitionDate = partitionTable.substring(SqlPartition.TS_KV.length() + 1);
+            if (partitionDate.equals(SqlTsPartitionDate.INDEFINITE.getPattern())) {
+                // the default partition may hold data of any time range
+                ranges.add(new TsRemovalRange(partitionTable, startTs, endTs));
+                continue;
+            }
+            parsePartitionStart(partitionDate).ifPresent(partitionStart -> {
+                long from = Math.max(startTs, toMills(partitionStart.getValue()));
+                long to = Math.min(endTs, toMills(partitionStart.getKey().plusTo(partitionStart.getValue())));
+                if (from < to) {
+                    ranges.add(new TsRemovalRange(partitionTable, from, to));
+                }
+            });
+        }
+        return ranges;
+    }
+
+    /*
+     * Partitions created with a previous partitioning setting are kept,
+     * so the partition date is matched against all the formats
+     * */
+    private static Optional<Pair<SqlTsPartitionDate, LocalDateTime>> parsePartitionStart(String partitionDate) {
+        for (SqlTsPartitionDate format : SqlTsPartitionDate.values()) {
+            if (format == SqlTsPartitionDate.INDEFINITE) {
+                continue;
+            }
+            DateTimeFormatter formatter = new DateTimeFormatterBuilder()
+                    .appendPattern(format.getPattern())
+                    .parseDefaulting(ChronoField.MONTH_OF_YEAR, 1)
+                    .parseDefaulting(ChronoField.DAY_OF_MONTH, 1)
+                    .toFormatter();
+            try {
+                return Optional.of(Pair.of(format, LocalDate.parse(partitionDate, formatter).atStartOfDay()));
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return Optional.empty();
+    }
+
     private void cleanupPartitions(long systemTtl) {
         log.info("Going to cleanup old timeseries data partitions using partition type: {} and ttl: {}s", partitioning, systemTtl);
         try (Connection connection = dataSource.getConnection();
@@ -149,6 +149,19 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
         });
     }
 
+    @Override
+    public ListenableFuture<Void> remove(TenantId tenantId, List<EntityId> entityIds, DeleteTsKvQuery query) {
+        return removeAll(entityIds, keyDictionaryDao.getOrSaveKeyId(query.getKey()), query);
+    }
+
+    @Override
+    protected List<TsRemovalRange> getRemovalRanges(long startTs, long endTs) {
+        return jdbcTemplate.query("SELECT range_start_integer, range_end_integer FROM timescaledb_information.chunks " +
+                        "WHERE hypertable_name = 'ts_kv' AND range_end_integer > ? AND range_start_integer < ? ORDER BY range_start_integer",
+                (rs, rowNum) -> new TsRemovalRange("ts_kv", Math.max(startTs, rs.getLong(1)), Math.min(endTs, rs.getLong(2))),
+                startTs, endTs);
+    }
+
     @Override
     public ListenableFuture<ReadTsKvQueryResult> findAllAsync(TenantId tenantId, EntityId entityId, ReadTsKvQuery query) {
         var aggParams = query.getAggParameters();
@@ -242,6 +242,20 @@ public class BaseTimeseriesService implements TimeseriesService {
         return Futures.allAsList(futures);
     }
 
+    @Override
+    public ListenableFuture<Void> remove(TenantId tenantId, List<EntityId> entityIds, DeleteTsKvQuery query) {
+        entityIds.forEach(BaseTimeseriesService::validate);
+        validate(query);
+        List<ListenableFuture<?>> futures = new ArrayList<>(entityIds.size() + 1);
+        futures.add(timeseriesDao.remove(tenantId, entityIds, query));
+        if (query.getDeleteLatest()) {
+            for (EntityId entityId : entityIds) {
+                futures.add(timeseriesLatestDao.removeLatest(tenantId, entityId, query));
+            }
+        }
+        return Futures.transform(Futures.allAsList(futures), v -> null, MoreExecutors.directExecutor());
+    }
+
     @Override
     public ListenableFuture<List<TsKvLatestRemovingResult>> removeLatest(TenantId tenantId, EntityId entityId, Collection<String> keys) {
         validate(entityId);
@@ -28,6 +28,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -66,6 +67,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -121,6 +123,17 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
     @Value("${cassandra.query.set_null_values_enabled}")
     private boolean setNullValuesEnabled;
 
+    @Value("${cassandra.query.ts_batch.enabled:false}")
+    private boolean tsBatchEnabled;
+
+    @Value("${cassandra.query.ts_batch.window_ms:10}")
+    private long tsBatchWindowMs;
+
+    @Value("${cassandra.query.ts_batch.max_size:20}")
+    private int tsBatchMaxSize;
+
+    private CassandraTsWriteBatcher tsWriteBatcher;
+
     private NoSqlTsPartitionDate tsFormat;
 
     private PreparedStatement partitionInsertStmt;
@@ -154,10 +167,16 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
             log.warn("Incorrect configuration of partitioning {}", partitioning);
             throw new RuntimeException("Failed to parse partitioning property: " + partitioning + "!");
         }
+        if (tsBatchEnabled && !isInstall()) {
+            tsWriteBatcher = new CassandraTsWriteBatcher(tsBatchMaxSize, tsBatchWindowMs, this::executeAsyncWrite);
+        }
     }
 
     @PreDestroy
     public void stop() {
+        if (tsWriteBatcher != null) {
+            tsWriteBatcher.stop();
+        }
         super.stopExecutor();
     }
 
@@ -206,7 +225,11 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
             }
         }
         BoundStatement stmt = stmtBuilder.build();
-        futures.add(getFuture(executeAsyncWrite(tenantId, stmt), rs -> null));
+        if (tsWriteBatcher != null) {
+            futures.add(tsWriteBatcher.add(tenantId, new CassandraPartitionCacheKey(entityId, entryKey, partition), stmt));
+        } else {
+            futures.add(getFuture(executeAsyncWrite(tenantId, stmt), rs -> null));
+        }
         return Futures.transform(Futures.allAsList(futures), result -> dataPointDays, MoreExecutors.directExecutor());
     }
 
@@ -224,12 +247,25 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
             return doSavePartition(tenantId, entityId, key, ttl, partition);
         } else {
             CassandraPartitionCacheKey partitionSearchKey = new CassandraPartitionCacheKey(entityId, key, partition);
-            if (!cassandraTsPartitionsCache.has(partitionSearchKey)) {
+            CompletableFuture<Boolean> pendingInsert = new CompletableFuture<>();
+            CompletableFuture<Boolean> existingInsert = cassandraTsPartitionsCache.putIfAbsent(partitionSearchKey, pendingInsert);
+            if (existingInsert == null) {
                 ListenableFuture<Integer> result = doSavePartition(tenantId, entityId, key, ttl, partition);
-                Futures.addCallback(result, new CacheCallback<>(partitionSearchKey), MoreExecutors.directExecutor());
+                Futures.addCallback(result, new CacheCallback<>(partitionSearchKey, pendingInsert), MoreExecutors.directExecutor());
                 return result;
-            } else {
+            } else if (existingInsert.isDone() && !existingInsert.isCompletedExceptionally()) {
                 return Futures.immediateFuture(0);
+            } else {
+                // the same partition is being saved by a concurrent request, so we wait for it instead of inserting the partition again
+                SettableFuture<Integer> result = SettableFuture.create();
+                existingInsert.whenComplete((saved, t) -> {
+                    if (t != null) {
+                        result.setException(t);
+                    } else {
+                        result.set(0);
+                    }
+                });
+                return result;
             }
         }
     }
@@ -497,19 +533,22 @@ public class CassandraBaseTimeseriesDao extends AbstractCassandraBaseTimeseriesD
 
     private class CacheCallback<Void> implements FutureCallback<Void> {
         private final CassandraPartitionCacheKey key;
+        private final CompletableFuture<Boolean> pendingInsert;
 
-        private CacheCallback(CassandraPartitionCacheKey key) {
+        private CacheCallback(CassandraPartitionCacheKey key, CompletableFuture<Boolean> pendingInsert) {
             this.key = key;
+            this.pendingInsert = pendingInsert;
         }
 
         @Override
         public void onSuccess(Void result) {
-            cassandraTsPartitionsCache.put(key);
+            pendingInsert.complete(true);
         }
 
         @Override
         public void onFailure(Throwable t) {
-
+            cassandraTsPartitionsCache.invalidate(key);
+            pendingInsert.completeExceptionally(t);
         }
     }
 
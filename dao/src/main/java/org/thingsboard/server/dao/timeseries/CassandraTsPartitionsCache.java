@@ -32,12 +32,13 @@ public class CassandraTsPartitionsCache {
                 });
     }
 
-    public boolean has(CassandraPartitionCacheKey key) {
-        return partitionsCache.getIfPresent(key) != null;
-    }
-
-    public void put(CassandraPartitionCacheKey key) {
-        partitionsCache.put(key, CompletableFuture.completedFuture(true));
+    /**
+     * Registers the insert of the partition, that may be still in progress.
+     *
+     * @return the insert of the same partition that is already registered, or null if there is none
+     */
+    public CompletableFuture<Boolean> putIfAbsent(CassandraPartitionCacheKey key, CompletableFuture<Boolean> insert) {
+        return partitionsCache.asMap().putIfAbsent(key, insert);
     }
 
     public void invalidate(CassandraPartitionCacheKey key) {
@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Groups time series inserts bound for the same Cassandra partition (entity, key and partition)
+ * into UNLOGGED batches. A batch is sent when it reaches the max size or when the batching window ends.
+ * All statements of a batch share the partition key, so the batch is routed to a replica of that partition
+ * and doesn't add coordinator work compared to the individual inserts.
+ */
+@Slf4j
+class CassandraTsWriteBatcher {
+
+    private final int maxBatchSize;
+    private final BiFunction<TenantId, Statement<?>, ? extends ListenableFuture<?>> executor;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<CassandraPartitionCacheKey, Batch> batches = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
+
+    CassandraTsWriteBatcher(int maxBatchSize, long windowMs, BiFunction<TenantId, Statement<?>, ? extends ListenableFuture<?>> executor) {
+        this.maxBatchSize = maxBatchSize;
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("cassandra-ts-batch"));
+        this.scheduler.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    ListenableFuture<Void> add(TenantId tenantId, CassandraPartitionCacheKey partitionKey, BatchableStatement<?> stmt) {
+        SettableFuture<Void> future = SettableFuture.create();
+        Batch[] fullBatch = new Batch[1];
+        batches.compute(partitionKey, (key, batch) -> {
+            if (batch == null) {
+                batch = new Batch(tenantId);
+            }
+            batch.statements.add(stmt);
+            batch.futures.add(future);
+            if (batch.statements.size() >= maxBatchSize) {
+                fullBatch[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (fullBatch[0] != null) {
+            execute(fullBatch[0]);
+        }
+        if (stopped) {
+            // no scheduled flush is left to send the batch, e.g. the insert raced with the shutdown
+            flush();
+        }
+        return future;
+    }
+
+    void stop() {
+        stopped = true;
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    private void flush() {
+        for (CassandraPartitionCacheKey partitionKey : batches.keySet()) {
+            Batch batch = batches.remove(partitionKey);
+            if (batch != null) {
+                execute(batch);
+            }
+        }
+    }
+
+    private void execute(Batch batch) {
+        try {
+            Statement<?> stmt = batch.statements.size() == 1 ? batch.statements.get(0) :
+                    BatchStatement.newInstance(DefaultBatchType.UNLOGGED, batch.statements);
+            Futures.addCallback(executor.apply(batch.tenantId, stmt), new FutureCallback<Object>() {
+                @Override
+                public void onSuccess(Object result) {
+                    batch.futures.forEach(future -> future.set(null));
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    batch.futures.forEach(future -> future.setException(t));
+                }
+            }, MoreExecutors.directExecutor());
+        } catch (Throwable t) {
+            log.warn("[{}] Failed to execute batch of {} statements", batch.tenantId, batch.statements.size(), t);
+            batch.futures.forEach(future -> future.setException(t));
+        }
+    }
+
+    private static class Batch {
+        private final TenantId tenantId;
+        private final List<BatchableStatement<?>> statements = new ArrayList<>();
+        private final List<SettableFuture<Void>> futures = new ArrayList<>();
+
+        private Batch(TenantId tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+
+}
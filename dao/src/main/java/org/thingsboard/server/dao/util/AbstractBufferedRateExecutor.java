@@ -15,18 +15,24 @@
  */
 package org.thingsboard.server.dao.util;
 
+import com.datastax.oss.driver.api.core.DriverTimeoutException;
 import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.ColumnDefinition;
 import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
 import com.datastax.oss.driver.api.core.type.DataType;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
 import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.google.common.base.Throwables;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.ThingsBoardExecutors;
@@ -44,10 +50,8 @@ import org.thingsboard.server.dao.nosql.CassandraStatementTask;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -61,20 +65,24 @@ import java.util.regex.Matcher;
 public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extends ListenableFuture<V>, V> implements BufferedRateExecutor<T, F> {
 
     public static final String CONCURRENCY_LEVEL = "currBuffer";
+    public static final String CONCURRENCY_LIMIT = "limitBuffer";
 
     private final long maxWaitTime;
     private final long pollMs;
-    private final BlockingQueue<AsyncTaskContext<T, V>> queue;
+    private final TenantFairQueue<AsyncTaskContext<T, V>> queue;
     private final ExecutorService dispatcherExecutor;
     private final ExecutorService callbackExecutor;
     private final ScheduledExecutorService timeoutExecutor;
     private final int concurrencyLimit;
+    private final AdaptiveConcurrencyLimiter adaptiveLimiter;
     private final int printQueriesFreq;
 
     private final AtomicInteger printQueriesIdx = new AtomicInteger(0);
 
     protected final AtomicInteger concurrencyLevel;
     protected final BufferedRateExecutorStats stats;
+    private final Timer queueWaitTimer;
+    private final Timer latencyTimer;
 
     private final EntityService entityService;
     private final RateLimitService rateLimitService;
@@ -82,20 +90,27 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
     private final boolean printTenantNames;
     private final Map<TenantId, String> tenantNamesCache = new HashMap<>();
 
-    public AbstractBufferedRateExecutor(int queueLimit, int concurrencyLimit, long maxWaitTime, int dispatcherThreads,
-                                        int callbackThreads, long pollMs, int printQueriesFreq, StatsFactory statsFactory,
-                                        EntityService entityService, RateLimitService rateLimitService, boolean printTenantNames) {
+    public AbstractBufferedRateExecutor(int queueLimit, int tenantQueueLimit, int concurrencyLimit, AdaptiveConcurrencyLimiter adaptiveLimiter,
+                                        long maxWaitTime, int dispatcherThreads, int callbackThreads, long pollMs, int printQueriesFreq,
+                                        StatsFactory statsFactory, EntityService entityService, RateLimitService rateLimitService,
+                                        boolean printTenantNames) {
         this.maxWaitTime = maxWaitTime;
         this.pollMs = pollMs;
         this.concurrencyLimit = concurrencyLimit;
+        this.adaptiveLimiter = adaptiveLimiter;
         this.printQueriesFreq = printQueriesFreq;
-        this.queue = new LinkedBlockingDeque<>(queueLimit);
+        this.queue = new TenantFairQueue<>(queueLimit, tenantQueueLimit);
         this.dispatcherExecutor = Executors.newFixedThreadPool(dispatcherThreads, ThingsBoardThreadFactory.forName("nosql-" + getBufferName() + "-dispatcher"));
         this.callbackExecutor = ThingsBoardExecutors.newWorkStealingPool(callbackThreads, "nosql-" + getBufferName() + "-callback");
         this.timeoutExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("nosql-" + getBufferName() + "-timeout"));
         this.stats = new BufferedRateExecutorStats(statsFactory);
         String concurrencyLevelKey = StatsType.RATE_EXECUTOR.getName() + "." + CONCURRENCY_LEVEL + getBufferName(); //metric name may change with buffer name suffix
         this.concurrencyLevel = statsFactory.createGauge(concurrencyLevelKey, new AtomicInteger(0));
+        if (adaptiveLimiter != null) {
+            statsFactory.createGauge(StatsType.RATE_EXECUTOR.getName() + "." + CONCURRENCY_LIMIT + getBufferName(), adaptiveLimiter.getCurrentLimit());
+        }
+        this.queueWaitTimer = statsFactory.createTimer(StatsType.RATE_EXECUTOR.getName() + ".queueWait", "buffer", getBufferName());
+        this.latencyTimer = statsFactory.createTimer(StatsType.RATE_EXECUTOR.getName() + ".latency", "buffer", getBufferName());
 
         this.entityService = entityService;
         this.rateLimitService = rateLimitService;
@@ -127,7 +142,8 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
         if (!perTenantLimitReached) {
             try {
                 stats.getTotalAdded().increment();
-                queue.add(new AsyncTaskContext<>(UUID.randomUUID(), task, settableFuture, System.currentTimeMillis()));
+                queue.add(tenantId != null ? tenantId : TenantId.SYS_TENANT_ID,
+                        new AsyncTaskContext<>(UUID.randomUUID(), task, settableFuture, System.currentTimeMillis()));
             } catch (IllegalStateException e) {
                 stats.getTotalRejected().increment();
                 settableFuture.setException(e);
@@ -162,7 +178,7 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
             int curLvl = concurrencyLevel.get();
             AsyncTaskContext<T, V> taskCtx = null;
             try {
-                if (curLvl <= concurrencyLimit) {
+                if (curLvl <= getConcurrencyLimit()) {
                     taskCtx = queue.take();
                     final AsyncTaskContext<T, V> finalTaskCtx = taskCtx;
                     if (printQueriesFreq > 0) {
@@ -174,7 +190,9 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
                     }
                     logTask("Processing", finalTaskCtx);
                     concurrencyLevel.incrementAndGet();
-                    long timeout = finalTaskCtx.getCreateTime() + maxWaitTime - System.currentTimeMillis();
+                    long launchTime = System.currentTimeMillis();
+                    queueWaitTimer.record(launchTime - finalTaskCtx.getCreateTime(), TimeUnit.MILLISECONDS);
+                    long timeout = finalTaskCtx.getCreateTime() + maxWaitTime - launchTime;
                     if (timeout > 0) {
                         stats.getTotalLaunched().increment();
                         ListenableFuture<V> result = execute(finalTaskCtx);
@@ -184,7 +202,7 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
                             public void onSuccess(@Nullable V result) {
                                 logTask("Releasing", finalTaskCtx);
                                 stats.getTotalReleased().increment();
-                                concurrencyLevel.decrementAndGet();
+                                onTaskCompleted(launchTime, null);
                                 finalTaskCtx.getFuture().set(result);
                             }
 
@@ -196,7 +214,7 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
                                     logTask("Failed", finalTaskCtx);
                                 }
                                 stats.getTotalFailed().increment();
-                                concurrencyLevel.decrementAndGet();
+                                onTaskCompleted(launchTime, t);
                                 finalTaskCtx.getFuture().setException(t);
                                 log.debug("[{}] Failed to execute task: {}", finalTaskCtx.getId(), finalTaskCtx.getTask(), t);
                             }
@@ -225,6 +243,28 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
         log.info("[{}] Buffered rate executor thread stopped", getBufferName());
     }
 
+    private int getConcurrencyLimit() {
+        return adaptiveLimiter != null ? adaptiveLimiter.getLimit() : concurrencyLimit;
+    }
+
+    private void onTaskCompleted(long launchTime, Throwable t) {
+        long latency = System.currentTimeMillis() - launchTime;
+        latencyTimer.record(latency, TimeUnit.MILLISECONDS);
+        int inFlight = concurrencyLevel.getAndDecrement();
+        if (adaptiveLimiter != null) {
+            if (t == null) {
+                adaptiveLimiter.onSuccess(latency, inFlight);
+            } else if (isOverloaded(t)) {
+                adaptiveLimiter.onOverload();
+            }
+        }
+    }
+
+    private static boolean isOverloaded(Throwable t) {
+        return Throwables.getCausalChain(t).stream().anyMatch(e -> e instanceof TimeoutException || e instanceof DriverTimeoutException
+                || e instanceof ReadTimeoutException || e instanceof WriteTimeoutException || e instanceof OverloadedException);
+    }
+
     private void logTask(String action, AsyncTaskContext<T, V> taskCtx) {
         if (log.isTraceEnabled()) {
             if (taskCtx.getTask() instanceof CassandraStatementTask) {
@@ -296,6 +336,9 @@ public abstract class AbstractBufferedRateExecutor<T extends AsyncTask, F extend
             });
             statsBuilder.append("totalRateLimitedTenants").append(" = [").append(rateLimitedTenantsCount).append("] ");
             statsBuilder.append(CONCURRENCY_LEVEL).append(" = [").append(concurrencyLevel.get()).append("] ");
+            if (adaptiveLimiter != null) {
+                statsBuilder.append(CONCURRENCY_LIMIT).append(" = [").append(adaptiveLimiter.getLimit()).append("] ");
+            }
 
             stats.getStatsCounters().forEach(StatsCounter::clear);
             log.info("[{}] Permits {}", getBufferName(), statsBuilder);
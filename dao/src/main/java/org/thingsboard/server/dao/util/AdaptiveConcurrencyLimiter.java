@@ -0,0 +1,87 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.util;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit of concurrently executed queries that follows the observed load using AIMD:
+ * the limit grows by one after a limit's worth of fast queries and is multiplied by the backoff ratio
+ * when a query times out or is slower than the latency threshold.
+ * The limit is decreased at most once per latency threshold, so a burst of slow queries caused
+ * by the same overload results in a single backoff.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdMs;
+    private final double backoffRatio;
+
+    private double limit;
+    @Getter
+    private final AtomicInteger currentLimit;
+    private long lastDecreaseTime;
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, int initialLimit, long latencyThresholdMs, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limit range [" + minLimit + ", " + maxLimit + "]");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be in range (0, 1), but was " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdMs = latencyThresholdMs;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.currentLimit = new AtomicInteger((int) limit);
+    }
+
+    public int getLimit() {
+        return currentLimit.get();
+    }
+
+    public void onSuccess(long latencyMs, int inFlight) {
+        if (latencyMs > latencyThresholdMs) {
+            onOverload();
+        } else {
+            onNoOverload(inFlight);
+        }
+    }
+
+    public void onOverload() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (now - lastDecreaseTime >= latencyThresholdMs) {
+                lastDecreaseTime = now;
+                limit = Math.max(minLimit, limit * backoffRatio);
+                currentLimit.set((int) limit);
+            }
+        }
+    }
+
+    private synchronized void onNoOverload(int inFlight) {
+        // Growing the limit only makes sense when it is actually used, otherwise it would drift to the maximum while idle
+        if (inFlight * 2 >= limit && limit < maxLimit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            currentLimit.set((int) limit);
+        }
+    }
+
+}
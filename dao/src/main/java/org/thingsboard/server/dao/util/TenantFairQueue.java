@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.util;
+
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded blocking queue that hands out the elements of different tenants in round-robin order,
+ * so a tenant with a large backlog can't delay the elements submitted by other tenants.
+ * Elements of the same tenant keep their FIFO order.
+ */
+public class TenantFairQueue<E> {
+
+    private final int capacity;
+    private final int tenantCapacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<TenantId, Deque<E>> tenantQueues = new HashMap<>();
+    private final Deque<TenantId> tenantsOrder = new ArrayDeque<>();
+    private int size;
+
+    /**
+     * @param capacity       maximum number of elements in the queue
+     * @param tenantCapacity maximum number of elements of a single tenant, 0 - limited only by the queue capacity
+     */
+    public TenantFairQueue(int capacity, int tenantCapacity) {
+        this.capacity = capacity;
+        this.tenantCapacity = tenantCapacity > 0 ? tenantCapacity : capacity;
+    }
+
+    public void add(TenantId tenantId, E element) {
+        lock.lock();
+        try {
+            if (size >= capacity) {
+                throw new IllegalStateException("Queue full");
+            }
+            Deque<E> tenantQueue = tenantQueues.get(tenantId);
+            if (tenantQueue == null) {
+                tenantQueue = new ArrayDeque<>();
+                tenantQueues.put(tenantId, tenantQueue);
+                tenantsOrder.add(tenantId);
+            } else if (tenantQueue.size() >= tenantCapacity) {
+                throw new IllegalStateException("Tenant queue full");
+            }
+            tenantQueue.add(element);
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            TenantId tenantId = tenantsOrder.poll();
+            Deque<E> tenantQueue = tenantQueues.get(tenantId);
+            E element = tenantQueue.poll();
+            if (tenantQueue.isEmpty()) {
+                tenantQueues.remove(tenantId);
+            } else {
+                tenantsOrder.add(tenantId);
+            }
+            size--;
+            return element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.attributes;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cache.SimpleTbCacheValueWrapper;
+import org.thingsboard.server.cache.TbTransactionalCache;
+import org.thingsboard.server.common.data.AttributeScope;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
+import org.thingsboard.server.common.data.kv.StringDataEntry;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.cache.CacheExecutorService;
+import org.thingsboard.server.dao.sql.JpaExecutorService;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class CachedAttributesServiceTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    private AttributesDao attributesDao;
+    private JpaExecutorService jpaExecutorService;
+    private TbTransactionalCache<AttributeCacheKey, AttributeKvEntry> cache;
+    private TbTransactionalCache<AttributeScopeCacheKey, AttributeScopeCacheValue> scopeCache;
+    private DefaultCounter hitCounter;
+    private DefaultCounter missCounter;
+    private CachedAttributesService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        attributesDao = mock(AttributesDao.class);
+        jpaExecutorService = mock(JpaExecutorService.class);
+        cache = mock(TbTransactionalCache.class);
+        scopeCache = mock(TbTransactionalCache.class);
+        hitCounter = mock(DefaultCounter.class);
+        missCounter = mock(DefaultCounter.class);
+        StatsFactory statsFactory = mock(StatsFactory.class);
+        when(statsFactory.createDefaultCounter(any(), eq("result"), eq("hit"))).thenReturn(hitCounter);
+        when(statsFactory.createDefaultCounter(any(), eq("result"), eq("miss"))).thenReturn(missCounter);
+        service = new CachedAttributesService(attributesDao, jpaExecutorService, statsFactory,
+                mock(CacheExecutorService.class), cache, scopeCache);
+        ReflectionTestUtils.setField(service, "scopeCacheMaxSize", 100);
+        service.init();
+    }
+
+    @Test
+    public void givenCachedScope_whenFindAll_thenSingleLookupAndSingleHit() throws Exception {
+        List<AttributeKvEntry> attributes = List.of(
+                new BaseAttributeKvEntry(new StringDataEntry("key1", "value1"), 1L),
+                new BaseAttributeKvEntry(new StringDataEntry("key2", "value2"), 2L));
+        when(scopeCache.get(new AttributeScopeCacheKey(AttributeScope.SERVER_SCOPE, deviceId)))
+                .thenReturn(SimpleTbCacheValueWrapper.wrap(new AttributeScopeCacheValue(attributes)));
+
+        List<AttributeKvEntry> result = service.findAll(tenantId, deviceId, AttributeScope.SERVER_SCOPE).get();
+
+        assertThat(result).containsExactlyElementsOf(attributes);
+        verify(scopeCache, times(1)).get(any());
+        verifyNoInteractions(cache, attributesDao);
+        verify(hitCounter, times(1)).increment();
+        verify(missCounter, never()).increment();
+    }
+
+    @Test
+    public void givenScopeCacheDisabled_whenFindAll_thenLoadFromDaoWithoutCache() throws Exception {
+        ReflectionTestUtils.setField(service, "scopeCacheMaxSize", 0);
+        List<AttributeKvEntry> attributes = List.of(new BaseAttributeKvEntry(new StringDataEntry("key1", "value1"), 1L));
+        when(attributesDao.findAll(tenantId, deviceId, AttributeScope.SERVER_SCOPE)).thenReturn(attributes);
+        when(jpaExecutorService.submit(ArgumentMatchers.<Callable<List<AttributeKvEntry>>>any())).thenAnswer(invocation ->
+                Futures.immediateFuture(invocation.<Callable<?>>getArgument(0).call()));
+
+        List<AttributeKvEntry> result = service.findAll(tenantId, deviceId, AttributeScope.SERVER_SCOPE).get();
+        service.removeAllByEntityId(tenantId, deviceId);
+
+        assertThat(result).containsExactlyElementsOf(attributes);
+        verifyNoInteractions(scopeCache, hitCounter, missCounter);
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.relation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.relation.EntitySearchDirection;
+import org.thingsboard.server.common.data.relation.RelationTypeGroup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TenantRelationGraphTest {
+
+    private final AssetId asset = new AssetId(UUID.randomUUID());
+    private final DeviceId device1 = new DeviceId(UUID.randomUUID());
+    private final DeviceId device2 = new DeviceId(UUID.randomUUID());
+
+    private TenantRelationGraph graph;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        graph = new TenantRelationGraph(TenantId.fromUUID(UUID.randomUUID()), 100);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void givenLoadedNode_whenFindRelations_thenLoadOnceAndFilterByType() {
+        Supplier<List<EntityRelation>> loader = loader(List.of(
+                new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON, JacksonUtil.newObjectNode().put("k", "v")),
+                new EntityRelation(asset, device2, EntityRelation.MANAGES_TYPE)));
+
+        List<EntityRelation> all = graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null, loader);
+        List<EntityRelation> contains = graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, EntityRelation.CONTAINS_TYPE, loader);
+        List<EntityRelation> unknown = graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, "Unknown", loader);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(all).hasSize(2);
+        assertThat(contains).hasSize(1);
+        assertThat(contains.get(0).getFrom()).isEqualTo(asset);
+        assertThat(contains.get(0).getTo()).isEqualTo(device1);
+        assertThat(contains.get(0).getAdditionalInfo().get("k").asText()).isEqualTo("v");
+        assertThat(unknown).isEmpty();
+        assertThat(graph.getMemoryUsage()).isPositive();
+    }
+
+    @Test
+    public void givenLoadedNode_whenCheckRelation_thenAnswerFromIndex() {
+        Supplier<List<EntityRelation>> loader = loader(List.of(new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE)));
+
+        assertThat(graph.containsRelation(asset, device1, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON, loader)).isTrue();
+        assertThat(graph.containsRelation(asset, device2, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON, loader)).isFalse();
+        assertThat(graph.containsRelation(asset, device1, EntityRelation.MANAGES_TYPE, RelationTypeGroup.COMMON, loader)).isFalse();
+        assertThat(graph.containsRelation(asset, new AssetId(device1.getId()), EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON, loader)).isFalse();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenInboundNode_whenFindRelations_thenRestoreDirection() {
+        Supplier<List<EntityRelation>> loader = loader(List.of(new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE)));
+
+        List<EntityRelation> relations = graph.findRelations(device1, EntitySearchDirection.TO, RelationTypeGroup.COMMON, null, loader);
+
+        assertThat(relations).containsExactly(new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE));
+        assertThat(graph.findLoadedRelations(device1, EntitySearchDirection.TO, RelationTypeGroup.COMMON, null)).hasSize(1);
+        assertThat(graph.findLoadedRelations(device1, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null)).isNull();
+    }
+
+    @Test
+    public void givenRelationChange_whenEvict_thenReloadBothEnds() {
+        Supplier<List<EntityRelation>> loader = loader(List.of(new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE)));
+        graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null, loader);
+        graph.findRelations(device1, EntitySearchDirection.TO, RelationTypeGroup.COMMON, null, loader);
+        assertThat(graph.getNodesCount()).isEqualTo(2);
+
+        graph.evict(asset, device1, RelationTypeGroup.COMMON);
+
+        assertThat(graph.getNodesCount()).isZero();
+        assertThat(graph.getMemoryUsage()).isZero();
+        graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null, loader);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void givenConcurrentEvict_whenLoading_thenDoNotKeepStaleNode() {
+        Supplier<List<EntityRelation>> loader = () -> {
+            graph.evict(asset, device1, RelationTypeGroup.COMMON);
+            return List.of(new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE));
+        };
+
+        assertThat(graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null, loader)).hasSize(1);
+        assertThat(graph.findLoadedRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null)).isNull();
+    }
+
+    @Test
+    public void givenNodesLimitReached_whenFindRelations_thenEvictNodes() {
+        graph = new TenantRelationGraph(TenantId.fromUUID(UUID.randomUUID()), 1);
+        Supplier<List<EntityRelation>> loader = loader(List.of(new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE)));
+        graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null, loader);
+
+        List<EntityRelation> relations = graph.findRelations(device1, EntitySearchDirection.TO, RelationTypeGroup.COMMON, EntityRelation.CONTAINS_TYPE, loader);
+
+        assertThat(relations).hasSize(1);
+        assertThat(graph.getNodesCount()).isEqualTo(1);
+        assertThat(graph.getMemoryUsage()).isPositive();
+    }
+
+    @Test
+    public void givenRelationsTree_whenFindRelationsRecursively_thenRespectMaxLevel() {
+        AssetId building = new AssetId(UUID.randomUUID());
+        EntityRelation buildingToAsset = new EntityRelation(building, asset, EntityRelation.CONTAINS_TYPE);
+        EntityRelation assetToDevice1 = new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE);
+        EntityRelation assetToDevice2 = new EntityRelation(asset, device2, EntityRelation.CONTAINS_TYPE);
+        Map<EntityId, List<EntityRelation>> relations = Map.of(
+                building, List.of(buildingToAsset),
+                asset, List.of(assetToDevice1, assetToDevice2));
+        Function<EntityId, List<EntityRelation>> loader = entityId -> {
+            loads.incrementAndGet();
+            return relations.getOrDefault(entityId, Collections.emptyList());
+        };
+
+        assertThat(graph.findRelationsRecursively(building, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, 1, false, loader))
+                .containsExactly(buildingToAsset);
+        assertThat(graph.findRelationsRecursively(building, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, 2, false, loader))
+                .containsExactlyInAnyOrder(buildingToAsset, assetToDevice1, assetToDevice2);
+        assertThat(graph.findRelationsRecursively(building, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, 2, true, loader))
+                .containsExactlyInAnyOrder(assetToDevice1, assetToDevice2);
+        assertThat(graph.findRelationsRecursively(building, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, Integer.MAX_VALUE, true, loader))
+                .containsExactlyInAnyOrder(assetToDevice1, assetToDevice2);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void givenAdditionalInfo_whenLoaded_thenCountInMemoryUsage() {
+        graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null,
+                loader(List.of(new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE))));
+        long withoutInfo = graph.getMemoryUsage();
+        graph.evict(asset, null, RelationTypeGroup.COMMON);
+
+        graph.findRelations(asset, EntitySearchDirection.FROM, RelationTypeGroup.COMMON, null,
+                loader(List.of(new EntityRelation(asset, device1, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON,
+                        JacksonUtil.newObjectNode().put("description", "a".repeat(1000))))));
+
+        assertThat(graph.getMemoryUsage()).isGreaterThan(withoutInfo + 1000);
+    }
+
+    private Supplier<List<EntityRelation>> loader(List<EntityRelation> relations) {
+        return () -> {
+            loads.incrementAndGet();
+            return relations;
+        };
+    }
+
+}
@@ -22,6 +22,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.thingsboard.server.common.data.edge.EdgeEvent;
 import org.thingsboard.server.common.data.edge.EdgeEventActionType;
 import org.thingsboard.server.common.data.edge.EdgeEventType;
@@ -48,6 +49,9 @@ public class EdgeEventServiceTest extends AbstractServiceTest {
     @Autowired
     EdgeEventService edgeEventService;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     long timeBeforeStartTime;
     long startTime;
     long eventTime;
@@ -132,6 +136,69 @@ public class EdgeEventServiceTest extends AbstractServiceTest {
         edgeEventService.cleanupEvents(1);
     }
 
+    @Test
+    public void findEdgeEventsAfterSeqId() throws Exception {
+        EdgeId edgeId = new EdgeId(Uuids.timeBased());
+        DeviceId deviceId = new DeviceId(Uuids.timeBased());
+
+        saveEdgeEventWithProvidedTime(timeBeforeStartTime, edgeId, deviceId, tenantId).get();
+        for (int i = 0; i < 5; i++) {
+            saveEdgeEventWithProvidedTime(eventTime + i, edgeId, deviceId, tenantId).get();
+        }
+        saveEdgeEventWithProvidedTime(timeAfterEndTime, edgeId, deviceId, tenantId).get();
+
+        List<EdgeEvent> edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edgeId, startTime, endTime, 0L, null, 2);
+        Assert.assertEquals(2, edgeEvents.size());
+        Assert.assertEquals(Uuids.startOf(eventTime), edgeEvents.get(0).getUuidId());
+        Assert.assertEquals(Uuids.startOf(eventTime + 1), edgeEvents.get(1).getUuidId());
+        Assert.assertTrue(edgeEvents.get(0).getSeqId() < edgeEvents.get(1).getSeqId());
+
+        edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edgeId, startTime, endTime, edgeEvents.get(1).getSeqId(), null, 2);
+        Assert.assertEquals(2, edgeEvents.size());
+        Assert.assertEquals(Uuids.startOf(eventTime + 2), edgeEvents.get(0).getUuidId());
+        Assert.assertEquals(Uuids.startOf(eventTime + 3), edgeEvents.get(1).getUuidId());
+
+        edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edgeId, startTime, endTime, edgeEvents.get(1).getSeqId(), null, 2);
+        Assert.assertEquals(1, edgeEvents.size());
+        Assert.assertEquals(Uuids.startOf(eventTime + 4), edgeEvents.get(0).getUuidId());
+
+        edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edgeId, startTime, endTime, edgeEvents.get(0).getSeqId(), null, 2);
+        Assert.assertTrue(edgeEvents.isEmpty());
+
+        edgeEventService.cleanupEvents(1);
+    }
+
+    @Test
+    public void findEdgeEventsAfterSeqIdStartedNewCycle() throws Exception {
+        EdgeId edgeId = new EdgeId(Uuids.timeBased());
+        DeviceId deviceId = new DeviceId(Uuids.timeBased());
+
+        saveEdgeEventWithProvidedTime(eventTime, edgeId, deviceId, tenantId).get();
+        saveEdgeEventWithProvidedTime(eventTime + 1, edgeId, deviceId, tenantId).get();
+        List<EdgeEvent> edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edgeId, startTime, endTime, 0L, null, 10);
+        Assert.assertEquals(2, edgeEvents.size());
+        long lastSeqId = edgeEvents.get(1).getSeqId();
+
+        jdbcTemplate.execute("ALTER TABLE edge_event ALTER COLUMN seq_id RESTART WITH 1");
+        try {
+            saveEdgeEventWithProvidedTime(eventTime + 2, edgeId, deviceId, tenantId).get();
+            saveEdgeEventWithProvidedTime(eventTime + 3, edgeId, deviceId, tenantId).get();
+
+            edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edgeId, startTime, endTime, lastSeqId, null, 10);
+            Assert.assertTrue(edgeEvents.isEmpty());
+
+            edgeEvents = edgeEventService.findEdgeEventsAfter(tenantId, edgeId, startTime, endTime, 0L, lastSeqId, 10);
+            Assert.assertEquals(2, edgeEvents.size());
+            Assert.assertEquals(Uuids.startOf(eventTime + 2), edgeEvents.get(0).getUuidId());
+            Assert.assertEquals(Uuids.startOf(eventTime + 3), edgeEvents.get(1).getUuidId());
+            Assert.assertTrue(edgeEvents.get(1).getSeqId() < lastSeqId);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE edge_event ALTER COLUMN seq_id RESTART WITH " + (lastSeqId + 1));
+        }
+
+        edgeEventService.cleanupEvents(1);
+    }
+
     private ListenableFuture<Void> saveEdgeEventWithProvidedTime(long time, EdgeId edgeId, EntityId entityId, TenantId tenantId) throws Exception {
         EdgeEvent edgeEvent = generateEdgeEvent(tenantId, edgeId, entityId);
         edgeEvent.setId(new EdgeEventId(Uuids.startOf(time)));
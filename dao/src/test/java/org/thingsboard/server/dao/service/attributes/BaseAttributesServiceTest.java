@@ -263,6 +263,28 @@ public abstract class BaseAttributesServiceTest extends AbstractServiceTest {
         });
     }
 
+    @Test
+    public void testFindAllAfterScopeChanges() throws Exception {
+        var tenantId = new TenantId(UUID.randomUUID());
+        var deviceId = new DeviceId(UUID.randomUUID());
+        var scope = AttributeScope.SERVER_SCOPE;
+        assertThat(attributesService.findAll(tenantId, deviceId, scope).get()).isEmpty();
+
+        saveAttribute(tenantId, deviceId, scope, "key1", OLD_VALUE);
+        assertThat(attributesService.findAll(tenantId, deviceId, scope).get()).extracting(KvEntry::getValueAsString).containsExactly(OLD_VALUE);
+
+        saveAttribute(tenantId, deviceId, scope, "key1", NEW_VALUE);
+        saveAttribute(tenantId, deviceId, scope, "key2", NEW_VALUE);
+        assertThat(attributesService.findAll(tenantId, deviceId, scope).get()).extracting(KvEntry::getKey).containsExactlyInAnyOrder("key1", "key2");
+        assertThat(attributesService.findAll(tenantId, deviceId, scope).get()).extracting(KvEntry::getValueAsString).containsOnly(NEW_VALUE);
+
+        attributesService.removeAll(tenantId, deviceId, scope, List.of("key1")).get(10, TimeUnit.SECONDS);
+        assertThat(attributesService.findAll(tenantId, deviceId, scope).get()).extracting(KvEntry::getKey).containsExactly("key2");
+
+        attributesService.removeAllByEntityId(tenantId, deviceId);
+        assertThat(attributesService.findAll(tenantId, deviceId, scope).get()).isEmpty();
+    }
+
     private void testConcurrentFetchAndUpdate(TenantId tenantId, DeviceId deviceId, ListeningExecutorService pool) throws Exception {
         var scope = AttributeScope.SERVER_SCOPE;
         var key = "TEST";
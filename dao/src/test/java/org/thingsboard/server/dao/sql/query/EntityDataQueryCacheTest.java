@@ -0,0 +1,200 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.query;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.query.DeviceTypeFilter;
+import org.thingsboard.server.common.data.query.DynamicValue;
+import org.thingsboard.server.common.data.query.DynamicValueSourceType;
+import org.thingsboard.server.common.data.query.EntityData;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityKeyValueType;
+import org.thingsboard.server.common.data.query.FilterPredicateValue;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.StringFilterPredicate;
+import org.thingsboard.server.common.data.query.TsValue;
+import org.thingsboard.server.dao.eventsourcing.SaveEntityEvent;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = EntityDataQueryCache.class)
+@TestPropertySource(properties = {
+        "sql.entity_data_query_cache.enabled=true",
+        "sql.entity_data_query_cache.ttl_ms=60000"
+})
+public class EntityDataQueryCacheTest {
+
+    @Autowired
+    private EntityDataQueryCache cache;
+    @MockBean
+    private ScheduledLogExecutorComponent logExecutor;
+
+    private TenantId tenantId;
+    private CustomerId customerId;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        tenantId = TenantId.fromUUID(UUID.randomUUID());
+        customerId = new CustomerId(UUID.randomUUID());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void whenIdenticalQueries_thenLoadedOnce() {
+        PageData<EntityData> first = findEntityData(tenantId, customerId, createQuery("temperature"));
+        PageData<EntityData> second = findEntityData(tenantId, customerId, createQuery("temperature"));
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(second.getData()).isEqualTo(first.getData());
+        assertThat(second.getData().get(0).getLatest()).isNotSameAs(first.getData().get(0).getLatest());
+
+        findEntityData(tenantId, new CustomerId(UUID.randomUUID()), createQuery("temperature"));
+        findEntityData(tenantId, customerId, createQuery("humidity"));
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void whenLatestValueOfQueryKeyUpdated_thenInvalidated() {
+        findEntityData(tenantId, customerId, createQuery("temperature"));
+
+        cache.onLatestUpdate(tenantId, List.of("humidity"));
+        findEntityData(tenantId, customerId, createQuery("temperature"));
+        assertThat(loads.get()).isEqualTo(1);
+
+        cache.onLatestUpdate(tenantId, List.of("temperature"));
+        findEntityData(tenantId, customerId, createQuery("temperature"));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenEntityOfTenantUpdated_thenInvalidated() {
+        TenantId otherTenantId = TenantId.fromUUID(UUID.randomUUID());
+        findEntityData(tenantId, customerId, createQuery("temperature"));
+        findEntityData(otherTenantId, customerId, createQuery("temperature"));
+
+        cache.handleEvent(SaveEntityEvent.builder().tenantId(tenantId).entityId(new DeviceId(UUID.randomUUID())).build());
+
+        findEntityData(tenantId, customerId, createQuery("temperature"));
+        findEntityData(otherTenantId, customerId, createQuery("temperature"));
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void whenIdenticalQueriesInFlight_thenCoalesced() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<PageData<EntityData>>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.findEntityData(tenantId, customerId, createQuery("temperature"), () -> {
+                loading.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return load();
+            })));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> findEntityData(tenantId, customerId, createQuery("temperature"))));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<PageData<EntityData>> future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS).getData()).hasSize(1);
+            }
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenDynamicFilterValuesResolvedDifferently_thenNotShared() {
+        findEntityData(tenantId, customerId, createDynamicQuery("user-1-value"));
+        findEntityData(tenantId, customerId, createDynamicQuery("user-2-value"));
+        assertThat(loads.get()).isEqualTo(2);
+
+        findEntityData(tenantId, customerId, createDynamicQuery("user-1-value"));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private PageData<EntityData> findEntityData(TenantId tenantId, CustomerId customerId, EntityDataQuery query) {
+        return cache.findEntityData(tenantId, customerId, query, this::load);
+    }
+
+    private PageData<EntityData> load() {
+        loads.incrementAndGet();
+        Map<EntityKeyType, Map<String, TsValue>> latest = new HashMap<>();
+        latest.put(EntityKeyType.TIME_SERIES, new HashMap<>(Map.of("temperature", new TsValue(1, "25"))));
+        EntityData entityData = new EntityData(new DeviceId(UUID.randomUUID()), latest, new HashMap<>());
+        return new PageData<>(List.of(entityData), 1, 1, false);
+    }
+
+    private EntityDataQuery createDynamicQuery(String resolvedValue) {
+        DynamicValue<String> dynamicValue = new DynamicValue<>(DynamicValueSourceType.CURRENT_USER, "allowedType");
+        dynamicValue.setResolvedValue(resolvedValue);
+        StringFilterPredicate predicate = new StringFilterPredicate();
+        predicate.setOperation(StringFilterPredicate.StringOperation.EQUAL);
+        predicate.setValue(new FilterPredicateValue<>("default", null, dynamicValue));
+        KeyFilter keyFilter = new KeyFilter();
+        keyFilter.setKey(new EntityKey(EntityKeyType.ATTRIBUTE, "type"));
+        keyFilter.setValueType(EntityKeyValueType.STRING);
+        keyFilter.setPredicate(predicate);
+        EntityDataQuery query = createQuery("temperature");
+        return new EntityDataQuery(query.getEntityFilter(), query.getPageLink(), query.getEntityFields(), query.getLatestValues(), List.of(keyFilter));
+    }
+
+    private EntityDataQuery createQuery(String key) {
+        DeviceTypeFilter filter = new DeviceTypeFilter();
+        filter.setDeviceTypes(List.of("default"));
+        EntityDataPageLink pageLink = new EntityDataPageLink(10, 0, null, null);
+        return new EntityDataQuery(filter, pageLink, Collections.emptyList(),
+                List.of(new EntityKey(EntityKeyType.TIME_SERIES, key)), Collections.emptyList());
+    }
+
+}
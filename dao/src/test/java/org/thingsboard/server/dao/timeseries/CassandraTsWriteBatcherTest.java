@@ -0,0 +1,123 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.timeseries;
+
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+public class CassandraTsWriteBatcherTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+    private final List<Statement<?>> executed = new CopyOnWriteArrayList<>();
+    private final List<SettableFuture<Void>> results = new CopyOnWriteArrayList<>();
+
+    private CassandraTsWriteBatcher batcher;
+
+    @AfterEach
+    public void tearDown() {
+        batcher.stop();
+    }
+
+    @Test
+    public void testInsertsOfTheSamePartitionAreBatched() throws Exception {
+        batcher = new CassandraTsWriteBatcher(3, 60000, this::execute);
+        CassandraPartitionCacheKey temperature = new CassandraPartitionCacheKey(deviceId, "temperature", 0L);
+        CassandraPartitionCacheKey humidity = new CassandraPartitionCacheKey(deviceId, "humidity", 0L);
+
+        ListenableFuture<Void> first = batcher.add(tenantId, temperature, mock(BoundStatement.class));
+        batcher.add(tenantId, humidity, mock(BoundStatement.class));
+        batcher.add(tenantId, temperature, mock(BoundStatement.class));
+        assertThat(executed).isEmpty();
+
+        ListenableFuture<Void> last = batcher.add(tenantId, temperature, mock(BoundStatement.class));
+
+        assertThat(executed).hasSize(1);
+        assertThat(executed.get(0)).isInstanceOf(BatchStatement.class);
+        BatchStatement batch = (BatchStatement) executed.get(0);
+        assertThat(batch.getBatchType()).isEqualTo(DefaultBatchType.UNLOGGED);
+        assertThat(batch.size()).isEqualTo(3);
+        assertThat(first.isDone()).isFalse();
+
+        results.get(0).set(null);
+        assertThat(first.get()).isNull();
+        assertThat(last.get()).isNull();
+    }
+
+    @Test
+    public void testPendingInsertsAreFlushedAfterWindow() {
+        batcher = new CassandraTsWriteBatcher(100, 10, this::execute);
+        BoundStatement stmt = mock(BoundStatement.class);
+
+        batcher.add(tenantId, new CassandraPartitionCacheKey(deviceId, "temperature", 0L), stmt);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executed.size() == 1);
+        assertThat(executed.get(0)).isSameAs(stmt);
+    }
+
+    @Test
+    public void testBatchFailureIsPropagatedToAllInserts() {
+        batcher = new CassandraTsWriteBatcher(2, 60000, this::execute);
+        CassandraPartitionCacheKey temperature = new CassandraPartitionCacheKey(deviceId, "temperature", 0L);
+
+        ListenableFuture<Void> first = batcher.add(tenantId, temperature, mock(BoundStatement.class));
+        ListenableFuture<Void> second = batcher.add(tenantId, temperature, mock(BoundStatement.class));
+        results.get(0).setException(new RuntimeException("Write timeout"));
+
+        assertThatThrownBy(first::get).isInstanceOf(ExecutionException.class);
+        assertThatThrownBy(second::get).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    public void testInsertAfterStopIsExecutedImmediately() {
+        batcher = new CassandraTsWriteBatcher(100, 60000, this::execute);
+        batcher.stop();
+        BoundStatement stmt = mock(BoundStatement.class);
+
+        ListenableFuture<Void> future = batcher.add(tenantId, new CassandraPartitionCacheKey(deviceId, "temperature", 0L), stmt);
+
+        assertThat(executed).containsExactly(stmt);
+        results.get(0).set(null);
+        assertThat(future.isDone()).isTrue();
+    }
+
+    private ListenableFuture<Void> execute(TenantId tenantId, Statement<?> stmt) {
+        SettableFuture<Void> result = SettableFuture.create();
+        executed.add(stmt);
+        results.add(result);
+        return result;
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void testLimitGrowsWhileQueriesAreFastAndLimitIsUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100, 10, 1000, 0.5);
+
+        for (int i = 0; i < 11; i++) {
+            limiter.onSuccess(5, 10);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(11);
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.onSuccess(5, 1);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(11);
+
+        for (int i = 0; i < 100000; i++) {
+            limiter.onSuccess(5, limiter.getLimit());
+        }
+        assertThat(limiter.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    void testLimitIsDecreasedOncePerLatencyThreshold() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100, 80, 60000, 0.5);
+
+        limiter.onSuccess(70000, 80);
+        limiter.onOverload();
+        limiter.onOverload();
+
+        assertThat(limiter.getLimit()).isEqualTo(40);
+    }
+
+    @Test
+    void testLimitIsNotDecreasedBelowMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100, 15, 0, 0.5);
+
+        limiter.onOverload();
+        limiter.onOverload();
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+}
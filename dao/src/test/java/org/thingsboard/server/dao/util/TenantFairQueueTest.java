@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.util;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.TenantId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TenantFairQueueTest {
+
+    private final TenantId tenantA = TenantId.fromUUID(UUID.randomUUID());
+    private final TenantId tenantB = TenantId.fromUUID(UUID.randomUUID());
+
+    @Test
+    void testElementsOfDifferentTenantsAreTakenInRoundRobinOrder() throws InterruptedException {
+        TenantFairQueue<String> queue = new TenantFairQueue<>(100, 0);
+        for (int i = 0; i < 5; i++) {
+            queue.add(tenantA, "a" + i);
+        }
+        queue.add(tenantB, "b0");
+        queue.add(tenantB, "b1");
+
+        List<String> taken = new ArrayList<>();
+        while (queue.size() > 0) {
+            taken.add(queue.take());
+        }
+
+        assertThat(taken).containsExactly("a0", "b0", "a1", "b1", "a2", "a3", "a4");
+    }
+
+    @Test
+    void testQueueAndTenantCapacity() {
+        TenantFairQueue<String> queue = new TenantFairQueue<>(3, 2);
+        queue.add(tenantA, "a0");
+        queue.add(tenantA, "a1");
+        assertThatThrownBy(() -> queue.add(tenantA, "a2")).isInstanceOf(IllegalStateException.class);
+
+        queue.add(tenantB, "b0");
+        assertThatThrownBy(() -> queue.add(tenantB, "b1")).isInstanceOf(IllegalStateException.class);
+        assertThat(queue.size()).isEqualTo(3);
+    }
+
+}
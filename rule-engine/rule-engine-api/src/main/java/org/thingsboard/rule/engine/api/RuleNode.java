@@ -70,4 +70,11 @@ public @interface RuleNode {
 
     int version() default 0;
 
+    /**
+     * Marks the node as synchronous and side-effect free: {@code onMsg} only transforms or routes the message and
+     * reports the outcome via {@code tellNext}/{@code tellSuccess}/{@code tellFailure} before returning.
+     * Such nodes may be executed inline by the rule chain actor instead of a dedicated rule node actor.
+     */
+    boolean stateless() default false;
+
 }
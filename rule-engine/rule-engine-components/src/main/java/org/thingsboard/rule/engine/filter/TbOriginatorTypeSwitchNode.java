@@ -32,7 +32,8 @@ import org.thingsboard.server.common.data.plugin.ComponentType;
         nodeDetails = "Routes messages to chain according to the entity type ('Device', 'Asset', etc.).<br><br>" +
                 "Output connections: <i>Message originator type</i> or <code>Failure</code>",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
-        configDirective = "tbNodeEmptyConfig")
+        configDirective = "tbNodeEmptyConfig",
+        stateless = true)
 public class TbOriginatorTypeSwitchNode extends TbAbstractTypeSwitchNode {
 
     @Override
@@ -48,7 +48,8 @@ import java.util.stream.Collectors;
                 "Output connections: <code>Success</code>, <code>Failure</code>.",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
         configDirective = "tbTransformationNodeCopyKeysConfig",
-        icon = "content_copy"
+        icon = "content_copy",
+        stateless = true
 )
 public class TbCopyKeysNode extends TbAbstractTransformNodeWithTbMsgSource {
 
@@ -48,7 +48,8 @@ import java.util.stream.Collectors;
                 "Output connections: <code>Success</code>, <code>Failure</code>.",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
         configDirective = "tbTransformationNodeDeleteKeysConfig",
-        icon = "remove_circle"
+        icon = "remove_circle",
+        stateless = true
 )
 public class TbDeleteKeysNode extends TbAbstractTransformNodeWithTbMsgSource {
 
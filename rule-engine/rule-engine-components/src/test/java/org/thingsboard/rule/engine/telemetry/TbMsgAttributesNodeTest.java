@@ -38,6 +38,7 @@ import org.thingsboard.server.common.data.kv.BaseAttributeKvEntry;
 import org.thingsboard.server.common.data.kv.BooleanDataEntry;
 import org.thingsboard.server.common.data.kv.DoubleDataEntry;
 import org.thingsboard.server.common.data.kv.JsonDataEntry;
+import org.thingsboard.server.common.data.kv.KvEntry;
 import org.thingsboard.server.common.data.kv.LongDataEntry;
 import org.thingsboard.server.common.data.kv.StringDataEntry;
 import org.thingsboard.server.common.data.msg.TbMsgType;
@@ -180,6 +181,29 @@ class TbMsgAttributesNodeTest extends AbstractRuleNodeUpgradeTest {
         assertThat(notifyDevice).isEqualTo(expectedArgumentValue);
     }
 
+    @Test
+    void givenKvListMsg_whenOnMsg_thenSaveAttributesFromKvData() throws TbNodeException {
+        var ctxMock = mock(TbContext.class);
+        var telemetryServiceMock = mock(RuleEngineTelemetryService.class);
+        ObjectNode config = (ObjectNode) JacksonUtil.valueToTree(new TbMsgAttributesNodeConfiguration().defaultConfiguration());
+        config.put("updateAttributesOnlyOnValueChange", false);
+        when(ctxMock.getTenantId()).thenReturn(tenantId);
+        when(ctxMock.getTelemetryService()).thenReturn(telemetryServiceMock);
+        willCallRealMethod().given(node).init(any(TbContext.class), any(TbNodeConfiguration.class));
+        willCallRealMethod().given(node).onMsg(eq(ctxMock), any(TbMsg.class));
+        willCallRealMethod().given(node).saveAttr(any(), eq(ctxMock), any(TbMsg.class), any(AttributeScope.class), anyBoolean());
+        node.init(ctxMock, new TbNodeConfiguration(config));
+
+        var kvData = List.<KvEntry>of(new LongDataEntry("counter", 100L), new JsonDataEntry("json", "{\"status\":\"OK\"}"));
+        TbMsg msg = TbMsg.newKvListMsg(null, TbMsgType.POST_ATTRIBUTES_REQUEST, deviceId, null, new TbMsgMetaData(), kvData, null, null);
+
+        node.onMsg(ctxMock, msg);
+
+        ArgumentCaptor<List<AttributeKvEntry>> attributesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(telemetryServiceMock).saveAndNotify(eq(tenantId), eq(deviceId), eq(AttributeScope.SERVER_SCOPE), attributesCaptor.capture(), anyBoolean(), any());
+        assertThat(attributesCaptor.getValue()).extracting(AttributeKvEntry::getKey).containsExactly("counter", "json");
+        assertThat(attributesCaptor.getValue()).extracting(AttributeKvEntry::getValue).containsExactly(100L, "{\"status\":\"OK\"}");
+    }
 
     // Rule nodes upgrade
     private static Stream<Arguments> givenFromVersionAndConfig_whenUpgrade_thenVerifyHasChangesAndConfig() {
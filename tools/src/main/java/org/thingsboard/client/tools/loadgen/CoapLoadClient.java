@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import org.eclipse.californium.core.CoapClient;
+import org.eclipse.californium.core.CoapHandler;
+import org.eclipse.californium.core.CoapResponse;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public class CoapLoadClient implements LoadClient {
+
+    private static final long REQUEST_TIMEOUT_MS = 30000;
+
+    private final CoapClient coapClient;
+
+    public CoapLoadClient(String host, int port, String accessToken) {
+        this.coapClient = new CoapClient("coap://" + host + ":" + port + "/api/v1/" + accessToken + "/telemetry");
+        this.coapClient.setTimeout(REQUEST_TIMEOUT_MS);
+    }
+
+    @Override
+    public CompletableFuture<Void> connect() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(byte[] payload) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        coapClient.post(new CoapHandler() {
+            @Override
+            public void onLoad(CoapResponse response) {
+                if (response.isSuccess()) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(new IOException("CoAP response code " + response.getCode()));
+                }
+            }
+
+            @Override
+            public void onError() {
+                result.completeExceptionally(new IOException("CoAP request failed or timed out"));
+            }
+        }, payload, MediaTypeRegistry.APPLICATION_JSON);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        coapClient.shutdown();
+    }
+
+}
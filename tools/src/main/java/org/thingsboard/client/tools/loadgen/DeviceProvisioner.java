@@ -0,0 +1,72 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rest.client.RestClient;
+import org.thingsboard.server.common.data.Device;
+
+import java.util.List;
+
+/**
+ * Creates the simulated devices and gateways with the REST API, unless they already exist.
+ * Devices of the gateways are created by the gateway API on the first publish.
+ */
+@Slf4j
+public class DeviceProvisioner {
+
+    private static final String DEVICE_TYPE = "loadgen";
+
+    private final LoadGeneratorConfig config;
+
+    public DeviceProvisioner(LoadGeneratorConfig config) {
+        this.config = config;
+    }
+
+    public void provision(List<String> deviceNames, List<String> gatewayNames) {
+        RestClient restClient = new RestClient(config.getRestUrl());
+        try {
+            restClient.login(config.getUsername(), config.getPassword());
+            int created = 0;
+            for (String deviceName : deviceNames) {
+                created += provision(restClient, deviceName, false) ? 1 : 0;
+            }
+            for (String gatewayName : gatewayNames) {
+                created += provision(restClient, gatewayName, true) ? 1 : 0;
+            }
+            log.info("Provisioned [{}] devices and gateways, [{}] already existed", created, deviceNames.size() + gatewayNames.size() - created);
+        } finally {
+            restClient.close();
+        }
+    }
+
+    private boolean provision(RestClient restClient, String name, boolean gateway) {
+        if (restClient.getTenantDevice(name).isPresent()) {
+            return false;
+        }
+        Device device = new Device();
+        device.setName(name);
+        device.setType(DEVICE_TYPE);
+        if (gateway) {
+            device.setAdditionalInfo(JacksonUtil.newObjectNode().put("gateway", true));
+        }
+        // The access token is the same as the device name
+        restClient.saveDevice(device, name);
+        return true;
+    }
+
+}
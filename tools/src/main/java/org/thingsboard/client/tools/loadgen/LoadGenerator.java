@@ -0,0 +1,309 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.AbstractListeningExecutor;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates devices and gateways that publish telemetry with the configured total rate and reports
+ * the ingest rate, the latency of the transport acknowledgements and the connection errors.
+ * <p>
+ * A publish is acknowledged with PUBACK for MQTT with QoS 1, with the response for HTTP and CoAP,
+ * so the latency includes the validation of the message and its production to the rule engine queue.
+ * MQTT publishes with QoS 0 are acknowledged as soon as they are written to the socket.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final long TICK_MS = 10;
+    private static final long CONNECT_TIMEOUT_SECONDS = 60;
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final LoadGeneratorConfig config;
+    private final PayloadGenerator payloadGenerator;
+    private final LoadStats stats = new LoadStats();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final List<SimulatedClient> clients = new ArrayList<>();
+    private final LatencyHistogram totalLatencies = new LatencyHistogram();
+
+    private EventLoopGroup eventLoopGroup;
+    private AbstractListeningExecutor handlerExecutor;
+    private HttpClient httpClient;
+    private ScheduledExecutorService scheduler;
+
+    // Accessed only by the scheduler thread
+    private double publishBudget;
+    private int nextClient;
+    private long elapsedSeconds;
+    private boolean measuring;
+    private long totalSent;
+    private long totalAcked;
+    private long totalErrors;
+    private long totalSkipped;
+
+    public LoadGenerator(LoadGeneratorConfig config) {
+        this.config = config;
+        this.payloadGenerator = new PayloadGenerator(config.getKeys(), config.getValueType());
+    }
+
+    public static List<String> getDeviceNames(LoadGeneratorConfig config) {
+        List<String> names = new ArrayList<>(config.getDevices());
+        for (int i = 0; i < config.getDevices(); i++) {
+            names.add(config.getPrefix() + "device-" + i);
+        }
+        return names;
+    }
+
+    public static List<String> getGatewayNames(LoadGeneratorConfig config) {
+        List<String> names = new ArrayList<>(config.getGateways());
+        for (int i = 0; i < config.getGateways(); i++) {
+            names.add(config.getPrefix() + "gateway-" + i);
+        }
+        return names;
+    }
+
+    public void run() throws Exception {
+        try {
+            init();
+            connect();
+            scheduler.scheduleAtFixedRate(this::publish, 0, TICK_MS, TimeUnit.MILLISECONDS);
+            scheduler.scheduleAtFixedRate(this::report, config.getReportIntervalSeconds(), config.getReportIntervalSeconds(), TimeUnit.SECONDS);
+            scheduler.schedule(this::startMeasuring, config.getWarmupSeconds(), TimeUnit.SECONDS).get();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(config.getDurationSeconds()));
+            scheduler.submit(this::stopPublishing).get();
+            awaitInFlight();
+            scheduler.submit(this::report).get();
+            printSummary();
+        } finally {
+            destroy();
+        }
+    }
+
+    private void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("load-generator"));
+        String host = config.getHost();
+        int port = config.getPort();
+        switch (config.getTransportType()) {
+            case MQTT -> {
+                eventLoopGroup = new NioEventLoopGroup(0, ThingsBoardThreadFactory.forName("load-generator-mqtt"));
+                handlerExecutor = new AbstractListeningExecutor() {
+                    @Override
+                    protected int getThreadPollSize() {
+                        return 1;
+                    }
+                };
+                handlerExecutor.init();
+                MqttQoS qos = MqttQoS.valueOf(config.getQos());
+                for (String deviceName : getDeviceNames(config)) {
+                    clients.add(new SimulatedClient(new MqttLoadClient(host, port, deviceName, "v1/devices/me/telemetry", qos,
+                            eventLoopGroup, handlerExecutor, stats::onDisconnected), null));
+                }
+                for (String gatewayName : getGatewayNames(config)) {
+                    List<String> gatewayDevices = new ArrayList<>(config.getDevicesPerGateway());
+                    for (int i = 0; i < config.getDevicesPerGateway(); i++) {
+                        gatewayDevices.add(gatewayName + "-device-" + i);
+                    }
+                    clients.add(new SimulatedClient(new MqttLoadClient(host, port, gatewayName, "v1/gateway/telemetry", qos,
+                            eventLoopGroup, handlerExecutor, stats::onDisconnected), gatewayDevices));
+                }
+            }
+            case HTTP -> {
+                httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+                for (String deviceName : getDeviceNames(config)) {
+                    clients.add(new SimulatedClient(new HttpLoadClient(httpClient, host, port, deviceName), null));
+                }
+            }
+            case COAP -> {
+                for (String deviceName : getDeviceNames(config)) {
+                    clients.add(new SimulatedClient(new CoapLoadClient(host, port, deviceName), null));
+                }
+            }
+        }
+    }
+
+    private void connect() throws Exception {
+        log.info("Connecting [{}] clients to the {} transport at {}:{}", clients.size(), config.getTransportType(), config.getHost(), config.getPort());
+        long connectIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(config.getConnectRate(), 1);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(clients.size());
+        long start = System.nanoTime();
+        for (SimulatedClient client : clients) {
+            futures.add(client.loadClient().connect().whenComplete((result, t) -> {
+                if (t == null) {
+                    stats.onConnected();
+                } else {
+                    log.debug("Failed to connect the client", t);
+                    stats.onConnectionError();
+                }
+            }));
+            LockSupport.parkNanos(connectIntervalNanos);
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((result, t) -> null)
+                    .get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Not all the clients were connected in {} seconds", CONNECT_TIMEOUT_SECONDS);
+        }
+        LoadStats.Snapshot snapshot = stats.getAndReset();
+        log.info("Connected [{}] clients in [{}] ms, connection errors [{}]", snapshot.connected(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), snapshot.connectionErrors());
+    }
+
+    private void publish() {
+        if (clients.isEmpty()) {
+            return;
+        }
+        publishBudget += config.getRate() * TICK_MS / 1000.0;
+        int count = (int) publishBudget;
+        publishBudget -= count;
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            SimulatedClient client = clients.get(nextClient);
+            nextClient = (nextClient + 1) % clients.size();
+            // Publishes that can't be sent are not postponed, so a slow transport results in the lower ingest rate
+            if (!client.loadClient().isConnected() || inFlight.get() >= config.getMaxInFlight()) {
+                stats.onSkipped();
+                continue;
+            }
+            byte[] payload = client.gatewayDevices() == null ?
+                    payloadGenerator.deviceTelemetry(ts) : payloadGenerator.gatewayTelemetry(client.gatewayDevices(), ts);
+            inFlight.incrementAndGet();
+            stats.onSent();
+            long start = System.nanoTime();
+            try {
+                client.loadClient().publish(payload).whenComplete((result, t) -> {
+                    inFlight.decrementAndGet();
+                    if (t == null) {
+                        stats.onAck(System.nanoTime() - start);
+                    } else {
+                        log.trace("Failed to publish the message", t);
+                        stats.onError();
+                    }
+                });
+            } catch (Exception e) {
+                inFlight.decrementAndGet();
+                log.trace("Failed to publish the message", e);
+                stats.onError();
+            }
+        }
+    }
+
+    private void startMeasuring() {
+        stats.getAndReset();
+        elapsedSeconds = 0;
+        measuring = true;
+        log.info("Warm-up is finished, measuring for [{}] seconds", config.getDurationSeconds());
+    }
+
+    private void stopPublishing() {
+        publishBudget = Double.NEGATIVE_INFINITY;
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        if (inFlight.get() > 0) {
+            log.warn("[{}] messages were not acknowledged in {} seconds", inFlight.get(), DRAIN_TIMEOUT_SECONDS);
+        }
+    }
+
+    private void report() {
+        LoadStats.Snapshot snapshot = stats.getAndReset();
+        long interval = config.getReportIntervalSeconds();
+        elapsedSeconds += interval;
+        if (measuring) {
+            totalSent += snapshot.sent();
+            totalAcked += snapshot.acked();
+            totalErrors += snapshot.errors();
+            totalSkipped += snapshot.skipped();
+            totalLatencies.add(snapshot.latencies());
+        }
+        log.info("[{}{}s] sent [{}], acked [{}] ([{}] publishes/s, [{}] data points/s), errors [{}], skipped [{}], in flight [{}]; " +
+                        "ack latency ms: p50 [{}], p95 [{}], p99 [{}], max [{}]; connections [{}], connection errors [{}], lost [{}]",
+                measuring ? "" : "warm-up ", elapsedSeconds, snapshot.sent(), snapshot.acked(), snapshot.acked() / interval,
+                getDataPoints(snapshot.acked()) / interval, snapshot.errors(), snapshot.skipped(), inFlight.get(),
+                toMillis(snapshot.latencies().getValueAtPercentile(50)), toMillis(snapshot.latencies().getValueAtPercentile(95)),
+                toMillis(snapshot.latencies().getValueAtPercentile(99)), toMillis(snapshot.latencies().getMaxValue()),
+                snapshot.connected(), snapshot.connectionErrors(), snapshot.disconnected());
+    }
+
+    private void printSummary() {
+        long duration = config.getDurationSeconds();
+        log.info("Summary over [{}] seconds: {} transport, [{}] devices, [{}] gateways with [{}] devices each, target rate [{}] msgs/s, QoS [{}], [{}] keys of [{}] values",
+                duration, config.getTransportType(), config.getDevices(), config.getGateways(), config.getDevicesPerGateway(),
+                config.getRate(), config.getQos(), config.getKeys(), config.getValueType());
+        log.info("Sent [{}], acked [{}] ([{}] publishes/s, [{}] data points/s), errors [{}], skipped [{}]",
+                totalSent, totalAcked, totalAcked / duration, getDataPoints(totalAcked) / duration, totalErrors, totalSkipped);
+        log.info("Ack latency ms: p50 [{}], p90 [{}], p95 [{}], p99 [{}], p99.9 [{}], max [{}]",
+                toMillis(totalLatencies.getValueAtPercentile(50)), toMillis(totalLatencies.getValueAtPercentile(90)),
+                toMillis(totalLatencies.getValueAtPercentile(95)), toMillis(totalLatencies.getValueAtPercentile(99)),
+                toMillis(totalLatencies.getValueAtPercentile(99.9)), toMillis(totalLatencies.getMaxValue()));
+    }
+
+    private long getDataPoints(long acked) {
+        if (config.getGateways() == 0) {
+            return acked * config.getKeys();
+        }
+        // Publishes are spread evenly over the clients, so the share of the gateway publishes is proportional to their number
+        double devicesPerPublish = (config.getDevices() + (double) config.getGateways() * config.getDevicesPerGateway()) / config.getClientsCount();
+        return (long) (acked * devicesPerPublish * config.getKeys());
+    }
+
+    private static String toMillis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    private void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        clients.forEach(client -> {
+            try {
+                client.loadClient().close();
+            } catch (Exception e) {
+                log.debug("Failed to close the client", e);
+            }
+        });
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        }
+        if (handlerExecutor != null) {
+            handlerExecutor.destroy();
+        }
+    }
+
+    private record SimulatedClient(LoadClient loadClient, List<String> gatewayDevices) {
+    }
+
+}
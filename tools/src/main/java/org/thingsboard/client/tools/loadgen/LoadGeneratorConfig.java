@@ -0,0 +1,54 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import lombok.Data;
+
+@Data
+public class LoadGeneratorConfig {
+
+    private LoadTransportType transportType = LoadTransportType.MQTT;
+    private String host = "localhost";
+    private int port = LoadTransportType.MQTT.getDefaultPort();
+
+    // Prefix of the device names and access tokens, so the devices of different runs can be told apart
+    private String prefix = "loadgen-";
+    private int devices = 100;
+    private int gateways = 0;
+    private int devicesPerGateway = 10;
+
+    // Total number of publishes per second over all devices and gateways
+    private int rate = 1000;
+    private int qos = 1;
+    private int keys = 10;
+    private String valueType = "mixed";
+
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    private int reportIntervalSeconds = 10;
+    private int connectRate = 100;
+    private int maxInFlight = 10000;
+
+    // Devices are created with the REST API before the run if the url is set
+    private String restUrl;
+    private String username;
+    private String password;
+
+    public int getClientsCount() {
+        return devices + gateways;
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Command line entry point of the transport load generator. See tools/README-loadgen.md for the usage.
+ */
+@Slf4j
+public class LoadGeneratorTool {
+
+    public static void main(String[] args) {
+        LoadGeneratorConfig config = parseArgs(args);
+        try {
+            if (config.getRestUrl() != null) {
+                new DeviceProvisioner(config).provision(LoadGenerator.getDeviceNames(config), LoadGenerator.getGatewayNames(config));
+            }
+            new LoadGenerator(config).run();
+            System.exit(0);
+        } catch (Throwable th) {
+            log.error("Load generation failed", th);
+            System.exit(1);
+        }
+    }
+
+    static LoadGeneratorConfig parseArgs(String[] args) {
+        Options options = new Options();
+        options.addOption(new Option("t", "transport", true, "transport type: mqtt, http or coap (default: mqtt)"));
+        options.addOption(new Option("h", "host", true, "transport host (default: localhost)"));
+        options.addOption(new Option("p", "port", true, "transport port (default: 1883, 8080 or 5683 depending on the transport)"));
+        options.addOption(new Option("prefix", "prefix", true, "prefix of the device names and access tokens (default: loadgen-)"));
+        options.addOption(new Option("d", "devices", true, "number of devices (default: 100)"));
+        options.addOption(new Option("g", "gateways", true, "number of MQTT gateways (default: 0)"));
+        options.addOption(new Option("gd", "gatewayDevices", true, "number of devices in every gateway publish (default: 10)"));
+        options.addOption(new Option("r", "rate", true, "total publishes per second (default: 1000)"));
+        options.addOption(new Option("q", "qos", true, "MQTT QoS level: 0 or 1 (default: 1)"));
+        options.addOption(new Option("k", "keys", true, "number of telemetry keys in the message of every device (default: 10)"));
+        options.addOption(new Option("vt", "valueType", true, "telemetry value type: long, double, boolean, string or mixed (default: mixed)"));
+        options.addOption(new Option("w", "warmup", true, "warm-up seconds, not included in the summary (default: 10)"));
+        options.addOption(new Option("s", "duration", true, "measurement seconds (default: 60)"));
+        options.addOption(new Option("ri", "reportInterval", true, "seconds between the progress reports (default: 10)"));
+        options.addOption(new Option("cr", "connectRate", true, "new connections per second (default: 100)"));
+        options.addOption(new Option("mif", "maxInFlight", true, "max not acknowledged publishes, the new ones are skipped (default: 10000)"));
+        options.addOption(new Option("url", "restUrl", true, "ThingsBoard base url to create the devices with, e.g. http://localhost:8080"));
+        options.addOption(new Option("u", "username", true, "tenant administrator username for the device provisioning"));
+        options.addOption(new Option("pw", "password", true, "tenant administrator password for the device provisioning"));
+
+        CommandLine cmd;
+        try {
+            cmd = new BasicParser().parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            new HelpFormatter().printHelp("load-generator", options);
+            System.exit(1);
+            return null;
+        }
+
+        LoadGeneratorConfig config = new LoadGeneratorConfig();
+        config.setTransportType(LoadTransportType.valueOf(cmd.getOptionValue("transport", "mqtt").toUpperCase()));
+        config.setHost(cmd.getOptionValue("host", config.getHost()));
+        config.setPort(getInt(cmd, "port", config.getTransportType().getDefaultPort()));
+        config.setPrefix(cmd.getOptionValue("prefix", config.getPrefix()));
+        config.setDevices(getInt(cmd, "devices", config.getDevices()));
+        config.setGateways(getInt(cmd, "gateways", config.getGateways()));
+        config.setDevicesPerGateway(getInt(cmd, "gatewayDevices", config.getDevicesPerGateway()));
+        config.setRate(getInt(cmd, "rate", config.getRate()));
+        config.setQos(getInt(cmd, "qos", config.getQos()));
+        config.setKeys(getInt(cmd, "keys", config.getKeys()));
+        config.setValueType(cmd.getOptionValue("valueType", config.getValueType()));
+        config.setWarmupSeconds(getInt(cmd, "warmup", config.getWarmupSeconds()));
+        config.setDurationSeconds(getInt(cmd, "duration", config.getDurationSeconds()));
+        config.setReportIntervalSeconds(getInt(cmd, "reportInterval", config.getReportIntervalSeconds()));
+        config.setConnectRate(getInt(cmd, "connectRate", config.getConnectRate()));
+        config.setMaxInFlight(getInt(cmd, "maxInFlight", config.getMaxInFlight()));
+        config.setRestUrl(cmd.getOptionValue("restUrl"));
+        config.setUsername(cmd.getOptionValue("username"));
+        config.setPassword(cmd.getOptionValue("password"));
+
+        if (config.getGateways() > 0 && config.getTransportType() != LoadTransportType.MQTT) {
+            throw new IllegalArgumentException("Gateways are supported by the MQTT transport only");
+        }
+        if (config.getQos() < 0 || config.getQos() > 1) {
+            throw new IllegalArgumentException("Unsupported QoS level: " + config.getQos());
+        }
+        if (config.getClientsCount() == 0) {
+            throw new IllegalArgumentException("At least one device or gateway is required");
+        }
+        return config;
+    }
+
+    private static int getInt(CommandLine cmd, String option, int defaultValue) {
+        String value = cmd.getOptionValue(option);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadStats {
+
+    private final LongAdder connected = new LongAdder();
+    private final LongAdder connectionErrors = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    public void onConnected() {
+        connected.increment();
+    }
+
+    public void onConnectionError() {
+        connectionErrors.increment();
+    }
+
+    public void onDisconnected() {
+        disconnected.increment();
+    }
+
+    public void onSent() {
+        sent.increment();
+    }
+
+    public void onAck(long latencyNanos) {
+        acked.increment();
+        latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    public void onError() {
+        errors.increment();
+    }
+
+    /**
+     * The publish was not sent because the client was disconnected or there were too many messages in flight.
+     */
+    public void onSkipped() {
+        skipped.increment();
+    }
+
+    public Snapshot getAndReset() {
+        return new Snapshot(connected.sum(), connectionErrors.sum(), disconnected.sumThenReset(), sent.sumThenReset(),
+                acked.sumThenReset(), errors.sumThenReset(), skipped.sumThenReset(), latencies.getAndReset());
+    }
+
+    public record Snapshot(long connected, long connectionErrors, long disconnected, long sent, long acked, long errors,
+                           long skipped, LatencyHistogram latencies) {
+    }
+
+}
@@ -13,23 +13,20 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.thingsboard.server.transport.mqtt.util;
+package org.thingsboard.client.tools.loadgen;
 
-import lombok.Data;
+public enum LoadTransportType {
 
-import java.util.regex.Pattern;
+    MQTT(1883), HTTP(8080), COAP(5683);
 
-@Data
-public class RegexTopicFilter implements MqttTopicFilter {
+    private final int defaultPort;
 
-    private final Pattern regex;
-
-    public RegexTopicFilter(String regex) {
-        this.regex = Pattern.compile(regex);
+    LoadTransportType(int defaultPort) {
+        this.defaultPort = defaultPort;
     }
 
-    @Override
-    public boolean filter(String topic) {
-        return regex.matcher(topic).matches();
+    public int getDefaultPort() {
+        return defaultPort;
     }
+
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import com.google.common.util.concurrent.Futures;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import org.thingsboard.common.util.ListeningExecutor;
+import org.thingsboard.mqtt.MqttClient;
+import org.thingsboard.mqtt.MqttClientCallback;
+import org.thingsboard.mqtt.MqttClientConfig;
+import org.thingsboard.mqtt.MqttConnectResult;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public class MqttLoadClient implements LoadClient {
+
+    private final String host;
+    private final int port;
+    private final String accessToken;
+    private final String topic;
+    private final MqttQoS qos;
+    private final EventLoopGroup eventLoop;
+    private final ListeningExecutor handlerExecutor;
+    private final Runnable onConnectionLost;
+
+    private volatile MqttClient client;
+
+    public MqttLoadClient(String host, int port, String accessToken, String topic, MqttQoS qos,
+                          EventLoopGroup eventLoop, ListeningExecutor handlerExecutor, Runnable onConnectionLost) {
+        this.host = host;
+        this.port = port;
+        this.accessToken = accessToken;
+        this.topic = topic;
+        this.qos = qos;
+        this.eventLoop = eventLoop;
+        this.handlerExecutor = handlerExecutor;
+        this.onConnectionLost = onConnectionLost;
+    }
+
+    @Override
+    public CompletableFuture<Void> connect() {
+        MqttClientConfig clientConfig = new MqttClientConfig();
+        clientConfig.setOwnerId(accessToken);
+        clientConfig.setClientId(accessToken);
+        clientConfig.setUsername(accessToken);
+        clientConfig.setReconnect(false);
+        MqttClient client = MqttClient.create(clientConfig, (topic, payload) -> Futures.immediateVoidFuture(), handlerExecutor);
+        // All the clients share the event loop, otherwise each of them would start its own threads
+        client.setEventLoop(eventLoop);
+        client.setCallback(new MqttClientCallback() {
+            @Override
+            public void connectionLost(Throwable cause) {
+                onConnectionLost.run();
+            }
+
+            @Override
+            public void onSuccessfulReconnect() {
+            }
+        });
+        this.client = client;
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        client.connect(host, port).addListener(future -> {
+            if (!future.isSuccess()) {
+                result.completeExceptionally(future.cause());
+                return;
+            }
+            MqttConnectResult connectResult = (MqttConnectResult) future.getNow();
+            if (connectResult.isSuccess()) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(new IOException("Connection refused: " + connectResult.getReturnCode()));
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public boolean isConnected() {
+        MqttClient client = this.client;
+        return client != null && client.isConnected();
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(byte[] payload) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        client.publish(topic, Unpooled.wrappedBuffer(payload), qos).addListener(future -> {
+            if (future.isSuccess()) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(future.cause());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() {
+        MqttClient client = this.client;
+        if (client != null) {
+            client.disconnect();
+        }
+    }
+
+}
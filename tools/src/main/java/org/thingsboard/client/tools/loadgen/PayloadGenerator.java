@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds the JSON telemetry payloads in the format of the device and gateway APIs.
+ */
+public class PayloadGenerator {
+
+    private static final String[] VALUE_TYPES = {"long", "double", "boolean", "string"};
+
+    private final int keys;
+    private final String valueType;
+
+    public PayloadGenerator(int keys, String valueType) {
+        this.keys = keys;
+        this.valueType = valueType;
+    }
+
+    public byte[] deviceTelemetry(long ts) {
+        StringBuilder sb = new StringBuilder(32 + keys * 24);
+        appendTsValues(sb, ts);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public byte[] gatewayTelemetry(List<String> deviceNames, long ts) {
+        StringBuilder sb = new StringBuilder(deviceNames.size() * (48 + keys * 24));
+        sb.append('{');
+        for (int i = 0; i < deviceNames.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(deviceNames.get(i)).append("\":[");
+            appendTsValues(sb, ts);
+            sb.append(']');
+        }
+        sb.append('}');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void appendTsValues(StringBuilder sb, long ts) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        sb.append("{\"ts\":").append(ts).append(",\"values\":{");
+        for (int i = 0; i < keys; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            String type = "mixed".equals(valueType) ? VALUE_TYPES[i % VALUE_TYPES.length] : valueType;
+            sb.append("\"key").append(i).append("\":");
+            switch (type) {
+                case "long" -> sb.append(random.nextLong(1_000_000));
+                case "double" -> sb.append(random.nextDouble() * 1000);
+                case "boolean" -> sb.append(random.nextBoolean());
+                case "string" -> sb.append("\"value").append(random.nextInt(1000)).append('"');
+                default -> throw new IllegalArgumentException("Unsupported value type: " + type);
+            }
+        }
+        sb.append("}}");
+    }
+
+    public int getDataPoints(int devices) {
+        return keys * devices;
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void givenSmallValues_whenRecord_thenEveryValueHasOwnBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 32; i++) {
+            histogram.record(i);
+        }
+
+        assertThat(histogram.getTotalCount()).isEqualTo(32);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(15);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(31);
+        assertThat(histogram.getMaxValue()).isEqualTo(31);
+    }
+
+    @Test
+    public void givenLargeValues_whenGetBucket_thenHighestEquivalentValueIsWithinPrecision() {
+        for (long value = 32; value < (1L << 40); value = value * 3 / 2 + 7) {
+            long highestEquivalentValue = LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(value));
+            assertThat(highestEquivalentValue).isBetween(value, value + value / 32);
+        }
+        assertThat(LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(1000))).isEqualTo(1007);
+        assertThat(LatencyHistogram.index(1008)).isEqualTo(LatencyHistogram.index(1007) + 1);
+    }
+
+    @Test
+    public void givenRecordedValues_whenGetValueAtPercentile_thenReturnBucketOfPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(100_000);
+
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(101);
+        assertThat(histogram.getValueAtPercentile(99)).isEqualTo(101);
+        assertThat(histogram.getValueAtPercentile(99.9)).isBetween(100_000L, 100_000L + 100_000L / 32);
+        assertThat(histogram.getMaxValue()).isEqualTo(histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void givenEmptyHistogram_whenGetValueAtPercentile_thenReturnZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getValueAtPercentile(99)).isZero();
+        assertThat(histogram.getMaxValue()).isZero();
+    }
+
+    @Test
+    public void givenValueAboveRange_whenRecord_thenCountInLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(1L << 42);
+
+        assertThat(LatencyHistogram.index(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.index(1L << 42));
+        assertThat(histogram.getTotalCount()).isEqualTo(2);
+        assertThat(histogram.getMaxValue()).isGreaterThanOrEqualTo(1L << 40);
+    }
+
+    @Test
+    public void givenRecordedValues_whenGetAndResetAndAdd_thenMoveCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(5000);
+
+        LatencyHistogram snapshot = histogram.getAndReset();
+        LatencyHistogram total = new LatencyHistogram();
+        total.add(snapshot);
+        total.add(snapshot);
+
+        assertThat(histogram.getTotalCount()).isZero();
+        assertThat(snapshot.getTotalCount()).isEqualTo(2);
+        assertThat(total.getTotalCount()).isEqualTo(4);
+        assertThat(total.getValueAtPercentile(50)).isEqualTo(10);
+    }
+
+}
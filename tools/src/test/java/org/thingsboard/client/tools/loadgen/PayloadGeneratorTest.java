@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2016-2024 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.client.tools.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PayloadGeneratorTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void givenMixedValueType_whenDeviceTelemetry_thenCycleValueTypesOverKeys() throws Exception {
+        PayloadGenerator generator = new PayloadGenerator(5, "mixed");
+
+        JsonNode payload = mapper.readTree(generator.deviceTelemetry(123L));
+
+        assertThat(payload.get("ts").asLong()).isEqualTo(123L);
+        JsonNode values = payload.get("values");
+        assertThat(values.size()).isEqualTo(5);
+        assertThat(values.get("key0").isIntegralNumber()).isTrue();
+        assertThat(values.get("key1").isFloatingPointNumber()).isTrue();
+        assertThat(values.get("key2").isBoolean()).isTrue();
+        assertThat(values.get("key3").asText()).startsWith("value");
+        assertThat(values.get("key4").isIntegralNumber()).isTrue();
+    }
+
+    @Test
+    public void givenDevices_whenGatewayTelemetry_thenOneTsValuesArrayPerDevice() throws Exception {
+        PayloadGenerator generator = new PayloadGenerator(3, "double");
+
+        JsonNode payload = mapper.readTree(generator.gatewayTelemetry(List.of("Device A", "Device B"), 456L));
+
+        assertThat(payload.size()).isEqualTo(2);
+        for (String deviceName : List.of("Device A", "Device B")) {
+            JsonNode deviceTelemetry = payload.get(deviceName);
+            assertThat(deviceTelemetry.isArray()).isTrue();
+            assertThat(deviceTelemetry.size()).isEqualTo(1);
+            assertThat(deviceTelemetry.get(0).get("ts").asLong()).isEqualTo(456L);
+            assertThat(deviceTelemetry.get(0).get("values").size()).isEqualTo(3);
+            deviceTelemetry.get(0).get("values").forEach(value -> assertThat(value.isFloatingPointNumber()).isTrue());
+        }
+        assertThat(generator.getDataPoints(2)).isEqualTo(6);
+    }
+
+    @Test
+    public void givenUnsupportedValueType_whenDeviceTelemetry_thenThrowException() {
+        PayloadGenerator generator = new PayloadGenerator(1, "json");
+
+        assertThatThrownBy(() -> generator.deviceTelemetry(1L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported value type: json");
+    }
+
+}